@@ -0,0 +1,63 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables.benchmark;
+
+import edu.wpi.first.util.struct.Struct;
+import java.nio.ByteBuffer;
+
+/** Struct payload used for struct array benchmarks. The first element carries the send time. */
+final class BenchSample {
+  long m_time;
+  double m_x;
+  double m_y;
+  double m_z;
+
+  static final BenchSampleStruct struct = new BenchSampleStruct();
+
+  static final class BenchSampleStruct implements Struct<BenchSample> {
+    @Override
+    public Class<BenchSample> getTypeClass() {
+      return BenchSample.class;
+    }
+
+    @Override
+    public String getTypeString() {
+      return "struct:BenchSample";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeInt64 + kSizeDouble * 3;
+    }
+
+    @Override
+    public String getSchema() {
+      return "int64 time;double x;double y;double z";
+    }
+
+    @Override
+    public BenchSample unpack(ByteBuffer bb) {
+      BenchSample value = new BenchSample();
+      unpackInto(value, bb);
+      return value;
+    }
+
+    @Override
+    public void unpackInto(BenchSample out, ByteBuffer bb) {
+      out.m_time = bb.getLong();
+      out.m_x = bb.getDouble();
+      out.m_y = bb.getDouble();
+      out.m_z = bb.getDouble();
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, BenchSample value) {
+      bb.putLong(value.m_time);
+      bb.putDouble(value.m_x);
+      bb.putDouble(value.m_y);
+      bb.putDouble(value.m_z);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Records publish-to-receive latency samples. Once the sample buffer is full, reservoir sampling
+ * keeps a uniform random subset of all recorded values, so memory use is bounded regardless of
+ * run length. The count and maximum always cover every recorded value.
+ *
+ * <p>Only values sent at or after the window start given to reset() are recorded, so values
+ * published before the measurement started are not counted even if they arrive after it.
+ */
+final class LatencyRecorder {
+  private final long[] m_samples;
+  private int m_size;
+  private long m_count;
+  private long m_max;
+  private long m_windowStart = Long.MAX_VALUE;
+  private long m_rng = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Constructs a recorder.
+   *
+   * @param capacity maximum number of samples to retain
+   */
+  LatencyRecorder(int capacity) {
+    m_samples = new long[capacity];
+  }
+
+  /**
+   * Records a latency sample, if the value was sent inside the measurement window.
+   *
+   * @param sendTime time the value was sent, in NT microseconds
+   * @param receiveTime time the value was received, in NT microseconds
+   */
+  synchronized void record(long sendTime, long receiveTime) {
+    if (sendTime < m_windowStart) {
+      return;
+    }
+    long latency = receiveTime - sendTime;
+    m_count++;
+    if (latency > m_max) {
+      m_max = latency;
+    }
+    if (m_size < m_samples.length) {
+      m_samples[m_size++] = latency;
+      return;
+    }
+    m_rng ^= m_rng << 13;
+    m_rng ^= m_rng >>> 7;
+    m_rng ^= m_rng << 17;
+    long index = Long.remainderUnsigned(m_rng, m_count);
+    if (index < m_samples.length) {
+      m_samples[(int) index] = latency;
+    }
+  }
+
+  /**
+   * Discards all samples and starts a new measurement window.
+   *
+   * @param windowStart earliest send time to record, in NT microseconds
+   */
+  synchronized void reset(long windowStart) {
+    m_windowStart = windowStart;
+    m_size = 0;
+    m_count = 0;
+    m_max = 0;
+  }
+
+  /**
+   * Gets the number of values recorded since the last reset.
+   *
+   * @return count
+   */
+  synchronized long getCount() {
+    return m_count;
+  }
+
+  /**
+   * Gets the maximum latency recorded since the last reset.
+   *
+   * @return maximum latency in microseconds
+   */
+  synchronized long getMax() {
+    return m_max;
+  }
+
+  /**
+   * Gets a copy of the retained samples.
+   *
+   * @return samples, in no particular order
+   */
+  synchronized long[] getSamples() {
+    return Arrays.copyOf(m_samples, m_size);
+  }
+}
@@ -0,0 +1,578 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables.benchmark;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StructArraySubscriber;
+import edu.wpi.first.networktables.Subscriber;
+import edu.wpi.first.util.struct.StructBuffer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * NetworkTables loopback benchmark. Starts a server instance and one or more client instances in
+ * this process, connected over localhost, publishes timestamped values from the server, and
+ * measures publish-to-receive latency, delivered value rate, and process CPU time on the clients.
+ *
+ * <p>Every combination of the topic counts, value types, and consumption modes given on the
+ * command line is run as a separate scenario. Each scenario's results are written as one JSON
+ * object per line, to standard output or to the file given by --output. Progress is written to
+ * standard error.
+ *
+ * <p>Options (all optional, in --name=value form):
+ *
+ * <ul>
+ *   <li>clients: number of client instances (default 1)
+ *   <li>topics: comma-separated topic counts (default 10,100,1000,10000)
+ *   <li>types: comma-separated value types: double, doubleArray, structArray (default all)
+ *   <li>modes: comma-separated consumption modes: listener, poll (default both)
+ *   <li>rate: publish rounds per second, each updating every topic; 0 publishes as fast as
+ *       possible to find the maximum sustainable rate (default 100)
+ *   <li>warmup: warmup time per scenario, in seconds (default 2)
+ *   <li>duration: measurement time per scenario, in seconds (default 5)
+ *   <li>periodic: subscriber update period, in seconds (default 0.005)
+ *   <li>arrayLength: double array and struct array length (default 64)
+ *   <li>pollStorage: subscriber queue depth for poll mode (default 64)
+ *   <li>pollPeriod: poll mode loop period, in milliseconds (default 1)
+ *   <li>port: NT4 port of the first scenario; each scenario uses the next port (default 5830)
+ *   <li>output: file to append results to (default standard output)
+ * </ul>
+ */
+public final class LoopbackBenchmark {
+  private static final String kPrefix = "/bench/";
+
+  private final Map<String, String> m_options;
+  private final int m_clients;
+  private final double m_rate;
+  private final double m_warmup;
+  private final double m_duration;
+  private final double m_periodic;
+  private final int m_arrayLength;
+  private final int m_pollStorage;
+  private final int m_pollPeriod;
+
+  private LoopbackBenchmark(Map<String, String> options) {
+    m_options = options;
+    m_clients = Integer.parseInt(option("clients", "1"));
+    m_rate = Double.parseDouble(option("rate", "100"));
+    m_warmup = Double.parseDouble(option("warmup", "2"));
+    m_duration = Double.parseDouble(option("duration", "5"));
+    m_periodic = Double.parseDouble(option("periodic", "0.005"));
+    m_arrayLength = Integer.parseInt(option("arrayLength", "64"));
+    m_pollStorage = Integer.parseInt(option("pollStorage", "64"));
+    m_pollPeriod = Integer.parseInt(option("pollPeriod", "1"));
+  }
+
+  private String option(String name, String defaultValue) {
+    return m_options.getOrDefault(name, defaultValue);
+  }
+
+  /** Value types that can be benchmarked. */
+  private enum ValueType {
+    kDouble("double"),
+    kDoubleArray("doubleArray"),
+    kStructArray("structArray");
+
+    final String m_name;
+
+    ValueType(String name) {
+      m_name = name;
+    }
+
+    static ValueType fromName(String name) {
+      for (ValueType type : values()) {
+        if (type.m_name.equals(name)) {
+          return type;
+        }
+      }
+      throw new IllegalArgumentException("unknown value type: " + name);
+    }
+  }
+
+  /** Publishes one value on every topic. */
+  private interface RoundPublisher extends AutoCloseable {
+    void publish(long time);
+
+    @Override
+    void close();
+  }
+
+  /** Receives values on one client and records their latency. */
+  private abstract class ClientConsumer implements AutoCloseable {
+    final NetworkTableInstance m_inst;
+    final LatencyRecorder m_recorder = new LatencyRecorder(1 << 20);
+    final List<Subscriber> m_subs = new ArrayList<>();
+    final List<Integer> m_listeners = new ArrayList<>();
+    Thread m_thread;
+    volatile boolean m_running = true;
+
+    ClientConsumer(NetworkTableInstance inst) {
+      m_inst = inst;
+    }
+
+    PubSubOption[] options(boolean poll) {
+      return new PubSubOption[] {
+        PubSubOption.sendAll(true),
+        PubSubOption.periodic(m_periodic),
+        PubSubOption.pollStorage(poll ? m_pollStorage : 1)
+      };
+    }
+
+    void start(boolean listener) {
+      if (listener) {
+        for (Subscriber sub : m_subs) {
+          m_listeners.add(
+              m_inst.addListener(
+                  sub,
+                  EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+                  event -> onValue(event.valueData.value)));
+        }
+        return;
+      }
+      m_thread =
+          new Thread(
+              () -> {
+                while (m_running) {
+                  poll();
+                  LockSupport.parkNanos(m_pollPeriod * 1000000L);
+                }
+              },
+              "NTBenchPoll");
+      m_thread.setDaemon(true);
+      m_thread.start();
+    }
+
+    void record(long sendTime) {
+      m_recorder.record(sendTime, NetworkTablesJNI.now());
+    }
+
+    abstract void onValue(NetworkTableValue value);
+
+    abstract void poll();
+
+    @Override
+    public void close() {
+      m_running = false;
+      if (m_thread != null) {
+        try {
+          m_thread.join();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      for (int listener : m_listeners) {
+        m_inst.removeListener(listener);
+      }
+      for (Subscriber sub : m_subs) {
+        sub.close();
+      }
+    }
+  }
+
+  private RoundPublisher createPublisher(NetworkTableInstance inst, ValueType type, int topics) {
+    switch (type) {
+      case kDouble:
+        {
+          DoublePublisher[] pubs = new DoublePublisher[topics];
+          for (int i = 0; i < topics; i++) {
+            pubs[i] = inst.getDoubleTopic(kPrefix + i).publish(PubSubOption.sendAll(true));
+          }
+          return new RoundPublisher() {
+            @Override
+            public void publish(long time) {
+              for (DoublePublisher pub : pubs) {
+                pub.set(time, time);
+              }
+            }
+
+            @Override
+            public void close() {
+              for (DoublePublisher pub : pubs) {
+                pub.close();
+              }
+            }
+          };
+        }
+      case kDoubleArray:
+        {
+          DoubleArrayPublisher[] pubs = new DoubleArrayPublisher[topics];
+          for (int i = 0; i < topics; i++) {
+            pubs[i] = inst.getDoubleArrayTopic(kPrefix + i).publish(PubSubOption.sendAll(true));
+          }
+          double[] value = new double[m_arrayLength];
+          return new RoundPublisher() {
+            @Override
+            public void publish(long time) {
+              value[0] = time;
+              for (DoubleArrayPublisher pub : pubs) {
+                pub.set(value, time);
+              }
+            }
+
+            @Override
+            public void close() {
+              for (DoubleArrayPublisher pub : pubs) {
+                pub.close();
+              }
+            }
+          };
+        }
+      default:
+        {
+          List<StructArrayPublisher<BenchSample>> pubs = new ArrayList<>();
+          for (int i = 0; i < topics; i++) {
+            pubs.add(
+                inst.getStructArrayTopic(kPrefix + i, BenchSample.struct)
+                    .publish(PubSubOption.sendAll(true)));
+          }
+          BenchSample[] value = new BenchSample[m_arrayLength];
+          for (int i = 0; i < value.length; i++) {
+            value[i] = new BenchSample();
+          }
+          return new RoundPublisher() {
+            @Override
+            public void publish(long time) {
+              value[0].m_time = time;
+              for (StructArrayPublisher<BenchSample> pub : pubs) {
+                pub.set(value, time);
+              }
+            }
+
+            @Override
+            public void close() {
+              for (StructArrayPublisher<BenchSample> pub : pubs) {
+                pub.close();
+              }
+            }
+          };
+        }
+    }
+  }
+
+  private ClientConsumer createConsumer(
+      NetworkTableInstance inst, ValueType type, int topics, boolean listener) {
+    switch (type) {
+      case kDouble:
+        return new ClientConsumer(inst) {
+          final DoubleSubscriber[] m_typed = new DoubleSubscriber[topics];
+          final long[] m_times = new long[m_pollStorage];
+          final double[] m_values = new double[m_pollStorage];
+
+          {
+            for (int i = 0; i < topics; i++) {
+              m_typed[i] = inst.getDoubleTopic(kPrefix + i).subscribe(0, options(!listener));
+              m_subs.add(m_typed[i]);
+            }
+          }
+
+          @Override
+          void onValue(NetworkTableValue value) {
+            record((long) value.getDouble());
+          }
+
+          @Override
+          void poll() {
+            for (DoubleSubscriber sub : m_typed) {
+              int count;
+              do {
+                count = sub.readQueueInto(m_times, null, m_values);
+                for (int i = 0; i < count; i++) {
+                  record((long) m_values[i]);
+                }
+              } while (count == m_values.length);
+            }
+          }
+        };
+      case kDoubleArray:
+        return new ClientConsumer(inst) {
+          final DoubleArraySubscriber[] m_typed = new DoubleArraySubscriber[topics];
+
+          {
+            for (int i = 0; i < topics; i++) {
+              m_typed[i] =
+                  inst.getDoubleArrayTopic(kPrefix + i)
+                      .subscribe(new double[] {}, options(!listener));
+              m_subs.add(m_typed[i]);
+            }
+          }
+
+          @Override
+          void onValue(NetworkTableValue value) {
+            record((long) value.getDoubleArray()[0]);
+          }
+
+          @Override
+          void poll() {
+            for (DoubleArraySubscriber sub : m_typed) {
+              for (double[] value : sub.readQueueValues()) {
+                record((long) value[0]);
+              }
+            }
+          }
+        };
+      default:
+        return new ClientConsumer(inst) {
+          final List<StructArraySubscriber<BenchSample>> m_typed = new ArrayList<>();
+
+          final StructBuffer<BenchSample> m_buf = StructBuffer.create(BenchSample.struct);
+
+          {
+            for (int i = 0; i < topics; i++) {
+              m_typed.add(
+                  inst.getStructArrayTopic(kPrefix + i, BenchSample.struct)
+                      .subscribe(new BenchSample[] {}, options(!listener)));
+              m_subs.add(m_typed.get(i));
+            }
+          }
+
+          @Override
+          void onValue(NetworkTableValue value) {
+            record(m_buf.readArray(value.getRaw())[0].m_time);
+          }
+
+          @Override
+          void poll() {
+            for (StructArraySubscriber<BenchSample> sub : m_typed) {
+              for (BenchSample[] value : sub.readQueueValues()) {
+                record(value[0].m_time);
+              }
+            }
+          }
+        };
+    }
+  }
+
+  private static long getProcessCpuNanos() {
+    OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+    if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  private static void waitForConnection(List<NetworkTableInstance> clients) {
+    long deadline = System.nanoTime() + 5000000000L;
+    for (NetworkTableInstance client : clients) {
+      while (!client.isConnected()) {
+        if (System.nanoTime() > deadline) {
+          throw new IllegalStateException("clients did not connect to server");
+        }
+        LockSupport.parkNanos(10000000L);
+      }
+    }
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+  }
+
+  private String runScenario(int topics, ValueType type, boolean listener, int port)
+      throws IOException {
+    File persist = File.createTempFile("ntbench", ".json");
+    persist.deleteOnExit();
+    NetworkTableInstance server = NetworkTableInstance.create();
+    server.startServer(persist.getPath(), "127.0.0.1", 0, port);
+    List<NetworkTableInstance> clients = new ArrayList<>();
+    List<ClientConsumer> consumers = new ArrayList<>();
+    RoundPublisher publisher = null;
+    try {
+      for (int i = 0; i < m_clients; i++) {
+        NetworkTableInstance client = NetworkTableInstance.create();
+        client.startClient4("bench" + i);
+        client.setServer("127.0.0.1", port);
+        clients.add(client);
+      }
+      waitForConnection(clients);
+
+      publisher = createPublisher(server, type, topics);
+      for (NetworkTableInstance client : clients) {
+        ClientConsumer consumer = createConsumer(client, type, topics, listener);
+        consumer.start(listener);
+        consumers.add(consumer);
+      }
+
+      long periodNanos = m_rate > 0 ? (long) (1e9 / m_rate) : 0;
+      long startNanos = System.nanoTime();
+      long measureNanos = startNanos + (long) (m_warmup * 1e9);
+      long endNanos = measureNanos + (long) (m_duration * 1e9);
+      long nextNanos = startNanos;
+      boolean measuring = false;
+      long rounds = 0;
+      long cpuStart = 0;
+      long lastSendTime = 0;
+      long now;
+      while ((now = System.nanoTime()) < endNanos) {
+        if (!measuring && now >= measureNanos) {
+          measuring = true;
+          // only count values sent from here on; warmup values still in flight are ignored
+          long windowStart;
+          do {
+            windowStart = NetworkTablesJNI.now();
+          } while (windowStart <= lastSendTime);
+          for (ClientConsumer consumer : consumers) {
+            consumer.m_recorder.reset(windowStart);
+          }
+          cpuStart = getProcessCpuNanos();
+          measureNanos = now;
+        }
+        lastSendTime = NetworkTablesJNI.now();
+        publisher.publish(lastSendTime);
+        server.flush();
+        if (measuring) {
+          rounds++;
+        }
+        if (periodNanos > 0) {
+          nextNanos += periodNanos;
+          long sleep = nextNanos - System.nanoTime();
+          if (sleep > 0) {
+            LockSupport.parkNanos(sleep);
+          }
+        }
+      }
+      long wallNanos = System.nanoTime() - measureNanos;
+      long cpuNanos = getProcessCpuNanos() - cpuStart;
+
+      // let values in flight arrive; they were sent inside the window, so they count as
+      // received values of the sends counted in sentValues
+      LockSupport.parkNanos(500000000L);
+      for (NetworkTableInstance client : clients) {
+        client.waitForListenerQueue(1.0);
+      }
+
+      long received = 0;
+      long max = 0;
+      long[] samples = new long[0];
+      for (ClientConsumer consumer : consumers) {
+        received += consumer.m_recorder.getCount();
+        max = Math.max(max, consumer.m_recorder.getMax());
+        long[] clientSamples = consumer.m_recorder.getSamples();
+        int offset = samples.length;
+        samples = Arrays.copyOf(samples, offset + clientSamples.length);
+        System.arraycopy(clientSamples, 0, samples, offset, clientSamples.length);
+      }
+      Arrays.sort(samples);
+
+      long sent = rounds * topics;
+      double seconds = wallNanos / 1e9;
+      return String.format(
+          Locale.ROOT,
+          "{\"topics\":%d,\"type\":\"%s\",\"mode\":\"%s\",\"clients\":%d,\"rate\":%s,"
+              + "\"arrayLength\":%d,\"durationSec\":%.3f,\"sentValues\":%d,"
+              + "\"expectedValues\":%d,\"receivedValues\":%d,\"deliveryRatio\":%.4f,"
+              + "\"receivedPerSec\":%.1f,\"latencyUs\":{\"p50\":%d,\"p90\":%d,\"p99\":%d,"
+              + "\"p999\":%d,\"max\":%d},\"cpuSec\":%.3f,\"cpuPercent\":%.1f,"
+              + "\"cpuUsPerValue\":%.3f}",
+          topics,
+          type.m_name,
+          listener ? "listener" : "poll",
+          m_clients,
+          m_rate > 0 ? Double.toString(m_rate) : "\"max\"",
+          m_arrayLength,
+          seconds,
+          sent,
+          sent * m_clients,
+          received,
+          sent == 0 ? 0.0 : (double) received / (sent * m_clients),
+          received / seconds,
+          percentile(samples, 0.5),
+          percentile(samples, 0.9),
+          percentile(samples, 0.99),
+          percentile(samples, 0.999),
+          max,
+          cpuNanos / 1e9,
+          cpuNanos * 100.0 / wallNanos,
+          received == 0 ? 0.0 : cpuNanos / 1e3 / received);
+    } finally {
+      for (ClientConsumer consumer : consumers) {
+        consumer.close();
+      }
+      if (publisher != null) {
+        publisher.close();
+      }
+      for (NetworkTableInstance client : clients) {
+        client.close();
+      }
+      server.close();
+    }
+  }
+
+  private static List<String> split(String value) {
+    return Arrays.asList(value.split(","));
+  }
+
+  private void run() throws IOException {
+    String output = m_options.get("output");
+    PrintWriter out =
+        output != null
+            ? new PrintWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(output, true), StandardCharsets.UTF_8),
+                true)
+            : new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+    int port = Integer.parseInt(option("port", "5830"));
+    for (String topics : split(option("topics", "10,100,1000,10000"))) {
+      for (String type : split(option("types", "double,doubleArray,structArray"))) {
+        for (String mode : split(option("modes", "listener,poll"))) {
+          if (!"listener".equals(mode) && !"poll".equals(mode)) {
+            throw new IllegalArgumentException("unknown mode: " + mode);
+          }
+          System.err.println(
+              "Running topics=" + topics + " type=" + type + " mode=" + mode + "...");
+          boolean listener = "listener".equals(mode);
+          out.println(
+              runScenario(Integer.parseInt(topics), ValueType.fromName(type), listener, port++));
+        }
+      }
+    }
+    if (output != null) {
+      out.close();
+    }
+  }
+
+  /**
+   * Main entry point.
+   *
+   * @param args command line arguments, in --name=value form
+   * @throws IOException if the output file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (!arg.startsWith("--") || eq < 0) {
+        throw new IllegalArgumentException("expected --name=value, got " + arg);
+      }
+      options.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    new LoopbackBenchmark(options).run();
+  }
+}
@@ -57,6 +57,11 @@ final class BooleanEntryImpl extends EntryBase implements BooleanEntry {
     return NetworkTablesJNI.readQueueValuesBoolean(m_handle);
   }
 
+  @Override
+  public int readQueueInto(long[] times, long[] serverTimes, boolean[] values) {
+    return NetworkTablesJNI.readQueueIntoBoolean(m_handle, times, serverTimes, values);
+  }
+
   @Override
   public void set(boolean value, long time) {
     NetworkTablesJNI.setBoolean(m_handle, time, value);
@@ -57,6 +57,11 @@ final class DoubleEntryImpl extends EntryBase implements DoubleEntry {
     return NetworkTablesJNI.readQueueValuesDouble(m_handle);
   }
 
+  @Override
+  public int readQueueInto(long[] times, long[] serverTimes, double[] values) {
+    return NetworkTablesJNI.readQueueIntoDouble(m_handle, times, serverTimes, values);
+  }
+
   @Override
   public void set(double value, long time) {
     NetworkTablesJNI.setDouble(m_handle, time, value);
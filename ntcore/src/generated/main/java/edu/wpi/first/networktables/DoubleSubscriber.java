@@ -82,4 +82,36 @@ public interface DoubleSubscriber extends Subscriber, DoubleSupplier {
    *     published since the previous call.
    */
   double[] readQueueValues();
+
+  /**
+   * Read value changes since the last call to readQueue into caller-provided arrays. Changes are
+   * read in the order they were received, up to the length of the values array. Subscribers
+   * returned by NetworkTables do not allocate and leave any remaining changes queued for the next
+   * call; the default implementation is built on readQueue(), so it allocates and discards changes
+   * that don't fit.
+   *
+   * <p>The "poll storage" subscribe option can be used to set the queue
+   * depth.
+   *
+   * @param times array to store local timestamps (in microseconds) in, or null; if not null,
+   *     must be at least as long as values
+   * @param serverTimes array to store server timestamps in, or null; if not null, must be at
+   *     least as long as values
+   * @param values array to store values in
+   * @return Number of values read
+   */
+  default int readQueueInto(long[] times, long[] serverTimes, double[] values) {
+    TimestampedDouble[] queue = readQueue();
+    int count = Math.min(queue.length, values.length);
+    for (int i = 0; i < count; i++) {
+      if (times != null) {
+        times[i] = queue[i].timestamp;
+      }
+      if (serverTimes != null) {
+        serverTimes[i] = queue[i].serverTime;
+      }
+      values[i] = queue[i].value;
+    }
+    return count;
+  }
 }
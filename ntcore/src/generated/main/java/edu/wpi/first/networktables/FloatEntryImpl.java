@@ -57,6 +57,11 @@ final class FloatEntryImpl extends EntryBase implements FloatEntry {
     return NetworkTablesJNI.readQueueValuesFloat(m_handle);
   }
 
+  @Override
+  public int readQueueInto(long[] times, long[] serverTimes, float[] values) {
+    return NetworkTablesJNI.readQueueIntoFloat(m_handle, times, serverTimes, values);
+  }
+
   @Override
   public void set(float value, long time) {
     NetworkTablesJNI.setFloat(m_handle, time, value);
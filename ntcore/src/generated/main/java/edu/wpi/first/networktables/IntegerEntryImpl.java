@@ -57,6 +57,11 @@ final class IntegerEntryImpl extends EntryBase implements IntegerEntry {
     return NetworkTablesJNI.readQueueValuesInteger(m_handle);
   }
 
+  @Override
+  public int readQueueInto(long[] times, long[] serverTimes, long[] values) {
+    return NetworkTablesJNI.readQueueIntoInteger(m_handle, times, serverTimes, values);
+  }
+
   @Override
   public void set(long value, long time) {
     NetworkTablesJNI.setInteger(m_handle, time, value);
@@ -13,14 +13,17 @@ import edu.wpi.first.util.protobuf.Protobuf;
 import edu.wpi.first.util.struct.Struct;
 import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -94,6 +97,9 @@ public final class NetworkTableInstance implements AutoCloseable {
   public synchronized void close() {
     if (m_owned && m_handle != 0) {
       m_listeners.close();
+      if (m_topicIndex != null) {
+        m_topicIndex.close();
+      }
       m_schemas.forEach((k, v) -> v.close());
       NetworkTablesJNI.destroyInstance(m_handle);
       m_handle = 0;
@@ -764,13 +770,144 @@ public final class NetworkTableInstance implements AutoCloseable {
     return table;
   }
 
+  private TopicIndex m_topicIndex;
+
+  /**
+   * Gets the topic index for this instance. The index is created on first use and is updated
+   * incrementally from topic publish and unpublish events, providing fast table and subtree
+   * queries for large topic trees.
+   *
+   * @return Topic index
+   */
+  public synchronized TopicIndex getTopicIndex() {
+    if (m_topicIndex == null) {
+      m_topicIndex = new TopicIndex(this);
+    }
+    return m_topicIndex;
+  }
+
   /*
    * Callback Creation Functions
    */
 
+  private static final class ListenerEntry implements Runnable {
+    private static final class QueuedEvent {
+      final NetworkTableEvent m_event;
+      final long m_time;
+
+      QueuedEvent(NetworkTableEvent event, long time) {
+        m_event = event;
+        m_time = time;
+      }
+    }
+
+    private final Consumer<NetworkTableEvent> m_callback;
+    private final Executor m_executor;
+    private final ConcurrentLinkedQueue<QueuedEvent> m_queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger m_pending = new AtomicInteger();
+    private final AtomicInteger m_maxPending = new AtomicInteger();
+    private final AtomicLong m_count = new AtomicLong();
+    private final AtomicLong m_totalLatency = new AtomicLong();
+    private final AtomicLong m_maxLatency = new AtomicLong();
+    private final AtomicLong m_totalRun = new AtomicLong();
+    private final AtomicLong m_maxRun = new AtomicLong();
+    private volatile boolean m_removed;
+
+    ListenerEntry(Executor executor, Consumer<NetworkTableEvent> callback) {
+      m_executor = executor;
+      m_callback = callback;
+    }
+
+    // Called only from the listener thread. Events for an executor listener are queued and
+    // drained by at most one task at a time, which preserves their order.
+    void dispatch(NetworkTableEvent event) {
+      long now = System.nanoTime();
+      if (m_executor == null) {
+        invoke(event, now);
+        return;
+      }
+      m_queue.add(new QueuedEvent(event, now));
+      int pending = m_pending.incrementAndGet();
+      m_maxPending.accumulateAndGet(pending, Math::max);
+      if (pending == 1) {
+        try {
+          m_executor.execute(this);
+        } catch (RejectedExecutionException ex) {
+          run();
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      do {
+        QueuedEvent queued = m_queue.poll();
+        invoke(queued.m_event, queued.m_time);
+      } while (m_pending.decrementAndGet() != 0);
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    private void invoke(NetworkTableEvent event, long queuedTime) {
+      if (m_removed) {
+        return;
+      }
+      long start = System.nanoTime();
+      try {
+        m_callback.accept(event);
+      } catch (Throwable throwable) {
+        System.err.println(
+            "Unhandled exception during listener callback: " + throwable.toString());
+        throwable.printStackTrace();
+      }
+      long end = System.nanoTime();
+      m_count.incrementAndGet();
+      m_totalLatency.addAndGet(end - queuedTime);
+      m_maxLatency.accumulateAndGet(end - queuedTime, Math::max);
+      m_totalRun.addAndGet(end - start);
+      m_maxRun.accumulateAndGet(end - start, Math::max);
+    }
+
+    void remove() {
+      m_removed = true;
+    }
+
+    // Returns false if the deadline passed before all queued events were processed.
+    synchronized boolean awaitIdle(boolean forever, long deadline) {
+      try {
+        while (m_pending.get() != 0) {
+          if (forever) {
+            wait();
+          } else {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+              return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return true;
+    }
+
+    ListenerMetrics getMetrics() {
+      return new ListenerMetrics(
+          m_pending.get(),
+          m_maxPending.get(),
+          m_count.get(),
+          m_totalLatency.get(),
+          m_maxLatency.get(),
+          m_totalRun.get(),
+          m_maxRun.get());
+    }
+  }
+
   private static class ListenerStorage implements AutoCloseable {
     private final ReentrantLock m_lock = new ReentrantLock();
-    private final Map<Integer, Consumer<NetworkTableEvent>> m_listeners = new HashMap<>();
+    private final ConcurrentMap<Integer, ListenerEntry> m_listeners = new ConcurrentHashMap<>();
     private Thread m_thread;
     private int m_poller;
     private boolean m_waitQueue;
@@ -785,6 +922,7 @@ public final class NetworkTableInstance implements AutoCloseable {
     int add(
         String[] prefixes,
         EnumSet<NetworkTableEvent.Kind> eventKinds,
+        Executor executor,
         Consumer<NetworkTableEvent> listener) {
       m_lock.lock();
       try {
@@ -793,7 +931,7 @@ public final class NetworkTableInstance implements AutoCloseable {
           startThread();
         }
         int h = NetworkTablesJNI.addListener(m_poller, prefixes, eventKinds);
-        m_listeners.put(h, listener);
+        m_listeners.put(h, new ListenerEntry(executor, listener));
         return h;
       } finally {
         m_lock.unlock();
@@ -803,6 +941,7 @@ public final class NetworkTableInstance implements AutoCloseable {
     int add(
         int handle,
         EnumSet<NetworkTableEvent.Kind> eventKinds,
+        Executor executor,
         Consumer<NetworkTableEvent> listener) {
       m_lock.lock();
       try {
@@ -811,7 +950,7 @@ public final class NetworkTableInstance implements AutoCloseable {
           startThread();
         }
         int h = NetworkTablesJNI.addListener(m_poller, handle, eventKinds);
-        m_listeners.put(h, listener);
+        m_listeners.put(h, new ListenerEntry(executor, listener));
         return h;
       } finally {
         m_lock.unlock();
@@ -826,7 +965,7 @@ public final class NetworkTableInstance implements AutoCloseable {
           startThread();
         }
         int h = NetworkTablesJNI.addLogger(m_poller, minLevel, maxLevel);
-        m_listeners.put(h, listener);
+        m_listeners.put(h, new ListenerEntry(null, listener));
         return h;
       } finally {
         m_lock.unlock();
@@ -834,13 +973,34 @@ public final class NetworkTableInstance implements AutoCloseable {
     }
 
     void remove(int listener) {
+      ListenerEntry entry = m_listeners.remove(listener);
+      if (entry != null) {
+        entry.remove();
+      }
+      NetworkTablesJNI.removeListener(listener);
+    }
+
+    /**
+     * Looks up a listener for dispatch. Events (e.g. immediate notifications) can be queued by
+     * NetworkTablesJNI.addListener() before add() has stored the entry, so on a miss this waits
+     * for any add() in progress and looks again.
+     */
+    private ListenerEntry getEntry(int listener) {
+      ListenerEntry entry = m_listeners.get(listener);
+      if (entry != null) {
+        return entry;
+      }
       m_lock.lock();
       try {
-        m_listeners.remove(listener);
+        return m_listeners.get(listener);
       } finally {
         m_lock.unlock();
       }
-      NetworkTablesJNI.removeListener(listener);
+    }
+
+    ListenerMetrics getMetrics(int listener) {
+      ListenerEntry entry = m_listeners.get(listener);
+      return entry != null ? entry.getMetrics() : null;
     }
 
     @Override
@@ -877,22 +1037,9 @@ public final class NetworkTableInstance implements AutoCloseable {
                   }
                   for (NetworkTableEvent event :
                       NetworkTablesJNI.readListenerQueue(m_inst, m_poller)) {
-                    Consumer<NetworkTableEvent> listener;
-                    m_lock.lock();
-                    try {
-                      listener = m_listeners.get(event.listener);
-                    } finally {
-                      m_lock.unlock();
-                    }
-                    if (listener != null) {
-                      try {
-                        listener.accept(event);
-                      } catch (Throwable throwable) {
-                        System.err.println(
-                            "Unhandled exception during listener callback: "
-                            + throwable.toString());
-                        throwable.printStackTrace();
-                      }
+                    ListenerEntry entry = getEntry(event.listener);
+                    if (entry != null) {
+                      entry.dispatch(event);
                     }
                   }
                   m_lock.lock();
@@ -921,6 +1068,7 @@ public final class NetworkTableInstance implements AutoCloseable {
     }
 
     boolean waitForQueue(double timeout) {
+      long deadline = System.nanoTime() + (long) (timeout * 1e9);
       m_lock.lock();
       try {
         if (m_poller != 0) {
@@ -931,7 +1079,10 @@ public final class NetworkTableInstance implements AutoCloseable {
               if (timeout < 0) {
                 m_waitQueueCond.await();
               } else {
-                return m_waitQueueCond.await((long) (timeout * 1e9), TimeUnit.NANOSECONDS);
+                if (!m_waitQueueCond.await((long) (timeout * 1e9), TimeUnit.NANOSECONDS)) {
+                  return false;
+                }
+                break;
               }
             } catch (InterruptedException ex) {
               Thread.currentThread().interrupt();
@@ -942,6 +1093,12 @@ public final class NetworkTableInstance implements AutoCloseable {
       } finally {
         m_lock.unlock();
       }
+      // events handed off to executors may still be queued or running
+      for (ListenerEntry entry : m_listeners.values()) {
+        if (!entry.awaitIdle(timeout < 0, deadline)) {
+          return false;
+        }
+      }
       return true;
     }
   }
@@ -961,6 +1118,7 @@ public final class NetworkTableInstance implements AutoCloseable {
    * Wait for the listener queue to be empty. This is primarily useful for deterministic
    * testing. This blocks until either the listener queue is empty (e.g. there are no
    * more events that need to be passed along to callbacks or poll queues) or the timeout expires.
+   * Events already handed off to listener executors are also waited for.
    *
    * @param timeout timeout, in seconds. Set to 0 for non-blocking behavior, or a negative value to
    *     block indefinitely
@@ -970,6 +1128,16 @@ public final class NetworkTableInstance implements AutoCloseable {
     return m_listeners.waitForQueue(timeout);
   }
 
+  /**
+   * Gets dispatch metrics for a listener.
+   *
+   * @param listener Listener handle
+   * @return Metrics snapshot, or null if the listener does not exist
+   */
+  public ListenerMetrics getListenerMetrics(int listener) {
+    return m_listeners.getMetrics(listener);
+  }
+
   /**
    * Add a connection listener. The callback function is called asynchronously on a separate
    * thread, so it's important to use synchronization or atomics when accessing any shared state
@@ -981,11 +1149,26 @@ public final class NetworkTableInstance implements AutoCloseable {
    */
   public int addConnectionListener(
       boolean immediateNotify, Consumer<NetworkTableEvent> listener) {
+    return addConnectionListener(immediateNotify, null, listener);
+  }
+
+  /**
+   * Add a connection listener whose callbacks are run by an executor. Callbacks for a single
+   * listener are called one at a time in event order, but callbacks for different listeners may
+   * run concurrently.
+   *
+   * @param immediateNotify Notify listener of all existing connections
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener to add
+   * @return Listener handle
+   */
+  public int addConnectionListener(
+      boolean immediateNotify, Executor executor, Consumer<NetworkTableEvent> listener) {
     EnumSet<NetworkTableEvent.Kind> eventKinds = EnumSet.of(NetworkTableEvent.Kind.kConnection);
     if (immediateNotify) {
       eventKinds.add(NetworkTableEvent.Kind.kImmediate);
     }
-    return m_listeners.add(m_handle, eventKinds, listener);
+    return m_listeners.add(m_handle, eventKinds, executor, listener);
   }
 
   /**
@@ -999,11 +1182,26 @@ public final class NetworkTableInstance implements AutoCloseable {
    */
   public int addTimeSyncListener(
       boolean immediateNotify, Consumer<NetworkTableEvent> listener) {
+    return addTimeSyncListener(immediateNotify, null, listener);
+  }
+
+  /**
+   * Add a time synchronization listener whose callbacks are run by an executor. Callbacks for a
+   * single listener are called one at a time in event order, but callbacks for different listeners
+   * may run concurrently.
+   *
+   * @param immediateNotify Notify listener of current time synchronization value
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener to add
+   * @return Listener handle
+   */
+  public int addTimeSyncListener(
+      boolean immediateNotify, Executor executor, Consumer<NetworkTableEvent> listener) {
     EnumSet<NetworkTableEvent.Kind> eventKinds = EnumSet.of(NetworkTableEvent.Kind.kTimeSync);
     if (immediateNotify) {
       eventKinds.add(NetworkTableEvent.Kind.kImmediate);
     }
-    return m_listeners.add(m_handle, eventKinds, listener);
+    return m_listeners.add(m_handle, eventKinds, executor, listener);
   }
 
   /**
@@ -1023,10 +1221,32 @@ public final class NetworkTableInstance implements AutoCloseable {
       Topic topic,
       EnumSet<NetworkTableEvent.Kind> eventKinds,
       Consumer<NetworkTableEvent> listener) {
+    return addListener(topic, eventKinds, null, listener);
+  }
+
+  /**
+   * Add a listener for changes on a particular topic whose callbacks are run by an executor.
+   * Callbacks for a single listener are called one at a time in event order, but callbacks for
+   * different listeners may run concurrently.
+   *
+   * <p>This creates a corresponding internal subscriber with the lifetime of the
+   * listener.
+   *
+   * @param topic Topic
+   * @param eventKinds set of event kinds to listen to
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener function
+   * @return Listener handle
+   */
+  public int addListener(
+      Topic topic,
+      EnumSet<NetworkTableEvent.Kind> eventKinds,
+      Executor executor,
+      Consumer<NetworkTableEvent> listener) {
     if (topic.getInstance().getHandle() != m_handle) {
       throw new IllegalArgumentException("topic is not from this instance");
     }
-    return m_listeners.add(topic.getHandle(), eventKinds, listener);
+    return m_listeners.add(topic.getHandle(), eventKinds, executor, listener);
   }
 
   /**
@@ -1044,10 +1264,29 @@ public final class NetworkTableInstance implements AutoCloseable {
       Subscriber subscriber,
       EnumSet<NetworkTableEvent.Kind> eventKinds,
       Consumer<NetworkTableEvent> listener) {
+    return addListener(subscriber, eventKinds, null, listener);
+  }
+
+  /**
+   * Add a listener for changes on a subscriber whose callbacks are run by an executor. Callbacks
+   * for a single listener are called one at a time in event order, but callbacks for different
+   * listeners may run concurrently. This does NOT keep the subscriber active.
+   *
+   * @param subscriber Subscriber
+   * @param eventKinds set of event kinds to listen to
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener function
+   * @return Listener handle
+   */
+  public int addListener(
+      Subscriber subscriber,
+      EnumSet<NetworkTableEvent.Kind> eventKinds,
+      Executor executor,
+      Consumer<NetworkTableEvent> listener) {
     if (subscriber.getTopic().getInstance().getHandle() != m_handle) {
       throw new IllegalArgumentException("subscriber is not from this instance");
     }
-    return m_listeners.add(subscriber.getHandle(), eventKinds, listener);
+    return m_listeners.add(subscriber.getHandle(), eventKinds, executor, listener);
   }
 
   /**
@@ -1065,10 +1304,29 @@ public final class NetworkTableInstance implements AutoCloseable {
       MultiSubscriber subscriber,
       EnumSet<NetworkTableEvent.Kind> eventKinds,
       Consumer<NetworkTableEvent> listener) {
+    return addListener(subscriber, eventKinds, null, listener);
+  }
+
+  /**
+   * Add a listener for changes on a subscriber whose callbacks are run by an executor. Callbacks
+   * for a single listener are called one at a time in event order, but callbacks for different
+   * listeners may run concurrently. This does NOT keep the subscriber active.
+   *
+   * @param subscriber Subscriber
+   * @param eventKinds set of event kinds to listen to
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener function
+   * @return Listener handle
+   */
+  public int addListener(
+      MultiSubscriber subscriber,
+      EnumSet<NetworkTableEvent.Kind> eventKinds,
+      Executor executor,
+      Consumer<NetworkTableEvent> listener) {
     if (subscriber.getInstance().getHandle() != m_handle) {
       throw new IllegalArgumentException("subscriber is not from this instance");
     }
-    return m_listeners.add(subscriber.getHandle(), eventKinds, listener);
+    return m_listeners.add(subscriber.getHandle(), eventKinds, executor, listener);
   }
 
   /**
@@ -1085,10 +1343,29 @@ public final class NetworkTableInstance implements AutoCloseable {
       NetworkTableEntry entry,
       EnumSet<NetworkTableEvent.Kind> eventKinds,
       Consumer<NetworkTableEvent> listener) {
+    return addListener(entry, eventKinds, null, listener);
+  }
+
+  /**
+   * Add a listener for changes on an entry whose callbacks are run by an executor. Callbacks for
+   * a single listener are called one at a time in event order, but callbacks for different
+   * listeners may run concurrently.
+   *
+   * @param entry Entry
+   * @param eventKinds set of event kinds to listen to
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener function
+   * @return Listener handle
+   */
+  public int addListener(
+      NetworkTableEntry entry,
+      EnumSet<NetworkTableEvent.Kind> eventKinds,
+      Executor executor,
+      Consumer<NetworkTableEvent> listener) {
     if (entry.getTopic().getInstance().getHandle() != m_handle) {
       throw new IllegalArgumentException("entry is not from this instance");
     }
-    return m_listeners.add(entry.getHandle(), eventKinds, listener);
+    return m_listeners.add(entry.getHandle(), eventKinds, executor, listener);
   }
 
   /**
@@ -1109,7 +1386,29 @@ public final class NetworkTableInstance implements AutoCloseable {
       String[] prefixes,
       EnumSet<NetworkTableEvent.Kind> eventKinds,
       Consumer<NetworkTableEvent> listener) {
-    return m_listeners.add(prefixes, eventKinds, listener);
+    return addListener(prefixes, eventKinds, null, listener);
+  }
+
+  /**
+   * Add a listener for changes to topics with names that start with any of the given
+   * prefixes, with callbacks run by an executor. Callbacks for a single listener are called one at
+   * a time in event order, but callbacks for different listeners may run concurrently.
+   *
+   * <p>This creates a corresponding internal subscriber with the lifetime of the
+   * listener.
+   *
+   * @param prefixes Topic name string prefixes
+   * @param eventKinds set of event kinds to listen to
+   * @param executor Executor to run callbacks on; null runs them on the shared listener thread
+   * @param listener Listener function
+   * @return Listener handle
+   */
+  public int addListener(
+      String[] prefixes,
+      EnumSet<NetworkTableEvent.Kind> eventKinds,
+      Executor executor,
+      Consumer<NetworkTableEvent> listener) {
+    return m_listeners.add(prefixes, eventKinds, executor, listener);
   }
 
   /*
@@ -186,12 +186,18 @@ public final class NetworkTablesJNI {
 
   public static native boolean[] readQueueValuesBoolean(int subentry);
 
+  public static native int readQueueIntoBoolean(
+      int subentry, long[] times, long[] serverTimes, boolean[] values);
+
   public static native boolean setBoolean(int entry, long time, boolean value);
 
   public static native boolean getBoolean(int entry, boolean defaultValue);
 
   public static native boolean setDefaultBoolean(int entry, long time, boolean defaultValue);
 
+  public static native void setBooleanBatch(
+      int[] entries, long time, boolean[] values, int count);
+
 
   public static native TimestampedInteger getAtomicInteger(
       int subentry, long defaultValue);
@@ -200,12 +206,18 @@ public final class NetworkTablesJNI {
 
   public static native long[] readQueueValuesInteger(int subentry);
 
+  public static native int readQueueIntoInteger(
+      int subentry, long[] times, long[] serverTimes, long[] values);
+
   public static native boolean setInteger(int entry, long time, long value);
 
   public static native long getInteger(int entry, long defaultValue);
 
   public static native boolean setDefaultInteger(int entry, long time, long defaultValue);
 
+  public static native void setIntegerBatch(
+      int[] entries, long time, long[] values, int count);
+
 
   public static native TimestampedFloat getAtomicFloat(
       int subentry, float defaultValue);
@@ -214,12 +226,18 @@ public final class NetworkTablesJNI {
 
   public static native float[] readQueueValuesFloat(int subentry);
 
+  public static native int readQueueIntoFloat(
+      int subentry, long[] times, long[] serverTimes, float[] values);
+
   public static native boolean setFloat(int entry, long time, float value);
 
   public static native float getFloat(int entry, float defaultValue);
 
   public static native boolean setDefaultFloat(int entry, long time, float defaultValue);
 
+  public static native void setFloatBatch(
+      int[] entries, long time, float[] values, int count);
+
 
   public static native TimestampedDouble getAtomicDouble(
       int subentry, double defaultValue);
@@ -228,12 +246,18 @@ public final class NetworkTablesJNI {
 
   public static native double[] readQueueValuesDouble(int subentry);
 
+  public static native int readQueueIntoDouble(
+      int subentry, long[] times, long[] serverTimes, double[] values);
+
   public static native boolean setDouble(int entry, long time, double value);
 
   public static native double getDouble(int entry, double defaultValue);
 
   public static native boolean setDefaultDouble(int entry, long time, double defaultValue);
 
+  public static native void setDoubleBatch(
+      int[] entries, long time, double[] values, int count);
+
 
   public static native TimestampedString getAtomicString(
       int subentry, String defaultValue);
@@ -397,6 +421,9 @@ public final class NetworkTablesJNI {
 
   public static native NetworkTableValue getValue(int entry);
 
+  public static native int getRawBuffer(
+      int subentry, long lastTime, ByteBuffer buf, long[] time);
+
   public static native void setEntryFlags(int entry, int flags);
 
   public static native int getEntryFlags(int entry);
@@ -6,6 +6,8 @@
 
 #include <jni.h>
 
+#include <algorithm>
+
 #include <wpi/jni_util.h>
 
 #include "edu_wpi_first_networktables_NetworkTablesJNI.h"
@@ -498,6 +500,57 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueValuesBoolean
   return MakeJBooleanArray(env, nt::ReadQueueValuesBoolean(subentry));
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    readQueueIntoBoolean
+ * Signature: (I[J[J[Z)I
+ */
+JNIEXPORT jint JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueIntoBoolean
+  (JNIEnv* env, jclass, jint subentry, jlongArray times, jlongArray serverTimes,
+   jbooleanArray values)
+{
+  if (!values) {
+    nullPointerEx.Throw(env, "values cannot be null");
+    return 0;
+  }
+  jsize count = env->GetArrayLength(values);
+  if ((times && env->GetArrayLength(times) < count) ||
+      (serverTimes && env->GetArrayLength(serverTimes) < count)) {
+    indexOobEx.Throw(env, "times and serverTimes must be at least as long as values");
+    return 0;
+  }
+  // copy through fixed-size stack buffers to avoid heap allocation
+  constexpr jsize kChunkSize = 64;
+  nt::TimestampedBoolean buf[kChunkSize];
+  jlong ctimes[kChunkSize];
+  jlong cserverTimes[kChunkSize];
+  jboolean cvalues[kChunkSize];
+  jsize total = 0;
+  while (total < count) {
+    jsize chunk = std::min(count - total, kChunkSize);
+    jsize n = static_cast<jsize>(nt::ReadQueueIntoBoolean(
+        subentry, std::span{buf, static_cast<size_t>(chunk)}));
+    for (jsize i = 0; i < n; ++i) {
+      ctimes[i] = buf[i].time;
+      cserverTimes[i] = buf[i].serverTime;
+      cvalues[i] = static_cast<jboolean>(buf[i].value);
+    }
+    if (times) {
+      env->SetLongArrayRegion(times, total, n, ctimes);
+    }
+    if (serverTimes) {
+      env->SetLongArrayRegion(serverTimes, total, n, cserverTimes);
+    }
+    env->SetBooleanArrayRegion(values, total, n, cvalues);
+    total += n;
+    if (n < chunk) {
+      break;
+    }
+  }
+  return total;
+}
+
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
  * Method:    setBoolean
@@ -534,6 +587,31 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_setDefaultBoolean
   return nt::SetDefaultBoolean(entry, defaultValue != JNI_FALSE);
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    setBooleanBatch
+ * Signature: ([IJ[ZI)V
+ */
+JNIEXPORT void JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_setBooleanBatch
+  (JNIEnv* env, jclass, jintArray entries, jlong time, jbooleanArray values, jint count)
+{
+  if (!entries || !values) {
+    nullPointerEx.Throw(env, "entries and values cannot be null");
+    return;
+  }
+  JSpan<const jint> centries{env, entries};
+  JSpan<const jboolean> cvalues{env, values};
+  if (count < 0 || static_cast<size_t>(count) > centries.size() ||
+      static_cast<size_t>(count) > cvalues.size()) {
+    indexOobEx.Throw(env, "count must be >= 0 and <= the array lengths");
+    return;
+  }
+  for (jint i = 0; i < count; ++i) {
+    nt::SetBoolean(centries[i], cvalues[i] != JNI_FALSE, time);
+  }
+}
+
 
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
@@ -571,6 +649,57 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueValuesInteger
   return MakeJLongArray(env, nt::ReadQueueValuesInteger(subentry));
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    readQueueIntoInteger
+ * Signature: (I[J[J[J)I
+ */
+JNIEXPORT jint JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueIntoInteger
+  (JNIEnv* env, jclass, jint subentry, jlongArray times, jlongArray serverTimes,
+   jlongArray values)
+{
+  if (!values) {
+    nullPointerEx.Throw(env, "values cannot be null");
+    return 0;
+  }
+  jsize count = env->GetArrayLength(values);
+  if ((times && env->GetArrayLength(times) < count) ||
+      (serverTimes && env->GetArrayLength(serverTimes) < count)) {
+    indexOobEx.Throw(env, "times and serverTimes must be at least as long as values");
+    return 0;
+  }
+  // copy through fixed-size stack buffers to avoid heap allocation
+  constexpr jsize kChunkSize = 64;
+  nt::TimestampedInteger buf[kChunkSize];
+  jlong ctimes[kChunkSize];
+  jlong cserverTimes[kChunkSize];
+  jlong cvalues[kChunkSize];
+  jsize total = 0;
+  while (total < count) {
+    jsize chunk = std::min(count - total, kChunkSize);
+    jsize n = static_cast<jsize>(nt::ReadQueueIntoInteger(
+        subentry, std::span{buf, static_cast<size_t>(chunk)}));
+    for (jsize i = 0; i < n; ++i) {
+      ctimes[i] = buf[i].time;
+      cserverTimes[i] = buf[i].serverTime;
+      cvalues[i] = static_cast<jlong>(buf[i].value);
+    }
+    if (times) {
+      env->SetLongArrayRegion(times, total, n, ctimes);
+    }
+    if (serverTimes) {
+      env->SetLongArrayRegion(serverTimes, total, n, cserverTimes);
+    }
+    env->SetLongArrayRegion(values, total, n, cvalues);
+    total += n;
+    if (n < chunk) {
+      break;
+    }
+  }
+  return total;
+}
+
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
  * Method:    setInteger
@@ -607,6 +736,31 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_setDefaultInteger
   return nt::SetDefaultInteger(entry, defaultValue);
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    setIntegerBatch
+ * Signature: ([IJ[JI)V
+ */
+JNIEXPORT void JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_setIntegerBatch
+  (JNIEnv* env, jclass, jintArray entries, jlong time, jlongArray values, jint count)
+{
+  if (!entries || !values) {
+    nullPointerEx.Throw(env, "entries and values cannot be null");
+    return;
+  }
+  JSpan<const jint> centries{env, entries};
+  JSpan<const jlong> cvalues{env, values};
+  if (count < 0 || static_cast<size_t>(count) > centries.size() ||
+      static_cast<size_t>(count) > cvalues.size()) {
+    indexOobEx.Throw(env, "count must be >= 0 and <= the array lengths");
+    return;
+  }
+  for (jint i = 0; i < count; ++i) {
+    nt::SetInteger(centries[i], cvalues[i], time);
+  }
+}
+
 
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
@@ -644,6 +798,57 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueValuesFloat
   return MakeJFloatArray(env, nt::ReadQueueValuesFloat(subentry));
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    readQueueIntoFloat
+ * Signature: (I[J[J[F)I
+ */
+JNIEXPORT jint JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueIntoFloat
+  (JNIEnv* env, jclass, jint subentry, jlongArray times, jlongArray serverTimes,
+   jfloatArray values)
+{
+  if (!values) {
+    nullPointerEx.Throw(env, "values cannot be null");
+    return 0;
+  }
+  jsize count = env->GetArrayLength(values);
+  if ((times && env->GetArrayLength(times) < count) ||
+      (serverTimes && env->GetArrayLength(serverTimes) < count)) {
+    indexOobEx.Throw(env, "times and serverTimes must be at least as long as values");
+    return 0;
+  }
+  // copy through fixed-size stack buffers to avoid heap allocation
+  constexpr jsize kChunkSize = 64;
+  nt::TimestampedFloat buf[kChunkSize];
+  jlong ctimes[kChunkSize];
+  jlong cserverTimes[kChunkSize];
+  jfloat cvalues[kChunkSize];
+  jsize total = 0;
+  while (total < count) {
+    jsize chunk = std::min(count - total, kChunkSize);
+    jsize n = static_cast<jsize>(nt::ReadQueueIntoFloat(
+        subentry, std::span{buf, static_cast<size_t>(chunk)}));
+    for (jsize i = 0; i < n; ++i) {
+      ctimes[i] = buf[i].time;
+      cserverTimes[i] = buf[i].serverTime;
+      cvalues[i] = static_cast<jfloat>(buf[i].value);
+    }
+    if (times) {
+      env->SetLongArrayRegion(times, total, n, ctimes);
+    }
+    if (serverTimes) {
+      env->SetLongArrayRegion(serverTimes, total, n, cserverTimes);
+    }
+    env->SetFloatArrayRegion(values, total, n, cvalues);
+    total += n;
+    if (n < chunk) {
+      break;
+    }
+  }
+  return total;
+}
+
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
  * Method:    setFloat
@@ -680,6 +885,31 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_setDefaultFloat
   return nt::SetDefaultFloat(entry, defaultValue);
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    setFloatBatch
+ * Signature: ([IJ[FI)V
+ */
+JNIEXPORT void JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_setFloatBatch
+  (JNIEnv* env, jclass, jintArray entries, jlong time, jfloatArray values, jint count)
+{
+  if (!entries || !values) {
+    nullPointerEx.Throw(env, "entries and values cannot be null");
+    return;
+  }
+  JSpan<const jint> centries{env, entries};
+  JSpan<const jfloat> cvalues{env, values};
+  if (count < 0 || static_cast<size_t>(count) > centries.size() ||
+      static_cast<size_t>(count) > cvalues.size()) {
+    indexOobEx.Throw(env, "count must be >= 0 and <= the array lengths");
+    return;
+  }
+  for (jint i = 0; i < count; ++i) {
+    nt::SetFloat(centries[i], cvalues[i], time);
+  }
+}
+
 
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
@@ -717,6 +947,57 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueValuesDouble
   return MakeJDoubleArray(env, nt::ReadQueueValuesDouble(subentry));
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    readQueueIntoDouble
+ * Signature: (I[J[J[D)I
+ */
+JNIEXPORT jint JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_readQueueIntoDouble
+  (JNIEnv* env, jclass, jint subentry, jlongArray times, jlongArray serverTimes,
+   jdoubleArray values)
+{
+  if (!values) {
+    nullPointerEx.Throw(env, "values cannot be null");
+    return 0;
+  }
+  jsize count = env->GetArrayLength(values);
+  if ((times && env->GetArrayLength(times) < count) ||
+      (serverTimes && env->GetArrayLength(serverTimes) < count)) {
+    indexOobEx.Throw(env, "times and serverTimes must be at least as long as values");
+    return 0;
+  }
+  // copy through fixed-size stack buffers to avoid heap allocation
+  constexpr jsize kChunkSize = 64;
+  nt::TimestampedDouble buf[kChunkSize];
+  jlong ctimes[kChunkSize];
+  jlong cserverTimes[kChunkSize];
+  jdouble cvalues[kChunkSize];
+  jsize total = 0;
+  while (total < count) {
+    jsize chunk = std::min(count - total, kChunkSize);
+    jsize n = static_cast<jsize>(nt::ReadQueueIntoDouble(
+        subentry, std::span{buf, static_cast<size_t>(chunk)}));
+    for (jsize i = 0; i < n; ++i) {
+      ctimes[i] = buf[i].time;
+      cserverTimes[i] = buf[i].serverTime;
+      cvalues[i] = static_cast<jdouble>(buf[i].value);
+    }
+    if (times) {
+      env->SetLongArrayRegion(times, total, n, ctimes);
+    }
+    if (serverTimes) {
+      env->SetLongArrayRegion(serverTimes, total, n, cserverTimes);
+    }
+    env->SetDoubleArrayRegion(values, total, n, cvalues);
+    total += n;
+    if (n < chunk) {
+      break;
+    }
+  }
+  return total;
+}
+
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
  * Method:    setDouble
@@ -753,6 +1034,31 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_setDefaultDouble
   return nt::SetDefaultDouble(entry, defaultValue);
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    setDoubleBatch
+ * Signature: ([IJ[DI)V
+ */
+JNIEXPORT void JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_setDoubleBatch
+  (JNIEnv* env, jclass, jintArray entries, jlong time, jdoubleArray values, jint count)
+{
+  if (!entries || !values) {
+    nullPointerEx.Throw(env, "entries and values cannot be null");
+    return;
+  }
+  JSpan<const jint> centries{env, entries};
+  JSpan<const jdouble> cvalues{env, values};
+  if (count < 0 || static_cast<size_t>(count) > centries.size() ||
+      static_cast<size_t>(count) > cvalues.size()) {
+    indexOobEx.Throw(env, "count must be >= 0 and <= the array lengths");
+    return;
+  }
+  for (jint i = 0; i < count; ++i) {
+    nt::SetDouble(centries[i], cvalues[i], time);
+  }
+}
+
 
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
@@ -90,6 +90,17 @@ static inline typename ValuesType<T>::Vector ReadQueueValues(
   return rv;
 }
 
+template <typename T>
+static inline size_t ReadQueueInto(
+    NT_Handle subentry,
+    std::span<Timestamped<typename TypeInfo<T>::Value>> values) {
+  if (auto ii = InstanceImpl::Get(Handle{subentry}.GetInst())) {
+    return ii->localStorage.ReadQueueInto<T>(subentry, values);
+  } else {
+    return 0;
+  }
+}
+
 bool SetBoolean(NT_Handle pubentry, bool value, int64_t time) {
   return Set<bool>(pubentry, value, time);
 }
@@ -115,6 +126,10 @@ std::vector<int> ReadQueueValuesBoolean(NT_Handle subentry) {
   return ReadQueueValues<bool>(subentry);
 }
 
+size_t ReadQueueIntoBoolean(NT_Handle subentry, std::span<TimestampedBoolean> values) {
+  return ReadQueueInto<bool>(subentry, values);
+}
+
 
 bool SetInteger(NT_Handle pubentry, int64_t value, int64_t time) {
   return Set<int64_t>(pubentry, value, time);
@@ -141,6 +156,10 @@ std::vector<int64_t> ReadQueueValuesInteger(NT_Handle subentry) {
   return ReadQueueValues<int64_t>(subentry);
 }
 
+size_t ReadQueueIntoInteger(NT_Handle subentry, std::span<TimestampedInteger> values) {
+  return ReadQueueInto<int64_t>(subentry, values);
+}
+
 
 bool SetFloat(NT_Handle pubentry, float value, int64_t time) {
   return Set<float>(pubentry, value, time);
@@ -167,6 +186,10 @@ std::vector<float> ReadQueueValuesFloat(NT_Handle subentry) {
   return ReadQueueValues<float>(subentry);
 }
 
+size_t ReadQueueIntoFloat(NT_Handle subentry, std::span<TimestampedFloat> values) {
+  return ReadQueueInto<float>(subentry, values);
+}
+
 
 bool SetDouble(NT_Handle pubentry, double value, int64_t time) {
   return Set<double>(pubentry, value, time);
@@ -193,6 +216,10 @@ std::vector<double> ReadQueueValuesDouble(NT_Handle subentry) {
   return ReadQueueValues<double>(subentry);
 }
 
+size_t ReadQueueIntoDouble(NT_Handle subentry, std::span<TimestampedDouble> values) {
+  return ReadQueueInto<double>(subentry, values);
+}
+
 
 bool SetString(NT_Handle pubentry, std::string_view value, int64_t time) {
   return Set<std::string>(pubentry, value, time);
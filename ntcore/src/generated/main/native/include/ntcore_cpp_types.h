@@ -125,6 +125,20 @@ std::vector<TimestampedBoolean> ReadQueueBoolean(NT_Handle subentry);
  */
 std::vector<int> ReadQueueValuesBoolean(NT_Handle subentry);
 
+/**
+ * Read value changes since the last call to ReadQueue into a caller-provided
+ * array. Changes are read in the order they were received, up to the size of
+ * the output span; any remaining changes stay queued for the next call.
+ *
+ * @note The "poll storage" subscribe option can be used to set the queue
+ *     depth.
+ *
+ * @param subentry subscriber or entry handle
+ * @param values output span for timestamped values
+ * @return Number of values read
+ */
+size_t ReadQueueIntoBoolean(NT_Handle subentry, std::span<TimestampedBoolean> values);
+
 /** @} */
 
 /**
@@ -204,6 +218,20 @@ std::vector<TimestampedInteger> ReadQueueInteger(NT_Handle subentry);
  */
 std::vector<int64_t> ReadQueueValuesInteger(NT_Handle subentry);
 
+/**
+ * Read value changes since the last call to ReadQueue into a caller-provided
+ * array. Changes are read in the order they were received, up to the size of
+ * the output span; any remaining changes stay queued for the next call.
+ *
+ * @note The "poll storage" subscribe option can be used to set the queue
+ *     depth.
+ *
+ * @param subentry subscriber or entry handle
+ * @param values output span for timestamped values
+ * @return Number of values read
+ */
+size_t ReadQueueIntoInteger(NT_Handle subentry, std::span<TimestampedInteger> values);
+
 /** @} */
 
 /**
@@ -283,6 +311,20 @@ std::vector<TimestampedFloat> ReadQueueFloat(NT_Handle subentry);
  */
 std::vector<float> ReadQueueValuesFloat(NT_Handle subentry);
 
+/**
+ * Read value changes since the last call to ReadQueue into a caller-provided
+ * array. Changes are read in the order they were received, up to the size of
+ * the output span; any remaining changes stay queued for the next call.
+ *
+ * @note The "poll storage" subscribe option can be used to set the queue
+ *     depth.
+ *
+ * @param subentry subscriber or entry handle
+ * @param values output span for timestamped values
+ * @return Number of values read
+ */
+size_t ReadQueueIntoFloat(NT_Handle subentry, std::span<TimestampedFloat> values);
+
 /** @} */
 
 /**
@@ -362,6 +404,20 @@ std::vector<TimestampedDouble> ReadQueueDouble(NT_Handle subentry);
  */
 std::vector<double> ReadQueueValuesDouble(NT_Handle subentry);
 
+/**
+ * Read value changes since the last call to ReadQueue into a caller-provided
+ * array. Changes are read in the order they were received, up to the size of
+ * the output span; any remaining changes stay queued for the next call.
+ *
+ * @note The "poll storage" subscribe option can be used to set the queue
+ *     depth.
+ *
+ * @param subentry subscriber or entry handle
+ * @param values output span for timestamped values
+ * @return Number of values read
+ */
+size_t ReadQueueIntoDouble(NT_Handle subentry, std::span<TimestampedDouble> values);
+
 /** @} */
 
 /**
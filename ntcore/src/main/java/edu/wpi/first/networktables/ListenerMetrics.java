@@ -0,0 +1,74 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+/**
+ * Snapshot of dispatch metrics for a NetworkTables listener callback. Latency is measured from
+ * when the listener thread dispatches an event to when the callback returns, so for listeners
+ * with an executor it includes the time spent waiting in the listener's queue.
+ */
+@SuppressWarnings("MemberName")
+public final class ListenerMetrics {
+  /**
+   * Number of events handed to the listener's executor but not yet processed. Always zero for
+   * listeners without an executor, as their callbacks run directly on the listener thread.
+   */
+  public final int queueDepth;
+
+  /** Maximum value of queueDepth seen since the listener was added. */
+  public final int maxQueueDepth;
+
+  /** Number of completed callbacks. */
+  public final long callbackCount;
+
+  /** Total callback latency, in nanoseconds. */
+  public final long totalLatencyNanos;
+
+  /** Maximum callback latency, in nanoseconds. */
+  public final long maxLatencyNanos;
+
+  /** Total time spent executing the callback, in nanoseconds. */
+  public final long totalRunNanos;
+
+  /** Maximum time spent executing a single callback, in nanoseconds. */
+  public final long maxRunNanos;
+
+  /**
+   * Constructor. This should generally only be used internally to NetworkTables.
+   *
+   * @param queueDepth Current queue depth
+   * @param maxQueueDepth Maximum queue depth
+   * @param callbackCount Number of completed callbacks
+   * @param totalLatencyNanos Total latency
+   * @param maxLatencyNanos Maximum latency
+   * @param totalRunNanos Total callback execution time
+   * @param maxRunNanos Maximum callback execution time
+   */
+  public ListenerMetrics(
+      int queueDepth,
+      int maxQueueDepth,
+      long callbackCount,
+      long totalLatencyNanos,
+      long maxLatencyNanos,
+      long totalRunNanos,
+      long maxRunNanos) {
+    this.queueDepth = queueDepth;
+    this.maxQueueDepth = maxQueueDepth;
+    this.callbackCount = callbackCount;
+    this.totalLatencyNanos = totalLatencyNanos;
+    this.maxLatencyNanos = maxLatencyNanos;
+    this.totalRunNanos = totalRunNanos;
+    this.maxRunNanos = maxRunNanos;
+  }
+
+  /**
+   * Gets the average callback latency.
+   *
+   * @return average latency in nanoseconds, or 0 if there have been no callbacks
+   */
+  public double getAverageLatencyNanos() {
+    return callbackCount == 0 ? 0 : (double) totalLatencyNanos / callbackCount;
+  }
+}
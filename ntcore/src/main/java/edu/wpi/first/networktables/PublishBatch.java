@@ -0,0 +1,131 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates values for many scalar publishers and publishes them together. Each flush makes at
+ * most one native call per value type (boolean, integer, float, double) instead of one call per
+ * publisher, which matters when hundreds of values are published every loop.
+ *
+ * <p>The batch does not copy or own the publishers; they must remain open until the batch is
+ * flushed. This class is not thread safe.
+ */
+public final class PublishBatch {
+  private int[] m_booleanHandles = new int[16];
+  private boolean[] m_booleanValues = new boolean[16];
+  private int m_booleanCount;
+
+  private int[] m_integerHandles = new int[16];
+  private long[] m_integerValues = new long[16];
+  private int m_integerCount;
+
+  private int[] m_floatHandles = new int[16];
+  private float[] m_floatValues = new float[16];
+  private int m_floatCount;
+
+  private int[] m_doubleHandles = new int[16];
+  private double[] m_doubleValues = new double[16];
+  private int m_doubleCount;
+
+  /**
+   * Adds a boolean value to the batch.
+   *
+   * @param publisher publisher
+   * @param value value
+   */
+  public void add(BooleanPublisher publisher, boolean value) {
+    if (m_booleanCount == m_booleanHandles.length) {
+      m_booleanHandles = Arrays.copyOf(m_booleanHandles, m_booleanCount * 2);
+      m_booleanValues = Arrays.copyOf(m_booleanValues, m_booleanCount * 2);
+    }
+    m_booleanHandles[m_booleanCount] = publisher.getHandle();
+    m_booleanValues[m_booleanCount++] = value;
+  }
+
+  /**
+   * Adds an integer value to the batch.
+   *
+   * @param publisher publisher
+   * @param value value
+   */
+  public void add(IntegerPublisher publisher, long value) {
+    if (m_integerCount == m_integerHandles.length) {
+      m_integerHandles = Arrays.copyOf(m_integerHandles, m_integerCount * 2);
+      m_integerValues = Arrays.copyOf(m_integerValues, m_integerCount * 2);
+    }
+    m_integerHandles[m_integerCount] = publisher.getHandle();
+    m_integerValues[m_integerCount++] = value;
+  }
+
+  /**
+   * Adds a float value to the batch.
+   *
+   * @param publisher publisher
+   * @param value value
+   */
+  public void add(FloatPublisher publisher, float value) {
+    if (m_floatCount == m_floatHandles.length) {
+      m_floatHandles = Arrays.copyOf(m_floatHandles, m_floatCount * 2);
+      m_floatValues = Arrays.copyOf(m_floatValues, m_floatCount * 2);
+    }
+    m_floatHandles[m_floatCount] = publisher.getHandle();
+    m_floatValues[m_floatCount++] = value;
+  }
+
+  /**
+   * Adds a double value to the batch.
+   *
+   * @param publisher publisher
+   * @param value value
+   */
+  public void add(DoublePublisher publisher, double value) {
+    if (m_doubleCount == m_doubleHandles.length) {
+      m_doubleHandles = Arrays.copyOf(m_doubleHandles, m_doubleCount * 2);
+      m_doubleValues = Arrays.copyOf(m_doubleValues, m_doubleCount * 2);
+    }
+    m_doubleHandles[m_doubleCount] = publisher.getHandle();
+    m_doubleValues[m_doubleCount++] = value;
+  }
+
+  /**
+   * Gets the number of values waiting to be published.
+   *
+   * @return number of values
+   */
+  public int size() {
+    return m_booleanCount + m_integerCount + m_floatCount + m_doubleCount;
+  }
+
+  /**
+   * Publishes all values in the batch and empties it.
+   *
+   * @param time timestamp; 0 indicates current NT time should be used
+   */
+  public void flush(long time) {
+    if (m_booleanCount != 0) {
+      NetworkTablesJNI.setBooleanBatch(m_booleanHandles, time, m_booleanValues, m_booleanCount);
+    }
+    if (m_integerCount != 0) {
+      NetworkTablesJNI.setIntegerBatch(m_integerHandles, time, m_integerValues, m_integerCount);
+    }
+    if (m_floatCount != 0) {
+      NetworkTablesJNI.setFloatBatch(m_floatHandles, time, m_floatValues, m_floatCount);
+    }
+    if (m_doubleCount != 0) {
+      NetworkTablesJNI.setDoubleBatch(m_doubleHandles, time, m_doubleValues, m_doubleCount);
+    }
+    clear();
+  }
+
+  /** Discards all values in the batch without publishing them. */
+  public void clear() {
+    m_booleanCount = 0;
+    m_integerCount = 0;
+    m_floatCount = 0;
+    m_doubleCount = 0;
+  }
+}
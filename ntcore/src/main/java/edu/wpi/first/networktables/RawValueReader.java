@@ -0,0 +1,57 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the current raw value of a subscriber into a reusable direct buffer. The buffer keeps the
+ * last value read, so a value that has not changed since the previous read is not copied out of
+ * ntcore again. This class is not thread safe.
+ */
+final class RawValueReader {
+  private ByteBuffer m_buf = ByteBuffer.allocateDirect(64).order(ByteOrder.LITTLE_ENDIAN);
+  private final long[] m_time = new long[1];
+  // timestamp of the value held in m_buf; 0 (never a valid value timestamp) if none
+  private long m_lastTime;
+
+  /**
+   * Reads the current value into the buffer returned by getBuffer().
+   *
+   * @param handle subscriber handle
+   * @return false if no value has been published
+   */
+  boolean read(int handle) {
+    while (true) {
+      int len = NetworkTablesJNI.getRawBuffer(handle, m_lastTime, m_buf, m_time);
+      if (len < 0) {
+        m_lastTime = 0;
+        return false;
+      }
+      if (m_time[0] == m_lastTime) {
+        // unchanged; the buffer still holds the value
+        m_buf.position(0);
+        return true;
+      }
+      if (len <= m_buf.capacity()) {
+        m_buf.limit(len).position(0);
+        m_lastTime = m_time[0];
+        return true;
+      }
+      m_buf = ByteBuffer.allocateDirect(len).order(ByteOrder.LITTLE_ENDIAN);
+      m_lastTime = 0;
+    }
+  }
+
+  /**
+   * Gets the buffer containing the value read by the last successful call to read().
+   *
+   * @return buffer; position is 0 and limit is the value length
+   */
+  ByteBuffer getBuffer() {
+    return m_buf;
+  }
+}
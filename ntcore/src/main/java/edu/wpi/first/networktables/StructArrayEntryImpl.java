@@ -50,6 +50,20 @@ final class StructArrayEntryImpl<T> extends EntryBase implements StructArrayEntr
     return fromRaw(NetworkTablesJNI.getRaw(m_handle, m_emptyRaw), defaultValue);
   }
 
+  @Override
+  public int getArrayInto(T[] out) {
+    synchronized (m_buf) {
+      if (!m_reader.read(m_handle)) {
+        return -1;
+      }
+      ByteBuffer bb = m_reader.getBuffer();
+      if (bb.remaining() % m_buf.getStruct().getSize() != 0) {
+        return -1;
+      }
+      return m_buf.readArrayInto(out, bb);
+    }
+  }
+
   @Override
   public TimestampedObject<T[]> getAtomic() {
     return fromRaw(NetworkTablesJNI.getAtomicRaw(m_handle, m_emptyRaw), m_defaultValue);
@@ -192,5 +206,6 @@ final class StructArrayEntryImpl<T> extends EntryBase implements StructArrayEntr
   private final T[] m_defaultValue;
   private final StructBuffer<T> m_buf;
   private boolean m_schemaPublished;
+  private final RawValueReader m_reader = new RawValueReader();
   private static final byte[] m_emptyRaw = new byte[] {};
 }
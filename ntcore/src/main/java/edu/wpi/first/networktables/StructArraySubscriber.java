@@ -38,6 +38,24 @@ public interface StructArraySubscriber<T> extends Subscriber, Supplier<T[]> {
    */
   T[] get(T[] defaultValue);
 
+  /**
+   * Get the last published value, replacing the contents in place of the objects in an existing
+   * array. If the array is too small, only the first out.length elements are updated; the return
+   * value can be used to detect this case. This function will not work (will throw
+   * UnsupportedOperationException) unless T is mutable (and the implementation of Struct
+   * implements unpackInto).
+   *
+   * <p>The value is copied into a cached direct buffer rather than a newly allocated array. If the
+   * value has not changed since the previous call, it is decoded from that buffer without being
+   * copied out of NetworkTables again.
+   *
+   * @param out array of objects to replace contents of; elements must be non-null and mutable
+   * @return number of elements in the published value, or -1 if no value has been published or
+   *     the value cannot be unpacked
+   * @throws UnsupportedOperationException if T is immutable
+   */
+  int getArrayInto(T[] out);
+
   /**
    * Get the last published value along with its timestamp. If no value has been published or the
    * value cannot be unpacked, returns the stored default value and a timestamp of 0.
@@ -51,12 +51,11 @@ final class StructEntryImpl<T> extends EntryBase implements StructEntry<T> {
 
   @Override
   public boolean getInto(T out) {
-    byte[] raw = NetworkTablesJNI.getRaw(m_handle, m_emptyRaw);
-    if (raw.length == 0) {
-      return false;
-    }
     synchronized (m_buf) {
-      m_buf.readInto(out, raw);
+      if (!m_reader.read(m_handle)) {
+        return false;
+      }
+      m_buf.readInto(out, m_reader.getBuffer());
       return true;
     }
   }
@@ -203,5 +202,6 @@ final class StructEntryImpl<T> extends EntryBase implements StructEntry<T> {
   private final T m_defaultValue;
   private final StructBuffer<T> m_buf;
   private boolean m_schemaPublished;
+  private final RawValueReader m_reader = new RawValueReader();
   private static final byte[] m_emptyRaw = new byte[] {};
 }
@@ -47,6 +47,10 @@ public interface StructSubscriber<T> extends Subscriber, Supplier<T> {
    * <p>Note: due to Java language limitations, it's not possible to validate at compile time that
    * the out parameter is mutable.
    *
+   * <p>The value is copied into a cached direct buffer rather than a newly allocated array. If the
+   * value has not changed since the previous call, it is decoded from that buffer without being
+   * copied out of NetworkTables again.
+   *
    * @param out object to replace contents of; must be mutable
    * @return true if successful, false if no value has been published
    * @throws UnsupportedOperationException if T is immutable
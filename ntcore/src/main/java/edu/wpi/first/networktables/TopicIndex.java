@@ -0,0 +1,343 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Live index of the published topics of an instance, organized as a trie of topic name segments
+ * separated by {@link NetworkTable#PATH_SEPARATOR}.
+ *
+ * <p>The index is fed by a topic listener poller. The poller is drained at the start of each query,
+ * so queries reflect all publish and unpublish events received up to that point, and also from the
+ * instance's listener thread whenever events arrive, so the poller's queue doesn't grow while the
+ * index isn't being queried. Table-level
+ * queries (keys, subtables) and subtree queries take time proportional to the size of the result
+ * rather than to the total number of topics, which makes them suitable for dashboards and other
+ * code that frequently walks large topic trees.
+ *
+ * <p>Table paths use the same form as {@link NetworkTable#getPath()}: "" is the root table, and
+ * other tables start with a separator (e.g. "/SmartDashboard").
+ *
+ * <p>This class is thread safe. Obtain an instance with {@link
+ * NetworkTableInstance#getTopicIndex()}.
+ */
+public final class TopicIndex implements AutoCloseable {
+  private static final class Node {
+    final String m_name;
+    final Node m_parent;
+    Map<String, Node> m_children;
+    TopicInfo m_info;
+    // number of topics in this node's subtree, including this node
+    int m_count;
+
+    Node(String name, Node parent) {
+      m_name = name;
+      m_parent = parent;
+    }
+
+    Node getChild(String name) {
+      return m_children != null ? m_children.get(name) : null;
+    }
+
+    boolean hasSubTable() {
+      return m_count > (m_info != null ? 1 : 0);
+    }
+  }
+
+  private final NetworkTableInstance m_inst;
+  private final NetworkTableListenerPoller m_poller;
+  // Callback listener used only as a trigger to drain the poller
+  private final int m_drainListener;
+  private boolean m_closed;
+  private final Node m_root = new Node("", null);
+
+  TopicIndex(NetworkTableInstance inst) {
+    m_inst = inst;
+    m_poller = new NetworkTableListenerPoller(inst);
+    m_poller.addListener(
+        new String[] {""},
+        EnumSet.of(
+            NetworkTableEvent.Kind.kPublish,
+            NetworkTableEvent.Kind.kUnpublish,
+            NetworkTableEvent.Kind.kImmediate));
+    // The poller's queue holds the same events in the same order, so the event passed to the
+    // callback is ignored
+    m_drainListener =
+        inst.addListener(
+            new String[] {""},
+            EnumSet.of(NetworkTableEvent.Kind.kPublish, NetworkTableEvent.Kind.kUnpublish),
+            event -> drain());
+  }
+
+  @Override
+  public void close() {
+    // Removed outside the lock, as the listener thread may be waiting for it in drain()
+    m_inst.removeListener(m_drainListener);
+    synchronized (this) {
+      m_closed = true;
+      m_poller.close();
+    }
+  }
+
+  private synchronized void drain() {
+    if (!m_closed) {
+      update();
+    }
+  }
+
+  /**
+   * Gets topic information for all topics directly in a table (not including sub-tables).
+   *
+   * @param path table path
+   * @param types bitmask of types (NetworkTableType values); 0 is treated as a "don't care".
+   * @return topic information for keys currently in the table
+   */
+  public synchronized List<TopicInfo> getTopicInfo(String path, int types) {
+    update();
+    List<TopicInfo> infos = new ArrayList<>();
+    Node table = findTable(path);
+    if (table != null && table.m_children != null) {
+      for (Node child : table.m_children.values()) {
+        if (matchesType(child.m_info, types)) {
+          infos.add(child.m_info);
+        }
+      }
+    }
+    return infos;
+  }
+
+  /**
+   * Gets all keys directly in a table (not including sub-tables).
+   *
+   * @param path table path
+   * @param types bitmask of types (NetworkTableType values); 0 is treated as a "don't care".
+   * @return keys currently in the table
+   */
+  public synchronized Set<String> getKeys(String path, int types) {
+    update();
+    Set<String> keys = new HashSet<>();
+    Node table = findTable(path);
+    if (table != null && table.m_children != null) {
+      for (Node child : table.m_children.values()) {
+        if (matchesType(child.m_info, types)) {
+          keys.add(child.m_name);
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Gets the names of all subtables of a table.
+   *
+   * @param path table path
+   * @return subtables currently in the table
+   */
+  public synchronized Set<String> getSubTables(String path) {
+    update();
+    Set<String> keys = new HashSet<>();
+    Node table = findTable(path);
+    if (table != null && table.m_children != null) {
+      for (Node child : table.m_children.values()) {
+        if (child.hasSubTable()) {
+          keys.add(child.m_name);
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Checks if a table contains at least one topic, either directly or in a sub-table.
+   *
+   * @param path table path
+   * @return true if the table is not empty
+   */
+  public synchronized boolean containsTable(String path) {
+    update();
+    Node table = findTable(path);
+    return table != null && table.hasSubTable();
+  }
+
+  /**
+   * Gets topic information for all topics in a table and all of its sub-tables.
+   *
+   * @param path table path
+   * @param types bitmask of types (NetworkTableType values); 0 is treated as a "don't care".
+   * @return topic information for all topics under the table
+   */
+  public synchronized List<TopicInfo> getSubtreeTopicInfo(String path, int types) {
+    update();
+    List<TopicInfo> infos = new ArrayList<>();
+    Node table = findTable(path);
+    if (table != null && table.m_children != null) {
+      for (Node child : table.m_children.values()) {
+        collect(child, types, infos);
+      }
+    }
+    return infos;
+  }
+
+  /**
+   * Gets topic information for all topics whose name matches a pattern. The pattern is split into
+   * segments on the path separator; a segment of "*" matches any single name segment, a segment of
+   * "**" matches zero or more name segments, and any other segment must match exactly. For example,
+   * "/SmartDashboard/*&#47;value" matches "/SmartDashboard/a/value" but not
+   * "/SmartDashboard/a/b/value", and "/SmartDashboard/**" matches every topic under
+   * "/SmartDashboard".
+   *
+   * @param pattern topic name pattern
+   * @param types bitmask of types (NetworkTableType values); 0 is treated as a "don't care".
+   * @return topic information for matching topics
+   */
+  public synchronized List<TopicInfo> match(String pattern, int types) {
+    update();
+    List<TopicInfo> infos = new ArrayList<>();
+    String[] segments = pattern.split(String.valueOf(NetworkTable.PATH_SEPARATOR), -1);
+    // Nodes already visited at each pattern index. With several "**" segments the same node can be
+    // reached at the same index along many paths; visiting it once keeps the search linear in the
+    // number of nodes under the matched prefixes, and also removes duplicate results.
+    List<Set<Node>> visited = new ArrayList<>(segments.length + 1);
+    for (int i = 0; i <= segments.length; i++) {
+      visited.add(new HashSet<>());
+    }
+    match(m_root, segments, 0, types, infos, visited);
+    return infos;
+  }
+
+  private void match(
+      Node node,
+      String[] segments,
+      int index,
+      int types,
+      List<TopicInfo> out,
+      List<Set<Node>> visited) {
+    if (!visited.get(index).add(node)) {
+      return;
+    }
+    if (index == segments.length) {
+      if (matchesType(node.m_info, types)) {
+        out.add(node.m_info);
+      }
+      return;
+    }
+    String segment = segments[index];
+    if ("**".equals(segment)) {
+      // zero segments
+      match(node, segments, index + 1, types, out, visited);
+      // one or more segments
+      if (node.m_children != null) {
+        for (Node child : node.m_children.values()) {
+          match(child, segments, index, types, out, visited);
+        }
+      }
+    } else if ("*".equals(segment)) {
+      if (node.m_children != null) {
+        for (Node child : node.m_children.values()) {
+          match(child, segments, index + 1, types, out, visited);
+        }
+      }
+    } else {
+      Node child = node.getChild(segment);
+      if (child != null) {
+        match(child, segments, index + 1, types, out, visited);
+      }
+    }
+  }
+
+  private static void collect(Node node, int types, List<TopicInfo> out) {
+    if (matchesType(node.m_info, types)) {
+      out.add(node.m_info);
+    }
+    if (node.m_children != null) {
+      for (Node child : node.m_children.values()) {
+        collect(child, types, out);
+      }
+    }
+  }
+
+  private static boolean matchesType(TopicInfo info, int types) {
+    return info != null && (types == 0 || (info.type.getValue() & types) != 0);
+  }
+
+  private Node findTable(String path) {
+    // the root table "" contains topics starting with a separator, so it maps to the "" child
+    Node node = m_root;
+    int start = 0;
+    while (node != null) {
+      int end = path.indexOf(NetworkTable.PATH_SEPARATOR, start);
+      if (end == -1) {
+        return node.getChild(path.substring(start));
+      }
+      node = node.getChild(path.substring(start, end));
+      start = end + 1;
+    }
+    return null;
+  }
+
+  private void update() {
+    for (NetworkTableEvent event : m_poller.readQueue()) {
+      if (event.topicInfo == null) {
+        continue;
+      }
+      if (event.is(NetworkTableEvent.Kind.kUnpublish)) {
+        remove(event.topicInfo.name);
+      } else if (event.is(NetworkTableEvent.Kind.kPublish)) {
+        add(event.topicInfo);
+      }
+    }
+  }
+
+  private void add(TopicInfo info) {
+    Node node = m_root;
+    for (String segment : info.name.split(String.valueOf(NetworkTable.PATH_SEPARATOR), -1)) {
+      if (node.m_children == null) {
+        node.m_children = new HashMap<>();
+      }
+      Node parent = node;
+      node = node.m_children.computeIfAbsent(segment, name -> new Node(name, parent));
+    }
+    if (node.m_info != null) {
+      // duplicate publish (e.g. immediate notification racing a publish); just refresh info
+      node.m_info = info;
+      return;
+    }
+    node.m_info = info;
+    for (Node n = node; n != null; n = n.m_parent) {
+      n.m_count++;
+    }
+  }
+
+  private void remove(String name) {
+    Node node = m_root;
+    for (String segment : name.split(String.valueOf(NetworkTable.PATH_SEPARATOR), -1)) {
+      node = node.getChild(segment);
+      if (node == null) {
+        return;
+      }
+    }
+    if (node.m_info == null) {
+      return;
+    }
+    node.m_info = null;
+    // decrement counts and prune empty nodes so traversals only visit nodes with topics
+    for (Node n = node; n != null; n = n.m_parent) {
+      n.m_count--;
+      if (n.m_count == 0 && n.m_parent != null) {
+        n.m_parent.m_children.remove(n.m_name);
+        if (n.m_parent.m_children.isEmpty()) {
+          n.m_parent.m_children = null;
+        }
+      }
+    }
+  }
+}
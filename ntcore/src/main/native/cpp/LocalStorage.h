@@ -251,6 +251,10 @@ class LocalStorage final : public net::ILocalStorage {
   std::vector<Timestamped<typename TypeInfo<T>::Value>> ReadQueue(
       NT_Handle subentry);
 
+  template <ValidType T>
+  size_t ReadQueueInto(NT_Handle subentry,
+                       std::span<Timestamped<typename TypeInfo<T>::Value>> out);
+
   //
   // Backwards compatible user functions
   //
@@ -682,4 +686,16 @@ std::vector<Timestamped<typename TypeInfo<T>::Value>> LocalStorage::ReadQueue(
   return subscriber->pollStorage.Read<T>();
 }
 
+template <ValidType T>
+size_t LocalStorage::ReadQueueInto(
+    NT_Handle subentry,
+    std::span<Timestamped<typename TypeInfo<T>::Value>> out) {
+  std::scoped_lock lock{m_mutex};
+  auto subscriber = m_impl.GetSubEntry(subentry);
+  if (!subscriber) {
+    return 0;
+  }
+  return subscriber->pollStorage.ReadInto<T>(out);
+}
+
 }  // namespace nt
@@ -4,6 +4,7 @@
 
 #pragma once
 
+#include <span>
 #include <utility>
 #include <vector>
 
@@ -27,6 +28,8 @@ class ValueCircularBuffer {
   std::vector<Value> ReadValue();
   template <ValidType T>
   std::vector<Timestamped<typename TypeInfo<T>::Value>> Read();
+  template <ValidType T>
+  size_t ReadInto(std::span<Timestamped<typename TypeInfo<T>::Value>> out);
 
  private:
   wpi::circular_buffer<Value> m_storage;
@@ -46,4 +49,17 @@ ValueCircularBuffer::Read() {
   return rv;
 }
 
+template <ValidType T>
+size_t ValueCircularBuffer::ReadInto(
+    std::span<Timestamped<typename TypeInfo<T>::Value>> out) {
+  size_t count = 0;
+  while (count < out.size() && m_storage.size() > 0) {
+    Value val = m_storage.pop_front();
+    if (IsNumericConvertibleTo<T>(val) || IsType<T>(val)) {
+      out[count++] = GetTimestamped<T, true>(val);
+    }
+  }
+  return count;
+}
+
 }  // namespace nt
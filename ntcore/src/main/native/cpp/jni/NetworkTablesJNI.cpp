@@ -5,6 +5,7 @@
 #include <jni.h>
 
 #include <cassert>
+#include <cstring>
 
 #include <fmt/format.h>
 #include <wpi/ConvertUTF.h>
@@ -975,6 +976,44 @@ Java_edu_wpi_first_networktables_NetworkTablesJNI_getValue
   return MakeJValue(env, nt::GetEntryValue(entry));
 }
 
+/*
+ * Class:     edu_wpi_first_networktables_NetworkTablesJNI
+ * Method:    getRawBuffer
+ * Signature: (IJLjava/nio/ByteBuffer;[J)I
+ */
+JNIEXPORT jint JNICALL
+Java_edu_wpi_first_networktables_NetworkTablesJNI_getRawBuffer
+  (JNIEnv* env, jclass, jint subentry, jlong lastTime, jobject buf,
+   jlongArray time)
+{
+  if (!buf || !time) {
+    nullPointerEx.Throw(env, "buf and time cannot be null");
+    return -1;
+  }
+  // the caller already has this value; skip reading it
+  if (lastTime != 0 && nt::GetEntryLastChange(subentry) == lastTime) {
+    env->SetLongArrayRegion(time, 0, 1, &lastTime);
+    return 0;
+  }
+  // shares the value's storage; the bytes are only copied into buf
+  auto value = nt::GetEntryValue(subentry);
+  jlong valueTime = value.IsRaw() ? value.time() : 0;
+  env->SetLongArrayRegion(time, 0, 1, &valueTime);
+  if (valueTime == 0) {
+    return -1;
+  }
+  auto raw = value.GetRaw();
+  void* data = env->GetDirectBufferAddress(buf);
+  if (!data) {
+    illegalArgEx.Throw(env, "buf must be a direct buffer");
+    return -1;
+  }
+  if (static_cast<jlong>(raw.size()) <= env->GetDirectBufferCapacity(buf)) {
+    std::memcpy(data, raw.data(), raw.size());
+  }
+  return raw.size();
+}
+
 /*
  * Class:     edu_wpi_first_networktables_NetworkTablesJNI
  * Method:    setEntryFlags
@@ -0,0 +1,97 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ListenerExecutorTest {
+  private NetworkTableInstance m_inst;
+  private ExecutorService m_executor;
+
+  @BeforeEach
+  void setUp() {
+    m_inst = NetworkTableInstance.create();
+    m_executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    m_inst.close();
+    m_executor.shutdown();
+    assertTrue(m_executor.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testOrderPreserved() {
+    List<Long> values = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    try (IntegerPublisher pub = m_inst.getIntegerTopic("foo").publish()) {
+      int handle =
+          m_inst.addListener(
+              pub.getTopic(),
+              EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+              m_executor,
+              event -> {
+                // callbacks for one listener never overlap, so no locking is needed here
+                values.add(event.valueData.value.getInteger());
+                threads.add(Thread.currentThread());
+              });
+      for (int i = 0; i < 100; i++) {
+        pub.set(i, i + 1);
+      }
+      assertTrue(m_inst.waitForListenerQueue(1.0));
+
+      assertEquals(100, values.size());
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i, values.get(i).longValue());
+        assertNotEquals("NTListener", threads.get(i).getName());
+      }
+
+      ListenerMetrics metrics = m_inst.getListenerMetrics(handle);
+      assertNotNull(metrics);
+      assertEquals(100, metrics.callbackCount);
+      assertEquals(0, metrics.queueDepth);
+      assertTrue(metrics.maxQueueDepth >= 1);
+      assertTrue(metrics.maxLatencyNanos >= metrics.maxRunNanos);
+
+      m_inst.removeListener(handle);
+      assertNull(m_inst.getListenerMetrics(handle));
+    }
+  }
+
+  @Test
+  void testInlineMetrics() {
+    List<Thread> threads = new ArrayList<>();
+    try (IntegerPublisher pub = m_inst.getIntegerTopic("foo").publish()) {
+      int handle =
+          m_inst.addListener(
+              pub.getTopic(),
+              EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+              event -> threads.add(Thread.currentThread()));
+      pub.set(1);
+      assertTrue(m_inst.waitForListenerQueue(1.0));
+
+      assertEquals(1, threads.size());
+      assertEquals("NTListener", threads.get(0).getName());
+      ListenerMetrics metrics = m_inst.getListenerMetrics(handle);
+      assertEquals(1, metrics.callbackCount);
+      assertEquals(0, metrics.maxQueueDepth);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PublishBatchTest {
+  private NetworkTableInstance m_inst;
+
+  @BeforeEach
+  void setUp() {
+    m_inst = NetworkTableInstance.create();
+  }
+
+  @AfterEach
+  void tearDown() {
+    m_inst.close();
+  }
+
+  @Test
+  void testFlush() {
+    try (BooleanEntry b = m_inst.getBooleanTopic("b").getEntry(false);
+        IntegerEntry i = m_inst.getIntegerTopic("i").getEntry(0);
+        FloatEntry f = m_inst.getFloatTopic("f").getEntry(0);
+        DoubleEntry d = m_inst.getDoubleTopic("d").getEntry(0)) {
+      PublishBatch batch = new PublishBatch();
+      batch.add(b, true);
+      batch.add(i, 42);
+      batch.add(f, 1.5f);
+      batch.add(d, 2.5);
+      assertEquals(4, batch.size());
+      // nothing is published until flush
+      assertEquals(0, i.get());
+
+      batch.flush(100);
+      assertEquals(0, batch.size());
+      assertTrue(b.get());
+      assertEquals(42, i.get());
+      assertEquals(1.5f, f.get());
+      assertEquals(2.5, d.get());
+      assertEquals(100, d.getAtomic().timestamp);
+    }
+  }
+
+  @Test
+  void testGrow() {
+    DoubleEntry[] entries = new DoubleEntry[40];
+    PublishBatch batch = new PublishBatch();
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = m_inst.getDoubleTopic("d" + i).getEntry(0);
+      batch.add(entries[i], i);
+    }
+    batch.flush(0);
+    for (int i = 0; i < entries.length; i++) {
+      assertEquals(i, entries[i].get());
+      entries[i].close();
+    }
+  }
+
+  @Test
+  void testClear() {
+    try (IntegerEntry i = m_inst.getIntegerTopic("i").getEntry(0)) {
+      PublishBatch batch = new PublishBatch();
+      batch.add(i, 5);
+      batch.clear();
+      batch.flush(0);
+      assertEquals(0, i.get());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadQueueIntoTest {
+  private NetworkTableInstance m_inst;
+
+  @BeforeEach
+  void setUp() {
+    m_inst = NetworkTableInstance.create();
+  }
+
+  @AfterEach
+  void tearDown() {
+    m_inst.close();
+  }
+
+  @Test
+  void testReadAll() {
+    DoubleTopic topic = m_inst.getDoubleTopic("foo");
+    try (DoublePublisher pub = topic.publish();
+        DoubleSubscriber sub = topic.subscribe(0, PubSubOption.pollStorage(10))) {
+      pub.set(1.0, 10);
+      pub.set(2.0, 20);
+      pub.set(3.0, 30);
+
+      long[] times = new long[5];
+      double[] values = new double[5];
+      assertEquals(3, sub.readQueueInto(times, null, values));
+      assertArrayEquals(new long[] {10, 20, 30, 0, 0}, times);
+      assertArrayEquals(new double[] {1.0, 2.0, 3.0, 0, 0}, values);
+      assertEquals(0, sub.readQueueInto(times, null, values));
+    }
+  }
+
+  @Test
+  void testPartialRead() {
+    IntegerTopic topic = m_inst.getIntegerTopic("foo");
+    try (IntegerPublisher pub = topic.publish();
+        IntegerSubscriber sub = topic.subscribe(0, PubSubOption.pollStorage(10))) {
+      for (int i = 1; i <= 5; i++) {
+        pub.set(i, i * 10);
+      }
+
+      // values that don't fit stay queued
+      long[] values = new long[2];
+      assertEquals(2, sub.readQueueInto(null, null, values));
+      assertArrayEquals(new long[] {1, 2}, values);
+      assertEquals(2, sub.readQueueInto(null, null, values));
+      assertArrayEquals(new long[] {3, 4}, values);
+      assertEquals(1, sub.readQueueInto(null, null, values));
+      assertEquals(5, values[0]);
+    }
+  }
+
+  @Test
+  void testShortTimes() {
+    BooleanTopic topic = m_inst.getBooleanTopic("foo");
+    try (BooleanSubscriber sub = topic.subscribe(false)) {
+      assertThrows(
+          IndexOutOfBoundsException.class,
+          () -> sub.readQueueInto(new long[1], null, new boolean[2]));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.util.struct.Struct;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StructGetIntoTest {
+  static final class Point {
+    double m_x;
+    double m_y;
+
+    Point(double x, double y) {
+      m_x = x;
+      m_y = y;
+    }
+  }
+
+  static final class PointStruct implements Struct<Point> {
+    @Override
+    public Class<Point> getTypeClass() {
+      return Point.class;
+    }
+
+    @Override
+    public String getTypeString() {
+      return "struct:Point";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 2;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double x;double y";
+    }
+
+    @Override
+    public Point unpack(ByteBuffer bb) {
+      return new Point(bb.getDouble(), bb.getDouble());
+    }
+
+    @Override
+    public void unpackInto(Point out, ByteBuffer bb) {
+      out.m_x = bb.getDouble();
+      out.m_y = bb.getDouble();
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, Point value) {
+      bb.putDouble(value.m_x);
+      bb.putDouble(value.m_y);
+    }
+  }
+
+  private NetworkTableInstance m_inst;
+
+  @BeforeEach
+  void setUp() {
+    m_inst = NetworkTableInstance.create();
+  }
+
+  @AfterEach
+  void tearDown() {
+    m_inst.close();
+  }
+
+  @Test
+  void testGetInto() {
+    StructTopic<Point> topic = m_inst.getStructTopic("point", new PointStruct());
+    try (StructPublisher<Point> pub = topic.publish();
+        StructSubscriber<Point> sub = topic.subscribe(new Point(0, 0))) {
+      Point out = new Point(0, 0);
+      assertFalse(sub.getInto(out));
+
+      pub.set(new Point(1, 2), 10);
+      assertTrue(sub.getInto(out));
+      assertEquals(1, out.m_x);
+      assertEquals(2, out.m_y);
+
+      // unchanged value is still decoded, overwriting caller modifications
+      out.m_x = 5;
+      assertTrue(sub.getInto(out));
+      assertEquals(1, out.m_x);
+
+      // and into a different object
+      Point other = new Point(0, 0);
+      assertTrue(sub.getInto(other));
+      assertEquals(1, other.m_x);
+
+      pub.set(new Point(3, 4), 20);
+      assertTrue(sub.getInto(out));
+      assertEquals(3, out.m_x);
+      assertEquals(4, out.m_y);
+    }
+  }
+
+  @Test
+  void testGetArrayInto() {
+    StructArrayTopic<Point> topic = m_inst.getStructArrayTopic("points", new PointStruct());
+    try (StructArrayPublisher<Point> pub = topic.publish();
+        StructArraySubscriber<Point> sub = topic.subscribe(new Point[] {})) {
+      Point[] out = {new Point(0, 0), new Point(0, 0)};
+      assertEquals(-1, sub.getArrayInto(out));
+
+      // larger than the default 64-byte buffer
+      Point[] values = new Point[10];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = new Point(i, -i);
+      }
+      pub.set(values, 10);
+      assertEquals(10, sub.getArrayInto(out));
+      assertEquals(1, out[1].m_x);
+      assertEquals(-1, out[1].m_y);
+      out[1].m_x = 5;
+      assertEquals(10, sub.getArrayInto(out));
+      assertEquals(1, out[1].m_x);
+
+      pub.set(new Point[] {new Point(7, 8)}, 20);
+      assertEquals(1, sub.getArrayInto(out));
+      assertEquals(7, out[0].m_x);
+    }
+  }
+}
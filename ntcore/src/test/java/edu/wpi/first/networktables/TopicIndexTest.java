@@ -0,0 +1,115 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.networktables;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TopicIndexTest {
+  private NetworkTableInstance m_inst;
+
+  @BeforeEach
+  void setUp() {
+    m_inst = NetworkTableInstance.create();
+  }
+
+  @AfterEach
+  void tearDown() {
+    m_inst.close();
+  }
+
+  private static Set<String> names(List<TopicInfo> infos) {
+    Set<String> names = new HashSet<>();
+    for (TopicInfo info : infos) {
+      names.add(info.name);
+    }
+    return names;
+  }
+
+  @Test
+  void testMatchesNetworkTable() {
+    // publish before creating the index to cover immediate notifications
+    DoublePublisher a = m_inst.getDoubleTopic("/t/a").publish();
+    TopicIndex index = m_inst.getTopicIndex();
+    BooleanPublisher b = m_inst.getBooleanTopic("/t/b").publish();
+    DoublePublisher c = m_inst.getDoubleTopic("/t/sub/c").publish();
+    DoublePublisher root = m_inst.getDoubleTopic("/r").publish();
+
+    NetworkTable table = m_inst.getTable("/t");
+    assertEquals(table.getKeys(), index.getKeys("/t", 0));
+    assertEquals(table.getSubTables(), index.getSubTables("/t"));
+    assertEquals(
+        table.getKeys(NetworkTableType.kBoolean.getValue()),
+        index.getKeys("/t", NetworkTableType.kBoolean.getValue()));
+    assertEquals(Set.of("r"), index.getKeys("", 0));
+    assertEquals(Set.of("t"), index.getSubTables(""));
+    assertEquals(Set.of("/t/a", "/t/b"), names(index.getTopicInfo("/t", 0)));
+    assertEquals(
+        Set.of("/t/a", "/t/b", "/t/sub/c"), names(index.getSubtreeTopicInfo("/t", 0)));
+    assertTrue(index.containsTable("/t/sub"));
+    assertFalse(index.containsTable("/t/none"));
+
+    a.close();
+    b.close();
+    c.close();
+    root.close();
+  }
+
+  @Test
+  void testUnpublishPrunes() {
+    TopicIndex index = m_inst.getTopicIndex();
+    DoublePublisher c = m_inst.getDoubleTopic("/t/sub/c").publish();
+    assertEquals(Set.of("sub"), index.getSubTables("/t"));
+
+    c.close();
+    assertTrue(index.getSubTables("/t").isEmpty());
+    assertFalse(index.containsTable("/t"));
+    assertTrue(index.getSubtreeTopicInfo("", 0).isEmpty());
+  }
+
+  @Test
+  void testMatch() {
+    TopicIndex index = m_inst.getTopicIndex();
+    DoublePublisher p1 = m_inst.getDoubleTopic("/sd/a/value").publish();
+    DoublePublisher p2 = m_inst.getDoubleTopic("/sd/a/b/value").publish();
+    DoublePublisher p3 = m_inst.getDoubleTopic("/sd/other").publish();
+
+    assertEquals(Set.of("/sd/a/value"), names(index.match("/sd/*/value", 0)));
+    assertEquals(Set.of("/sd/a/value", "/sd/a/b/value"), names(index.match("/sd/**/value", 0)));
+    assertEquals(3, index.match("/sd/**", 0).size());
+    assertTrue(index.match("/sd/*/missing", 0).isEmpty());
+
+    p1.close();
+    p2.close();
+    p3.close();
+  }
+
+  @Test
+  void testMatchMultipleWildcards() {
+    TopicIndex index = m_inst.getTopicIndex();
+    DoublePublisher p1 = m_inst.getDoubleTopic("/sd/a/b/c/d/value").publish();
+    DoublePublisher p2 = m_inst.getDoubleTopic("/sd/value").publish();
+    DoublePublisher p3 = m_inst.getDoubleTopic("/sd/a/b/c/d/other").publish();
+
+    // every split of the path between the "**" segments reaches the same topics
+    List<TopicInfo> infos = index.match("/sd/**/**/**/value", 0);
+    assertEquals(2, infos.size());
+    assertEquals(Set.of("/sd/a/b/c/d/value", "/sd/value"), names(infos));
+    assertEquals(
+        Set.of("/sd/a/b/c/d/value", "/sd/a/b/c/d/other"), names(index.match("/**/b/**/d/*", 0)));
+
+    p1.close();
+    p2.close();
+    p3.close();
+  }
+}
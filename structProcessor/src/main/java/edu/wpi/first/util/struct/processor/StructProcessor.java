@@ -0,0 +1,453 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates Struct implementations for types annotated with
+ * edu.wpi.first.util.struct.GenerateStruct.
+ *
+ * <p>The generated code computes a fixed layout once (field offsets are static final constants)
+ * and packs and unpacks with absolute ByteBuffer gets and puts, so the hot path is straight-line
+ * code the JIT can fully inline, with no reflection or descriptor lookups.
+ */
+@SupportedAnnotationTypes(StructProcessor.kAnnotationName)
+public class StructProcessor extends AbstractProcessor {
+  static final String kAnnotationName = "edu.wpi.first.util.struct.GenerateStruct";
+  private static final String kStruct = "edu.wpi.first.util.struct.Struct";
+  private static final String kByteBuffer = "java.nio.ByteBuffer";
+
+  /** A struct field. */
+  private static final class Field {
+    String m_name;
+    String m_javaType;
+    // primitive fields
+    String m_schemaType;
+    int m_size;
+    String m_getter;
+    String m_putter;
+    // nested struct fields: expression for the nested Struct instance
+    String m_structRef;
+
+    boolean isNested() {
+      return m_structRef != null;
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element instanceof TypeElement) {
+          try {
+            generate((TypeElement) element);
+          } catch (IOException ex) {
+            error(element, "unable to write generated struct: " + ex.getMessage());
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private void error(Element element, String msg) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, element);
+  }
+
+  private static boolean isRecord(TypeElement type) {
+    // ElementKind.RECORD is not available in the Java release this processor is compiled for
+    return "RECORD".equals(type.getKind().name());
+  }
+
+  /** Gets the generated struct class simple name, e.g. "Outer" + "Inner" + "Struct". */
+  private static String generatedName(TypeElement type) {
+    StringBuilder name = new StringBuilder("Struct");
+    Element element = type;
+    while (element instanceof TypeElement) {
+      name.insert(0, element.getSimpleName());
+      element = element.getEnclosingElement();
+    }
+    return name.toString();
+  }
+
+  private static String structName(TypeElement type) {
+    for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (!annotationType.getQualifiedName().contentEquals(kAnnotationName)) {
+        continue;
+      }
+      for (var entry : mirror.getElementValues().entrySet()) {
+        if (entry.getKey().getSimpleName().contentEquals("name")) {
+          AnnotationValue value = entry.getValue();
+          String name = value.getValue().toString();
+          if (!name.isEmpty()) {
+            return name;
+          }
+        }
+      }
+    }
+    return type.getSimpleName().toString();
+  }
+
+  private void generate(TypeElement type) throws IOException {
+    boolean isRecord = isRecord(type);
+    if (!isRecord && type.getKind() != ElementKind.CLASS) {
+      error(type, "@GenerateStruct can only be applied to records and final classes");
+      return;
+    }
+    if (!isRecord && !type.getModifiers().contains(Modifier.FINAL)) {
+      error(type, "@GenerateStruct classes must be final");
+      return;
+    }
+    if (type.getModifiers().contains(Modifier.PRIVATE)
+        || (type.getNestingKind() != NestingKind.TOP_LEVEL
+            && !type.getModifiers().contains(Modifier.STATIC))) {
+      error(type, "@GenerateStruct types must be non-private top-level or static nested types");
+      return;
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      error(type, "@GenerateStruct types cannot be generic");
+      return;
+    }
+
+    // collect fields
+    List<Field> fields = new ArrayList<>();
+    boolean allMutable = !isRecord;
+    for (VariableElement var : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      if (var.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      if (!isRecord && var.getModifiers().contains(Modifier.PRIVATE)) {
+        error(var, "@GenerateStruct class fields cannot be private");
+        return;
+      }
+      if (var.getModifiers().contains(Modifier.FINAL)) {
+        allMutable = false;
+      }
+      Field field = makeField(var);
+      if (field == null) {
+        return;
+      }
+      field.m_name = var.getSimpleName().toString();
+      fields.add(field);
+    }
+
+    // determine how to construct an instance
+    boolean hasAllArgs = isRecord;
+    boolean hasNoArgs = false;
+    for (ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (ctor.getModifiers().contains(Modifier.PRIVATE)) {
+        continue;
+      }
+      var params = ctor.getParameters();
+      if (params.isEmpty()) {
+        hasNoArgs = true;
+      }
+      if (params.size() == fields.size()) {
+        boolean match = true;
+        for (int i = 0; i < params.size(); i++) {
+          TypeMirror paramType = processingEnv.getTypeUtils().erasure(params.get(i).asType());
+          if (!paramType.toString().equals(fields.get(i).m_javaType)) {
+            match = false;
+            break;
+          }
+        }
+        hasAllArgs |= match;
+      }
+    }
+    boolean useAssignment = !hasAllArgs;
+    if (useAssignment && !(hasNoArgs && allMutable)) {
+      error(
+          type,
+          "@GenerateStruct class needs a constructor taking all fields in declaration order, "
+              + "or a no-argument constructor and non-final fields");
+      return;
+    }
+
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+    String pkgName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    String className = generatedName(type);
+    String fqName = pkgName.isEmpty() ? className : pkgName + "." + className;
+    try (PrintWriter out =
+        new PrintWriter(processingEnv.getFiler().createSourceFile(fqName, type).openWriter())) {
+      writeStruct(
+          out, pkgName, className, type, structName(type), fields, isRecord, useAssignment,
+          allMutable && hasNoArgs);
+    }
+  }
+
+  private Field makeField(VariableElement var) {
+    TypeMirror fieldType = var.asType();
+    Field field = new Field();
+    field.m_javaType = fieldType.toString();
+    switch (fieldType.getKind()) {
+      case BOOLEAN:
+        return primitive(field, "bool", 1, "bb.get(%s) != 0", "bb.put(%s, (byte) (%s ? 1 : 0))");
+      case BYTE:
+        return primitive(field, "int8", 1, "bb.get(%s)", "bb.put(%s, %s)");
+      case SHORT:
+        return primitive(field, "int16", 2, "bb.getShort(%s)", "bb.putShort(%s, %s)");
+      case CHAR:
+        return primitive(field, "uint16", 2, "bb.getChar(%s)", "bb.putChar(%s, %s)");
+      case INT:
+        return primitive(field, "int32", 4, "bb.getInt(%s)", "bb.putInt(%s, %s)");
+      case LONG:
+        return primitive(field, "int64", 8, "bb.getLong(%s)", "bb.putLong(%s, %s)");
+      case FLOAT:
+        return primitive(field, "float", 4, "bb.getFloat(%s)", "bb.putFloat(%s, %s)");
+      case DOUBLE:
+        return primitive(field, "double", 8, "bb.getDouble(%s)", "bb.putDouble(%s, %s)");
+      case DECLARED:
+        break;
+      default:
+        error(var, "unsupported struct field type " + fieldType);
+        return null;
+    }
+
+    TypeElement fieldElement = (TypeElement) ((DeclaredType) fieldType).asElement();
+    if (!fieldElement.getTypeParameters().isEmpty()) {
+      error(var, "struct field types cannot be generic");
+      return null;
+    }
+    TypeMirror structType =
+        processingEnv
+            .getTypeUtils()
+            .erasure(processingEnv.getElementUtils().getTypeElement(kStruct).asType());
+    for (VariableElement member : ElementFilter.fieldsIn(fieldElement.getEnclosedElements())) {
+      if (member.getSimpleName().contentEquals("struct")
+          && member.getModifiers().contains(Modifier.STATIC)
+          && member.getModifiers().contains(Modifier.PUBLIC)
+          && processingEnv.getTypeUtils().isAssignable(member.asType(), structType)) {
+        field.m_structRef = fieldElement.getQualifiedName() + ".struct";
+        return field;
+      }
+    }
+    for (AnnotationMirror mirror : fieldElement.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(kAnnotationName)) {
+        String pkg = processingEnv.getElementUtils().getPackageOf(fieldElement).toString();
+        field.m_structRef = "new " + pkg + "." + generatedName(fieldElement) + "()";
+        return field;
+      }
+    }
+    error(
+        var,
+        "struct field type "
+            + fieldType
+            + " has no public static struct field and is not annotated with @GenerateStruct");
+    return null;
+  }
+
+  private static Field primitive(
+      Field field, String schemaType, int size, String getter, String putter) {
+    field.m_schemaType = schemaType;
+    field.m_size = size;
+    field.m_getter = getter;
+    field.m_putter = putter;
+    return field;
+  }
+
+  @SuppressWarnings("PMD.ExcessiveMethodLength")
+  private static void writeStruct(
+      PrintWriter out,
+      String pkgName,
+      String className,
+      TypeElement type,
+      String structName,
+      List<Field> fields,
+      boolean isRecord,
+      boolean useAssignment,
+      boolean mutable) {
+    String typeName = type.getQualifiedName().toString();
+    String structType = kStruct + "<" + typeName + ">";
+
+    out.println("// Generated by " + StructProcessor.class.getName() + ". Do not edit.");
+    out.println();
+    if (!pkgName.isEmpty()) {
+      out.println("package " + pkgName + ";");
+      out.println();
+    }
+    out.println("/** Generated Struct implementation for " + typeName + ". */");
+    out.println("public final class " + className + " implements " + structType + " {");
+
+    // nested struct instances, offsets, size, and schema
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      if (field.isNested()) {
+        out.println(
+            "  private static final "
+                + kStruct
+                + "<"
+                + field.m_javaType
+                + "> kStruct"
+                + i
+                + " = "
+                + field.m_structRef
+                + ";");
+      }
+    }
+    String prev = "0";
+    for (int i = 0; i < fields.size(); i++) {
+      out.println("  private static final int kOffset" + i + " = " + prev + ";");
+      Field field = fields.get(i);
+      String size = field.isNested() ? "kStruct" + i + ".getSize()" : "" + field.m_size;
+      prev = "kOffset" + i + " + " + size;
+    }
+    out.println("  private static final int kSize = " + prev + ";");
+    StringBuilder schema = new StringBuilder("\"\"");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      String sep = i == 0 ? "" : ";";
+      if (field.isNested()) {
+        schema.append(" + \"" + sep + "\" + nestedTypeName(kStruct" + i + ")");
+        schema.append(" + \" " + field.m_name + "\"");
+      } else {
+        schema.append(" + \"" + sep + field.m_schemaType + " " + field.m_name + "\"");
+      }
+    }
+    out.println("  private static final String kSchema = " + schema + ";");
+    out.println();
+
+    out.println("  @Override");
+    out.println("  public Class<" + typeName + "> getTypeClass() {");
+    out.println("    return " + typeName + ".class;");
+    out.println("  }");
+    out.println();
+    out.println("  @Override");
+    out.println("  public String getTypeString() {");
+    out.println("    return \"struct:" + structName + "\";");
+    out.println("  }");
+    out.println();
+    out.println("  @Override");
+    out.println("  public int getSize() {");
+    out.println("    return kSize;");
+    out.println("  }");
+    out.println();
+    out.println("  @Override");
+    out.println("  public String getSchema() {");
+    out.println("    return kSchema;");
+    out.println("  }");
+    out.println();
+
+    List<String> nested = new ArrayList<>();
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i).isNested()) {
+        nested.add("kStruct" + i);
+      }
+    }
+    if (!nested.isEmpty()) {
+      out.println("  @Override");
+      out.println("  public " + kStruct + "<?>[] getNested() {");
+      out.println(
+          "    return new " + kStruct + "<?>[] {" + String.join(", ", nested) + "};");
+      out.println("  }");
+      out.println();
+    }
+
+    // unpack
+    out.println("  @Override");
+    out.println("  public " + typeName + " unpack(" + kByteBuffer + " bb) {");
+    out.println("    int pos = bb.position();");
+    if (useAssignment) {
+      out.println("    " + typeName + " value = new " + typeName + "();");
+      writeReads(out, fields, "value.");
+      out.println("    bb.position(pos + kSize);");
+      out.println("    return value;");
+    } else {
+      writeReads(out, fields, null);
+      out.println("    bb.position(pos + kSize);");
+      List<String> args = new ArrayList<>();
+      for (int i = 0; i < fields.size(); i++) {
+        args.add("f" + i);
+      }
+      out.println("    return new " + typeName + "(" + String.join(", ", args) + ");");
+    }
+    out.println("  }");
+    out.println();
+
+    // pack
+    out.println("  @Override");
+    out.println("  public void pack(" + kByteBuffer + " bb, " + typeName + " value) {");
+    out.println("    int pos = bb.position();");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      String getter = "value." + field.m_name + (isRecord ? "()" : "");
+      if (field.isNested()) {
+        out.println("    bb.position(pos + kOffset" + i + ");");
+        out.println("    kStruct" + i + ".pack(bb, " + getter + ");");
+      } else {
+        out.println("    " + String.format(field.m_putter, "pos + kOffset" + i, getter) + ";");
+      }
+    }
+    out.println("    bb.position(pos + kSize);");
+    out.println("  }");
+
+    // unpackInto
+    if (mutable) {
+      out.println();
+      out.println("  @Override");
+      out.println(
+          "  public void unpackInto(" + typeName + " out, " + kByteBuffer + " bb) {");
+      out.println("    int pos = bb.position();");
+      writeReads(out, fields, "out.");
+      out.println("    bb.position(pos + kSize);");
+      out.println("  }");
+    }
+
+    out.println();
+    out.println("  private static String nestedTypeName(" + kStruct + "<?> struct) {");
+    out.println("    String typeString = struct.getTypeString();");
+    out.println(
+        "    return typeString.startsWith(\"struct:\") ? typeString.substring(7) : typeString;");
+    out.println("  }");
+    out.println("}");
+  }
+
+  /**
+   * Writes reads of all fields. If target is null, each field is read into a local variable
+   * (f0, f1, ...); otherwise it is assigned to target + field name.
+   */
+  private static void writeReads(PrintWriter out, List<Field> fields, String target) {
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      String lhs = target == null ? field.m_javaType + " f" + i : target + field.m_name;
+      if (field.isNested()) {
+        out.println("    bb.position(pos + kOffset" + i + ");");
+        out.println("    " + lhs + " = kStruct" + i + ".unpack(bb);");
+      } else {
+        out.println(
+            "    " + lhs + " = " + String.format(field.m_getter, "pos + kOffset" + i) + ";");
+      }
+    }
+  }
+}
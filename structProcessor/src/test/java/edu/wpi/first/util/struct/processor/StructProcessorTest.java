@@ -0,0 +1,180 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.wpi.first.util.struct.Struct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StructProcessorTest {
+  @TempDir Path m_dir;
+
+  private static final String kPoint =
+      "package test;\n"
+          + "@edu.wpi.first.util.struct.GenerateStruct\n"
+          + "public final class Point {\n"
+          + "  public static int count;\n"
+          + "  public double x;\n"
+          + "  public double y;\n"
+          + "}\n";
+
+  private static final String kSample =
+      "package test;\n"
+          + "@edu.wpi.first.util.struct.GenerateStruct(name = \"Sample2\")\n"
+          + "public final class Sample {\n"
+          + "  final boolean flag;\n"
+          + "  final byte b;\n"
+          + "  final short s;\n"
+          + "  final char c;\n"
+          + "  final int i;\n"
+          + "  final long l;\n"
+          + "  final float f;\n"
+          + "  final Point p;\n"
+          + "  public Sample(boolean flag, byte b, short s, char c, int i, long l, float f,"
+          + " Point p) {\n"
+          + "    this.flag = flag; this.b = b; this.s = s; this.c = c; this.i = i; this.l = l;\n"
+          + "    this.f = f; this.p = p;\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String kPair =
+      "package test;\n"
+          + "@edu.wpi.first.util.struct.GenerateStruct\n"
+          + "public record Pair(int first, double second) {}\n";
+
+  private static final String kBad =
+      "package test;\n"
+          + "@edu.wpi.first.util.struct.GenerateStruct\n"
+          + "public class Bad {\n"
+          + "  public double x;\n"
+          + "}\n";
+
+  private ClassLoader compile(String... sources) throws IOException {
+    Path src = m_dir.resolve("src/test");
+    Path out = m_dir.resolve("out");
+    Files.createDirectories(src);
+    Files.createDirectories(out);
+    List<String> args =
+        new ArrayList<>(
+            List.of(
+                "-processor",
+                StructProcessor.class.getName(),
+                "-classpath",
+                System.getProperty("java.class.path"),
+                "-d",
+                out.toString(),
+                "-s",
+                out.toString()));
+    for (String source : sources) {
+      String name = source.split("(class |record )")[1].split("[ (]")[0];
+      Path file = src.resolve(name + ".java");
+      Files.writeString(file, source);
+      args.add(file.toString());
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    if (compiler.run(null, null, err, args.toArray(new String[0])) != 0) {
+      System.err.println(err);
+      return null;
+    }
+    return new URLClassLoader(
+        new URL[] {out.toUri().toURL()}, StructProcessorTest.class.getClassLoader());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Struct<Object> struct(ClassLoader loader, String name) throws Exception {
+    return (Struct<Object>) loader.loadClass(name).getConstructor().newInstance();
+  }
+
+  @Test
+  void testMutableClass() throws Exception {
+    ClassLoader loader = compile(kPoint);
+    assertNotNull(loader);
+    Struct<Object> struct = struct(loader, "test.PointStruct");
+    assertEquals("struct:Point", struct.getTypeString());
+    assertEquals("double x;double y", struct.getSchema());
+    assertEquals(16, struct.getSize());
+
+    Class<?> cls = loader.loadClass("test.Point");
+    Object value = cls.getConstructor().newInstance();
+    cls.getField("x").setDouble(value, 1.5);
+    cls.getField("y").setDouble(value, -2.5);
+    ByteBuffer bb = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+    bb.position(8);
+    struct.pack(bb, value);
+    assertEquals(24, bb.position());
+    assertEquals(1.5, bb.getDouble(8));
+    assertEquals(-2.5, bb.getDouble(16));
+
+    bb.position(8);
+    Object out = cls.getConstructor().newInstance();
+    struct.unpackInto(out, bb);
+    assertEquals(24, bb.position());
+    assertEquals(1.5, cls.getField("x").getDouble(out));
+    assertEquals(-2.5, cls.getField("y").getDouble(out));
+  }
+
+  @Test
+  void testNestedImmutableClass() throws Exception {
+    ClassLoader loader = compile(kPoint, kSample);
+    assertNotNull(loader);
+    Struct<Object> struct = struct(loader, "test.SampleStruct");
+    assertEquals("struct:Sample2", struct.getTypeString());
+    assertEquals(
+        "bool flag;int8 b;int16 s;uint16 c;int32 i;int64 l;float f;Point p", struct.getSchema());
+    assertEquals(1 + 1 + 2 + 2 + 4 + 8 + 4 + 16, struct.getSize());
+    assertEquals(1, struct.getNested().length);
+
+    byte[] data = new byte[struct.getSize()];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i + 1);
+    }
+    ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    Object value = struct.unpack(bb);
+    assertEquals(data.length, bb.position());
+    ByteBuffer bb2 = ByteBuffer.allocate(data.length).order(ByteOrder.LITTLE_ENDIAN);
+    struct.pack(bb2, value);
+    assertEquals(data.length, bb2.position());
+    assertEquals(bb.flip(), bb2.flip());
+  }
+
+  @Test
+  void testRecord() throws Exception {
+    ClassLoader loader = compile(kPair);
+    assertNotNull(loader);
+    Struct<Object> struct = struct(loader, "test.PairStruct");
+    assertEquals("int32 first;double second", struct.getSchema());
+    assertEquals(12, struct.getSize());
+
+    Object value =
+        loader.loadClass("test.Pair").getConstructor(int.class, double.class).newInstance(7, 0.5);
+    ByteBuffer bb = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+    struct.pack(bb, value);
+    assertEquals(7, bb.getInt(0));
+    assertEquals(0.5, bb.getDouble(4));
+    assertEquals(value, struct.unpack(bb.flip()));
+  }
+
+  @Test
+  void testNonFinalClass() throws Exception {
+    assertNull(compile(kBad));
+  }
+}
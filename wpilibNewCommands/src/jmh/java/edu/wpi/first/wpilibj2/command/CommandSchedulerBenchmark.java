@@ -0,0 +1,110 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj2.command;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the scheduler loop with many commands, each requiring its own subsystem. Run with -prof
+ * gc to check that the steady-state loop does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandSchedulerBenchmark {
+  @Param({"500"})
+  public int m_count;
+
+  private CommandScheduler m_scheduler;
+  private Command[] m_perpetual;
+  private Command[] m_instant;
+
+  /** Initializes the HAL, enables the robot, and creates the subsystems and commands. */
+  @Setup(Level.Trial)
+  public void setup() throws InterruptedException {
+    HAL.initialize(500, 0);
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+    while (!DriverStation.isEnabled()) {
+      Thread.sleep(1);
+    }
+
+    m_scheduler = CommandScheduler.getInstance();
+    m_scheduler.unregisterAllSubsystems();
+    // Loop overruns are expected with this many commands; don't spend the benchmark printing them
+    m_scheduler.setPeriod(1.0);
+
+    m_perpetual = new Command[m_count];
+    m_instant = new Command[m_count];
+    for (int i = 0; i < m_count; i++) {
+      Subsystem perpetualSubsystem = new Subsystem() {};
+      Subsystem instantSubsystem = new Subsystem() {};
+      m_scheduler.registerSubsystem(perpetualSubsystem, instantSubsystem);
+      m_perpetual[i] = Commands.run(() -> {}, perpetualSubsystem);
+      m_instant[i] = Commands.runOnce(() -> {}, instantSubsystem);
+    }
+  }
+
+  /** Cancels all commands and unregisters the subsystems. */
+  @TearDown(Level.Trial)
+  public void teardown() {
+    m_scheduler.cancelAll();
+    m_scheduler.unregisterAllSubsystems();
+  }
+
+  /** Schedules the perpetual commands before each iteration of {@link #run()}. */
+  @Setup(Level.Iteration)
+  public void schedulePerpetual() {
+    m_scheduler.cancelAll();
+    m_scheduler.schedule(m_perpetual);
+  }
+
+  /**
+   * Runs one scheduler loop with all the perpetual commands scheduled.
+   *
+   * @return the scheduler
+   */
+  @Benchmark
+  public CommandScheduler run() {
+    m_scheduler.run();
+    return m_scheduler;
+  }
+
+  /**
+   * Schedules commands that finish in the same loop alongside the perpetual commands. Each instant
+   * command requires its own subsystem, so scheduling goes through the requirement check without
+   * interrupting anything.
+   *
+   * @return the scheduler
+   */
+  @Benchmark
+  public CommandScheduler scheduleAndRun() {
+    for (Command command : m_instant) {
+      m_scheduler.schedule(command);
+    }
+    m_scheduler.run();
+    return m_scheduler;
+  }
+}
@@ -9,10 +9,13 @@ import static edu.wpi.first.util.ErrorMessages.requireNonNullParam;
 import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.util.sendable.SendableRegistry;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.LoopProfiler;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.TimedRobot;
@@ -21,13 +24,13 @@ import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj2.command.Command.InterruptionBehavior;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -63,16 +66,63 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
 
   private final Map<Command, Exception> m_composedCommands = new WeakHashMap<>();
 
-  // A set of the currently-running commands.
-  private final Set<Command> m_scheduledCommands = new LinkedHashSet<>();
-
-  // A map from required subsystems to their requiring commands. Also used as a set of the
-  // currently-required subsystems.
-  private final Map<Subsystem, Command> m_requirements = new LinkedHashMap<>();
+  // Scheduling state of a command, created the first time the command is scheduled. This must not
+  // reference the command, as it is the value of a weak map keyed by the command.
+  private static final class CommandState {
+    // Watchdog epoch indices, cached so that recording epochs doesn't build strings every loop
+    final int m_initializeEpoch;
+    final int m_executeEpoch;
+    final int m_endFinishedEpoch;
+    final int m_endInterruptedEpoch;
+
+    // IDs and bitset of the command's requirements, as of when it was last scheduled
+    int[] m_requirementIds = new int[4];
+    int m_requirementCount;
+    long[] m_requirementBits = new long[1];
+
+    boolean m_scheduled;
+    boolean m_ending;
+
+    CommandState(LoopProfiler profiler, String name) {
+      m_initializeEpoch = profiler.registerEpoch(name + ".initialize()");
+      m_executeEpoch = profiler.registerEpoch(name + ".execute()");
+      m_endFinishedEpoch = profiler.registerEpoch(name + ".end(false)");
+      m_endInterruptedEpoch = profiler.registerEpoch(name + ".end(true)");
+    }
+  }
 
-  // A map from subsystems registered with the scheduler to their default commands.  Also used
-  // as a list of currently-registered subsystems.
-  private final Map<Subsystem, Command> m_subsystems = new LinkedHashMap<>();
+  private final Map<Command, CommandState> m_commandStates = new WeakHashMap<>();
+
+  // The currently-running commands and their states, in the order they were scheduled. Entries of
+  // commands that finish during run() are set to null and compacted at the end of the loop.
+  private Command[] m_scheduledCommands = new Command[16];
+  private CommandState[] m_scheduledStates = new CommandState[16];
+  private int m_scheduledCount;
+
+  // Subsystems are given dense IDs the first time they are registered or required. The ID of a
+  // subsystem is recycled as soon as it is neither registered nor required, so the scheduler
+  // doesn't keep a reference to it. These arrays are indexed by subsystem ID.
+  private final Map<Subsystem, Integer> m_subsystemIds = new HashMap<>();
+  private Subsystem[] m_subsystems = new Subsystem[16];
+  // The command currently requiring each subsystem, or null
+  private Command[] m_requiring = new Command[16];
+  // The default command of each registered subsystem, or null
+  private Command[] m_defaultCommands = new Command[16];
+  // Watchdog epoch of each subsystem's periodic methods, or -1 if not yet registered
+  private int[] m_periodicEpochs = new int[16];
+  private boolean[] m_registered = new boolean[16];
+  private int m_subsystemCount;
+  private int[] m_freeIds = new int[16];
+  private int m_freeCount;
+
+  // Bitset of the subsystems currently required by a command
+  private long[] m_requiredBits = new long[1];
+
+  // IDs of the registered subsystems, in registration order
+  private int[] m_registeredIds = new int[16];
+  private int m_registeredCount;
+  // Index into m_registeredIds of the subsystem whose periodic methods are running, or -1
+  private int m_periodicIndex = -1;
 
   private final EventLoop m_defaultButtonLoop = new EventLoop();
   // The set of currently-registered buttons that will be polled every iteration.
@@ -89,12 +139,12 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
   // Flag and queues for avoiding ConcurrentModificationException if commands are
   // scheduled/canceled during run
   private boolean m_inRunLoop;
-  private final Set<Command> m_toSchedule = new LinkedHashSet<>();
+  private final List<Command> m_toSchedule = new ArrayList<>();
   private final List<Command> m_toCancelCommands = new ArrayList<>();
   private final List<Optional<Command>> m_toCancelInterruptors = new ArrayList<>();
-  private final Set<Command> m_endingCommands = new LinkedHashSet<>();
 
   private final Watchdog m_watchdog = new Watchdog(TimedRobot.kDefaultPeriod, () -> {});
+  private final int m_buttonsEpoch = m_watchdog.getProfiler().registerEpoch("buttons.run()");
 
   CommandScheduler() {
     HAL.report(tResourceType.kResourceType_Command, tInstances.kCommand2_Scheduler);
@@ -117,6 +167,229 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     m_watchdog.setTimeout(period);
   }
 
+  /**
+   * Gets the profiler that records the time taken by each subsystem periodic method, button poll,
+   * and command in run(). Its statistics can be published with {@link
+   * LoopProfiler#startPublishing} or {@link LoopProfiler#startLogging}.
+   *
+   * @return The loop profiler.
+   */
+  public LoopProfiler getLoopProfiler() {
+    return m_watchdog.getProfiler();
+  }
+
+  /**
+   * Starts publishing rolling execution time statistics for each subsystem's periodic methods,
+   * each command's initialize/execute/end methods, and button polling to NetworkTables. Statistics
+   * are recorded every loop regardless; this only controls publishing. Recording doesn't allocate
+   * once each command has been scheduled at least once, and statistics are published at a low
+   * rate (see {@link LoopProfiler#setPublishPeriod(double)}).
+   *
+   * @param table The table to publish to. Epoch names are published to "names" and {@link
+   *     edu.wpi.first.wpilibj.EpochStats} in the same order to "stats".
+   * @see LoopProfiler#startPublishing(NetworkTable)
+   */
+  public void startTelemetry(NetworkTable table) {
+    m_watchdog.getProfiler().startPublishing(table);
+  }
+
+  /**
+   * Starts logging rolling execution time statistics for each subsystem's periodic methods, each
+   * command's initialize/execute/end methods, and button polling to a DataLog.
+   *
+   * @param log The log to write to.
+   * @param prefix Entry name prefix.
+   * @see LoopProfiler#startLogging(DataLog, String)
+   */
+  public void startTelemetry(DataLog log, String prefix) {
+    m_watchdog.getProfiler().startLogging(log, prefix);
+  }
+
+  /** Stops publishing and logging execution time statistics. */
+  public void stopTelemetry() {
+    m_watchdog.getProfiler().stopPublishing();
+    m_watchdog.getProfiler().stopLogging();
+  }
+
+  /**
+   * Gets the scheduling state of a command, creating it the first time the command is seen.
+   *
+   * @param command The command.
+   * @return The command's state.
+   */
+  private CommandState getState(Command command) {
+    CommandState state = m_commandStates.get(command);
+    if (state == null) {
+      state = new CommandState(m_watchdog.getProfiler(), command.getName());
+      m_commandStates.put(command, state);
+    }
+    return state;
+  }
+
+  /**
+   * Gets the ID of a subsystem, assigning one the first time the subsystem is seen.
+   *
+   * @param subsystem The subsystem.
+   * @return The subsystem's ID.
+   */
+  private int getSubsystemId(Subsystem subsystem) {
+    Integer id = m_subsystemIds.get(subsystem);
+    if (id != null) {
+      return id;
+    }
+    if (m_freeCount > 0) {
+      int freeId = m_freeIds[--m_freeCount];
+      m_subsystems[freeId] = subsystem;
+      m_periodicEpochs[freeId] = -1;
+      m_subsystemIds.put(subsystem, freeId);
+      return freeId;
+    }
+    int newId = m_subsystemCount++;
+    if (newId == m_subsystems.length) {
+      int capacity = newId * 2;
+      m_subsystems = Arrays.copyOf(m_subsystems, capacity);
+      m_requiring = Arrays.copyOf(m_requiring, capacity);
+      m_defaultCommands = Arrays.copyOf(m_defaultCommands, capacity);
+      m_periodicEpochs = Arrays.copyOf(m_periodicEpochs, capacity);
+      m_registered = Arrays.copyOf(m_registered, capacity);
+    }
+    if ((newId >> 6) == m_requiredBits.length) {
+      m_requiredBits = Arrays.copyOf(m_requiredBits, m_requiredBits.length * 2);
+    }
+    m_subsystems[newId] = subsystem;
+    m_periodicEpochs[newId] = -1;
+    m_subsystemIds.put(subsystem, newId);
+    return newId;
+  }
+
+  /**
+   * Frees the ID of a subsystem for reuse if the subsystem is neither registered nor required.
+   *
+   * @param id The subsystem's ID.
+   */
+  private void freeSubsystemId(int id) {
+    if (m_registered[id] || m_requiring[id] != null || m_subsystems[id] == null) {
+      return;
+    }
+    m_subsystemIds.remove(m_subsystems[id]);
+    m_subsystems[id] = null;
+    if (m_freeCount == m_freeIds.length) {
+      m_freeIds = Arrays.copyOf(m_freeIds, m_freeCount * 2);
+    }
+    m_freeIds[m_freeCount++] = id;
+  }
+
+  /**
+   * Gets the number of subsystem IDs that have been allocated, including IDs that are free for
+   * reuse.
+   *
+   * @return The number of allocated subsystem IDs.
+   */
+  int getSubsystemIdCount() {
+    return m_subsystemCount;
+  }
+
+  /**
+   * Gets the ID of a subsystem that has already been assigned one.
+   *
+   * @param subsystem The subsystem.
+   * @return The subsystem's ID, or -1 if it has never been registered or required.
+   */
+  private int findSubsystemId(Subsystem subsystem) {
+    Integer id = m_subsystemIds.get(subsystem);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Updates the cached requirement IDs and bitset of a command from its current requirements.
+   *
+   * @param state The command's state.
+   * @param requirements The command's requirements.
+   */
+  private void updateRequirements(CommandState state, Set<Subsystem> requirements) {
+    int count = 0;
+    if (state.m_requirementIds.length < requirements.size()) {
+      state.m_requirementIds = new int[requirements.size()];
+    }
+    for (Subsystem requirement : requirements) {
+      state.m_requirementIds[count++] = getSubsystemId(requirement);
+    }
+    state.m_requirementCount = count;
+    if (state.m_requirementBits.length < m_requiredBits.length) {
+      state.m_requirementBits = new long[m_requiredBits.length];
+    } else {
+      Arrays.fill(state.m_requirementBits, 0L);
+    }
+    for (int i = 0; i < count; i++) {
+      int id = state.m_requirementIds[i];
+      state.m_requirementBits[id >> 6] |= 1L << id;
+    }
+  }
+
+  /**
+   * Releases the requirements held by a command.
+   *
+   * @param state The command's state.
+   */
+  private void releaseRequirements(CommandState state) {
+    for (int i = 0; i < state.m_requirementCount; i++) {
+      int id = state.m_requirementIds[i];
+      m_requiring[id] = null;
+      m_requiredBits[id >> 6] &= ~(1L << id);
+      freeSubsystemId(id);
+    }
+  }
+
+  /**
+   * Removes a command from the scheduled commands, keeping the order of the remaining commands.
+   *
+   * @param command The command.
+   */
+  private void removeScheduled(Command command) {
+    for (int i = 0; i < m_scheduledCount; i++) {
+      if (m_scheduledCommands[i] == command) {
+        int tail = m_scheduledCount - i - 1;
+        System.arraycopy(m_scheduledCommands, i + 1, m_scheduledCommands, i, tail);
+        System.arraycopy(m_scheduledStates, i + 1, m_scheduledStates, i, tail);
+        m_scheduledCount--;
+        m_scheduledCommands[m_scheduledCount] = null;
+        m_scheduledStates[m_scheduledCount] = null;
+        return;
+      }
+    }
+  }
+
+  /** Removes the null entries left by commands that finished during run(). */
+  private void compactScheduled() {
+    int count = 0;
+    for (int i = 0; i < m_scheduledCount; i++) {
+      if (m_scheduledCommands[i] != null) {
+        m_scheduledCommands[count] = m_scheduledCommands[i];
+        m_scheduledStates[count] = m_scheduledStates[i];
+        count++;
+      }
+    }
+    Arrays.fill(m_scheduledCommands, count, m_scheduledCount, null);
+    Arrays.fill(m_scheduledStates, count, m_scheduledCount, null);
+    m_scheduledCount = count;
+  }
+
+  /**
+   * Gets the currently scheduled commands.
+   *
+   * @return The scheduled commands, in the order they were scheduled.
+   */
+  private Command[] getScheduledCommands() {
+    Command[] commands = new Command[m_scheduledCount];
+    int count = 0;
+    for (int i = 0; i < m_scheduledCount; i++) {
+      if (m_scheduledCommands[i] != null) {
+        commands[count++] = m_scheduledCommands[i];
+      }
+    }
+    return Arrays.copyOf(commands, count);
+  }
+
   @Override
   public void close() {
     SendableRegistry.remove(this);
@@ -156,19 +429,30 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    * Initializes a given command, adds its requirements to the list, and performs the init actions.
    *
    * @param command The command to initialize
-   * @param requirements The command requirements
+   * @param state The command's state, with up-to-date requirements
    */
-  private void initCommand(Command command, Set<Subsystem> requirements) {
-    m_scheduledCommands.add(command);
-    for (Subsystem requirement : requirements) {
-      m_requirements.put(requirement, command);
+  private void initCommand(Command command, CommandState state) {
+    if (!state.m_scheduled) {
+      state.m_scheduled = true;
+      if (m_scheduledCount == m_scheduledCommands.length) {
+        m_scheduledCommands = Arrays.copyOf(m_scheduledCommands, m_scheduledCount * 2);
+        m_scheduledStates = Arrays.copyOf(m_scheduledStates, m_scheduledCount * 2);
+      }
+      m_scheduledCommands[m_scheduledCount] = command;
+      m_scheduledStates[m_scheduledCount] = state;
+      m_scheduledCount++;
+    }
+    for (int i = 0; i < state.m_requirementCount; i++) {
+      int id = state.m_requirementIds[i];
+      m_requiring[id] = command;
+      m_requiredBits[id >> 6] |= 1L << id;
     }
     command.initialize();
-    for (Consumer<Command> action : m_initActions) {
-      action.accept(command);
+    for (int i = 0; i < m_initActions.size(); i++) {
+      m_initActions.get(i).accept(command);
     }
 
-    m_watchdog.addEpoch(command.getName() + ".initialize()");
+    m_watchdog.addEpoch(state.m_initializeEpoch);
   }
 
   /**
@@ -185,7 +469,9 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       return;
     }
     if (m_inRunLoop) {
-      m_toSchedule.add(command);
+      if (!m_toSchedule.contains(command)) {
+        m_toSchedule.add(command);
+      }
       return;
     }
 
@@ -199,28 +485,43 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       return;
     }
 
-    Set<Subsystem> requirements = command.getRequirements();
+    CommandState state = getState(command);
+    updateRequirements(state, command.getRequirements());
 
     // Schedule the command if the requirements are not currently in-use.
-    if (Collections.disjoint(m_requirements.keySet(), requirements)) {
-      initCommand(command, requirements);
+    boolean disjoint = true;
+    for (int i = 0; i < state.m_requirementBits.length && i < m_requiredBits.length; i++) {
+      if ((state.m_requirementBits[i] & m_requiredBits[i]) != 0) {
+        disjoint = false;
+        break;
+      }
+    }
+    if (disjoint) {
+      initCommand(command, state);
     } else {
       // Else check if the requirements that are in use have all have interruptible commands,
       // and if so, interrupt those commands and schedule the new command.
-      for (Subsystem requirement : requirements) {
-        Command requiring = requiring(requirement);
+      for (int i = 0; i < state.m_requirementCount; i++) {
+        Command requiring = m_requiring[state.m_requirementIds[i]];
         if (requiring != null
             && requiring.getInterruptionBehavior() == InterruptionBehavior.kCancelIncoming) {
+          // Recycle the IDs given to requirements that are only used by this command
+          for (int j = 0; j < state.m_requirementCount; j++) {
+            freeSubsystemId(state.m_requirementIds[j]);
+          }
           return;
         }
       }
-      for (Subsystem requirement : requirements) {
-        Command requiring = requiring(requirement);
+      Optional<Command> interruptor = Optional.of(command);
+      for (int i = 0; i < state.m_requirementCount; i++) {
+        Command requiring = m_requiring[state.m_requirementIds[i]];
         if (requiring != null) {
-          cancel(requiring, Optional.of(command));
+          cancel(requiring, interruptor);
         }
       }
-      initCommand(command, requirements);
+      // Canceling may have recycled the IDs of requirements that aren't registered
+      updateRequirements(state, command.getRequirements());
+      initCommand(command, state);
     }
   }
 
@@ -255,13 +556,26 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     }
     m_watchdog.reset();
 
-    // Run the periodic method of all registered subsystems.
-    for (Subsystem subsystem : m_subsystems.keySet()) {
-      subsystem.periodic();
-      if (RobotBase.isSimulation()) {
-        subsystem.simulationPeriodic();
+    // Run the periodic method of all registered subsystems. Subsystems registered during the loop
+    // run at the end of it; subsystems unregistered before they are reached don't run.
+    try {
+      for (m_periodicIndex = 0; m_periodicIndex < m_registeredCount; m_periodicIndex++) {
+        int id = m_registeredIds[m_periodicIndex];
+        Subsystem subsystem = m_subsystems[id];
+        if (m_periodicEpochs[id] < 0) {
+          m_periodicEpochs[id] =
+              m_watchdog.getProfiler().registerEpoch(subsystem.getName() + ".periodic()");
+        }
+        // The ID may be recycled by periodic(), so look up the epoch first
+        int epoch = m_periodicEpochs[id];
+        subsystem.periodic();
+        if (RobotBase.isSimulation()) {
+          subsystem.simulationPeriodic();
+        }
+        m_watchdog.addEpoch(epoch);
       }
-      m_watchdog.addEpoch(subsystem.getName() + ".periodic()");
+    } finally {
+      m_periodicIndex = -1;
     }
 
     // Cache the active instance to avoid concurrency problems if setActiveLoop() is called from
@@ -269,42 +583,51 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     EventLoop loopCache = m_activeButtonLoop;
     // Poll buttons for new commands to add.
     loopCache.poll();
-    m_watchdog.addEpoch("buttons.run()");
+    m_watchdog.addEpoch(m_buttonsEpoch);
 
     m_inRunLoop = true;
     boolean isDisabled = RobotState.isDisabled();
-    // Run scheduled commands, remove finished commands.
-    for (Iterator<Command> iterator = m_scheduledCommands.iterator(); iterator.hasNext(); ) {
-      Command command = iterator.next();
-
-      if (isDisabled && !command.runsWhenDisabled()) {
-        cancel(command, kNoInterruptor);
-        continue;
-      }
+    // Run scheduled commands, remove finished commands. Commands can't be added to the scheduled
+    // commands during the loop, as scheduling is deferred until after it.
+    try {
+      for (int i = 0; i < m_scheduledCount; i++) {
+        Command command = m_scheduledCommands[i];
+        CommandState state = m_scheduledStates[i];
+
+        if (isDisabled && !command.runsWhenDisabled()) {
+          cancel(command, kNoInterruptor);
+          continue;
+        }
 
-      command.execute();
-      for (Consumer<Command> action : m_executeActions) {
-        action.accept(command);
-      }
-      m_watchdog.addEpoch(command.getName() + ".execute()");
-      if (command.isFinished()) {
-        m_endingCommands.add(command);
-        command.end(false);
-        for (Consumer<Command> action : m_finishActions) {
-          action.accept(command);
+        command.execute();
+        for (int j = 0; j < m_executeActions.size(); j++) {
+          m_executeActions.get(j).accept(command);
         }
-        m_endingCommands.remove(command);
-        iterator.remove();
+        boolean finished = command.isFinished();
+        m_watchdog.addEpoch(state.m_executeEpoch);
+        if (finished) {
+          state.m_ending = true;
+          command.end(false);
+          for (int j = 0; j < m_finishActions.size(); j++) {
+            m_finishActions.get(j).accept(command);
+          }
+          state.m_ending = false;
+          state.m_scheduled = false;
+          m_scheduledCommands[i] = null;
+          m_scheduledStates[i] = null;
 
-        m_requirements.keySet().removeAll(command.getRequirements());
-        m_watchdog.addEpoch(command.getName() + ".end(false)");
+          releaseRequirements(state);
+          m_watchdog.addEpoch(state.m_endFinishedEpoch);
+        }
       }
+    } finally {
+      compactScheduled();
     }
     m_inRunLoop = false;
 
     // Schedule/cancel commands from queues populated during loop
-    for (Command command : m_toSchedule) {
-      schedule(command);
+    for (int i = 0; i < m_toSchedule.size(); i++) {
+      schedule(m_toSchedule.get(i));
     }
 
     for (int i = 0; i < m_toCancelCommands.size(); i++) {
@@ -316,10 +639,10 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     m_toCancelInterruptors.clear();
 
     // Add default commands for un-required registered subsystems.
-    for (Map.Entry<Subsystem, Command> subsystemCommand : m_subsystems.entrySet()) {
-      if (!m_requirements.containsKey(subsystemCommand.getKey())
-          && subsystemCommand.getValue() != null) {
-        schedule(subsystemCommand.getValue());
+    for (int i = 0; i < m_registeredCount; i++) {
+      int id = m_registeredIds[i];
+      if (m_requiring[id] == null && m_defaultCommands[id] != null) {
+        schedule(m_defaultCommands[id]);
       }
     }
 
@@ -343,14 +666,28 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
         DriverStation.reportWarning("Tried to register a null subsystem", true);
         continue;
       }
-      if (m_subsystems.containsKey(subsystem)) {
+      int id = getSubsystemId(subsystem);
+      if (m_registered[id]) {
         DriverStation.reportWarning("Tried to register an already-registered subsystem", true);
         continue;
       }
-      m_subsystems.put(subsystem, null);
+      register(id);
     }
   }
 
+  /**
+   * Adds a subsystem to the end of the registered subsystems.
+   *
+   * @param id The subsystem's ID; the subsystem must not already be registered.
+   */
+  private void register(int id) {
+    if (m_registeredCount == m_registeredIds.length) {
+      m_registeredIds = Arrays.copyOf(m_registeredIds, m_registeredCount * 2);
+    }
+    m_registeredIds[m_registeredCount++] = id;
+    m_registered[id] = true;
+  }
+
   /**
    * Un-registers subsystems with the scheduler. The subsystem will no longer have its periodic
    * block called, and will not have its default command scheduled.
@@ -358,7 +695,26 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    * @param subsystems the subsystem to un-register
    */
   public void unregisterSubsystem(Subsystem... subsystems) {
-    m_subsystems.keySet().removeAll(Set.of(subsystems));
+    for (Subsystem subsystem : Set.of(subsystems)) {
+      int id = findSubsystemId(subsystem);
+      if (id < 0 || !m_registered[id]) {
+        continue;
+      }
+      m_registered[id] = false;
+      m_defaultCommands[id] = null;
+      for (int i = 0; i < m_registeredCount; i++) {
+        if (m_registeredIds[i] == id) {
+          System.arraycopy(m_registeredIds, i + 1, m_registeredIds, i, m_registeredCount - i - 1);
+          m_registeredCount--;
+          // Keep the periodic loop on the next subsystem if this one has already run
+          if (i <= m_periodicIndex) {
+            m_periodicIndex--;
+          }
+          break;
+        }
+      }
+      freeSubsystemId(id);
+    }
   }
 
   /**
@@ -367,7 +723,13 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    * scheduled.
    */
   public void unregisterAllSubsystems() {
-    m_subsystems.clear();
+    for (int i = 0; i < m_registeredCount; i++) {
+      int id = m_registeredIds[i];
+      m_registered[id] = false;
+      m_defaultCommands[id] = null;
+      freeSubsystemId(id);
+    }
+    m_registeredCount = 0;
   }
 
   /**
@@ -404,7 +766,22 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       // Warn, but allow -- there might be a use case for this.
     }
 
-    m_subsystems.put(subsystem, defaultCommand);
+    setDefault(subsystem, defaultCommand);
+  }
+
+  /**
+   * Sets the default command of a subsystem, registering the subsystem if it is not already
+   * registered.
+   *
+   * @param subsystem The subsystem.
+   * @param defaultCommand The default command, or null.
+   */
+  private void setDefault(Subsystem subsystem, Command defaultCommand) {
+    int id = getSubsystemId(subsystem);
+    if (!m_registered[id]) {
+      register(id);
+    }
+    m_defaultCommands[id] = defaultCommand;
   }
 
   /**
@@ -420,7 +797,7 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       return;
     }
 
-    m_subsystems.put(subsystem, null);
+    setDefault(subsystem, null);
   }
 
   /**
@@ -431,7 +808,8 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    * @return the default command associated with the subsystem
    */
   public Command getDefaultCommand(Subsystem subsystem) {
-    return m_subsystems.get(subsystem);
+    int id = findSubsystemId(subsystem);
+    return id >= 0 ? m_defaultCommands[id] : null;
   }
 
   /**
@@ -464,7 +842,8 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       DriverStation.reportWarning("Tried to cancel a null command", true);
       return;
     }
-    if (m_endingCommands.contains(command)) {
+    CommandState state = m_commandStates.get(command);
+    if (state != null && state.m_ending) {
       return;
     }
     if (m_inRunLoop) {
@@ -472,25 +851,26 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
       m_toCancelInterruptors.add(interruptor);
       return;
     }
-    if (!isScheduled(command)) {
+    if (state == null || !state.m_scheduled) {
       return;
     }
 
-    m_endingCommands.add(command);
+    state.m_ending = true;
     command.end(true);
-    for (BiConsumer<Command, Optional<Command>> action : m_interruptActions) {
-      action.accept(command, interruptor);
+    for (int i = 0; i < m_interruptActions.size(); i++) {
+      m_interruptActions.get(i).accept(command, interruptor);
     }
-    m_endingCommands.remove(command);
-    m_scheduledCommands.remove(command);
-    m_requirements.keySet().removeAll(command.getRequirements());
-    m_watchdog.addEpoch(command.getName() + ".end(true)");
+    state.m_ending = false;
+    state.m_scheduled = false;
+    removeScheduled(command);
+    releaseRequirements(state);
+    m_watchdog.addEpoch(state.m_endInterruptedEpoch);
   }
 
   /** Cancels all commands that are currently scheduled. */
   public void cancelAll() {
     // Copy to array to avoid concurrent modification.
-    cancel(m_scheduledCommands.toArray(new Command[0]));
+    cancel(getScheduledCommands());
   }
 
   /**
@@ -502,7 +882,28 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    * @return whether the command is currently scheduled
    */
   public boolean isScheduled(Command... commands) {
-    return m_scheduledCommands.containsAll(Set.of(commands));
+    if (commands.length == 1) {
+      // fast path for the common single command case
+      return isScheduled(Objects.requireNonNull(commands[0]));
+    }
+    for (Command command : Set.of(commands)) {
+      if (!isScheduled(command)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether the given command is running. Unlike the public varargs overload, this doesn't
+   * allocate.
+   *
+   * @param command the command to query
+   * @return whether the command is currently scheduled
+   */
+  boolean isScheduled(Command command) {
+    CommandState state = m_commandStates.get(command);
+    return state != null && state.m_scheduled;
   }
 
   /**
@@ -514,7 +915,8 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
    *     scheduled
    */
   public Command requiring(Subsystem subsystem) {
-    return m_requirements.get(subsystem);
+    int id = findSubsystemId(subsystem);
+    return id >= 0 ? m_requiring[id] : null;
   }
 
   /** Disables the command scheduler. */
@@ -664,11 +1066,10 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     builder.addStringArrayProperty(
         "Names",
         () -> {
-          String[] names = new String[m_scheduledCommands.size()];
-          int i = 0;
-          for (Command command : m_scheduledCommands) {
-            names[i] = command.getName();
-            i++;
+          Command[] commands = getScheduledCommands();
+          String[] names = new String[commands.length];
+          for (int i = 0; i < commands.length; i++) {
+            names[i] = commands[i].getName();
           }
           return names;
         },
@@ -676,11 +1077,10 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
     builder.addIntegerArrayProperty(
         "Ids",
         () -> {
-          long[] ids = new long[m_scheduledCommands.size()];
-          int i = 0;
-          for (Command command : m_scheduledCommands) {
-            ids[i] = command.hashCode();
-            i++;
+          Command[] commands = getScheduledCommands();
+          long[] ids = new long[commands.length];
+          for (int i = 0; i < commands.length; i++) {
+            ids[i] = commands[i].hashCode();
           }
           return ids;
         },
@@ -690,7 +1090,7 @@ public final class CommandScheduler implements Sendable, AutoCloseable {
         () -> new long[] {},
         toCancel -> {
           Map<Long, Command> ids = new LinkedHashMap<>();
-          for (Command command : m_scheduledCommands) {
+          for (Command command : getScheduledCommands()) {
             long id = command.hashCode();
             ids.put(id, command);
           }
@@ -4,11 +4,16 @@
 
 package edu.wpi.first.wpilibj2.command;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class CommandRequirementsTest extends CommandTestBase {
@@ -70,4 +75,66 @@ class CommandRequirementsTest extends CommandTestBase {
           () -> scheduler.setDefaultCommand(system, missingRequirement));
     }
   }
+
+  @Test
+  void requirementSnapshotReleaseTest() {
+    try (CommandScheduler scheduler = new CommandScheduler()) {
+      Subsystem original = new Subsystem() {};
+      Subsystem added = new Subsystem() {};
+
+      MockCommandHolder commandHolder = new MockCommandHolder(true, original);
+      Command command = commandHolder.getMock();
+      MockCommandHolder otherHolder = new MockCommandHolder(true, added);
+      Command other = otherHolder.getMock();
+
+      scheduler.schedule(command);
+      // Changing the requirements of a scheduled command doesn't change what it holds
+      when(command.getRequirements()).thenReturn(Set.of(original, added));
+      scheduler.schedule(other);
+
+      assertTrue(scheduler.isScheduled(command));
+      assertSame(command, scheduler.requiring(original));
+      assertSame(other, scheduler.requiring(added));
+
+      commandHolder.setFinished(true);
+      scheduler.run();
+
+      assertFalse(scheduler.isScheduled(command));
+      assertNull(scheduler.requiring(original));
+      assertTrue(scheduler.isScheduled(other));
+      assertSame(other, scheduler.requiring(added));
+    }
+  }
+
+  @Test
+  void requirementManySubsystemsTest() {
+    try (CommandScheduler scheduler = new CommandScheduler()) {
+      // Enough subsystems that the requirement bitset spans three words
+      Subsystem[] subsystems = new Subsystem[130];
+      Command[] commands = new Command[subsystems.length];
+      for (int i = 0; i < subsystems.length; i++) {
+        subsystems[i] = new Subsystem() {};
+        commands[i] = new MockCommandHolder(true, subsystems[i]).getMock();
+      }
+
+      scheduler.schedule(commands);
+
+      for (int i = 0; i < subsystems.length; i++) {
+        assertTrue(scheduler.isScheduled(commands[i]));
+        assertSame(commands[i], scheduler.requiring(subsystems[i]));
+      }
+
+      // Only the commands holding a requirement of the interrupter, one in each word, are
+      // interrupted
+      Command interrupter =
+          new MockCommandHolder(true, subsystems[1], subsystems[64], subsystems[129]).getMock();
+      scheduler.schedule(interrupter);
+
+      for (int i = 0; i < subsystems.length; i++) {
+        boolean interrupted = i == 1 || i == 64 || i == 129;
+        assertEquals(!interrupted, scheduler.isScheduled(commands[i]));
+        assertSame(interrupted ? interrupter : commands[i], scheduler.requiring(subsystems[i]));
+      }
+    }
+  }
 }
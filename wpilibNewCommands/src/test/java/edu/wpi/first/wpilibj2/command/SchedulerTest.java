@@ -7,9 +7,13 @@ package edu.wpi.first.wpilibj2.command;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import edu.wpi.first.wpilibj.LoopProfiler;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
@@ -154,6 +158,89 @@ class SchedulerTest extends CommandTestBase {
     }
   }
 
+  @Test
+  void modifySubsystemsInPeriodicTest() {
+    try (CommandScheduler scheduler = new CommandScheduler()) {
+      AtomicInteger modifierCounter = new AtomicInteger(0);
+      AtomicInteger removedCounter = new AtomicInteger(0);
+      AtomicInteger keptCounter = new AtomicInteger(0);
+      AtomicInteger addedCounter = new AtomicInteger(0);
+      Subsystem removed =
+          new Subsystem() {
+            @Override
+            public void periodic() {
+              removedCounter.incrementAndGet();
+            }
+          };
+      Subsystem kept =
+          new Subsystem() {
+            @Override
+            public void periodic() {
+              keptCounter.incrementAndGet();
+            }
+          };
+      Subsystem added =
+          new Subsystem() {
+            @Override
+            public void periodic() {
+              addedCounter.incrementAndGet();
+            }
+          };
+      Subsystem modifier =
+          new Subsystem() {
+            @Override
+            public void periodic() {
+              modifierCounter.incrementAndGet();
+              scheduler.unregisterSubsystem(this, removed);
+              scheduler.registerSubsystem(added);
+            }
+          };
+      scheduler.registerSubsystem(modifier, removed, kept);
+
+      // Changes take effect in the same loop, without skipping the subsystems after the modifier
+      assertDoesNotThrow(scheduler::run);
+      assertEquals(1, modifierCounter.get());
+      assertEquals(0, removedCounter.get());
+      assertEquals(1, keptCounter.get());
+      assertEquals(1, addedCounter.get());
+
+      scheduler.run();
+      assertEquals(1, modifierCounter.get());
+      assertEquals(0, removedCounter.get());
+      assertEquals(2, keptCounter.get());
+      assertEquals(2, addedCounter.get());
+    }
+  }
+
+  @Test
+  void subsystemIdRecycleTest() {
+    try (CommandScheduler scheduler = new CommandScheduler()) {
+      Subsystem registered = new Subsystem() {};
+      scheduler.registerSubsystem(registered);
+
+      for (int i = 0; i < 20; i++) {
+        Subsystem unregistered = new Subsystem() {};
+        scheduler.registerSubsystem(unregistered);
+        scheduler.unregisterSubsystem(unregistered);
+
+        // A subsystem that is only required gives up its ID when its command ends
+        Subsystem required = new Subsystem() {};
+        Command first = new MockCommandHolder(true, required).getMock();
+        Command second = new MockCommandHolder(true, required).getMock();
+        scheduler.schedule(first);
+        scheduler.schedule(second);
+        assertFalse(scheduler.isScheduled(first));
+        assertSame(second, scheduler.requiring(required));
+
+        scheduler.cancel(second);
+        assertNull(scheduler.requiring(required));
+      }
+
+      // One ID for the registered subsystem, and one reused by all the others
+      assertEquals(2, scheduler.getSubsystemIdCount());
+    }
+  }
+
   @Test
   void schedulerCancelAllTest() {
     try (CommandScheduler scheduler = new CommandScheduler()) {
@@ -186,4 +273,42 @@ class SchedulerTest extends CommandTestBase {
       assertEquals(counter.get(), 1);
     }
   }
+
+  @Test
+  void schedulerProfilerEpochsTest() {
+    try (CommandScheduler scheduler = new CommandScheduler()) {
+      Subsystem subsystem =
+          new Subsystem() {
+            @Override
+            public String getName() {
+              return "Sub";
+            }
+          };
+      Command finishing = new InstantCommand().withName("Finishing");
+      Command interrupted = Commands.run(() -> {}).withName("Interrupted");
+
+      scheduler.registerSubsystem(subsystem);
+      scheduler.schedule(finishing, interrupted);
+      scheduler.run();
+      scheduler.cancel(interrupted);
+      scheduler.run();
+
+      LoopProfiler profiler = scheduler.getLoopProfiler();
+      Set<String> names = new HashSet<>();
+      for (int i = 0; i < profiler.getEpochCount(); i++) {
+        names.add(profiler.getEpochName(i));
+      }
+      assertTrue(names.contains("Sub.periodic()"));
+      assertTrue(names.contains("buttons.run()"));
+      assertTrue(names.contains("Finishing.initialize()"));
+      assertTrue(names.contains("Finishing.execute()"));
+      assertTrue(names.contains("Finishing.end(false)"));
+      assertTrue(names.contains("Interrupted.end(true)"));
+
+      // epochs are registered once, not per loop
+      int count = profiler.getEpochCount();
+      scheduler.run();
+      assertEquals(count, profiler.getEpochCount());
+    }
+  }
 }
@@ -0,0 +1,93 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj;
+
+import edu.wpi.first.wpilibj.struct.EpochStatsStruct;
+
+/**
+ * Rolling timing statistics for a single {@link LoopProfiler} epoch. All times are in seconds.
+ *
+ * <p>Instances owned by a LoopProfiler are updated in place each time statistics are computed, so
+ * they should be copied if a snapshot is needed.
+ */
+public final class EpochStats {
+  private double m_last;
+  private double m_min;
+  private double m_avg;
+  private double m_p99;
+  private double m_max;
+
+  /** Constructs an EpochStats with all statistics set to zero. */
+  public EpochStats() {}
+
+  /**
+   * Constructs an EpochStats.
+   *
+   * @param last Time in the most recent loop.
+   * @param min Minimum time over the window.
+   * @param avg Average time over the window.
+   * @param p99 99th percentile time over the window.
+   * @param max Maximum time over the window.
+   */
+  public EpochStats(double last, double min, double avg, double p99, double max) {
+    set(last, min, avg, p99, max);
+  }
+
+  void set(double last, double min, double avg, double p99, double max) {
+    m_last = last;
+    m_min = min;
+    m_avg = avg;
+    m_p99 = p99;
+    m_max = max;
+  }
+
+  /**
+   * Gets the time in the most recent loop.
+   *
+   * @return Time in seconds, or 0 if the epoch did not run in the most recent loop
+   */
+  public double getLast() {
+    return m_last;
+  }
+
+  /**
+   * Gets the minimum time over the rolling window.
+   *
+   * @return Time in seconds
+   */
+  public double getMin() {
+    return m_min;
+  }
+
+  /**
+   * Gets the average time over the rolling window.
+   *
+   * @return Time in seconds
+   */
+  public double getAvg() {
+    return m_avg;
+  }
+
+  /**
+   * Gets the 99th percentile time over the rolling window.
+   *
+   * @return Time in seconds
+   */
+  public double getP99() {
+    return m_p99;
+  }
+
+  /**
+   * Gets the maximum time over the rolling window.
+   *
+   * @return Time in seconds
+   */
+  public double getMax() {
+    return m_max;
+  }
+
+  /** EpochStats struct for serialization. */
+  public static final EpochStatsStruct struct = new EpochStatsStruct();
+}
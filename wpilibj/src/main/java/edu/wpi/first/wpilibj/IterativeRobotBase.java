@@ -69,6 +69,21 @@ public abstract class IterativeRobotBase extends RobotBase {
   private Mode m_lastMode = Mode.kNone;
   private final double m_period;
   private final Watchdog m_watchdog;
+
+  // Watchdog epoch indices
+  private final int m_disabledInitEpoch;
+  private final int m_autonomousInitEpoch;
+  private final int m_teleopInitEpoch;
+  private final int m_testInitEpoch;
+  private final int m_disabledPeriodicEpoch;
+  private final int m_autonomousPeriodicEpoch;
+  private final int m_teleopPeriodicEpoch;
+  private final int m_testPeriodicEpoch;
+  private final int m_robotPeriodicEpoch;
+  private final int m_smartDashboardEpoch;
+  private final int m_liveWindowEpoch;
+  private final int m_shuffleboardEpoch;
+  private final int m_simulationPeriodicEpoch;
   private boolean m_ntFlushEnabled = true;
   private boolean m_lwEnabledInTest;
   private boolean m_calledDsConnected;
@@ -81,6 +96,21 @@ public abstract class IterativeRobotBase extends RobotBase {
   protected IterativeRobotBase(double period) {
     m_period = period;
     m_watchdog = new Watchdog(period, this::printLoopOverrunMessage);
+
+    LoopProfiler profiler = m_watchdog.getProfiler();
+    m_disabledInitEpoch = profiler.registerEpoch("disabledInit()");
+    m_autonomousInitEpoch = profiler.registerEpoch("autonomousInit()");
+    m_teleopInitEpoch = profiler.registerEpoch("teleopInit()");
+    m_testInitEpoch = profiler.registerEpoch("testInit()");
+    m_disabledPeriodicEpoch = profiler.registerEpoch("disabledPeriodic()");
+    m_autonomousPeriodicEpoch = profiler.registerEpoch("autonomousPeriodic()");
+    m_teleopPeriodicEpoch = profiler.registerEpoch("teleopPeriodic()");
+    m_testPeriodicEpoch = profiler.registerEpoch("testPeriodic()");
+    m_robotPeriodicEpoch = profiler.registerEpoch("robotPeriodic()");
+    m_smartDashboardEpoch = profiler.registerEpoch("SmartDashboard.updateValues()");
+    m_liveWindowEpoch = profiler.registerEpoch("LiveWindow.updateValues()");
+    m_shuffleboardEpoch = profiler.registerEpoch("Shuffleboard.update()");
+    m_simulationPeriodicEpoch = profiler.registerEpoch("simulationPeriodic()");
   }
 
   /** Provide an alternate "main loop" via startCompetition(). */
@@ -288,6 +318,17 @@ public abstract class IterativeRobotBase extends RobotBase {
     return m_period;
   }
 
+  /**
+   * Gets the profiler that records the time taken by each part of the robot loop. Its statistics
+   * can be published with {@link LoopProfiler#startPublishing} or {@link
+   * LoopProfiler#startLogging}.
+   *
+   * @return The loop profiler.
+   */
+  public LoopProfiler getLoopProfiler() {
+    return m_watchdog.getProfiler();
+  }
+
   protected void loopFunc() {
     DriverStation.refreshData();
     m_watchdog.reset();
@@ -331,20 +372,20 @@ public abstract class IterativeRobotBase extends RobotBase {
       // Call current mode's entry function
       if (mode == Mode.kDisabled) {
         disabledInit();
-        m_watchdog.addEpoch("disabledInit()");
+        m_watchdog.addEpoch(m_disabledInitEpoch);
       } else if (mode == Mode.kAutonomous) {
         autonomousInit();
-        m_watchdog.addEpoch("autonomousInit()");
+        m_watchdog.addEpoch(m_autonomousInitEpoch);
       } else if (mode == Mode.kTeleop) {
         teleopInit();
-        m_watchdog.addEpoch("teleopInit()");
+        m_watchdog.addEpoch(m_teleopInitEpoch);
       } else if (mode == Mode.kTest) {
         if (m_lwEnabledInTest) {
           LiveWindow.setEnabled(true);
           Shuffleboard.enableActuatorWidgets();
         }
         testInit();
-        m_watchdog.addEpoch("testInit()");
+        m_watchdog.addEpoch(m_testInitEpoch);
       }
 
       m_lastMode = mode;
@@ -354,36 +395,36 @@ public abstract class IterativeRobotBase extends RobotBase {
     if (mode == Mode.kDisabled) {
       DriverStationJNI.observeUserProgramDisabled();
       disabledPeriodic();
-      m_watchdog.addEpoch("disabledPeriodic()");
+      m_watchdog.addEpoch(m_disabledPeriodicEpoch);
     } else if (mode == Mode.kAutonomous) {
       DriverStationJNI.observeUserProgramAutonomous();
       autonomousPeriodic();
-      m_watchdog.addEpoch("autonomousPeriodic()");
+      m_watchdog.addEpoch(m_autonomousPeriodicEpoch);
     } else if (mode == Mode.kTeleop) {
       DriverStationJNI.observeUserProgramTeleop();
       teleopPeriodic();
-      m_watchdog.addEpoch("teleopPeriodic()");
+      m_watchdog.addEpoch(m_teleopPeriodicEpoch);
     } else {
       DriverStationJNI.observeUserProgramTest();
       testPeriodic();
-      m_watchdog.addEpoch("testPeriodic()");
+      m_watchdog.addEpoch(m_testPeriodicEpoch);
     }
 
     robotPeriodic();
-    m_watchdog.addEpoch("robotPeriodic()");
+    m_watchdog.addEpoch(m_robotPeriodicEpoch);
 
     SmartDashboard.updateValues();
-    m_watchdog.addEpoch("SmartDashboard.updateValues()");
+    m_watchdog.addEpoch(m_smartDashboardEpoch);
     LiveWindow.updateValues();
-    m_watchdog.addEpoch("LiveWindow.updateValues()");
+    m_watchdog.addEpoch(m_liveWindowEpoch);
     Shuffleboard.update();
-    m_watchdog.addEpoch("Shuffleboard.update()");
+    m_watchdog.addEpoch(m_shuffleboardEpoch);
 
     if (isSimulation()) {
       HAL.simPeriodicBefore();
       simulationPeriodic();
       HAL.simPeriodicAfter();
-      m_watchdog.addEpoch("simulationPeriodic()");
+      m_watchdog.addEpoch(m_simulationPeriodicEpoch);
     }
 
     m_watchdog.disable();
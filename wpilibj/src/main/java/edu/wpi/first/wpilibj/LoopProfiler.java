@@ -0,0 +1,446 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.StringArrayLogEntry;
+import edu.wpi.first.util.datalog.StructArrayLogEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A low-overhead profiler for periodic loops.
+ *
+ * <p>Time is partitioned into named epochs. Epochs are registered once with {@link
+ * #registerEpoch(String)}, which returns an integer index; recording time for an epoch by index
+ * with {@link #addEpoch(int)} or {@link #beginScope(int)}/{@link #endScope()} only updates
+ * primitive arrays and doesn't allocate. Epochs can also be recorded by name with {@link
+ * #addEpoch(String)}, which costs one map lookup and registers the name the first time it is seen.
+ *
+ * <p>Each loop is delimited by {@link #startLoop()} and {@link #endLoop()}. At the end of each
+ * loop, the total time recorded for each epoch that ran during the loop is added to a rolling
+ * window of the most recent samples for that epoch, from which min/avg/p99/max statistics are
+ * computed. Statistics can be published periodically to NetworkTables and/or a DataLog as an
+ * {@link EpochStats} struct array, with epoch names published as a separate string array.
+ *
+ * <p>This class is not thread safe; all methods should be called from the loop's thread, except for
+ * printEpochs(), which may also be called from another thread (e.g. a Watchdog timeout callback).
+ */
+public class LoopProfiler {
+  private static final long kMinPrintPeriod = 1000000; // microseconds
+
+  /** Default number of loops in the rolling statistics window. */
+  public static final int kDefaultWindowSize = 100;
+
+  private final int m_windowSize;
+
+  private final Map<String, Integer> m_epochIndices = new HashMap<>();
+  private String[] m_names = new String[0];
+  // Written only after the per-epoch arrays have room for the new epoch, so a thread calling
+  // printEpochs() never sees a count larger than the arrays it reads
+  private volatile int m_numEpochs;
+
+  // Per-epoch time recorded in the current (or most recent) loop, in microseconds
+  private long[] m_loopTimes = new long[0];
+  // Per-epoch flag indicating whether the epoch ran in the current (or most recent) loop
+  private boolean[] m_loopUsed = new boolean[0];
+
+  // Rolling windows of per-loop epoch times, m_windowSize entries per epoch, in microseconds
+  private long[] m_samples = new long[0];
+  private int[] m_sampleCounts = new int[0];
+  private int[] m_samplePositions = new int[0];
+  private final long[] m_sortBuffer;
+
+  private EpochStats[] m_stats = new EpochStats[0];
+
+  // Scope stack
+  private int[] m_scopeEpochs = new int[8];
+  private long[] m_scopeStartTimes = new long[8];
+  private int m_scopeDepth;
+
+  private boolean m_inLoop;
+  private long m_startTime; // microseconds
+  private long m_lastEpochsPrintTime; // microseconds
+
+  private long m_publishPeriod = 1000000; // microseconds
+  private long m_lastPublishTime; // microseconds
+  private boolean m_namesChanged = true;
+  private StringArrayPublisher m_namesPub;
+  private StructArrayPublisher<EpochStats> m_statsPub;
+  private StringArrayLogEntry m_namesLog;
+  private StructArrayLogEntry<EpochStats> m_statsLog;
+
+  /** Constructs a profiler with the default statistics window size. */
+  public LoopProfiler() {
+    this(kDefaultWindowSize);
+  }
+
+  /**
+   * Constructs a profiler.
+   *
+   * @param windowSize Number of loops in the rolling statistics window.
+   */
+  public LoopProfiler(int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be positive");
+    }
+    m_windowSize = windowSize;
+    m_sortBuffer = new long[windowSize];
+    resetTimer();
+  }
+
+  /**
+   * Registers an epoch. If an epoch with the same name has already been registered, its index is
+   * returned.
+   *
+   * @param name The name of the epoch.
+   * @return The epoch's index.
+   */
+  public int registerEpoch(String name) {
+    Integer existing = m_epochIndices.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    int index = m_numEpochs;
+    if (index == m_names.length) {
+      int capacity = Math.max(8, m_names.length * 2);
+      m_names = Arrays.copyOf(m_names, capacity);
+      m_loopTimes = Arrays.copyOf(m_loopTimes, capacity);
+      m_loopUsed = Arrays.copyOf(m_loopUsed, capacity);
+      m_samples = Arrays.copyOf(m_samples, capacity * m_windowSize);
+      m_sampleCounts = Arrays.copyOf(m_sampleCounts, capacity);
+      m_samplePositions = Arrays.copyOf(m_samplePositions, capacity);
+    }
+    m_names[index] = name;
+    m_stats = Arrays.copyOf(m_stats, index + 1);
+    m_stats[index] = new EpochStats();
+    m_epochIndices.put(name, index);
+    m_namesChanged = true;
+    m_numEpochs = index + 1;
+    return index;
+  }
+
+  /**
+   * Gets the number of registered epochs.
+   *
+   * @return Number of epochs
+   */
+  public int getEpochCount() {
+    return m_numEpochs;
+  }
+
+  /**
+   * Gets the name of an epoch.
+   *
+   * @param epoch The epoch's index.
+   * @return The epoch's name.
+   */
+  public String getEpochName(int epoch) {
+    checkEpoch(epoch);
+    return m_names[epoch];
+  }
+
+  /**
+   * Starts a new loop. Epoch times recorded since the last call to startLoop() or endLoop() are
+   * discarded, and the epoch timer is restarted. If the previous loop was not ended with
+   * endLoop(), it is ended first.
+   */
+  public void startLoop() {
+    if (m_inLoop) {
+      endLoop();
+    }
+    Arrays.fill(m_loopTimes, 0, m_numEpochs, 0L);
+    Arrays.fill(m_loopUsed, 0, m_numEpochs, false);
+    m_scopeDepth = 0;
+    m_inLoop = true;
+    resetTimer();
+  }
+
+  /**
+   * Ends the current loop, adding the time recorded for each epoch that ran during the loop to its
+   * statistics window. If publishing or logging has been started and the publish period has
+   * elapsed, statistics are computed and published.
+   *
+   * <p>The epoch times of the loop remain available to {@link #getLastTime(int)} and {@link
+   * #printEpochs()} until the next call to startLoop().
+   */
+  public void endLoop() {
+    if (!m_inLoop) {
+      return;
+    }
+    m_inLoop = false;
+    for (int i = 0; i < m_numEpochs; i++) {
+      if (m_loopUsed[i]) {
+        m_samples[i * m_windowSize + m_samplePositions[i]] = m_loopTimes[i];
+        if (++m_samplePositions[i] == m_windowSize) {
+          m_samplePositions[i] = 0;
+        }
+        if (m_sampleCounts[i] < m_windowSize) {
+          m_sampleCounts[i]++;
+        }
+      }
+    }
+
+    if (m_namesPub != null || m_namesLog != null) {
+      long now = RobotController.getFPGATime();
+      if (now - m_lastPublishTime >= m_publishPeriod) {
+        m_lastPublishTime = now;
+        publish();
+      }
+    }
+  }
+
+  /** Restarts the epoch timer. */
+  public void resetTimer() {
+    m_startTime = RobotController.getFPGATime();
+  }
+
+  /**
+   * Adds the time since the last epoch (or the last call to resetTimer() or startLoop()) to an
+   * epoch. If the epoch is added more than once in a loop, the times are summed.
+   *
+   * @param epoch The epoch's index.
+   */
+  public void addEpoch(int epoch) {
+    checkEpoch(epoch);
+    long currentTime = RobotController.getFPGATime();
+    m_loopTimes[epoch] += currentTime - m_startTime;
+    m_loopUsed[epoch] = true;
+    m_startTime = currentTime;
+  }
+
+  /**
+   * Adds the time since the last epoch (or the last call to resetTimer() or startLoop()) to an
+   * epoch, registering the epoch if needed.
+   *
+   * @param name The name of the epoch.
+   */
+  public void addEpoch(String name) {
+    addEpoch(registerEpoch(name));
+  }
+
+  /**
+   * Begins a scope. The time until the matching call to {@link #endScope()} is added to the epoch.
+   * Scopes may be nested, in which case the time of inner scopes is included in the time of outer
+   * scopes. Scope times are independent of the epoch timer used by addEpoch().
+   *
+   * @param epoch The epoch's index.
+   */
+  public void beginScope(int epoch) {
+    checkEpoch(epoch);
+    if (m_scopeDepth == m_scopeEpochs.length) {
+      m_scopeEpochs = Arrays.copyOf(m_scopeEpochs, m_scopeDepth * 2);
+      m_scopeStartTimes = Arrays.copyOf(m_scopeStartTimes, m_scopeDepth * 2);
+    }
+    m_scopeEpochs[m_scopeDepth] = epoch;
+    m_scopeStartTimes[m_scopeDepth] = RobotController.getFPGATime();
+    m_scopeDepth++;
+  }
+
+  /**
+   * Ends the most recently begun scope.
+   *
+   * @throws IllegalStateException if there is no scope to end.
+   */
+  public void endScope() {
+    if (m_scopeDepth == 0) {
+      throw new IllegalStateException("endScope() called without matching beginScope()");
+    }
+    m_scopeDepth--;
+    int epoch = m_scopeEpochs[m_scopeDepth];
+    m_loopTimes[epoch] += RobotController.getFPGATime() - m_scopeStartTimes[m_scopeDepth];
+    m_loopUsed[epoch] = true;
+  }
+
+  /**
+   * Gets the time recorded for an epoch in the current (or most recent) loop.
+   *
+   * @param epoch The epoch's index.
+   * @return Time in seconds, or 0 if the epoch did not run in the loop.
+   */
+  public double getLastTime(int epoch) {
+    checkEpoch(epoch);
+    return m_loopTimes[epoch] / 1e6;
+  }
+
+  /**
+   * Computes the rolling statistics of an epoch.
+   *
+   * <p>This sorts the epoch's statistics window, so it takes O(w log w) time for a window size w.
+   *
+   * @param epoch The epoch's index.
+   * @return Statistics; this object is owned by the profiler and is updated in place on the next
+   *     call.
+   */
+  public EpochStats getStats(int epoch) {
+    checkEpoch(epoch);
+    updateStats(epoch);
+    return m_stats[epoch];
+  }
+
+  /**
+   * Sets the period at which statistics are published when publishing or logging is enabled.
+   *
+   * @param periodSeconds Publish period in seconds.
+   */
+  public void setPublishPeriod(double periodSeconds) {
+    m_publishPeriod = (long) (periodSeconds * 1e6);
+  }
+
+  /**
+   * Starts publishing statistics to NetworkTables. Epoch names are published to a string array
+   * topic "names", and statistics in the same order to an EpochStats struct array topic "stats".
+   *
+   * @param table The table to publish to.
+   */
+  public void startPublishing(NetworkTable table) {
+    stopPublishing();
+    m_namesPub = table.getStringArrayTopic("names").publish();
+    m_statsPub = table.getStructArrayTopic("stats", EpochStats.struct).publish();
+    m_namesChanged = true;
+  }
+
+  /** Stops publishing statistics to NetworkTables. */
+  public void stopPublishing() {
+    if (m_namesPub != null) {
+      m_namesPub.close();
+      m_statsPub.close();
+      m_namesPub = null;
+      m_statsPub = null;
+    }
+  }
+
+  /**
+   * Starts logging statistics to a DataLog. Epoch names are logged to a string array entry
+   * "{prefix}/names", and statistics in the same order to an EpochStats struct array entry
+   * "{prefix}/stats".
+   *
+   * @param log The log to write to.
+   * @param prefix Entry name prefix.
+   */
+  public void startLogging(DataLog log, String prefix) {
+    stopLogging();
+    m_namesLog = new StringArrayLogEntry(log, prefix + "/names");
+    m_statsLog = StructArrayLogEntry.create(log, prefix + "/stats", EpochStats.struct);
+    m_namesChanged = true;
+  }
+
+  /** Stops logging statistics to a DataLog. */
+  public void stopLogging() {
+    if (m_namesLog != null) {
+      m_namesLog.finish();
+      m_statsLog.finish();
+      m_namesLog = null;
+      m_statsLog = null;
+    }
+  }
+
+  /** Prints the epochs of the current (or most recent) loop to the DriverStation. */
+  public void printEpochs() {
+    printEpochs(out -> DriverStation.reportWarning(out, false));
+  }
+
+  /**
+   * Prints the epochs of the current (or most recent) loop to the entered String consumer, in the
+   * order they were registered. Output is rate limited to once per second.
+   *
+   * <p>This may be called from a thread other than the loop's thread. Epochs registered
+   * concurrently may be omitted, and times of a loop that is in progress may be partially updated.
+   *
+   * @param output the stream that the output is sent to
+   */
+  public void printEpochs(Consumer<String> output) {
+    long now = RobotController.getFPGATime();
+    if (now - m_lastEpochsPrintTime > kMinPrintPeriod) {
+      StringBuilder sb = new StringBuilder();
+      m_lastEpochsPrintTime = now;
+      // Read the count before the arrays; arrays are only replaced by larger copies
+      int numEpochs = m_numEpochs;
+      String[] names = m_names;
+      long[] loopTimes = m_loopTimes;
+      boolean[] loopUsed = m_loopUsed;
+      for (int i = 0; i < numEpochs; i++) {
+        if (loopUsed[i]) {
+          sb.append('\t').append(names[i]).append(": ");
+          appendSeconds(sb, loopTimes[i]);
+          sb.append("s\n");
+        }
+      }
+      if (sb.length() > 0) {
+        output.accept(sb.toString());
+      }
+    }
+  }
+
+  private void publish() {
+    for (int i = 0; i < m_numEpochs; i++) {
+      updateStats(i);
+    }
+    if (m_namesChanged) {
+      m_namesChanged = false;
+      String[] names = Arrays.copyOf(m_names, m_numEpochs);
+      if (m_namesPub != null) {
+        m_namesPub.set(names);
+      }
+      if (m_namesLog != null) {
+        m_namesLog.append(names);
+      }
+    }
+    if (m_statsPub != null) {
+      m_statsPub.set(m_stats);
+    }
+    if (m_statsLog != null) {
+      m_statsLog.append(m_stats);
+    }
+  }
+
+  private void updateStats(int epoch) {
+    int count = m_sampleCounts[epoch];
+    if (count == 0) {
+      m_stats[epoch].set(0.0, 0.0, 0.0, 0.0, 0.0);
+      return;
+    }
+    System.arraycopy(m_samples, epoch * m_windowSize, m_sortBuffer, 0, count);
+    Arrays.sort(m_sortBuffer, 0, count);
+    long sum = 0;
+    for (int i = 0; i < count; i++) {
+      sum += m_sortBuffer[i];
+    }
+    int p99Index = Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1);
+    m_stats[epoch].set(
+        m_loopTimes[epoch] / 1e6,
+        m_sortBuffer[0] / 1e6,
+        sum / 1e6 / count,
+        m_sortBuffer[p99Index] / 1e6,
+        m_sortBuffer[count - 1] / 1e6);
+  }
+
+  private void checkEpoch(int epoch) {
+    if (epoch < 0 || epoch >= m_numEpochs) {
+      throw new IndexOutOfBoundsException("Invalid epoch index " + epoch);
+    }
+  }
+
+  /**
+   * Appends a time in microseconds as seconds with 6 decimal places.
+   *
+   * @param sb The string builder.
+   * @param micros Time in microseconds; must be non-negative.
+   */
+  private static void appendSeconds(StringBuilder sb, long micros) {
+    sb.append(micros / 1000000).append('.');
+    long frac = micros % 1000000;
+    for (long digit = 100000; digit > frac && digit > 1; digit /= 10) {
+      sb.append('0');
+    }
+    sb.append(frac);
+  }
+}
@@ -9,7 +9,12 @@ import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.hal.NotifierJNI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TimedRobot implements the IterativeRobotBase robot program framework.
@@ -17,13 +22,167 @@ import java.util.PriorityQueue;
  * <p>The TimedRobot class is intended to be subclassed by a user creating a robot program.
  *
  * <p>periodic() functions from the base class are called on an interval by a Notifier instance.
+ *
+ * <p>Additional callbacks can be scheduled with addPeriodic() to run on the main robot thread, on
+ * a caller-provided Executor, or with addPeriodicThread() on a dedicated (optionally real-time)
+ * thread. All callbacks are scheduled on a fixed time grid relative to a common start time, so
+ * they don't drift, and each callback records timing statistics that can be retrieved through the
+ * returned CallbackStats.
  */
 public class TimedRobot extends IterativeRobotBase {
+  /** Determines what happens when a callback misses one or more of its deadlines. */
+  public enum MissedDeadlinePolicy {
+    /** Run the callback once for every missed deadline, back-to-back, until it has caught up. */
+    kCatchUp,
+    /** Drop missed deadlines and resume at the next deadline that is still in the future. */
+    kSkip
+  }
+
+  /**
+   * Timing statistics for a periodic callback. Jitter is the delay between a callback's scheduled
+   * time and when it actually started running. A run is counted as an overrun if it finished after
+   * the callback's next scheduled time.
+   *
+   * <p>Statistics are updated by the thread running the callback and may be read from any thread.
+   */
+  public static final class CallbackStats {
+    private long m_runCount;
+    private long m_overrunCount;
+    private long m_skippedCount;
+    private long m_lastJitter;
+    private long m_maxJitter;
+    private long m_totalJitter;
+    private long m_lastRunTime;
+    private long m_maxRunTime;
+
+    CallbackStats() {}
+
+    synchronized void recordRun(long jitterMicros, long runTimeMicros, boolean overrun) {
+      m_runCount++;
+      if (overrun) {
+        m_overrunCount++;
+      }
+      m_lastJitter = jitterMicros;
+      m_totalJitter += jitterMicros;
+      if (jitterMicros > m_maxJitter) {
+        m_maxJitter = jitterMicros;
+      }
+      m_lastRunTime = runTimeMicros;
+      if (runTimeMicros > m_maxRunTime) {
+        m_maxRunTime = runTimeMicros;
+      }
+    }
+
+    synchronized void recordSkipped(long count) {
+      m_skippedCount += count;
+    }
+
+    /**
+     * Gets the number of times the callback has run.
+     *
+     * @return Run count
+     */
+    public synchronized long getRunCount() {
+      return m_runCount;
+    }
+
+    /**
+     * Gets the number of runs that finished after the callback's next scheduled time.
+     *
+     * @return Overrun count
+     */
+    public synchronized long getOverrunCount() {
+      return m_overrunCount;
+    }
+
+    /**
+     * Gets the number of deadlines dropped by the kSkip policy.
+     *
+     * @return Skipped deadline count
+     */
+    public synchronized long getSkippedCount() {
+      return m_skippedCount;
+    }
+
+    /**
+     * Gets the jitter of the most recent run.
+     *
+     * @return Jitter in seconds
+     */
+    public synchronized double getLastJitter() {
+      return m_lastJitter * 1e-6;
+    }
+
+    /**
+     * Gets the maximum jitter of all runs.
+     *
+     * @return Jitter in seconds
+     */
+    public synchronized double getMaxJitter() {
+      return m_maxJitter * 1e-6;
+    }
+
+    /**
+     * Gets the average jitter of all runs.
+     *
+     * @return Jitter in seconds
+     */
+    public synchronized double getAverageJitter() {
+      return m_runCount == 0 ? 0.0 : m_totalJitter * 1e-6 / m_runCount;
+    }
+
+    /**
+     * Gets the execution time of the most recent run.
+     *
+     * @return Execution time in seconds
+     */
+    public synchronized double getLastRunTime() {
+      return m_lastRunTime * 1e-6;
+    }
+
+    /**
+     * Gets the maximum execution time of all runs.
+     *
+     * @return Execution time in seconds
+     */
+    public synchronized double getMaxRunTime() {
+      return m_maxRunTime * 1e-6;
+    }
+
+    /** Resets all statistics to zero. */
+    public synchronized void reset() {
+      m_runCount = 0;
+      m_overrunCount = 0;
+      m_skippedCount = 0;
+      m_lastJitter = 0;
+      m_maxJitter = 0;
+      m_totalJitter = 0;
+      m_lastRunTime = 0;
+      m_maxRunTime = 0;
+    }
+  }
+
   @SuppressWarnings("MemberName")
   static class Callback implements Comparable<Callback> {
     public Runnable func;
     public double period;
     public double expirationTime;
+    public MissedDeadlinePolicy policy = MissedDeadlinePolicy.kCatchUp;
+    public final CallbackStats stats = new CallbackStats();
+
+    // Executor to run the callback on, or null to run it on the scheduling thread
+    public Executor executor;
+
+    // Number of runs dispatched to the executor that haven't completed yet
+    private final AtomicInteger m_pending = new AtomicInteger();
+
+    // Scheduled time of the next run executed by the executor, in microseconds
+    private long m_runDeadline;
+
+    // Dedicated thread state; notifier is 0 if the callback runs on the main loop
+    public int notifier;
+    public int priority;
+    public Thread thread;
 
     /**
      * Construct a callback container.
@@ -63,6 +222,115 @@ public class TimedRobot extends IterativeRobotBase {
       // Java's PriorityQueue is the least element.
       return Double.compare(expirationTime, rhs.expirationTime);
     }
+
+    /**
+     * Runs the callback (or hands it off to the executor) for the current expiration time and
+     * advances the expiration time to the next deadline.
+     */
+    void call() {
+      long deadline = (long) (expirationTime * 1e6);
+      expirationTime += period;
+
+      if (executor == null) {
+        long end = run(deadline);
+        if (policy == MissedDeadlinePolicy.kSkip) {
+          skipMissed(end);
+        }
+        return;
+      }
+
+      boolean dispatch;
+      if (policy == MissedDeadlinePolicy.kSkip) {
+        dispatch = m_pending.compareAndSet(0, 1);
+        if (!dispatch) {
+          // previous run is still in progress
+          stats.recordSkipped(1);
+        }
+      } else {
+        dispatch = m_pending.getAndIncrement() == 0;
+      }
+      if (dispatch) {
+        m_runDeadline = deadline;
+        try {
+          executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+          drain();
+        }
+      }
+    }
+
+    /**
+     * Executes all runs dispatched to the executor. An exception thrown by the callback is
+     * reported and ends only that run, so later runs are still dispatched.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void drain() {
+      long periodMicros = (long) (period * 1e6);
+      do {
+        try {
+          run(m_runDeadline);
+        } catch (Throwable throwable) {
+          DriverStation.reportError(
+              "Unhandled exception in TimedRobot callback executor: " + throwable,
+              throwable.getStackTrace());
+        } finally {
+          m_runDeadline += periodMicros;
+        }
+      } while (m_pending.decrementAndGet() > 0);
+    }
+
+    /**
+     * Runs the callback and records its statistics.
+     *
+     * @param deadline The time the run was scheduled for in microseconds.
+     * @return The time the run finished in microseconds.
+     */
+    private long run(long deadline) {
+      long start = RobotController.getFPGATime();
+      func.run();
+      long end = RobotController.getFPGATime();
+      stats.recordRun(start - deadline, end - start, end > deadline + (long) (period * 1e6));
+      return end;
+    }
+
+    /**
+     * Advances the expiration time past any deadlines that have already passed.
+     *
+     * @param now The current time in microseconds.
+     */
+    private void skipMissed(long now) {
+      double nowSeconds = now * 1e-6;
+      if (expirationTime <= nowSeconds) {
+        long missed = (long) Math.floor((nowSeconds - expirationTime) / period) + 1;
+        expirationTime += missed * period;
+        stats.recordSkipped(missed);
+      }
+    }
+
+    /**
+     * Runs the callback on its dedicated thread until its notifier is stopped. An exception thrown
+     * by the callback is reported and ends only that run, so the thread keeps running.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    void runThread() {
+      if (priority > 0) {
+        Threads.setCurrentThreadPriority(true, priority);
+      }
+      while (true) {
+        NotifierJNI.updateNotifierAlarm(notifier, (long) (expirationTime * 1e6));
+        long curTime = NotifierJNI.waitForNotifierAlarm(notifier);
+        if (curTime == 0) {
+          break;
+        }
+        try {
+          call();
+        } catch (Throwable throwable) {
+          DriverStation.reportError(
+              "Unhandled exception in TimedRobot callback thread: " + throwable,
+              throwable.getStackTrace());
+        }
+      }
+    }
   }
 
   public static final double kDefaultPeriod = 0.02;
@@ -75,6 +343,14 @@ public class TimedRobot extends IterativeRobotBase {
 
   private final PriorityQueue<Callback> m_callbacks = new PriorityQueue<>();
 
+  // Callbacks with dedicated threads
+  private final List<Callback> m_threadCallbacks = new ArrayList<>();
+
+  // True once startCompetition() has started dedicated threads
+  private boolean m_threadsStarted;
+
+  private final CallbackStats m_loopStats;
+
   /** Constructor for TimedRobot. */
   protected TimedRobot() {
     this(kDefaultPeriod);
@@ -88,7 +364,7 @@ public class TimedRobot extends IterativeRobotBase {
   protected TimedRobot(double period) {
     super(period);
     m_startTime = Timer.getFPGATimestamp();
-    addPeriodic(this::loopFunc, period);
+    m_loopStats = addPeriodic(this::loopFunc, period, 0.0, MissedDeadlinePolicy.kCatchUp);
     NotifierJNI.setNotifierName(m_notifier, "TimedRobot");
 
     HAL.report(tResourceType.kResourceType_Framework, tInstances.kFramework_Timed);
@@ -98,6 +374,21 @@ public class TimedRobot extends IterativeRobotBase {
   public void close() {
     NotifierJNI.stopNotifier(m_notifier);
     NotifierJNI.cleanNotifier(m_notifier);
+
+    synchronized (m_threadCallbacks) {
+      for (Callback callback : m_threadCallbacks) {
+        NotifierJNI.stopNotifier(callback.notifier);
+        if (callback.thread.isAlive()) {
+          try {
+            callback.thread.join();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        NotifierJNI.cleanNotifier(callback.notifier);
+      }
+      m_threadCallbacks.clear();
+    }
   }
 
   /** Provide an alternate "main loop" via startCompetition(). */
@@ -113,6 +404,13 @@ public class TimedRobot extends IterativeRobotBase {
     System.out.println("********** Robot program startup complete **********");
     DriverStationJNI.observeUserProgramStarting();
 
+    synchronized (m_threadCallbacks) {
+      m_threadsStarted = true;
+      for (Callback callback : m_threadCallbacks) {
+        callback.thread.start();
+      }
+    }
+
     // Loop forever, calling the appropriate mode-dependent function
     while (true) {
       // We don't have to check there's an element in the queue first because
@@ -127,18 +425,13 @@ public class TimedRobot extends IterativeRobotBase {
         break;
       }
 
-      callback.func.run();
-
-      callback.expirationTime += callback.period;
+      callback.call();
       m_callbacks.add(callback);
 
       // Process all other callbacks that are ready to run
       while ((long) (m_callbacks.peek().expirationTime * 1e6) <= curTime) {
         callback = m_callbacks.poll();
-
-        callback.func.run();
-
-        callback.expirationTime += callback.period;
+        callback.call();
         m_callbacks.add(callback);
       }
     }
@@ -148,6 +441,20 @@ public class TimedRobot extends IterativeRobotBase {
   @Override
   public void endCompetition() {
     NotifierJNI.stopNotifier(m_notifier);
+    synchronized (m_threadCallbacks) {
+      for (Callback callback : m_threadCallbacks) {
+        NotifierJNI.stopNotifier(callback.notifier);
+      }
+    }
+  }
+
+  /**
+   * Gets the timing statistics of the main robot loop (the mode-dependent periodic functions).
+   *
+   * @return Loop timing statistics
+   */
+  public CallbackStats getLoopStats() {
+    return m_loopStats;
   }
 
   /**
@@ -160,7 +467,7 @@ public class TimedRobot extends IterativeRobotBase {
    * @param periodSeconds The period at which to run the callback in seconds.
    */
   public void addPeriodic(Runnable callback, double periodSeconds) {
-    m_callbacks.add(new Callback(callback, m_startTime, periodSeconds, 0.0));
+    addPeriodic(callback, periodSeconds, 0.0, MissedDeadlinePolicy.kCatchUp);
   }
 
   /**
@@ -175,6 +482,106 @@ public class TimedRobot extends IterativeRobotBase {
    *     scheduling a callback in a different timeslot relative to TimedRobot.
    */
   public void addPeriodic(Runnable callback, double periodSeconds, double offsetSeconds) {
-    m_callbacks.add(new Callback(callback, m_startTime, periodSeconds, offsetSeconds));
+    addPeriodic(callback, periodSeconds, offsetSeconds, MissedDeadlinePolicy.kCatchUp);
+  }
+
+  /**
+   * Add a callback to run at a specific period with a starting time offset and missed deadline
+   * policy.
+   *
+   * <p>This is scheduled on TimedRobot's Notifier, so TimedRobot and the callback run
+   * synchronously. Interactions between them are thread-safe.
+   *
+   * @param callback The callback to run.
+   * @param periodSeconds The period at which to run the callback in seconds.
+   * @param offsetSeconds The offset from the common starting time in seconds.
+   * @param policy What to do when the callback misses deadlines.
+   * @return Timing statistics for the callback.
+   */
+  public CallbackStats addPeriodic(
+      Runnable callback, double periodSeconds, double offsetSeconds, MissedDeadlinePolicy policy) {
+    return addPeriodic(callback, periodSeconds, offsetSeconds, policy, null);
+  }
+
+  /**
+   * Add a callback to be run on an executor at a specific period.
+   *
+   * <p>TimedRobot's Notifier determines when the callback is due and hands it off to the executor,
+   * so a slow callback doesn't delay other callbacks. A callback is never run concurrently with
+   * itself: if it is still running when its next deadline arrives, the kCatchUp policy runs it
+   * again as soon as it finishes, and the kSkip policy drops the deadline. Because the callback
+   * runs on another thread, interactions between it and TimedRobot must be synchronized by the
+   * caller.
+   *
+   * @param callback The callback to run.
+   * @param periodSeconds The period at which to run the callback in seconds.
+   * @param offsetSeconds The offset from the common starting time in seconds.
+   * @param policy What to do when the callback misses deadlines.
+   * @param executor Executor to run the callback on (e.g. a shared thread pool). If null, the
+   *     callback runs on TimedRobot's thread.
+   * @return Timing statistics for the callback.
+   */
+  public CallbackStats addPeriodic(
+      Runnable callback,
+      double periodSeconds,
+      double offsetSeconds,
+      MissedDeadlinePolicy policy,
+      Executor executor) {
+    Callback cb = new Callback(callback, m_startTime, periodSeconds, offsetSeconds);
+    cb.policy = policy;
+    cb.executor = executor;
+    m_callbacks.add(cb);
+    return cb.stats;
+  }
+
+  /**
+   * Add a callback to run at a specific period on its own thread.
+   *
+   * <p>The callback is scheduled on the same time grid as TimedRobot's callbacks, but is woken by
+   * its own Notifier, so it is unaffected by overruns of other callbacks. The thread starts when
+   * startCompetition() is called (or immediately, if it has already been called). Because the
+   * callback runs on another thread, interactions between it and TimedRobot must be synchronized
+   * by the caller.
+   *
+   * <p>If a real-time priority is given, the callback's thread is set to that priority. The
+   * callback is woken up by the HAL notifier thread, whose priority is a process-wide setting shared
+   * by all Notifiers; set it with {@link Notifier#setHALThreadPriority(boolean, int)} so that
+   * real-time callbacks are woken up in a timely manner.
+   *
+   * @param callback The callback to run.
+   * @param periodSeconds The period at which to run the callback in seconds.
+   * @param offsetSeconds The offset from the common starting time in seconds.
+   * @param policy What to do when the callback misses deadlines.
+   * @param priority Real-time priority of the thread (1-99 with 99 being highest), or 0 for
+   *     standard priority.
+   * @return Timing statistics for the callback.
+   */
+  public CallbackStats addPeriodicThread(
+      Runnable callback,
+      double periodSeconds,
+      double offsetSeconds,
+      MissedDeadlinePolicy policy,
+      int priority) {
+    Callback cb = new Callback(callback, m_startTime, periodSeconds, offsetSeconds);
+    cb.policy = policy;
+    cb.priority = priority;
+    cb.notifier = NotifierJNI.initializeNotifier();
+    NotifierJNI.setNotifierName(cb.notifier, "TimedRobot callback");
+
+    cb.thread = new Thread(cb::runThread, "TimedRobot callback");
+    cb.thread.setDaemon(true);
+    cb.thread.setUncaughtExceptionHandler(
+        (thread, error) ->
+            DriverStation.reportError(
+                "Unhandled exception in TimedRobot callback thread: " + error,
+                error.getStackTrace()));
+
+    synchronized (m_threadCallbacks) {
+      m_threadCallbacks.add(cb);
+      if (m_threadsStarted) {
+        cb.thread.start();
+      }
+    }
+    return cb.stats;
   }
 }
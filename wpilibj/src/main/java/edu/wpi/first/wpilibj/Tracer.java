@@ -4,8 +4,6 @@
 
 package edu.wpi.first.wpilibj;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Consumer;
 
 /**
@@ -15,29 +13,26 @@ import java.util.function.Consumer;
  *
  * <p>Epochs are a way to partition the time elapsed so that when overruns occur, one can determine
  * which parts of an operation consumed the most time.
+ *
+ * <p>This is a thin wrapper around {@link LoopProfiler}; use LoopProfiler directly for
+ * pre-registered epochs, nested scopes, and rolling statistics.
  */
 public class Tracer {
-  private static final long kMinPrintPeriod = 1000000; // microseconds
-
-  private long m_lastEpochsPrintTime; // microseconds
-  private long m_startTime; // microseconds
-
-  private final Map<String, Long> m_epochs = new HashMap<>(); // microseconds
+  private final LoopProfiler m_profiler = new LoopProfiler();
 
   /** Tracer constructor. */
   public Tracer() {
-    resetTimer();
+    m_profiler.startLoop();
   }
 
   /** Clears all epochs. */
   public void clearEpochs() {
-    m_epochs.clear();
-    resetTimer();
+    m_profiler.startLoop();
   }
 
   /** Restarts the epoch timer. */
   public void resetTimer() {
-    m_startTime = RobotController.getFPGATime();
+    m_profiler.resetTimer();
   }
 
   /**
@@ -52,14 +47,12 @@ public class Tracer {
    * @param epochName The name to associate with the epoch.
    */
   public void addEpoch(String epochName) {
-    long currentTime = RobotController.getFPGATime();
-    m_epochs.put(epochName, currentTime - m_startTime);
-    m_startTime = currentTime;
+    m_profiler.addEpoch(epochName);
   }
 
   /** Prints list of epochs added so far and their times to the DriverStation. */
   public void printEpochs() {
-    printEpochs(out -> DriverStation.reportWarning(out, false));
+    m_profiler.printEpochs();
   }
 
   /**
@@ -70,15 +63,6 @@ public class Tracer {
    * @param output the stream that the output is sent to
    */
   public void printEpochs(Consumer<String> output) {
-    long now = RobotController.getFPGATime();
-    if (now - m_lastEpochsPrintTime > kMinPrintPeriod) {
-      StringBuilder sb = new StringBuilder();
-      m_lastEpochsPrintTime = now;
-      m_epochs.forEach(
-          (key, value) -> sb.append(String.format("\t%s: %.6fs\n", key, value / 1.0e6)));
-      if (sb.length() > 0) {
-        output.accept(sb.toString());
-      }
-    }
+    m_profiler.printEpochs(output);
   }
 }
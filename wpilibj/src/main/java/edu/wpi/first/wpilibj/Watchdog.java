@@ -31,7 +31,7 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
 
   boolean m_suppressTimeoutMessage;
 
-  private final Tracer m_tracer;
+  private final LoopProfiler m_profiler;
 
   private static final PriorityQueue<Watchdog> m_watchdogs = new PriorityQueue<>();
   private static ReentrantLock m_queueMutex = new ReentrantLock();
@@ -52,7 +52,7 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
   public Watchdog(double timeoutSeconds, Runnable callback) {
     m_timeoutSeconds = timeoutSeconds;
     m_callback = callback;
-    m_tracer = new Tracer();
+    m_profiler = new LoopProfiler();
   }
 
   @Override
@@ -96,7 +96,7 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
    */
   public void setTimeout(double timeoutSeconds) {
     m_startTimeSeconds = Timer.getFPGATimestamp();
-    m_tracer.clearEpochs();
+    m_profiler.startLoop();
 
     m_queueMutex.lock();
     try {
@@ -143,20 +143,43 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
   /**
    * Adds time since last epoch to the list printed by printEpochs().
    *
-   * @see Tracer#addEpoch(String)
+   * @see LoopProfiler#addEpoch(String)
    * @param epochName The name to associate with the epoch.
    */
   public void addEpoch(String epochName) {
-    m_tracer.addEpoch(epochName);
+    m_profiler.addEpoch(epochName);
+  }
+
+  /**
+   * Adds time since last epoch to the list printed by printEpochs(). This avoids the name lookup
+   * of {@link #addEpoch(String)}.
+   *
+   * @see LoopProfiler#addEpoch(int)
+   * @param epoch The index of the epoch, as returned by {@link LoopProfiler#registerEpoch(String)}
+   *     on this watchdog's profiler.
+   */
+  public void addEpoch(int epoch) {
+    m_profiler.addEpoch(epoch);
   }
 
   /**
    * Prints list of epochs added so far and their times.
    *
-   * @see Tracer#printEpochs()
+   * @see LoopProfiler#printEpochs()
    */
   public void printEpochs() {
-    m_tracer.printEpochs();
+    m_profiler.printEpochs();
+  }
+
+  /**
+   * Gets the profiler that records this watchdog's epochs. Each enable() starts a new profiler loop
+   * and each disable() ends it, so the profiler keeps rolling statistics of the epochs across
+   * loops.
+   *
+   * @return The profiler.
+   */
+  public LoopProfiler getProfiler() {
+    return m_profiler;
   }
 
   /**
@@ -171,7 +194,7 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
   /** Enables the watchdog timer. */
   public void enable() {
     m_startTimeSeconds = Timer.getFPGATimestamp();
-    m_tracer.clearEpochs();
+    m_profiler.startLoop();
 
     m_queueMutex.lock();
     try {
@@ -188,6 +211,8 @@ public class Watchdog implements Closeable, Comparable<Watchdog> {
 
   /** Disables the watchdog timer. */
   public void disable() {
+    m_profiler.endLoop();
+
     m_queueMutex.lock();
     try {
       m_watchdogs.remove(this);
@@ -31,6 +31,7 @@ import edu.wpi.first.networktables.IntegerTopic;
 import edu.wpi.first.networktables.NTSendableBuilder;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.PublishBatch;
 import edu.wpi.first.networktables.Publisher;
 import edu.wpi.first.networktables.RawPublisher;
 import edu.wpi.first.networktables.RawSubscriber;
@@ -49,6 +50,7 @@ import edu.wpi.first.util.function.FloatConsumer;
 import edu.wpi.first.util.function.FloatSupplier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
@@ -64,6 +66,12 @@ public class SendableBuilderImpl implements NTSendableBuilder {
     void accept(T value, long time);
   }
 
+  @FunctionalInterface
+  private interface BatchedUpdate<T> {
+    /** Adds the value to the batch if it changed. Returns false if it was unchanged. */
+    boolean update(T pub, PublishBatch batch);
+  }
+
   private static class Property<P extends Publisher, S extends Subscriber>
       implements AutoCloseable {
     @Override
@@ -88,14 +96,75 @@ public class SendableBuilderImpl implements NTSendableBuilder {
       if (m_pub != null && m_updateNetwork != null) {
         m_updateNetwork.accept(m_pub, time);
       }
+      // values published here bypass the cache, so it must not be trusted later
+      m_hasLast = false;
+    }
+
+    /**
+     * Updates with change detection. Scalar values are only added to the batch if they changed;
+     * other values are published directly.
+     *
+     * @return true if an unchanged value was skipped
+     */
+    boolean updateChanged(boolean controllable, long time, PublishBatch batch) {
+      if (controllable && m_sub != null && m_updateLocal != null) {
+        m_updateLocal.accept(m_sub);
+      }
+      if (m_pub == null) {
+        return false;
+      }
+      if (m_updateNetworkBatched != null) {
+        return !m_updateNetworkBatched.update(m_pub, batch);
+      }
+      if (m_updateNetwork != null) {
+        m_updateNetwork.accept(m_pub, time);
+      }
+      return false;
+    }
+
+    boolean publishes() {
+      return m_pub != null && m_updateNetwork != null;
+    }
+
+    /** Forgets the cached value, so the next value is published even if it is unchanged. */
+    void invalidate() {
+      m_hasLast = false;
+    }
+
+    /** Updates the cached value. Returns true if the value differs from the cached one. */
+    boolean changed(long bits) {
+      if (m_hasLast && bits == m_lastBits) {
+        return false;
+      }
+      m_hasLast = true;
+      m_lastBits = bits;
+      return true;
     }
 
     P m_pub;
     S m_sub;
     TimedConsumer<P> m_updateNetwork;
+    BatchedUpdate<P> m_updateNetworkBatched;
     Consumer<S> m_updateLocal;
+    // last published value of scalar properties, as raw bits
+    long m_lastBits;
+    boolean m_hasLast;
+  }
+
+  /** Batch shared by all builders updated on one thread during an update cycle. */
+  private static final class UpdateCycle {
+    final PublishBatch m_batch = new PublishBatch();
+    long m_time;
+    boolean m_active;
   }
 
+  private static volatile boolean s_changeDetection;
+  private static final AtomicLong s_skippedCount = new AtomicLong();
+  private static final AtomicLong s_publishedCount = new AtomicLong();
+  private static final AtomicLong s_flushCount = new AtomicLong();
+  private static final ThreadLocal<UpdateCycle> s_updateCycle =
+      ThreadLocal.withInitial(UpdateCycle::new);
+
   private final List<Property<?, ?>> m_properties = new ArrayList<>();
   private Runnable m_safeState;
   private final List<Runnable> m_updateTables = new ArrayList<>();
@@ -109,6 +178,97 @@ public class SendableBuilderImpl implements NTSendableBuilder {
 
   private final List<AutoCloseable> m_closeables = new ArrayList<>();
 
+  private PublishBatch m_batch;
+
+  /**
+   * Enables or disables change detection for all sendable builders. When enabled, update() caches
+   * the last published value of each boolean, integer, float, and double property and skips
+   * publishing it if the getter returns the same value; changed values are published together with
+   * one native call per value type. During SmartDashboard.updateValues(), the changed values of all
+   * sendables share one batch. Other property types are always published. Disabled by default.
+   *
+   * <p>Note that skipped values do not get a new timestamp, so the dashboard only sees when a
+   * value last changed rather than when it was last read.
+   *
+   * @param enabled true to enable change detection
+   */
+  public static void setChangeDetectionEnabled(boolean enabled) {
+    s_changeDetection = enabled;
+  }
+
+  /**
+   * Returns whether change detection is enabled.
+   *
+   * @return true if enabled
+   */
+  public static boolean isChangeDetectionEnabled() {
+    return s_changeDetection;
+  }
+
+  /**
+   * Gets the number of property updates skipped because the value was unchanged, summed over all
+   * sendable builders since the last call to resetChangeDetectionCounts().
+   *
+   * @return number of skipped property updates
+   */
+  public static long getSkippedCount() {
+    return s_skippedCount.get();
+  }
+
+  /**
+   * Gets the number of property values published while change detection was enabled, summed over
+   * all sendable builders since the last call to resetChangeDetectionCounts().
+   *
+   * @return number of published property updates
+   */
+  public static long getPublishedCount() {
+    return s_publishedCount.get();
+  }
+
+  /**
+   * Gets the number of batches of changed values flushed to NetworkTables, since the last call to
+   * resetChangeDetectionCounts(). Each flush makes at most one native call per value type.
+   *
+   * @return number of batch flushes
+   */
+  public static long getFlushCount() {
+    return s_flushCount.get();
+  }
+
+  /** Resets the skipped, published, and flush counts to zero. */
+  public static void resetChangeDetectionCounts() {
+    s_skippedCount.set(0);
+    s_publishedCount.set(0);
+    s_flushCount.set(0);
+  }
+
+  /**
+   * Starts an update cycle on the current thread. Until finishUpdateCycle() is called, builders
+   * updated on this thread with change detection enabled add their changed values to one shared
+   * batch instead of flushing their own.
+   *
+   * @return true if a cycle was started; false if one was already active on this thread
+   */
+  static boolean startUpdateCycle() {
+    UpdateCycle cycle = s_updateCycle.get();
+    if (cycle.m_active) {
+      return false;
+    }
+    cycle.m_active = true;
+    cycle.m_time = WPIUtilJNI.now();
+    return true;
+  }
+
+  /** Finishes the update cycle on the current thread and flushes the shared batch. */
+  static void finishUpdateCycle() {
+    UpdateCycle cycle = s_updateCycle.get();
+    cycle.m_active = false;
+    if (cycle.m_batch.size() != 0) {
+      cycle.m_batch.flush(cycle.m_time);
+      s_flushCount.incrementAndGet();
+    }
+  }
+
   @Override
   @SuppressWarnings("PMD.AvoidCatchingGenericException")
   public void close() {
@@ -177,14 +337,52 @@ public class SendableBuilderImpl implements NTSendableBuilder {
   @Override
   public void update() {
     long time = WPIUtilJNI.now();
-    for (Property<?, ?> property : m_properties) {
-      property.update(m_controllable, time);
+    if (s_changeDetection) {
+      updateChanged(time);
+    } else {
+      for (Property<?, ?> property : m_properties) {
+        property.update(m_controllable, time);
+      }
     }
     for (Runnable updateTable : m_updateTables) {
       updateTable.run();
     }
   }
 
+  private void updateChanged(long time) {
+    UpdateCycle cycle = s_updateCycle.get();
+    PublishBatch batch;
+    if (cycle.m_active) {
+      // flushed once for all builders by finishUpdateCycle()
+      batch = cycle.m_batch;
+      time = cycle.m_time;
+    } else {
+      if (m_batch == null) {
+        m_batch = new PublishBatch();
+      }
+      batch = m_batch;
+    }
+    int skipped = 0;
+    int published = 0;
+    for (Property<?, ?> property : m_properties) {
+      if (property.updateChanged(m_controllable, time, batch)) {
+        ++skipped;
+      } else if (property.publishes()) {
+        ++published;
+      }
+    }
+    if (!cycle.m_active && batch.size() != 0) {
+      batch.flush(time);
+      s_flushCount.incrementAndGet();
+    }
+    if (skipped != 0) {
+      s_skippedCount.addAndGet(skipped);
+    }
+    if (published != 0) {
+      s_publishedCount.addAndGet(published);
+    }
+  }
+
   /** Hook setters for all properties. */
   public void startListeners() {
     m_controllable = true;
@@ -316,6 +514,15 @@ public class SendableBuilderImpl implements NTSendableBuilder {
     if (getter != null) {
       property.m_pub = topic.publish();
       property.m_updateNetwork = (pub, time) -> pub.set(getter.getAsBoolean(), time);
+      property.m_updateNetworkBatched =
+          (pub, batch) -> {
+            boolean value = getter.getAsBoolean();
+            if (!property.changed(value ? 1 : 0)) {
+              return false;
+            }
+            batch.add(pub, value);
+            return true;
+          };
     }
     if (setter != null) {
       property.m_sub = topic.subscribe(false, PubSubOption.excludePublisher(property.m_pub));
@@ -323,6 +530,8 @@ public class SendableBuilderImpl implements NTSendableBuilder {
           sub -> {
             for (boolean val : sub.readQueueValues()) {
               setter.accept(val);
+              // the setter may reject or clamp the value; republish what the getter returns
+              property.invalidate();
             }
           };
     }
@@ -352,6 +561,15 @@ public class SendableBuilderImpl implements NTSendableBuilder {
     if (getter != null) {
       property.m_pub = topic.publish();
       property.m_updateNetwork = (pub, time) -> pub.set(getter.getAsLong(), time);
+      property.m_updateNetworkBatched =
+          (pub, batch) -> {
+            long value = getter.getAsLong();
+            if (!property.changed(value)) {
+              return false;
+            }
+            batch.add(pub, value);
+            return true;
+          };
     }
     if (setter != null) {
       property.m_sub = topic.subscribe(0, PubSubOption.excludePublisher(property.m_pub));
@@ -359,6 +577,8 @@ public class SendableBuilderImpl implements NTSendableBuilder {
           sub -> {
             for (long val : sub.readQueueValues()) {
               setter.accept(val);
+              // the setter may reject or clamp the value; republish what the getter returns
+              property.invalidate();
             }
           };
     }
@@ -388,6 +608,15 @@ public class SendableBuilderImpl implements NTSendableBuilder {
     if (getter != null) {
       property.m_pub = topic.publish();
       property.m_updateNetwork = (pub, time) -> pub.set(getter.getAsFloat(), time);
+      property.m_updateNetworkBatched =
+          (pub, batch) -> {
+            float value = getter.getAsFloat();
+            if (!property.changed(Float.floatToRawIntBits(value))) {
+              return false;
+            }
+            batch.add(pub, value);
+            return true;
+          };
     }
     if (setter != null) {
       property.m_sub = topic.subscribe(0.0f, PubSubOption.excludePublisher(property.m_pub));
@@ -395,6 +624,8 @@ public class SendableBuilderImpl implements NTSendableBuilder {
           sub -> {
             for (float val : sub.readQueueValues()) {
               setter.accept(val);
+              // the setter may reject or clamp the value; republish what the getter returns
+              property.invalidate();
             }
           };
     }
@@ -424,6 +655,15 @@ public class SendableBuilderImpl implements NTSendableBuilder {
     if (getter != null) {
       property.m_pub = topic.publish();
       property.m_updateNetwork = (pub, time) -> pub.set(getter.getAsDouble(), time);
+      property.m_updateNetworkBatched =
+          (pub, batch) -> {
+            double value = getter.getAsDouble();
+            if (!property.changed(Double.doubleToRawLongBits(value))) {
+              return false;
+            }
+            batch.add(pub, value);
+            return true;
+          };
     }
     if (setter != null) {
       property.m_sub = topic.subscribe(0.0, PubSubOption.excludePublisher(property.m_pub));
@@ -431,6 +671,8 @@ public class SendableBuilderImpl implements NTSendableBuilder {
           sub -> {
             for (double val : sub.readQueueValues()) {
               setter.accept(val);
+              // the setter may reject or clamp the value; republish what the getter returns
+              property.invalidate();
             }
           };
     }
@@ -503,8 +503,16 @@ public final class SmartDashboard {
   public static synchronized void updateValues() {
     // Execute posted listener tasks
     listenerExecutor.runListenerTasks();
-    for (Sendable data : tablesToData.values()) {
-      SendableRegistry.update(data);
+    // publish the changed values of all sendables together
+    boolean cycle = SendableBuilderImpl.startUpdateCycle();
+    try {
+      for (Sendable data : tablesToData.values()) {
+        SendableRegistry.update(data);
+      }
+    } finally {
+      if (cycle) {
+        SendableBuilderImpl.finishUpdateCycle();
+      }
     }
   }
 }
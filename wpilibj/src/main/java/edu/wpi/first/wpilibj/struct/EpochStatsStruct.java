@@ -0,0 +1,50 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj.struct;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.EpochStats;
+import java.nio.ByteBuffer;
+
+public class EpochStatsStruct implements Struct<EpochStats> {
+  @Override
+  public Class<EpochStats> getTypeClass() {
+    return EpochStats.class;
+  }
+
+  @Override
+  public String getTypeString() {
+    return "struct:EpochStats";
+  }
+
+  @Override
+  public int getSize() {
+    return kSizeDouble * 5;
+  }
+
+  @Override
+  public String getSchema() {
+    return "double last;double min;double avg;double p99;double max";
+  }
+
+  @Override
+  public EpochStats unpack(ByteBuffer bb) {
+    double last = bb.getDouble();
+    double min = bb.getDouble();
+    double avg = bb.getDouble();
+    double p99 = bb.getDouble();
+    double max = bb.getDouble();
+    return new EpochStats(last, min, avg, p99, max);
+  }
+
+  @Override
+  public void pack(ByteBuffer bb, EpochStats value) {
+    bb.putDouble(value.getLast());
+    bb.putDouble(value.getMin());
+    bb.putDouble(value.getAvg());
+    bb.putDouble(value.getP99());
+    bb.putDouble(value.getMax());
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+class LoopProfilerTest {
+  @BeforeEach
+  void setup() {
+    SimHooks.pauseTiming();
+  }
+
+  @AfterEach
+  void cleanup() {
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  void registerEpochTest() {
+    LoopProfiler profiler = new LoopProfiler();
+    int a = profiler.registerEpoch("a");
+    int b = profiler.registerEpoch("b");
+    assertEquals(0, a);
+    assertEquals(1, b);
+    assertEquals(a, profiler.registerEpoch("a"));
+    assertEquals(2, profiler.getEpochCount());
+    assertEquals("b", profiler.getEpochName(b));
+    assertThrows(IndexOutOfBoundsException.class, () -> profiler.addEpoch(2));
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void statsTest() {
+    LoopProfiler profiler = new LoopProfiler(10);
+    int a = profiler.registerEpoch("a");
+    int b = profiler.registerEpoch("b");
+
+    for (int i = 1; i <= 20; i++) {
+      profiler.startLoop();
+      SimHooks.stepTiming(0.001 * i);
+      profiler.addEpoch(a);
+      if (i % 2 == 0) {
+        SimHooks.stepTiming(0.002);
+        profiler.addEpoch(b);
+        // repeated epochs in the same loop are summed
+        SimHooks.stepTiming(0.001);
+        profiler.addEpoch(b);
+      }
+      profiler.endLoop();
+    }
+
+    // window holds the last 10 loops: 11 ms to 20 ms
+    EpochStats stats = profiler.getStats(a);
+    assertEquals(0.020, stats.getLast(), 1e-5);
+    assertEquals(0.011, stats.getMin(), 1e-5);
+    assertEquals(0.0155, stats.getAvg(), 1e-5);
+    assertEquals(0.020, stats.getP99(), 1e-5);
+    assertEquals(0.020, stats.getMax(), 1e-5);
+
+    stats = profiler.getStats(b);
+    assertEquals(0.003, stats.getMin(), 1e-5);
+    assertEquals(0.003, stats.getMax(), 1e-5);
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void scopeTest() {
+    LoopProfiler profiler = new LoopProfiler();
+    int outer = profiler.registerEpoch("outer");
+    int inner = profiler.registerEpoch("inner");
+
+    profiler.startLoop();
+    profiler.beginScope(outer);
+    SimHooks.stepTiming(0.001);
+    profiler.beginScope(inner);
+    SimHooks.stepTiming(0.002);
+    profiler.endScope();
+    profiler.endScope();
+    profiler.endLoop();
+
+    assertEquals(0.003, profiler.getLastTime(outer), 1e-5);
+    assertEquals(0.002, profiler.getLastTime(inner), 1e-5);
+    assertThrows(IllegalStateException.class, profiler::endScope);
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void printEpochsTest() {
+    LoopProfiler profiler = new LoopProfiler();
+    int a = profiler.registerEpoch("a");
+    profiler.registerEpoch("unused");
+
+    // ensure the print rate limit has elapsed
+    SimHooks.stepTiming(1.1);
+    profiler.startLoop();
+    SimHooks.stepTiming(0.5);
+    profiler.addEpoch(a);
+    profiler.addEpoch("b");
+    profiler.endLoop();
+
+    AtomicReference<String> output = new AtomicReference<>();
+    profiler.printEpochs(output::set);
+    assertEquals("\ta: 0.500000s\n\tb: 0.000000s\n", output.get());
+  }
+}
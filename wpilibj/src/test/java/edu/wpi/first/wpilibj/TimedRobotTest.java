@@ -7,11 +7,14 @@ package edu.wpi.first.wpilibj;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj.simulation.DriverStationSim;
 import edu.wpi.first.wpilibj.simulation.SimHooks;
 import java.util.ConcurrentModificationException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -731,4 +734,286 @@ class TimedRobotTest {
     }
     robot.close();
   }
+
+  @Test
+  @ResourceLock("timing")
+  void addPeriodicSkipTest() {
+    MockRobot robot = new MockRobot();
+
+    // The first run overruns into the next period by half a period, so the next two deadlines
+    // are dropped
+    final AtomicInteger callbackCount = new AtomicInteger(0);
+    TimedRobot.CallbackStats stats =
+        robot.addPeriodic(
+            () -> {
+              if (callbackCount.getAndIncrement() == 0) {
+                SimHooks.stepTimingAsync(kPeriod * 5.0 / 4.0);
+              }
+            },
+            kPeriod / 2.0,
+            0.0,
+            TimedRobot.MissedDeadlinePolicy.kSkip);
+
+    Thread robotThread = new Thread(robot::startCompetition);
+    robotThread.start();
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(0.0); // Wait for Notifiers
+
+    assertEquals(0, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(1, callbackCount.get());
+    assertEquals(1, stats.getRunCount());
+    assertEquals(1, stats.getOverrunCount());
+    assertEquals(2, stats.getSkippedCount());
+    assertEquals(kPeriod * 5.0 / 4.0, stats.getLastRunTime(), 1e-6);
+
+    // The robot loop was delayed by the overrun, but still runs
+    assertEquals(1, robot.getLoopStats().getRunCount());
+    assertEquals(kPeriod * 3.0 / 4.0, robot.getLoopStats().getMaxJitter(), 1e-6);
+
+    SimHooks.stepTiming(kPeriod / 4.0);
+
+    assertEquals(2, callbackCount.get());
+    assertEquals(2, stats.getRunCount());
+    assertEquals(0.0, stats.getLastJitter(), 1e-6);
+
+    stats.reset();
+    assertEquals(0, stats.getRunCount());
+    assertEquals(0, stats.getSkippedCount());
+
+    robot.endCompetition();
+    try {
+      robotThread.interrupt();
+      robotThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    robot.close();
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void addPeriodicThreadTest() {
+    MockRobot robot = new MockRobot();
+
+    final AtomicInteger callbackCount = new AtomicInteger(0);
+    TimedRobot.CallbackStats stats =
+        robot.addPeriodicThread(
+            () -> callbackCount.addAndGet(1),
+            kPeriod / 2.0,
+            0.0,
+            TimedRobot.MissedDeadlinePolicy.kCatchUp,
+            0);
+
+    Thread robotThread = new Thread(robot::startCompetition);
+    robotThread.start();
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(0.0); // Wait for Notifiers
+
+    assertEquals(0, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(1, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(2, callbackCount.get());
+    assertEquals(1, robot.m_disabledPeriodicCount.get());
+    assertEquals(2, stats.getRunCount());
+    assertEquals(0, stats.getOverrunCount());
+    assertTrue(stats.getMaxJitter() < 1e-6);
+
+    robot.endCompetition();
+    try {
+      robotThread.interrupt();
+      robotThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    robot.close();
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void addPeriodicThreadThrowsTest() {
+    MockRobot robot = new MockRobot();
+
+    // A callback that throws must not end its thread
+    final AtomicInteger callbackCount = new AtomicInteger(0);
+    robot.addPeriodicThread(
+        () -> {
+          callbackCount.incrementAndGet();
+          throw new IllegalStateException("test");
+        },
+        kPeriod / 2.0,
+        0.0,
+        TimedRobot.MissedDeadlinePolicy.kCatchUp,
+        0);
+
+    Thread robotThread = new Thread(robot::startCompetition);
+    robotThread.start();
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(0.0); // Wait for Notifiers
+
+    assertEquals(0, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(1, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(2, callbackCount.get());
+
+    robot.endCompetition();
+    try {
+      robotThread.interrupt();
+      robotThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    robot.close();
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void addPeriodicExecutorThrowsTest() {
+    MockRobot robot = new MockRobot();
+
+    // A callback that throws must not leave a run pending, or kSkip would drop every later
+    // deadline
+    final AtomicInteger callbackCount = new AtomicInteger(0);
+    TimedRobot.CallbackStats stats =
+        robot.addPeriodic(
+            () -> {
+              callbackCount.incrementAndGet();
+              throw new IllegalStateException("test");
+            },
+            kPeriod / 2.0,
+            0.0,
+            TimedRobot.MissedDeadlinePolicy.kSkip,
+            Runnable::run);
+
+    Thread robotThread = new Thread(robot::startCompetition);
+    robotThread.start();
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(0.0); // Wait for Notifiers
+
+    assertEquals(0, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(1, callbackCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    assertEquals(2, callbackCount.get());
+    assertEquals(0, stats.getSkippedCount());
+
+    // The robot loop keeps running too
+    assertEquals(1, robot.m_disabledPeriodicCount.get());
+
+    robot.endCompetition();
+    try {
+      robotThread.interrupt();
+      robotThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    robot.close();
+  }
+
+  @Test
+  @ResourceLock("timing")
+  void addPeriodicExecutorPolicyTest() {
+    MockRobot robot = new MockRobot();
+
+    // Runs are queued here and only executed when the test drains the queue, so a run is still
+    // "in progress" when the next deadline arrives
+    final Queue<Runnable> skipQueue = new ConcurrentLinkedQueue<>();
+    final Queue<Runnable> catchUpQueue = new ConcurrentLinkedQueue<>();
+
+    final AtomicInteger skipCount = new AtomicInteger(0);
+    TimedRobot.CallbackStats skipStats =
+        robot.addPeriodic(
+            skipCount::incrementAndGet,
+            kPeriod / 2.0,
+            0.0,
+            TimedRobot.MissedDeadlinePolicy.kSkip,
+            skipQueue::add);
+
+    final AtomicInteger catchUpCount = new AtomicInteger(0);
+    TimedRobot.CallbackStats catchUpStats =
+        robot.addPeriodic(
+            catchUpCount::incrementAndGet,
+            kPeriod / 2.0,
+            0.0,
+            TimedRobot.MissedDeadlinePolicy.kCatchUp,
+            catchUpQueue::add);
+
+    Thread robotThread = new Thread(robot::startCompetition);
+    robotThread.start();
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(0.0); // Wait for Notifiers
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    // Both callbacks were handed to their executors, but haven't run yet
+    assertEquals(1, skipQueue.size());
+    assertEquals(1, catchUpQueue.size());
+    assertEquals(0, skipCount.get());
+    assertEquals(0, catchUpCount.get());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    // The first runs are still pending, so neither callback is dispatched again
+    assertEquals(1, skipQueue.size());
+    assertEquals(1, catchUpQueue.size());
+    assertEquals(1, skipStats.getSkippedCount());
+    assertEquals(0, catchUpStats.getSkippedCount());
+
+    skipQueue.remove().run();
+    catchUpQueue.remove().run();
+
+    // kSkip dropped the second deadline; kCatchUp ran it right after the first
+    assertEquals(1, skipCount.get());
+    assertEquals(1, skipStats.getRunCount());
+    assertEquals(2, catchUpCount.get());
+    assertEquals(2, catchUpStats.getRunCount());
+
+    SimHooks.stepTiming(kPeriod / 2.0);
+
+    // Nothing is pending anymore, so both callbacks are dispatched on the next deadline
+    assertEquals(1, skipQueue.size());
+    assertEquals(1, catchUpQueue.size());
+
+    skipQueue.remove().run();
+    catchUpQueue.remove().run();
+
+    assertEquals(2, skipCount.get());
+    assertEquals(1, skipStats.getSkippedCount());
+    assertEquals(3, catchUpCount.get());
+
+    robot.endCompetition();
+    try {
+      robotThread.interrupt();
+      robotThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    robot.close();
+  }
 }
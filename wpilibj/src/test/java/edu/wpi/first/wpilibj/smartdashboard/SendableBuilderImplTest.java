@@ -0,0 +1,129 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.wpilibj.smartdashboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SendableBuilderImplTest {
+  private NetworkTableInstance m_inst;
+  private NetworkTable m_table;
+  private SendableBuilderImpl m_builder;
+  private double m_value;
+
+  @BeforeEach
+  void beforeEach() {
+    m_inst = NetworkTableInstance.create();
+    m_table = m_inst.getTable("test");
+    m_builder = new SendableBuilderImpl();
+    m_builder.setTable(m_table);
+    SendableBuilderImpl.setChangeDetectionEnabled(true);
+    SendableBuilderImpl.resetChangeDetectionCounts();
+  }
+
+  @AfterEach
+  void afterEach() {
+    SendableBuilderImpl.setChangeDetectionEnabled(false);
+    m_builder.close();
+    m_inst.close();
+  }
+
+  @Test
+  void skipsUnchangedTest() {
+    m_builder.addDoubleProperty("value", () -> m_value, null);
+    m_builder.addStringProperty("name", () -> "name", null);
+    try (DoubleSubscriber sub = m_table.getDoubleTopic("value").subscribe(-1)) {
+      m_value = 1.0;
+      m_builder.update();
+      assertEquals(1.0, sub.get());
+      assertEquals(2, SendableBuilderImpl.getPublishedCount());
+      assertEquals(0, SendableBuilderImpl.getSkippedCount());
+
+      // unchanged double is skipped; strings are always published
+      m_builder.update();
+      assertEquals(3, SendableBuilderImpl.getPublishedCount());
+      assertEquals(1, SendableBuilderImpl.getSkippedCount());
+
+      m_value = 2.0;
+      m_builder.update();
+      assertEquals(2.0, sub.get());
+      assertEquals(5, SendableBuilderImpl.getPublishedCount());
+      assertEquals(1, SendableBuilderImpl.getSkippedCount());
+    }
+  }
+
+  @Test
+  void disableInvalidatesCacheTest() {
+    m_builder.addDoubleProperty("value", () -> m_value, null);
+    try (DoubleSubscriber sub = m_table.getDoubleTopic("value").subscribe(-1)) {
+      m_value = 1.0;
+      m_builder.update();
+
+      // publish a different value without change detection, then go back to the cached value
+      SendableBuilderImpl.setChangeDetectionEnabled(false);
+      m_value = 2.0;
+      m_builder.update();
+      SendableBuilderImpl.setChangeDetectionEnabled(true);
+      m_value = 1.0;
+      m_builder.update();
+      assertEquals(1.0, sub.get());
+    }
+  }
+
+  @Test
+  void updateCycleSharesBatchTest() {
+    m_builder.addDoubleProperty("value", () -> m_value, null);
+    try (SendableBuilderImpl other = new SendableBuilderImpl();
+        DoubleSubscriber sub = m_table.getDoubleTopic("value").subscribe(-1);
+        DoubleSubscriber otherSub = m_table.getDoubleTopic("other").subscribe(-1)) {
+      other.setTable(m_table);
+      other.addDoubleProperty("other", () -> m_value * 2, null);
+
+      m_value = 1.0;
+      assertTrue(SendableBuilderImpl.startUpdateCycle());
+      m_builder.update();
+      other.update();
+      SendableBuilderImpl.finishUpdateCycle();
+      assertEquals(1.0, sub.get());
+      assertEquals(2.0, otherSub.get());
+      assertEquals(1, SendableBuilderImpl.getFlushCount());
+
+      // outside a cycle each builder flushes its own batch
+      m_value = 3.0;
+      m_builder.update();
+      other.update();
+      assertEquals(3.0, sub.get());
+      assertEquals(6.0, otherSub.get());
+      assertEquals(3, SendableBuilderImpl.getFlushCount());
+    }
+  }
+
+  @Test
+  void rejectedRemoteValueRepublishedTest() {
+    // the setter clamps remote values to [0, 1]
+    m_builder.addDoubleProperty(
+        "value", () -> m_value, value -> m_value = Math.max(0.0, Math.min(1.0, value)));
+    m_builder.startListeners();
+    try (DoublePublisher dashboard = m_table.getDoubleTopic("value").publish();
+        DoubleSubscriber sub = m_table.getDoubleTopic("value").subscribe(-1)) {
+      m_value = 1.0;
+      m_builder.update();
+      assertEquals(1.0, sub.get());
+
+      dashboard.set(5.0);
+      m_builder.update();
+      assertEquals(1.0, m_value);
+      assertEquals(1.0, sub.get());
+    }
+  }
+}
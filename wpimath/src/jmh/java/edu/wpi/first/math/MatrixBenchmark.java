@@ -0,0 +1,137 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the allocating Matrix operations with the allocation-free Into variants at the sizes
+ * used by the pose estimators and Kalman filters. Run with -prof gc to see the allocation rate of
+ * each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+  @Param({"2", "3", "6", "12"})
+  public int m_size;
+
+  private Matrix<Num, Num> m_a;
+  private Matrix<Num, Num> m_b;
+  private Matrix<Num, Num> m_vector;
+  private Matrix<Num, Num> m_output;
+  private Matrix<Num, Num> m_vectorOutput;
+
+  private static Matrix<Num, Num> randomMatrix(Random rand, int rows, int cols) {
+    return new Matrix<>(SimpleMatrix.random_DDRM(rows, cols, -1.0, 1.0, rand));
+  }
+
+  /** Creates random square matrices and vectors of the benchmarked size. */
+  @Setup
+  public void setup() {
+    var rand = new Random(42);
+    m_a = randomMatrix(rand, m_size, m_size);
+    m_b = randomMatrix(rand, m_size, m_size);
+    m_vector = randomMatrix(rand, m_size, 1);
+    m_output = new Matrix<>(new SimpleMatrix(m_size, m_size));
+    m_vectorOutput = new Matrix<>(new SimpleMatrix(m_size, 1));
+  }
+
+  /**
+   * Multiplies two square matrices into a new matrix.
+   *
+   * @return product
+   */
+  @Benchmark
+  public Matrix<Num, Num> times() {
+    return m_a.times(m_b);
+  }
+
+  /**
+   * Multiplies two square matrices into an existing matrix.
+   *
+   * @return product
+   */
+  @Benchmark
+  public Matrix<Num, Num> timesInto() {
+    return m_a.timesInto(m_b, m_output);
+  }
+
+  /**
+   * Multiplies a square matrix and a vector into a new vector.
+   *
+   * @return product
+   */
+  @Benchmark
+  public Matrix<Num, Num> timesVector() {
+    return m_a.times(m_vector);
+  }
+
+  /**
+   * Multiplies a square matrix and a vector into an existing vector.
+   *
+   * @return product
+   */
+  @Benchmark
+  public Matrix<Num, Num> timesVectorInto() {
+    return m_a.timesInto(m_vector, m_vectorOutput);
+  }
+
+  /**
+   * Adds two square matrices into a new matrix.
+   *
+   * @return sum
+   */
+  @Benchmark
+  public Matrix<Num, Num> plus() {
+    return m_a.plus(m_b);
+  }
+
+  /**
+   * Adds two square matrices into an existing matrix.
+   *
+   * @return sum
+   */
+  @Benchmark
+  public Matrix<Num, Num> plusInto() {
+    return m_a.plusInto(m_b, m_output);
+  }
+
+  /**
+   * Transposes a square matrix into a new matrix.
+   *
+   * @return transpose
+   */
+  @Benchmark
+  public Matrix<Num, Num> transpose() {
+    return m_a.transpose();
+  }
+
+  /**
+   * Transposes a square matrix into an existing matrix.
+   *
+   * @return transpose
+   */
+  @Benchmark
+  public Matrix<Num, Num> transposeInto() {
+    return m_a.transposeInto(m_output);
+  }
+}
@@ -0,0 +1,98 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.estimator;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.math.numbers.N5;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one predict and correct step of an unscented Kalman filter on a five state
+ * differential drive model with a three element local measurement. Run with -prof gc to see the
+ * allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnscentedKalmanFilterBenchmark {
+  private static final double kDt = 0.005;
+  private static final double kRb = 0.8382 / 2.0;
+
+  private UnscentedKalmanFilter<N5, N2, N3> m_observer;
+  private Matrix<N2, N1> m_u;
+  private Matrix<N3, N1> m_y;
+
+  private static Matrix<N5, N1> getDynamics(Matrix<N5, N1> x, Matrix<N2, N1> u) {
+    var v = 0.5 * (x.get(3, 0) + x.get(4, 0));
+    return VecBuilder.fill(
+        v * Math.cos(x.get(2, 0)),
+        v * Math.sin(x.get(2, 0)),
+        (x.get(4, 0) - x.get(3, 0)) / (2.0 * kRb),
+        -x.get(3, 0) + u.get(0, 0),
+        -x.get(4, 0) + u.get(1, 0));
+  }
+
+  @SuppressWarnings("PMD.UnusedFormalParameter")
+  private static Matrix<N3, N1> getMeasurement(Matrix<N5, N1> x, Matrix<N2, N1> u) {
+    return VecBuilder.fill(x.get(2, 0), x.get(3, 0), x.get(4, 0));
+  }
+
+  /** Creates the filter and a constant input and measurement. */
+  @Setup
+  public void setup() {
+    m_observer =
+        new UnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterBenchmark::getDynamics,
+            UnscentedKalmanFilterBenchmark::getMeasurement,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            kDt);
+    m_u = VecBuilder.fill(1.0, 1.2);
+    m_y = VecBuilder.fill(0.0, 1.0, 1.2);
+  }
+
+  /**
+   * Projects the state estimate forward one timestep.
+   *
+   * @return state estimate
+   */
+  @Benchmark
+  public Matrix<N5, N1> predict() {
+    m_observer.predict(m_u, kDt);
+    return m_observer.getXhat();
+  }
+
+  /**
+   * Projects the state estimate forward one timestep and corrects it with a measurement.
+   *
+   * @return state estimate
+   */
+  @Benchmark
+  public Matrix<N5, N1> predictAndCorrect() {
+    m_observer.predict(m_u, kDt);
+    m_observer.correct(m_u, m_y);
+    return m_observer.getXhat();
+  }
+}
@@ -0,0 +1,130 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.kinematics;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares swerve odometry and pose estimator updates with the equivalent computation written
+ * with immutable geometry types. Run with -prof gc to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveOdometryBenchmark {
+  private static final int kNumAngles = 1024;
+
+  private final Rotation2d[] m_gyroAngles = new Rotation2d[kNumAngles];
+  private final SwerveModulePosition[] m_positions = new SwerveModulePosition[4];
+  private final SwerveModulePosition[] m_previousPositions = new SwerveModulePosition[4];
+  private SwerveDriveKinematics m_kinematics;
+  private SwerveDriveOdometry m_odometry;
+  private SwerveDrivePoseEstimator m_estimator;
+
+  private Pose2d m_pose;
+  private Rotation2d m_previousAngle;
+  private int m_index;
+  private double m_time;
+
+  /** Creates the drivetrain and precomputes the gyro angles. */
+  @Setup
+  public void setup() {
+    m_kinematics =
+        new SwerveDriveKinematics(
+            new Translation2d(0.3, 0.3),
+            new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3),
+            new Translation2d(-0.3, -0.3));
+    for (int i = 0; i < kNumAngles; i++) {
+      m_gyroAngles[i] = new Rotation2d(i * 2.0 * Math.PI / kNumAngles);
+    }
+    for (int i = 0; i < m_positions.length; i++) {
+      m_positions[i] = new SwerveModulePosition(0.0, Rotation2d.fromDegrees(30.0 * i));
+      m_previousPositions[i] = m_positions[i].copy();
+    }
+
+    m_odometry = new SwerveDriveOdometry(m_kinematics, m_gyroAngles[0], m_positions);
+    m_estimator =
+        new SwerveDrivePoseEstimator(m_kinematics, m_gyroAngles[0], m_positions, new Pose2d());
+    m_pose = new Pose2d();
+    m_previousAngle = m_gyroAngles[0];
+
+    // Give the estimator some history and a vision correction to apply to later updates
+    for (int i = 0; i < 50; i++) {
+      advance();
+      m_estimator.updateWithTime(m_time, m_gyroAngles[m_index], m_positions);
+    }
+    m_estimator.addVisionMeasurement(new Pose2d(0.1, 0.1, m_gyroAngles[m_index]), m_time - 0.1);
+  }
+
+  private void advance() {
+    m_index = (m_index + 1) & (kNumAngles - 1);
+    m_time += 0.02;
+    for (var position : m_positions) {
+      position.distanceMeters += 0.01;
+    }
+  }
+
+  /**
+   * Updates SwerveDriveOdometry.
+   *
+   * @return updated pose
+   */
+  @Benchmark
+  public Pose2d odometryUpdate() {
+    advance();
+    return m_odometry.update(m_gyroAngles[m_index], m_positions);
+  }
+
+  /**
+   * Performs the same update as SwerveDriveOdometry with immutable geometry.
+   *
+   * @return updated pose
+   */
+  @Benchmark
+  public Pose2d immutableOdometryUpdate() {
+    advance();
+    var angle = m_gyroAngles[m_index];
+    var twist =
+        m_kinematics.toTwist2d(
+            new SwerveDriveWheelPositions(m_previousPositions),
+            new SwerveDriveWheelPositions(m_positions));
+    twist.dtheta = angle.minus(m_previousAngle).getRadians();
+    m_pose = new Pose2d(m_pose.exp(twist).getTranslation(), angle);
+    for (int i = 0; i < m_positions.length; i++) {
+      m_previousPositions[i] = m_positions[i].copy();
+    }
+    m_previousAngle = angle;
+    return m_pose;
+  }
+
+  /**
+   * Updates SwerveDrivePoseEstimator with a vision correction applied.
+   *
+   * @return updated pose estimate
+   */
+  @Benchmark
+  public Pose2d poseEstimatorUpdate() {
+    advance();
+    return m_estimator.updateWithTime(m_time, m_gyroAngles[m_index], m_positions);
+  }
+}
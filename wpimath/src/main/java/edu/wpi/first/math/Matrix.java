@@ -24,6 +24,10 @@ import org.ejml.simple.SimpleMatrix;
  * @param <C> The number of columns in this matrix.
  */
 public class Matrix<R extends Num, C extends Num> {
+  // Largest dimension for which the allocation-free operations use the small matrix kernels below
+  // instead of the general EJML routines
+  private static final int kMaxSmallDimension = 6;
+
   protected final SimpleMatrix m_storage;
 
   /**
@@ -218,6 +222,49 @@ public class Matrix<R extends Num, C extends Num> {
     return new Matrix<>(this.m_storage.mult(Objects.requireNonNull(other).m_storage));
   }
 
+  /**
+   * Multiplies this matrix with another that has C rows, storing the result in the given output
+   * matrix instead of allocating a new one.
+   *
+   * <p>Matrices whose dimensions are all at most 6 are multiplied with specialized kernels that
+   * sum the products in the same order as {@link #times(Matrix)}.
+   *
+   * @param other The other matrix to multiply by.
+   * @param output The matrix to store the result in. This can't be "this" or other.
+   * @param <C2> The number of columns in the second matrix.
+   * @return The output matrix.
+   * @throws IllegalArgumentException if output is "this" or other.
+   */
+  public final <C2 extends Num> Matrix<R, C2> timesInto(
+      Matrix<C, C2> other, Matrix<R, C2> output) {
+    DMatrixRMaj a = this.m_storage.getDDRM();
+    DMatrixRMaj b = Objects.requireNonNull(other).m_storage.getDDRM();
+    DMatrixRMaj c = Objects.requireNonNull(output).m_storage.getDDRM();
+    if (c == a || c == b) {
+      throw new IllegalArgumentException(
+          "The output of a matrix multiplication can't be one of its operands");
+    }
+    checkShape(other, a.numCols, b.numCols);
+    checkShape(output, a.numRows, b.numCols);
+
+    if (a.numRows <= kMaxSmallDimension
+        && a.numCols <= kMaxSmallDimension
+        && b.numCols <= kMaxSmallDimension) {
+      if (b.numCols == 1) {
+        if (a.numRows == 3 && a.numCols == 3) {
+          multVector3(a.data, b.data, c.data);
+        } else {
+          multVectorSmall(a.data, b.data, c.data, a.numRows, a.numCols);
+        }
+      } else {
+        multSmall(a.data, b.data, c.data, a.numRows, a.numCols, b.numCols);
+      }
+    } else {
+      CommonOps_DDRM.mult(a, b, c);
+    }
+    return output;
+  }
+
   /**
    * Multiplies all the elements of this matrix by the given scalar.
    *
@@ -261,6 +308,28 @@ public class Matrix<R extends Num, C extends Num> {
     return new Matrix<>(this.m_storage.minus(Objects.requireNonNull(value).m_storage));
   }
 
+  /**
+   * Subtracts the given matrix from this matrix, storing the result in the given output matrix
+   * instead of allocating a new one.
+   *
+   * @param value The matrix to subtract.
+   * @param output The matrix to store the result in. This may be "this" or value.
+   * @return The output matrix.
+   */
+  public final Matrix<R, C> minusInto(Matrix<R, C> value, Matrix<R, C> output) {
+    double[] a = this.m_storage.getDDRM().data;
+    double[] b = Objects.requireNonNull(value).m_storage.getDDRM().data;
+    double[] c = Objects.requireNonNull(output).m_storage.getDDRM().data;
+    checkShape(value, getNumRows(), getNumCols());
+    checkShape(output, getNumRows(), getNumCols());
+
+    final int size = getNumRows() * getNumCols();
+    for (int i = 0; i < size; i++) {
+      c[i] = a[i] - b[i];
+    }
+    return output;
+  }
+
   /**
    * Adds the given value to all the elements of this matrix.
    *
@@ -281,6 +350,28 @@ public class Matrix<R extends Num, C extends Num> {
     return new Matrix<>(this.m_storage.plus(Objects.requireNonNull(value).m_storage));
   }
 
+  /**
+   * Adds the given matrix to this matrix, storing the result in the given output matrix instead of
+   * allocating a new one.
+   *
+   * @param value The matrix to add.
+   * @param output The matrix to store the result in. This may be "this" or value.
+   * @return The output matrix.
+   */
+  public final Matrix<R, C> plusInto(Matrix<R, C> value, Matrix<R, C> output) {
+    double[] a = this.m_storage.getDDRM().data;
+    double[] b = Objects.requireNonNull(value).m_storage.getDDRM().data;
+    double[] c = Objects.requireNonNull(output).m_storage.getDDRM().data;
+    checkShape(value, getNumRows(), getNumCols());
+    checkShape(output, getNumRows(), getNumCols());
+
+    final int size = getNumRows() * getNumCols();
+    for (int i = 0; i < size; i++) {
+      c[i] = a[i] + b[i];
+    }
+    return output;
+  }
+
   /**
    * Divides all elements of this matrix by the given value.
    *
@@ -310,6 +401,35 @@ public class Matrix<R extends Num, C extends Num> {
     return new Matrix<>(this.m_storage.transpose());
   }
 
+  /**
+   * Calculates the transpose, Mᵀ of this matrix, storing the result in the given output matrix
+   * instead of allocating a new one.
+   *
+   * @param output The matrix to store the result in. This can't be "this".
+   * @return The output matrix.
+   * @throws IllegalArgumentException if output is "this".
+   */
+  public final Matrix<C, R> transposeInto(Matrix<C, R> output) {
+    DMatrixRMaj a = this.m_storage.getDDRM();
+    DMatrixRMaj c = Objects.requireNonNull(output).m_storage.getDDRM();
+    if (c == a) {
+      throw new IllegalArgumentException("The output of a transpose can't be its operand");
+    }
+    checkShape(output, a.numCols, a.numRows);
+
+    if (a.numRows <= kMaxSmallDimension && a.numCols <= kMaxSmallDimension) {
+      int index = 0;
+      for (int i = 0; i < a.numRows; i++) {
+        for (int j = 0; j < a.numCols; j++) {
+          c.data[j * a.numRows + i] = a.data[index++];
+        }
+      }
+    } else {
+      CommonOps_DDRM.transpose(a, c);
+    }
+    return output;
+  }
+
   /**
    * Returns a copy of this matrix.
    *
@@ -370,6 +490,30 @@ public class Matrix<R extends Num, C extends Num> {
     return solution;
   }
 
+  /**
+   * Solves the least-squares problem Ax=B using a QR decomposition with full pivoting, where this
+   * matrix is A, storing the result in the given output matrix instead of allocating a new one.
+   *
+   * @param <R2> Number of rows in B.
+   * @param <C2> Number of columns in B.
+   * @param other The B matrix.
+   * @param output The matrix to store the solution in.
+   * @return The output matrix.
+   */
+  public final <R2 extends Num, C2 extends Num> Matrix<C, C2> solveFullPivHouseholderQrInto(
+      Matrix<R2, C2> other, Matrix<C, C2> output) {
+    checkShape(Objects.requireNonNull(output), this.getNumCols(), other.getNumCols());
+    WPIMathJNI.solveFullPivHouseholderQr(
+        this.getData(),
+        this.getNumRows(),
+        this.getNumCols(),
+        other.getData(),
+        other.getNumRows(),
+        other.getNumCols(),
+        output.getData());
+    return output;
+  }
+
   /**
    * Computes the matrix exponential using Eigen's solver. This method only works for square
    * matrices, and will otherwise throw an {@link MatrixDimensionException}.
@@ -622,6 +766,73 @@ public class Matrix<R extends Num, C extends Num> {
     return m_storage.getDDRM().getData();
   }
 
+  /**
+   * Throws if the given matrix doesn't have the expected shape. The type parameters normally
+   * guarantee this, but matrices constructed from a {@link SimpleMatrix} aren't checked.
+   *
+   * @param matrix The matrix to check.
+   * @param rows The expected number of rows.
+   * @param cols The expected number of columns.
+   */
+  private static void checkShape(Matrix<?, ?> matrix, int rows, int cols) {
+    if (matrix.getNumRows() != rows || matrix.getNumCols() != cols) {
+      throw new MatrixDimensionException(
+          "Expected a "
+              + rows
+              + " x "
+              + cols
+              + " matrix, but this matrix is "
+              + matrix.getNumRows()
+              + " x "
+              + matrix.getNumCols()
+              + ".");
+    }
+  }
+
+  // The kernels below sum the products in the same order as EJML's CommonOps_DDRM.mult() so that
+  // timesInto() matches times() exactly.
+
+  private static void multSmall(double[] a, double[] b, double[] c, int rows, int inner, int cols) {
+    int cIndex = 0;
+    for (int i = 0; i < rows; i++) {
+      final int aStart = i * inner;
+      for (int j = 0; j < cols; j++) {
+        double total = 0.0;
+        for (int k = 0; k < inner; k++) {
+          total += a[aStart + k] * b[k * cols + j];
+        }
+        c[cIndex++] = total;
+      }
+    }
+  }
+
+  private static void multVectorSmall(double[] a, double[] b, double[] c, int rows, int inner) {
+    if (inner == 0) {
+      for (int i = 0; i < rows; i++) {
+        c[i] = 0.0;
+      }
+      return;
+    }
+
+    int aIndex = 0;
+    for (int i = 0; i < rows; i++) {
+      double total = a[aIndex++] * b[0];
+      for (int j = 1; j < inner; j++) {
+        total += a[aIndex++] * b[j];
+      }
+      c[i] = total;
+    }
+  }
+
+  private static void multVector3(double[] a, double[] b, double[] c) {
+    final double b0 = b[0];
+    final double b1 = b[1];
+    final double b2 = b[2];
+    c[0] = a[0] * b0 + a[1] * b1 + a[2] * b2;
+    c[1] = a[3] * b0 + a[4] * b1 + a[5] * b2;
+    c[2] = a[6] * b0 + a[7] * b1 + a[8] * b2;
+  }
+
   /**
    * Creates the identity matrix of the given dimension.
    *
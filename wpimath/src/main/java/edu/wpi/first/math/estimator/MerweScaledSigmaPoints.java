@@ -95,6 +95,45 @@ public class MerweScaledSigmaPoints<S extends Num> {
     return new Matrix<>(sigmas);
   }
 
+  /**
+   * Computes the sigma points for an unscented Kalman filter given the mean (x) and covariance(P)
+   * of the filter, storing them in the given matrix instead of allocating a new one. The results
+   * are identical to {@link #squareRootSigmaPoints(Matrix, Matrix)}.
+   *
+   * @param x An array of the means.
+   * @param s Square-root covariance of the filter.
+   * @param sigmas The States by 2 * States + 1 matrix to store the sigma points in. Each column
+   *     contains all the sigmas for one dimension in the problem space. Ordered by Xi_0, Xi_{1..n},
+   *     Xi_{n+1..2n}.
+   * @return The sigmas matrix.
+   */
+  public Matrix<S, ?> squareRootSigmaPointsInto(
+      Matrix<S, N1> x, Matrix<S, S> s, Matrix<S, ?> sigmas) {
+    if (sigmas.getNumRows() != m_states.getNum() || sigmas.getNumCols() != getNumSigmas()) {
+      throw new IllegalArgumentException(
+          "Sigmas must be states by 2 * states + 1! Got "
+              + sigmas.getNumRows()
+              + " by "
+              + sigmas.getNumCols());
+    }
+
+    double lambda = Math.pow(m_alpha, 2) * (m_states.getNum() + m_kappa) - m_states.getNum();
+    double eta = Math.sqrt(lambda + m_states.getNum());
+
+    for (int row = 0; row < m_states.getNum(); row++) {
+      double xRow = x.get(row, 0);
+      sigmas.set(row, 0, xRow);
+      for (int k = 0; k < m_states.getNum(); k++) {
+        // Same arithmetic as x ± (s * eta) in squareRootSigmaPoints()
+        double u = s.get(row, k) * eta;
+        sigmas.set(row, k + 1, xRow + u);
+        sigmas.set(row, m_states.getNum() + k + 1, xRow - u);
+      }
+    }
+
+    return sigmas;
+  }
+
   /**
    * Computes the weights for the scaled unscented Kalman filter.
    *
@@ -5,9 +5,11 @@
 package edu.wpi.first.math.estimator;
 
 import edu.wpi.first.math.MathSharedStore;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
-import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.MutablePose2d;
+import edu.wpi.first.math.geometry.MutableTransform2d;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Twist2d;
@@ -18,9 +20,10 @@ import edu.wpi.first.math.kinematics.Odometry;
 import edu.wpi.first.math.kinematics.WheelPositions;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
-import java.util.Map;
-import java.util.NoSuchElementException;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
 
 /**
  * This class wraps {@link Odometry} to fuse latency-compensated vision measurements with encoder
@@ -40,10 +43,22 @@ public class PoseEstimator<T extends WheelPositions<T>> {
   private final Odometry<T> m_odometry;
   private final Matrix<N3, N1> m_q = new Matrix<>(Nat.N3(), Nat.N1());
   private final Matrix<N3, N3> m_visionK = new Matrix<>(Nat.N3(), Nat.N3());
+  private final Matrix<N3, N1> m_twistVector = new Matrix<>(Nat.N3(), Nat.N1());
+  private final Matrix<N3, N1> m_scaledTwistVector = new Matrix<>(Nat.N3(), Nat.N1());
 
   private static final double kBufferDuration = 1.5;
-  private final TimeInterpolatableBuffer<InterpolationRecord> m_poseBuffer =
+  // Odometry-only poses and sensor inputs. Vision measurements never modify these records.
+  private final TimeInterpolatableBuffer<InterpolationRecord> m_odometryPoseBuffer =
       TimeInterpolatableBuffer.createBuffer(kBufferDuration);
+  // Vision corrections, keyed by the timestamp of the vision measurement. Each correction applies
+  // to odometry poses from its timestamp until the next correction.
+  private final NavigableMap<Double, VisionUpdate> m_visionUpdates = new TreeMap<>();
+
+  private Pose2d m_poseEstimate;
+
+  // Scratch objects reused when applying vision compensation
+  private final MutableTransform2d m_compensationDelta = new MutableTransform2d();
+  private final MutablePose2d m_compensatedPose = new MutablePose2d();
 
   /**
    * Constructs a PoseEstimator.
@@ -64,6 +79,7 @@ public class PoseEstimator<T extends WheelPositions<T>> {
       Matrix<N3, N1> visionMeasurementStdDevs) {
     m_kinematics = kinematics;
     m_odometry = odometry;
+    m_poseEstimate = m_odometry.getPoseMeters();
 
     for (int i = 0; i < 3; ++i) {
       m_q.set(i, 0, stateStdDevs.get(i, 0) * stateStdDevs.get(i, 0));
@@ -111,7 +127,9 @@ public class PoseEstimator<T extends WheelPositions<T>> {
   public void resetPosition(Rotation2d gyroAngle, T wheelPositions, Pose2d poseMeters) {
     // Reset state estimate and error covariance
     m_odometry.resetPosition(gyroAngle, wheelPositions, poseMeters);
-    m_poseBuffer.clear();
+    m_odometryPoseBuffer.clear();
+    m_visionUpdates.clear();
+    m_poseEstimate = m_odometry.getPoseMeters();
   }
 
   /**
@@ -120,7 +138,64 @@ public class PoseEstimator<T extends WheelPositions<T>> {
    * @return The estimated robot pose in meters.
    */
   public Pose2d getEstimatedPosition() {
-    return m_odometry.getPoseMeters();
+    return m_poseEstimate;
+  }
+
+  /**
+   * Return the pose at a given timestamp, if the buffer is not empty.
+   *
+   * @param timestampSeconds The pose's timestamp in seconds.
+   * @return The pose at the given timestamp (or Optional.empty() if the buffer is empty).
+   */
+  public Optional<Pose2d> sampleAt(double timestampSeconds) {
+    // Step 0: If there are no odometry updates to sample, skip.
+    if (m_odometryPoseBuffer.size() == 0) {
+      return Optional.empty();
+    }
+
+    // Step 1: Make sure the timestamp is within the range of the odometry pose buffer, as sampling
+    // clamps to the oldest and newest samples.
+    timestampSeconds =
+        MathUtil.clamp(
+            timestampSeconds,
+            m_odometryPoseBuffer.getTimestamp(0),
+            m_odometryPoseBuffer.getTimestamp(m_odometryPoseBuffer.size() - 1));
+
+    // Step 2: Get the pose measured by odometry at the time of the sample.
+    var odometrySample = m_odometryPoseBuffer.getSample(timestampSeconds);
+    if (odometrySample.isEmpty()) {
+      return Optional.empty();
+    }
+
+    // Step 3: If there are no applicable vision updates, use the odometry-only information.
+    var visionUpdate = m_visionUpdates.floorEntry(timestampSeconds);
+    if (visionUpdate == null) {
+      return Optional.of(odometrySample.get().poseMeters);
+    }
+
+    // Step 4: Apply the latest vision correction from before or at the timestamp.
+    return Optional.of(
+        visionUpdate
+            .getValue()
+            .compensate(odometrySample.get().poseMeters, m_compensationDelta, m_compensatedPose));
+  }
+
+  /** Removes vision updates that no longer apply to any sample in the odometry pose buffer. */
+  private void cleanUpVisionUpdates() {
+    // Step 0: If there are no odometry samples, skip.
+    if (m_odometryPoseBuffer.size() == 0) {
+      return;
+    }
+
+    // Step 1: Find the newest vision update at or before the oldest odometry sample. It still
+    // applies to that sample, but every update before it does not.
+    Double newestNeededTimestamp = m_visionUpdates.floorKey(m_odometryPoseBuffer.getTimestamp(0));
+    if (newestNeededTimestamp == null) {
+      return;
+    }
+
+    // Step 2: Remove all entries strictly before the newest timestamp we need.
+    m_visionUpdates.headMap(newestNeededTimestamp, false).clear();
   }
 
   /**
@@ -145,50 +220,55 @@ public class PoseEstimator<T extends WheelPositions<T>> {
    */
   public void addVisionMeasurement(Pose2d visionRobotPoseMeters, double timestampSeconds) {
     // Step 0: If this measurement is old enough to be outside the pose buffer's timespan, skip.
-    try {
-      if (m_poseBuffer.getInternalBuffer().lastKey() - kBufferDuration > timestampSeconds) {
-        return;
-      }
-    } catch (NoSuchElementException ex) {
+    if (m_odometryPoseBuffer.size() == 0
+        || m_odometryPoseBuffer.getTimestamp(m_odometryPoseBuffer.size() - 1) - kBufferDuration
+            > timestampSeconds) {
       return;
     }
 
-    // Step 1: Get the pose odometry measured at the moment the vision measurement was made.
-    var sample = m_poseBuffer.getSample(timestampSeconds);
+    // Step 1: Clean up any old entries.
+    cleanUpVisionUpdates();
+
+    // Step 2: Get the pose measured by odometry at the moment the vision measurement was made.
+    var odometrySample = m_odometryPoseBuffer.getSample(timestampSeconds);
+    if (odometrySample.isEmpty()) {
+      return;
+    }
 
-    if (sample.isEmpty()) {
+    // Step 3: Get the vision-compensated pose estimate at the moment the vision measurement was
+    // made.
+    var visionSample = sampleAt(timestampSeconds);
+    if (visionSample.isEmpty()) {
       return;
     }
 
-    // Step 2: Measure the twist between the odometry pose and the vision pose.
-    var twist = sample.get().poseMeters.log(visionRobotPoseMeters);
+    // Step 4: Measure the twist between the pose estimate and the vision pose.
+    var twist = visionSample.get().log(visionRobotPoseMeters);
 
-    // Step 3: We should not trust the twist entirely, so instead we scale this twist by a Kalman
+    // Step 5: We should not trust the twist entirely, so instead we scale this twist by a Kalman
     // gain matrix representing how much we trust vision measurements compared to our current pose.
-    var k_times_twist = m_visionK.times(VecBuilder.fill(twist.dx, twist.dy, twist.dtheta));
+    m_twistVector.set(0, 0, twist.dx);
+    m_twistVector.set(1, 0, twist.dy);
+    m_twistVector.set(2, 0, twist.dtheta);
+    var k_times_twist = m_visionK.timesInto(m_twistVector, m_scaledTwistVector);
 
-    // Step 4: Convert back to Twist2d.
+    // Step 6: Convert back to Twist2d.
     var scaledTwist =
         new Twist2d(k_times_twist.get(0, 0), k_times_twist.get(1, 0), k_times_twist.get(2, 0));
 
-    // Step 5: Reset Odometry to state at sample with vision adjustment.
-    m_odometry.resetPosition(
-        sample.get().gyroAngle,
-        sample.get().wheelPositions,
-        sample.get().poseMeters.exp(scaledTwist));
-
-    // Step 6: Record the current pose to allow multiple measurements from the same timestamp
-    m_poseBuffer.addSample(
-        timestampSeconds,
-        new InterpolationRecord(
-            getEstimatedPosition(), sample.get().gyroAngle, sample.get().wheelPositions));
-
-    // Step 7: Replay odometry inputs between sample time and latest recorded sample to update the
-    // pose buffer and correct odometry.
-    for (Map.Entry<Double, InterpolationRecord> entry :
-        m_poseBuffer.getInternalBuffer().tailMap(timestampSeconds).entrySet()) {
-      updateWithTime(entry.getKey(), entry.getValue().gyroAngle, entry.getValue().wheelPositions);
-    }
+    // Step 7: Record the correction. Later odometry poses are corrected by composing their
+    // motion since this sample onto the corrected pose, instead of replaying odometry.
+    var visionUpdate =
+        new VisionUpdate(visionSample.get().exp(scaledTwist), odometrySample.get().poseMeters);
+    m_visionUpdates.put(timestampSeconds, visionUpdate);
+
+    // Step 8: Remove later vision updates, which were computed without this measurement.
+    m_visionUpdates.tailMap(timestampSeconds, false).clear();
+
+    // Step 9: Update the latest pose estimate. Since all later updates were removed, this is the
+    // latest vision update.
+    m_poseEstimate =
+        visionUpdate.compensate(m_odometry.getPoseMeters(), m_compensationDelta, m_compensatedPose);
   }
 
   /**
@@ -225,6 +305,45 @@ public class PoseEstimator<T extends WheelPositions<T>> {
     addVisionMeasurement(visionRobotPoseMeters, timestampSeconds);
   }
 
+  /**
+   * Adds several vision measurements to the Kalman Filter, such as the measurements from multiple
+   * cameras in one robot loop.
+   *
+   * <p>The measurements are applied in increasing timestamp order. Adding a measurement discards
+   * the corrections from measurements with later timestamps, so measurements that may arrive out of
+   * order should be added together with this method rather than one at a time.
+   *
+   * @param visionRobotPosesMeters The poses of the robot as measured by the vision cameras.
+   * @param timestampsSeconds The timestamps of the vision measurements in seconds, in the same
+   *     order as the poses. See {@link #addVisionMeasurement(Pose2d, double)} for the time source.
+   * @throws IllegalArgumentException if the arrays have different lengths.
+   */
+  public void addVisionMeasurements(Pose2d[] visionRobotPosesMeters, double[] timestampsSeconds) {
+    if (visionRobotPosesMeters.length != timestampsSeconds.length) {
+      throw new IllegalArgumentException(
+          "Number of poses ("
+              + visionRobotPosesMeters.length
+              + ") must match number of timestamps ("
+              + timestampsSeconds.length
+              + ")");
+    }
+
+    // Sort the measurement indices by timestamp. Batches are small, so insertion sort is fine.
+    int[] order = new int[timestampsSeconds.length];
+    for (int i = 0; i < order.length; i++) {
+      int j = i;
+      while (j > 0 && timestampsSeconds[order[j - 1]] > timestampsSeconds[i]) {
+        order[j] = order[j - 1];
+        j--;
+      }
+      order[j] = i;
+    }
+
+    for (int index : order) {
+      addVisionMeasurement(visionRobotPosesMeters[index], timestampsSeconds[index]);
+    }
+  }
+
   /**
    * Updates the pose estimator with wheel encoder and gyro information. This should be called every
    * loop.
@@ -247,14 +366,62 @@ public class PoseEstimator<T extends WheelPositions<T>> {
    * @return The estimated pose of the robot in meters.
    */
   public Pose2d updateWithTime(double currentTimeSeconds, Rotation2d gyroAngle, T wheelPositions) {
-    m_odometry.update(gyroAngle, wheelPositions);
-    m_poseBuffer.addSample(
+    var odometryEstimate = m_odometry.update(gyroAngle, wheelPositions);
+    m_odometryPoseBuffer.addSample(
         currentTimeSeconds,
-        new InterpolationRecord(getEstimatedPosition(), gyroAngle, wheelPositions.copy()));
+        new InterpolationRecord(odometryEstimate, gyroAngle, wheelPositions.copy()));
+
+    if (m_visionUpdates.isEmpty()) {
+      m_poseEstimate = odometryEstimate;
+    } else {
+      m_poseEstimate =
+          m_visionUpdates
+              .lastEntry()
+              .getValue()
+              .compensate(odometryEstimate, m_compensationDelta, m_compensatedPose);
+    }
 
     return getEstimatedPosition();
   }
 
+  /**
+   * Represents a vision measurement correction. The correction is applied to an odometry pose by
+   * composing the odometry motion since the measurement onto the corrected pose.
+   */
+  private static final class VisionUpdate {
+    // The vision-compensated pose estimate at the time of the measurement.
+    private final Pose2d visionPose;
+
+    // The pose measured by odometry at the time of the measurement.
+    private final Pose2d odometryPose;
+
+    /**
+     * Constructs a vision update record with the specified parameters.
+     *
+     * @param visionPose The vision-compensated pose estimate.
+     * @param odometryPose The pose measured by odometry.
+     */
+    private VisionUpdate(Pose2d visionPose, Pose2d odometryPose) {
+      this.visionPose = visionPose;
+      this.odometryPose = odometryPose;
+    }
+
+    /**
+     * Returns the vision-compensated version of the pose. Specifically, changes the pose from
+     * being relative to this record's odometry pose to being relative to this record's vision
+     * pose.
+     *
+     * @param pose The pose to compensate.
+     * @param delta Scratch storage for the pose's offset from the odometry pose.
+     * @param output Scratch storage for the compensated pose.
+     * @return The compensated pose.
+     */
+    private Pose2d compensate(Pose2d pose, MutableTransform2d delta, MutablePose2d output) {
+      delta.set(odometryPose, pose);
+      return output.set(visionPose).plus(delta).toPose2d();
+    }
+  }
+
   /**
    * Represents an odometry record. The record contains the inputs provided as well as the pose that
    * was observed based on these inputs, as well as the previous record and its inputs.
@@ -28,6 +28,10 @@ import edu.wpi.first.math.numbers.N3;
 public class SwerveDrivePoseEstimator extends PoseEstimator<SwerveDriveWheelPositions> {
   private final int m_numModules;
 
+  // Reused to wrap the module positions passed to the array overloads without copying them
+  private final SwerveDriveWheelPositions m_wheelPositions =
+      new SwerveDriveWheelPositions(new SwerveModulePosition[0]);
+
   /**
    * Constructs a SwerveDrivePoseEstimator with default standard deviations for the model and vision
    * measurements.
@@ -97,7 +101,8 @@ public class SwerveDrivePoseEstimator extends PoseEstimator<SwerveDriveWheelPosi
    */
   public void resetPosition(
       Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d poseMeters) {
-    resetPosition(gyroAngle, new SwerveDriveWheelPositions(modulePositions), poseMeters);
+    m_wheelPositions.positions = modulePositions;
+    resetPosition(gyroAngle, m_wheelPositions, poseMeters);
   }
 
   /**
@@ -109,7 +114,8 @@ public class SwerveDrivePoseEstimator extends PoseEstimator<SwerveDriveWheelPosi
    * @return The estimated pose of the robot in meters.
    */
   public Pose2d update(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
-    return update(gyroAngle, new SwerveDriveWheelPositions(modulePositions));
+    m_wheelPositions.positions = modulePositions;
+    return update(gyroAngle, m_wheelPositions);
   }
 
   /**
@@ -123,8 +129,8 @@ public class SwerveDrivePoseEstimator extends PoseEstimator<SwerveDriveWheelPosi
    */
   public Pose2d updateWithTime(
       double currentTimeSeconds, Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
-    return updateWithTime(
-        currentTimeSeconds, gyroAngle, new SwerveDriveWheelPositions(modulePositions));
+    m_wheelPositions.positions = modulePositions;
+    return updateWithTime(currentTimeSeconds, gyroAngle, m_wheelPositions);
   }
 
   @Override
@@ -13,6 +13,8 @@ import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.system.Discretization;
 import edu.wpi.first.math.system.NumericalIntegration;
 import edu.wpi.first.math.system.NumericalJacobian;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.BiFunction;
 import org.ejml.dense.row.decomposition.qr.QRDecompositionHouseholder_DDRM;
 import org.ejml.simple.SimpleMatrix;
@@ -38,6 +40,15 @@ import org.ejml.simple.SimpleMatrix;
  * <p>This class implements a square-root-form unscented Kalman filter (SR-UKF). For more
  * information about the SR-UKF, see <a
  * href="https://www.researchgate.net/publication/3908304">https://www.researchgate.net/publication/3908304</a>.
+ *
+ * <p>The sigma points, QR decomposition, cross covariance and Kalman gain are stored in workspaces
+ * that are allocated once and reused by every predict and correct step. Allocations that remain
+ * come from the user-supplied functions and from discretizing the noise covariances.
+ *
+ * <p>The square-root covariance S is also stored in a single matrix that is updated in place by
+ * predict and correct. The matrix returned by {@link #getS()} is that live matrix, so a reference
+ * kept by the caller changes with every step; copy it with {@link Matrix#copy()} to keep a
+ * snapshot. {@link #setS(Matrix)} and {@link #setP(Matrix)} copy their argument into S.
  */
 public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outputs extends Num>
     implements KalmanTypeFilter<States, Inputs, Outputs> {
@@ -54,14 +65,21 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
   private BiFunction<Matrix<States, N1>, Matrix<States, N1>, Matrix<States, N1>> m_addFuncX;
 
   private Matrix<States, N1> m_xHat;
-  private Matrix<States, States> m_S;
+  private final Matrix<States, States> m_S;
   private final Matrix<States, States> m_contQ;
   private final Matrix<Outputs, Outputs> m_contR;
-  private Matrix<States, ?> m_sigmasF;
+  private final Matrix<States, ?> m_sigmasF;
   private double m_dtSeconds;
 
   private final MerweScaledSigmaPoints<States> m_pts;
 
+  // Workspaces reused by every step
+  private final Matrix<States, ?> m_sigmas;
+  private final Matrix<States, N1> m_sigmaColumn;
+  private final TransformWorkspace<States> m_predictWorkspace;
+  private final Map<Integer, CorrectionWorkspace<States, ?>> m_correctionWorkspaces =
+      new HashMap<>();
+
   /**
    * Constructs an Unscented Kalman Filter.
    *
@@ -158,9 +176,79 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
 
     m_pts = new MerweScaledSigmaPoints<>(states);
 
+    m_S = new Matrix<>(states, states);
+    m_sigmasF = new Matrix<>(new SimpleMatrix(states.getNum(), m_pts.getNumSigmas()));
+    m_sigmas = new Matrix<>(new SimpleMatrix(states.getNum(), m_pts.getNumSigmas()));
+    m_sigmaColumn = new Matrix<>(states, Nat.N1());
+    m_predictWorkspace = new TransformWorkspace<>(states, states);
+
     reset();
   }
 
+  /**
+   * Preallocated storage for a square-root unscented transform of 2 * States + 1 sigma points.
+   *
+   * @param <C> Dimension of the transformed sigma points.
+   */
+  static final class TransformWorkspace<C extends Num> {
+    // Transpose of the Sbar matrix whose QR decomposition gives the new square-root covariance
+    final Matrix<?, C> m_sbarT;
+    final Matrix<C, N1> m_column;
+    final QRDecompositionHouseholder_DDRM m_qr = new QRDecompositionHouseholder_DDRM();
+
+    /**
+     * Constructs a TransformWorkspace.
+     *
+     * @param <S> Number of states.
+     * @param states A Nat representing the number of states.
+     * @param dim A Nat representing the dimension of the transformed sigma points.
+     */
+    <S extends Num> TransformWorkspace(Nat<S> states, Nat<C> dim) {
+      m_sbarT = new Matrix<>(new SimpleMatrix(2 * states.getNum() + dim.getNum(), dim.getNum()));
+      m_column = new Matrix<>(dim, Nat.N1());
+    }
+  }
+
+  /**
+   * Preallocated storage for a correct step with a given number of measurements.
+   *
+   * @param <S> Number of states.
+   * @param <R> Number of measurements.
+   */
+  private static final class CorrectionWorkspace<S extends Num, R extends Num> {
+    final Matrix<R, ?> m_sigmasH;
+    final TransformWorkspace<R> m_transform;
+    final Matrix<R, R> m_Sy;
+    final Matrix<R, R> m_SyT;
+    final Matrix<S, R> m_Pxy;
+    final Matrix<R, S> m_PxyT;
+    final Matrix<R, S> m_SyInvPxyT;
+    final Matrix<R, S> m_KT;
+    final Matrix<S, R> m_K;
+    final Matrix<S, N1> m_correction;
+    final Matrix<S, R> m_U;
+
+    /**
+     * Constructs a CorrectionWorkspace.
+     *
+     * @param states A Nat representing the number of states.
+     * @param rows A Nat representing the number of measurements.
+     */
+    CorrectionWorkspace(Nat<S> states, Nat<R> rows) {
+      m_sigmasH = new Matrix<>(new SimpleMatrix(rows.getNum(), 2 * states.getNum() + 1));
+      m_transform = new TransformWorkspace<>(states, rows);
+      m_Sy = new Matrix<>(rows, rows);
+      m_SyT = new Matrix<>(rows, rows);
+      m_Pxy = new Matrix<>(states, rows);
+      m_PxyT = new Matrix<>(rows, states);
+      m_SyInvPxyT = new Matrix<>(rows, states);
+      m_KT = new Matrix<>(rows, states);
+      m_K = new Matrix<>(states, rows);
+      m_correction = new Matrix<>(states, Nat.N1());
+      m_U = new Matrix<>(states, rows);
+    }
+  }
+
   static <S extends Num, C extends Num>
       Pair<Matrix<C, N1>, Matrix<C, C>> squareRootUnscentedTransform(
           Nat<S> s,
@@ -171,6 +259,50 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
           BiFunction<Matrix<C, ?>, Matrix<?, N1>, Matrix<C, N1>> meanFunc,
           BiFunction<Matrix<C, N1>, Matrix<C, N1>, Matrix<C, N1>> residualFunc,
           Matrix<C, C> squareRootR) {
+    Matrix<C, C> newS = new Matrix<>(dim, dim);
+    Matrix<C, N1> x =
+        squareRootUnscentedTransform(
+            s,
+            dim,
+            sigmas,
+            Wm,
+            Wc,
+            meanFunc,
+            residualFunc,
+            squareRootR,
+            new TransformWorkspace<>(s, dim),
+            newS);
+    return new Pair<>(x, newS);
+  }
+
+  /**
+   * Computes the square-root unscented transform of the sigma points using preallocated storage.
+   *
+   * @param <S> Number of states.
+   * @param <C> Dimension of the sigma points.
+   * @param s A Nat representing the number of states.
+   * @param dim A Nat representing the dimension of the sigma points.
+   * @param sigmas The sigma points.
+   * @param Wm The weights for the mean.
+   * @param Wc The weights for the covariance.
+   * @param meanFunc A function that computes the mean of the sigma points.
+   * @param residualFunc A function that computes the residual of two vectors.
+   * @param squareRootR The square root of the noise covariance to add.
+   * @param workspace Storage for intermediate results.
+   * @param newS The matrix to store the new square-root covariance in.
+   * @return The mean of the sigma points.
+   */
+  static <S extends Num, C extends Num> Matrix<C, N1> squareRootUnscentedTransform(
+      Nat<S> s,
+      Nat<C> dim,
+      Matrix<C, ?> sigmas,
+      Matrix<?, N1> Wm,
+      Matrix<?, N1> Wc,
+      BiFunction<Matrix<C, ?>, Matrix<?, N1>, Matrix<C, N1>> meanFunc,
+      BiFunction<Matrix<C, N1>, Matrix<C, N1>, Matrix<C, N1>> residualFunc,
+      Matrix<C, C> squareRootR,
+      TransformWorkspace<C> workspace,
+      Matrix<C, C> newS) {
     if (sigmas.getNumRows() != dim.getNum() || sigmas.getNumCols() != 2 * s.getNum() + 1) {
       throw new IllegalArgumentException(
           "Sigmas must be covDim by 2 * states + 1! Got "
@@ -195,30 +327,43 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
     //      k=1
     Matrix<C, N1> x = meanFunc.apply(sigmas, Wm);
 
-    Matrix<C, ?> Sbar = new Matrix<>(new SimpleMatrix(dim.getNum(), 2 * s.getNum() + dim.getNum()));
+    // Build Sbarᵀ directly. The first 2 * States rows are the scaled residuals and the remaining
+    // rows are squareRootRᵀ.
+    var sbarT = workspace.m_sbarT;
+    var column = workspace.m_column;
     for (int i = 0; i < 2 * s.getNum(); i++) {
-      Sbar.setColumn(
-          i,
-          residualFunc.apply(sigmas.extractColumnVector(1 + i), x).times(Math.sqrt(Wc.get(1, 0))));
+      column.extractFrom(0, 1 + i, sigmas);
+      var residual = residualFunc.apply(column, x);
+      double scale = Math.sqrt(Wc.get(1, 0));
+      for (int row = 0; row < dim.getNum(); row++) {
+        sbarT.set(i, row, residual.get(row, 0) * scale);
+      }
+    }
+    for (int row = 0; row < dim.getNum(); row++) {
+      for (int col = 0; col < dim.getNum(); col++) {
+        sbarT.set(2 * s.getNum() + col, row, squareRootR.get(row, col));
+      }
     }
-    Sbar.assignBlock(0, 2 * s.getNum(), squareRootR);
-
-    QRDecompositionHouseholder_DDRM qr = new QRDecompositionHouseholder_DDRM();
-    var qrStorage = Sbar.transpose().getStorage();
 
-    if (!qr.decompose(qrStorage.getDDRM())) {
+    var qrStorage = sbarT.getStorage();
+    if (!workspace.m_qr.decompose(qrStorage.getDDRM())) {
       throw new RuntimeException("QR decomposition failed! Input matrix:\n" + qrStorage);
     }
 
-    Matrix<C, C> newS = new Matrix<>(new SimpleMatrix(qr.getR(null, true)));
-    newS.rankUpdate(residualFunc.apply(sigmas.extractColumnVector(0), x), Wc.get(0, 0), false);
+    // newS may hold the previous S, and getR() only writes the upper triangle
+    newS.fill(0.0);
+    workspace.m_qr.getR(newS.getStorage().getDDRM(), true);
+    column.extractFrom(0, 0, sigmas);
+    newS.rankUpdate(residualFunc.apply(column, x), Wc.get(0, 0), false);
 
-    return new Pair<>(x, newS);
+    return x;
   }
 
   /**
    * Returns the square-root error covariance matrix S.
    *
+   * <p>The returned matrix is owned by the filter and is updated in place by each step.
+   *
    * @return the square-root error covariance matrix S.
    */
   public Matrix<States, States> getS() {
@@ -242,7 +387,7 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
    * @param newS The new value of S to use.
    */
   public void setS(Matrix<States, States> newS) {
-    m_S = newS;
+    m_S.extractFrom(0, 0, newS);
   }
 
   /**
@@ -276,7 +421,7 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
    */
   @Override
   public void setP(Matrix<States, States> newP) {
-    m_S = newP.lltDecompose(false);
+    m_S.extractFrom(0, 0, newP.lltDecompose(false));
   }
 
   /**
@@ -325,8 +470,8 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
   @Override
   public void reset() {
     m_xHat = new Matrix<>(m_states, Nat.N1());
-    m_S = new Matrix<>(m_states, m_states);
-    m_sigmasF = new Matrix<>(new SimpleMatrix(m_states.getNum(), 2 * m_states.getNum() + 1));
+    m_S.fill(0.0);
+    m_sigmasF.fill(0.0);
   }
 
   /**
@@ -343,15 +488,15 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
     var discQ = Discretization.discretizeAQ(contA, m_contQ, dtSeconds).getSecond();
     var squareRootDiscQ = discQ.lltDecompose(true);
 
-    var sigmas = m_pts.squareRootSigmaPoints(m_xHat, m_S);
+    m_pts.squareRootSigmaPointsInto(m_xHat, m_S, m_sigmas);
 
     for (int i = 0; i < m_pts.getNumSigmas(); ++i) {
-      Matrix<States, N1> x = sigmas.extractColumnVector(i);
+      m_sigmaColumn.extractFrom(0, i, m_sigmas);
 
-      m_sigmasF.setColumn(i, NumericalIntegration.rk4(m_f, x, u, dtSeconds));
+      m_sigmasF.setColumn(i, NumericalIntegration.rk4(m_f, m_sigmaColumn, u, dtSeconds));
     }
 
-    var ret =
+    m_xHat =
         squareRootUnscentedTransform(
             m_states,
             m_states,
@@ -360,10 +505,9 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
             m_pts.getWc(),
             m_meanFuncX,
             m_residualFuncX,
-            squareRootDiscQ);
-
-    m_xHat = ret.getFirst();
-    m_S = ret.getSecond();
+            squareRootDiscQ,
+            m_predictWorkspace,
+            m_S);
     m_dtSeconds = dtSeconds;
   }
 
@@ -455,16 +599,20 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
     final var discR = Discretization.discretizeR(R, m_dtSeconds);
     final var squareRootDiscR = discR.lltDecompose(true);
 
+    final var workspace = getCorrectionWorkspace(rows);
+
     // Transform sigma points into measurement space
-    Matrix<R, ?> sigmasH = new Matrix<>(new SimpleMatrix(rows.getNum(), 2 * m_states.getNum() + 1));
-    var sigmas = m_pts.squareRootSigmaPoints(m_xHat, m_S);
+    final var sigmasH = workspace.m_sigmasH;
+    m_pts.squareRootSigmaPointsInto(m_xHat, m_S, m_sigmas);
     for (int i = 0; i < m_pts.getNumSigmas(); i++) {
-      Matrix<R, N1> hRet = h.apply(sigmas.extractColumnVector(i), u);
+      m_sigmaColumn.extractFrom(0, i, m_sigmas);
+      Matrix<R, N1> hRet = h.apply(m_sigmaColumn, u);
       sigmasH.setColumn(i, hRet);
     }
 
     // Mean and covariance of prediction passed through unscented transform
-    var transRet =
+    final var Sy = workspace.m_Sy;
+    var yHat =
         squareRootUnscentedTransform(
             m_states,
             rows,
@@ -473,34 +621,63 @@ public class UnscentedKalmanFilter<States extends Num, Inputs extends Num, Outpu
             m_pts.getWc(),
             meanFuncY,
             residualFuncY,
-            squareRootDiscR);
-    var yHat = transRet.getFirst();
-    var Sy = transRet.getSecond();
+            squareRootDiscR,
+            workspace.m_transform,
+            Sy);
 
     // Compute cross covariance of the state and the measurements
-    Matrix<States, R> Pxy = new Matrix<>(m_states, rows);
+    final var Pxy = workspace.m_Pxy;
+    final var yColumn = workspace.m_transform.m_column;
+    Pxy.fill(0.0);
     for (int i = 0; i < m_pts.getNumSigmas(); i++) {
       // Pxy += (sigmas_f[:, i] - x̂)(sigmas_h[:, i] - ŷ)ᵀ W_c[i]
-      var dx = residualFuncX.apply(m_sigmasF.extractColumnVector(i), m_xHat);
-      var dy = residualFuncY.apply(sigmasH.extractColumnVector(i), yHat).transpose();
-
-      Pxy = Pxy.plus(dx.times(dy).times(m_pts.getWc(i)));
+      m_sigmaColumn.extractFrom(0, i, m_sigmasF);
+      var dx = residualFuncX.apply(m_sigmaColumn, m_xHat);
+      yColumn.extractFrom(0, i, sigmasH);
+      var dy = residualFuncY.apply(yColumn, yHat);
+
+      double weight = m_pts.getWc(i);
+      for (int row = 0; row < m_states.getNum(); row++) {
+        for (int col = 0; col < rows.getNum(); col++) {
+          Pxy.set(row, col, Pxy.get(row, col) + dx.get(row, 0) * dy.get(col, 0) * weight);
+        }
+      }
     }
 
     // K = (P_{xy} / S_yᵀ) / S_y
     // K = (S_y \ P_{xy}ᵀ)ᵀ / S_y
     // K = (S_yᵀ \ (S_y \ P_{xy}ᵀ))ᵀ
-    Matrix<States, R> K =
-        Sy.transpose()
-            .solveFullPivHouseholderQr(Sy.solveFullPivHouseholderQr(Pxy.transpose()))
-            .transpose();
+    Sy.solveFullPivHouseholderQrInto(Pxy.transposeInto(workspace.m_PxyT), workspace.m_SyInvPxyT);
+    Sy.transposeInto(workspace.m_SyT)
+        .solveFullPivHouseholderQrInto(workspace.m_SyInvPxyT, workspace.m_KT);
+    final var K = workspace.m_KT.transposeInto(workspace.m_K);
 
     // x̂ₖ₊₁⁺ = x̂ₖ₊₁⁻ + K(y − ŷ)
-    m_xHat = addFuncX.apply(m_xHat, K.times(residualFuncY.apply(y, yHat)));
+    m_xHat =
+        addFuncX.apply(m_xHat, K.timesInto(residualFuncY.apply(y, yHat), workspace.m_correction));
 
-    Matrix<States, R> U = K.times(Sy);
+    final var U = K.timesInto(Sy, workspace.m_U);
     for (int i = 0; i < rows.getNum(); i++) {
-      m_S.rankUpdate(U.extractColumnVector(i), -1, false);
+      m_sigmaColumn.extractFrom(0, i, U);
+      m_S.rankUpdate(m_sigmaColumn, -1, false);
+    }
+  }
+
+  /**
+   * Returns the workspace for correct steps with the given number of measurements, allocating it
+   * on first use.
+   *
+   * @param <R> Number of measurements.
+   * @param rows A Nat representing the number of measurements.
+   * @return The workspace.
+   */
+  @SuppressWarnings("unchecked")
+  private <R extends Num> CorrectionWorkspace<States, R> getCorrectionWorkspace(Nat<R> rows) {
+    var workspace = m_correctionWorkspaces.get(rows.getNum());
+    if (workspace == null) {
+      workspace = new CorrectionWorkspace<>(m_states, rows);
+      m_correctionWorkspaces.put(rows.getNum(), workspace);
     }
+    return (CorrectionWorkspace<States, R>) workspace;
   }
 }
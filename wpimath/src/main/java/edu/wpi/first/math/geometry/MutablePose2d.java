@@ -0,0 +1,316 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.geometry;
+
+/**
+ * A mutable counterpart of {@link Pose2d} for loops that can't afford to allocate, such as
+ * odometry. Operations modify this object in place and return it to allow chaining, and compute
+ * the same results as the corresponding Pose2d operations. Use {@link #toPose2d()} to publish a
+ * result.
+ */
+public final class MutablePose2d {
+  private final MutableTranslation2d m_translation = new MutableTranslation2d();
+  private final MutableRotation2d m_rotation = new MutableRotation2d();
+
+  /** Constructs a pose at the origin facing toward the positive X axis. */
+  public MutablePose2d() {}
+
+  /**
+   * Constructs a MutablePose2d with the value of a Pose2d.
+   *
+   * @param pose The pose to copy.
+   */
+  public MutablePose2d(Pose2d pose) {
+    set(pose);
+  }
+
+  /**
+   * Sets this pose to the value of a Pose2d.
+   *
+   * @param pose The pose to copy.
+   * @return This pose.
+   */
+  public MutablePose2d set(Pose2d pose) {
+    m_translation.set(pose.getTranslation());
+    m_rotation.set(pose.getRotation());
+    return this;
+  }
+
+  /**
+   * Sets this pose to the value of another MutablePose2d.
+   *
+   * @param pose The pose to copy.
+   * @return This pose.
+   */
+  public MutablePose2d set(MutablePose2d pose) {
+    m_translation.set(pose.m_translation);
+    m_rotation.set(pose.m_rotation);
+    return this;
+  }
+
+  /**
+   * Transforms this pose by the given transformation, like {@link Pose2d#plus(Transform2d)}.
+   *
+   * @param other The transform to transform the pose by.
+   * @return This pose.
+   */
+  public MutablePose2d plus(Transform2d other) {
+    Translation2d translation = other.getTranslation();
+    Rotation2d rotation = other.getRotation();
+    return transformBy(
+        translation.getX(), translation.getY(), rotation.getCos(), rotation.getSin());
+  }
+
+  /**
+   * Transforms this pose by the given transformation, like {@link Pose2d#plus(Transform2d)}.
+   *
+   * @param other The transform to transform the pose by.
+   * @return This pose.
+   */
+  public MutablePose2d plus(MutableTransform2d other) {
+    MutableRotation2d rotation = other.getRotation();
+    return transformBy(other.getX(), other.getY(), rotation.getCos(), rotation.getSin());
+  }
+
+  private MutablePose2d transformBy(double x, double y, double cos, double sin) {
+    double poseCos = m_rotation.getCos();
+    double poseSin = m_rotation.getSin();
+    m_translation.set(
+        m_translation.getX() + (x * poseCos - y * poseSin),
+        m_translation.getY() + (x * poseSin + y * poseCos));
+    m_rotation.set(cos * poseCos - sin * poseSin, cos * poseSin + sin * poseCos);
+    return this;
+  }
+
+  /**
+   * Sets this pose to its value relative to another pose, like {@link Pose2d#relativeTo(Pose2d)}.
+   *
+   * @param other The pose that is the origin of the new coordinate frame.
+   * @return This pose.
+   */
+  public MutablePose2d relativeTo(Pose2d other) {
+    Translation2d translation = other.getTranslation();
+    between(
+        translation.getX(),
+        translation.getY(),
+        other.getRotation().getRadians(),
+        m_translation.getX(),
+        m_translation.getY(),
+        m_rotation.getCos(),
+        m_rotation.getSin(),
+        m_translation,
+        m_rotation);
+    return this;
+  }
+
+  /**
+   * Sets this pose to its value relative to another pose, like {@link Pose2d#relativeTo(Pose2d)}.
+   *
+   * @param other The pose that is the origin of the new coordinate frame.
+   * @return This pose.
+   */
+  public MutablePose2d relativeTo(MutablePose2d other) {
+    between(
+        other.getX(),
+        other.getY(),
+        other.m_rotation.getRadians(),
+        m_translation.getX(),
+        m_translation.getY(),
+        m_rotation.getCos(),
+        m_rotation.getSin(),
+        m_translation,
+        m_rotation);
+    return this;
+  }
+
+  /**
+   * Computes the transform that maps an initial pose to a final pose, like {@link
+   * Transform2d#Transform2d(Pose2d, Pose2d)}. The outputs may alias the inputs.
+   *
+   * @param initialX The x component of the initial pose.
+   * @param initialY The y component of the initial pose.
+   * @param initialRadians The angle of the initial pose.
+   * @param lastX The x component of the final pose.
+   * @param lastY The y component of the final pose.
+   * @param lastCos The cosine of the final pose's angle.
+   * @param lastSin The sine of the final pose's angle.
+   * @param translation The output translation.
+   * @param rotation The output rotation.
+   */
+  static void between(
+      double initialX,
+      double initialY,
+      double initialRadians,
+      double lastX,
+      double lastY,
+      double lastCos,
+      double lastSin,
+      MutableTranslation2d translation,
+      MutableRotation2d rotation) {
+    // Rotation2d.unaryMinus() recomputes the sine and cosine of the negated angle
+    double cos = Math.cos(-initialRadians);
+    double sin = Math.sin(-initialRadians);
+    translation.set(lastX - initialX, lastY - initialY).rotateBy(cos, sin);
+    rotation.set(lastCos * cos - lastSin * sin, lastCos * sin + lastSin * cos);
+  }
+
+  /**
+   * Moves this pose along a curve, like {@link Pose2d#exp(Twist2d)}.
+   *
+   * @param twist The change in pose in the robot's coordinate frame since the previous pose update.
+   * @return This pose.
+   */
+  public MutablePose2d exp(Twist2d twist) {
+    double dx = twist.dx;
+    double dy = twist.dy;
+    double dtheta = twist.dtheta;
+
+    double sinTheta = Math.sin(dtheta);
+    double cosTheta = Math.cos(dtheta);
+
+    double s;
+    double c;
+    if (Math.abs(dtheta) < 1E-9) {
+      s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+      c = 0.5 * dtheta;
+    } else {
+      s = sinTheta / dtheta;
+      c = (1 - cosTheta) / dtheta;
+    }
+
+    // Pose2d.exp() normalizes the rotation of the transform by constructing a Rotation2d from it
+    double magnitude = Math.hypot(cosTheta, sinTheta);
+    double cos = 1.0;
+    double sin = 0.0;
+    if (magnitude > 1e-6) {
+      cos = cosTheta / magnitude;
+      sin = sinTheta / magnitude;
+    }
+    return transformBy(dx * s - dy * c, dx * c + dy * s, cos, sin);
+  }
+
+  /**
+   * Computes the twist that maps this pose to the end pose, like {@link Pose2d#log(Pose2d)}. This
+   * pose is not modified.
+   *
+   * @param end The end pose for the transformation.
+   * @param output The twist to write the result into.
+   * @return The output twist.
+   */
+  public Twist2d log(MutablePose2d end, Twist2d output) {
+    return log(
+        end.getX(), end.getY(), end.m_rotation.getCos(), end.m_rotation.getSin(), output);
+  }
+
+  /**
+   * Computes the twist that maps this pose to the end pose, like {@link Pose2d#log(Pose2d)}. This
+   * pose is not modified.
+   *
+   * @param end The end pose for the transformation.
+   * @param output The twist to write the result into.
+   * @return The output twist.
+   */
+  public Twist2d log(Pose2d end, Twist2d output) {
+    Rotation2d rotation = end.getRotation();
+    return log(end.getX(), end.getY(), rotation.getCos(), rotation.getSin(), output);
+  }
+
+  private Twist2d log(double endX, double endY, double endCos, double endSin, Twist2d output) {
+    // Compute the transform end.relativeTo(this) inline
+    double cos = Math.cos(-m_rotation.getRadians());
+    double sin = Math.sin(-m_rotation.getRadians());
+    double deltaX = endX - m_translation.getX();
+    double deltaY = endY - m_translation.getY();
+    double transformX = deltaX * cos - deltaY * sin;
+    double transformY = deltaX * sin + deltaY * cos;
+
+    // Normalize the transform rotation like the Rotation2d(x, y) constructor
+    double rotX = endCos * cos - endSin * sin;
+    double rotY = endCos * sin + endSin * cos;
+    double magnitude = Math.hypot(rotX, rotY);
+    double transformCos = 1.0;
+    double transformSin = 0.0;
+    if (magnitude > 1e-6) {
+      transformSin = rotY / magnitude;
+      transformCos = rotX / magnitude;
+    }
+
+    final double dtheta = Math.atan2(transformSin, transformCos);
+    final double halfDtheta = dtheta / 2.0;
+
+    final double cosMinusOne = transformCos - 1;
+
+    double halfThetaByTanOfHalfDtheta;
+    if (Math.abs(cosMinusOne) < 1E-9) {
+      halfThetaByTanOfHalfDtheta = 1.0 - 1.0 / 12.0 * dtheta * dtheta;
+    } else {
+      halfThetaByTanOfHalfDtheta = -(halfDtheta * transformSin) / cosMinusOne;
+    }
+
+    // Rotate by Rotation2d(halfThetaByTanOfHalfDtheta, -halfDtheta), which is normalized
+    double partMagnitude = Math.hypot(halfThetaByTanOfHalfDtheta, -halfDtheta);
+    double partCos = 1.0;
+    double partSin = 0.0;
+    if (partMagnitude > 1e-6) {
+      partSin = -halfDtheta / partMagnitude;
+      partCos = halfThetaByTanOfHalfDtheta / partMagnitude;
+    }
+    double scale = Math.hypot(halfThetaByTanOfHalfDtheta, halfDtheta);
+    output.dx = (transformX * partCos - transformY * partSin) * scale;
+    output.dy = (transformX * partSin + transformY * partCos) * scale;
+    output.dtheta = dtheta;
+    return output;
+  }
+
+  /**
+   * Returns the translation component of the pose. Modifying it modifies this pose.
+   *
+   * @return The translational component of the pose.
+   */
+  public MutableTranslation2d getTranslation() {
+    return m_translation;
+  }
+
+  /**
+   * Returns the X component of the pose's translation.
+   *
+   * @return The x component of the pose's translation.
+   */
+  public double getX() {
+    return m_translation.getX();
+  }
+
+  /**
+   * Returns the Y component of the pose's translation.
+   *
+   * @return The y component of the pose's translation.
+   */
+  public double getY() {
+    return m_translation.getY();
+  }
+
+  /**
+   * Returns the rotational component of the pose. Modifying it modifies this pose.
+   *
+   * @return The rotational component of the pose.
+   */
+  public MutableRotation2d getRotation() {
+    return m_rotation;
+  }
+
+  /**
+   * Returns an immutable copy of this pose.
+   *
+   * @return The pose as a Pose2d.
+   */
+  public Pose2d toPose2d() {
+    return new Pose2d(m_translation.toTranslation2d(), m_rotation.toRotation2d());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("MutablePose2d(%s, %s)", m_translation, m_rotation);
+  }
+}
@@ -0,0 +1,198 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.geometry;
+
+/**
+ * A mutable counterpart of {@link Rotation2d} for loops that can't afford to allocate. Operations
+ * modify this object in place and return it to allow chaining, and compute the same results as the
+ * corresponding Rotation2d operations.
+ */
+public final class MutableRotation2d {
+  private double m_value;
+  private double m_cos = 1.0;
+  private double m_sin;
+
+  /** Constructs a MutableRotation2d with a default angle of 0 degrees. */
+  public MutableRotation2d() {}
+
+  /**
+   * Constructs a MutableRotation2d with the value of a Rotation2d.
+   *
+   * @param rotation The rotation to copy.
+   */
+  public MutableRotation2d(Rotation2d rotation) {
+    set(rotation);
+  }
+
+  /**
+   * Sets this rotation to the value of a Rotation2d.
+   *
+   * @param rotation The rotation to copy.
+   * @return This rotation.
+   */
+  public MutableRotation2d set(Rotation2d rotation) {
+    m_value = rotation.getRadians();
+    m_cos = rotation.getCos();
+    m_sin = rotation.getSin();
+    return this;
+  }
+
+  /**
+   * Sets this rotation to the value of another MutableRotation2d.
+   *
+   * @param rotation The rotation to copy.
+   * @return This rotation.
+   */
+  public MutableRotation2d set(MutableRotation2d rotation) {
+    m_value = rotation.m_value;
+    m_cos = rotation.m_cos;
+    m_sin = rotation.m_sin;
+    return this;
+  }
+
+  /**
+   * Sets this rotation to an angle in radians.
+   *
+   * @param value The value of the angle in radians.
+   * @return This rotation.
+   */
+  public MutableRotation2d setRadians(double value) {
+    m_value = value;
+    m_cos = Math.cos(value);
+    m_sin = Math.sin(value);
+    return this;
+  }
+
+  /**
+   * Sets this rotation to the angle of a point. Like {@link Rotation2d#Rotation2d(double, double)},
+   * the point is normalized onto the unit circle.
+   *
+   * @param x The x component or cosine of the rotation.
+   * @param y The y component or sine of the rotation.
+   * @return This rotation.
+   */
+  public MutableRotation2d set(double x, double y) {
+    double magnitude = Math.hypot(x, y);
+    if (magnitude > 1e-6) {
+      m_sin = y / magnitude;
+      m_cos = x / magnitude;
+    } else {
+      m_sin = 0.0;
+      m_cos = 1.0;
+    }
+    m_value = Math.atan2(m_sin, m_cos);
+    return this;
+  }
+
+  /**
+   * Adds another rotation to this rotation, like {@link Rotation2d#rotateBy(Rotation2d)}.
+   *
+   * @param other The rotation to rotate by.
+   * @return This rotation.
+   */
+  public MutableRotation2d rotateBy(Rotation2d other) {
+    return rotateBy(other.getCos(), other.getSin());
+  }
+
+  /**
+   * Adds another rotation to this rotation, like {@link Rotation2d#rotateBy(Rotation2d)}.
+   *
+   * @param other The rotation to rotate by.
+   * @return This rotation.
+   */
+  public MutableRotation2d rotateBy(MutableRotation2d other) {
+    return rotateBy(other.m_cos, other.m_sin);
+  }
+
+  /**
+   * Subtracts another rotation from this rotation, like {@link Rotation2d#minus(Rotation2d)}.
+   *
+   * @param other The rotation to subtract.
+   * @return This rotation.
+   */
+  public MutableRotation2d minus(Rotation2d other) {
+    return rotateByNegated(other.getRadians());
+  }
+
+  /**
+   * Subtracts another rotation from this rotation, like {@link Rotation2d#minus(Rotation2d)}.
+   *
+   * @param other The rotation to subtract.
+   * @return This rotation.
+   */
+  public MutableRotation2d minus(MutableRotation2d other) {
+    return rotateByNegated(other.m_value);
+  }
+
+  /**
+   * Negates this rotation, like {@link Rotation2d#unaryMinus()}.
+   *
+   * @return This rotation.
+   */
+  public MutableRotation2d unaryMinus() {
+    return setRadians(-m_value);
+  }
+
+  private MutableRotation2d rotateBy(double cos, double sin) {
+    return set(m_cos * cos - m_sin * sin, m_cos * sin + m_sin * cos);
+  }
+
+  // Rotation2d.minus() rotates by a rotation constructed from the negated angle, so the sine and
+  // cosine are recomputed rather than negated to produce identical results.
+  private MutableRotation2d rotateByNegated(double value) {
+    return rotateBy(Math.cos(-value), Math.sin(-value));
+  }
+
+  /**
+   * Returns the radian value of the rotation.
+   *
+   * @return The radian value of the rotation.
+   */
+  public double getRadians() {
+    return m_value;
+  }
+
+  /**
+   * Returns the degree value of the rotation.
+   *
+   * @return The degree value of the rotation.
+   */
+  public double getDegrees() {
+    return Math.toDegrees(m_value);
+  }
+
+  /**
+   * Returns the cosine of the rotation.
+   *
+   * @return The cosine of the rotation.
+   */
+  public double getCos() {
+    return m_cos;
+  }
+
+  /**
+   * Returns the sine of the rotation.
+   *
+   * @return The sine of the rotation.
+   */
+  public double getSin() {
+    return m_sin;
+  }
+
+  /**
+   * Returns an immutable copy of this rotation.
+   *
+   * @return The rotation as a Rotation2d.
+   */
+  public Rotation2d toRotation2d() {
+    return new Rotation2d(m_value, m_cos, m_sin);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "MutableRotation2d(Rads: %.2f, Deg: %.2f)", m_value, Math.toDegrees(m_value));
+  }
+}
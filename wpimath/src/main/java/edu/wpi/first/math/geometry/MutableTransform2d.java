@@ -0,0 +1,146 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.geometry;
+
+/**
+ * A mutable counterpart of {@link Transform2d} for loops that can't afford to allocate. Operations
+ * modify this object in place and return it to allow chaining, and compute the same results as the
+ * corresponding Transform2d operations.
+ */
+public final class MutableTransform2d {
+  private final MutableTranslation2d m_translation = new MutableTranslation2d();
+  private final MutableRotation2d m_rotation = new MutableRotation2d();
+
+  /** Constructs the identity transform -- maps an initial pose to itself. */
+  public MutableTransform2d() {}
+
+  /**
+   * Constructs a MutableTransform2d with the value of a Transform2d.
+   *
+   * @param transform The transform to copy.
+   */
+  public MutableTransform2d(Transform2d transform) {
+    set(transform);
+  }
+
+  /**
+   * Sets this transform to the value of a Transform2d.
+   *
+   * @param transform The transform to copy.
+   * @return This transform.
+   */
+  public MutableTransform2d set(Transform2d transform) {
+    m_translation.set(transform.getTranslation());
+    m_rotation.set(transform.getRotation());
+    return this;
+  }
+
+  /**
+   * Sets this transform to the transform that maps the initial pose to the final pose, like {@link
+   * Transform2d#Transform2d(Pose2d, Pose2d)}.
+   *
+   * @param initial The initial pose for the transformation.
+   * @param last The final pose for the transformation.
+   * @return This transform.
+   */
+  public MutableTransform2d set(Pose2d initial, Pose2d last) {
+    Translation2d initialTranslation = initial.getTranslation();
+    Rotation2d lastRotation = last.getRotation();
+    MutablePose2d.between(
+        initialTranslation.getX(),
+        initialTranslation.getY(),
+        initial.getRotation().getRadians(),
+        last.getX(),
+        last.getY(),
+        lastRotation.getCos(),
+        lastRotation.getSin(),
+        m_translation,
+        m_rotation);
+    return this;
+  }
+
+  /**
+   * Sets this transform to the transform that maps the initial pose to the final pose, like {@link
+   * Transform2d#Transform2d(Pose2d, Pose2d)}.
+   *
+   * @param initial The initial pose for the transformation.
+   * @param last The final pose for the transformation.
+   * @return This transform.
+   */
+  public MutableTransform2d set(MutablePose2d initial, MutablePose2d last) {
+    MutablePose2d.between(
+        initial.getX(),
+        initial.getY(),
+        initial.getRotation().getRadians(),
+        last.getX(),
+        last.getY(),
+        last.getRotation().getCos(),
+        last.getRotation().getSin(),
+        m_translation,
+        m_rotation);
+    return this;
+  }
+
+  /**
+   * Inverts this transform, like {@link Transform2d#inverse()}.
+   *
+   * @return This transform.
+   */
+  public MutableTransform2d inverse() {
+    m_rotation.unaryMinus();
+    m_translation.unaryMinus().rotateBy(m_rotation);
+    return this;
+  }
+
+  /**
+   * Returns the translation component of the transform. Modifying it modifies this transform.
+   *
+   * @return The translational component of the transform.
+   */
+  public MutableTranslation2d getTranslation() {
+    return m_translation;
+  }
+
+  /**
+   * Returns the X component of the transformation's translation.
+   *
+   * @return The x component of the transformation's translation.
+   */
+  public double getX() {
+    return m_translation.getX();
+  }
+
+  /**
+   * Returns the Y component of the transformation's translation.
+   *
+   * @return The y component of the transformation's translation.
+   */
+  public double getY() {
+    return m_translation.getY();
+  }
+
+  /**
+   * Returns the rotational component of the transform. Modifying it modifies this transform.
+   *
+   * @return Reference to the rotational component of the transform.
+   */
+  public MutableRotation2d getRotation() {
+    return m_rotation;
+  }
+
+  /**
+   * Returns an immutable copy of this transform.
+   *
+   * @return The transform as a Transform2d.
+   */
+  public Transform2d toTransform2d() {
+    return new Transform2d(m_translation.toTranslation2d(), m_rotation.toRotation2d());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("MutableTransform2d(%s, %s)", m_translation, m_rotation);
+  }
+}
@@ -0,0 +1,184 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.geometry;
+
+/**
+ * A mutable counterpart of {@link Translation2d} for loops that can't afford to allocate.
+ * Operations modify this object in place and return it to allow chaining, and compute the same
+ * results as the corresponding Translation2d operations.
+ */
+public final class MutableTranslation2d {
+  private double m_x;
+  private double m_y;
+
+  /** Constructs a MutableTranslation2d with X and Y components equal to zero. */
+  public MutableTranslation2d() {}
+
+  /**
+   * Constructs a MutableTranslation2d with the value of a Translation2d.
+   *
+   * @param translation The translation to copy.
+   */
+  public MutableTranslation2d(Translation2d translation) {
+    set(translation);
+  }
+
+  /**
+   * Sets this translation to the value of a Translation2d.
+   *
+   * @param translation The translation to copy.
+   * @return This translation.
+   */
+  public MutableTranslation2d set(Translation2d translation) {
+    return set(translation.getX(), translation.getY());
+  }
+
+  /**
+   * Sets this translation to the value of another MutableTranslation2d.
+   *
+   * @param translation The translation to copy.
+   * @return This translation.
+   */
+  public MutableTranslation2d set(MutableTranslation2d translation) {
+    return set(translation.m_x, translation.m_y);
+  }
+
+  /**
+   * Sets the components of this translation.
+   *
+   * @param x The x component of the translation.
+   * @param y The y component of the translation.
+   * @return This translation.
+   */
+  public MutableTranslation2d set(double x, double y) {
+    m_x = x;
+    m_y = y;
+    return this;
+  }
+
+  /**
+   * Adds another translation to this translation.
+   *
+   * @param other The translation to add.
+   * @return This translation.
+   */
+  public MutableTranslation2d plus(Translation2d other) {
+    return set(m_x + other.getX(), m_y + other.getY());
+  }
+
+  /**
+   * Adds another translation to this translation.
+   *
+   * @param other The translation to add.
+   * @return This translation.
+   */
+  public MutableTranslation2d plus(MutableTranslation2d other) {
+    return set(m_x + other.m_x, m_y + other.m_y);
+  }
+
+  /**
+   * Subtracts another translation from this translation.
+   *
+   * @param other The translation to subtract.
+   * @return This translation.
+   */
+  public MutableTranslation2d minus(Translation2d other) {
+    return set(m_x - other.getX(), m_y - other.getY());
+  }
+
+  /**
+   * Subtracts another translation from this translation.
+   *
+   * @param other The translation to subtract.
+   * @return This translation.
+   */
+  public MutableTranslation2d minus(MutableTranslation2d other) {
+    return set(m_x - other.m_x, m_y - other.m_y);
+  }
+
+  /**
+   * Rotates this translation around the origin, like {@link Translation2d#rotateBy(Rotation2d)}.
+   *
+   * @param other The rotation to rotate the translation by.
+   * @return This translation.
+   */
+  public MutableTranslation2d rotateBy(Rotation2d other) {
+    return rotateBy(other.getCos(), other.getSin());
+  }
+
+  /**
+   * Rotates this translation around the origin, like {@link Translation2d#rotateBy(Rotation2d)}.
+   *
+   * @param other The rotation to rotate the translation by.
+   * @return This translation.
+   */
+  public MutableTranslation2d rotateBy(MutableRotation2d other) {
+    return rotateBy(other.getCos(), other.getSin());
+  }
+
+  MutableTranslation2d rotateBy(double cos, double sin) {
+    return set(m_x * cos - m_y * sin, m_x * sin + m_y * cos);
+  }
+
+  /**
+   * Multiplies this translation by a scalar.
+   *
+   * @param scalar The scalar to multiply by.
+   * @return This translation.
+   */
+  public MutableTranslation2d times(double scalar) {
+    return set(m_x * scalar, m_y * scalar);
+  }
+
+  /**
+   * Negates this translation.
+   *
+   * @return This translation.
+   */
+  public MutableTranslation2d unaryMinus() {
+    return set(-m_x, -m_y);
+  }
+
+  /**
+   * Returns the X component of the translation.
+   *
+   * @return The X component of the translation.
+   */
+  public double getX() {
+    return m_x;
+  }
+
+  /**
+   * Returns the Y component of the translation.
+   *
+   * @return The Y component of the translation.
+   */
+  public double getY() {
+    return m_y;
+  }
+
+  /**
+   * Returns the norm, or distance from the origin to the translation.
+   *
+   * @return The norm of the translation.
+   */
+  public double getNorm() {
+    return Math.hypot(m_x, m_y);
+  }
+
+  /**
+   * Returns an immutable copy of this translation.
+   *
+   * @return The translation as a Translation2d.
+   */
+  public Translation2d toTranslation2d() {
+    return new Translation2d(m_x, m_y);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("MutableTranslation2d(X: %.2f, Y: %.2f)", m_x, m_y);
+  }
+}
@@ -70,6 +70,20 @@ public class Rotation2d implements Interpolatable<Rotation2d> {
     m_value = Math.atan2(m_sin, m_cos);
   }
 
+  /**
+   * Constructs a Rotation2d from precomputed values, without normalizing them. Used by {@link
+   * MutableRotation2d}.
+   *
+   * @param value The value of the angle in radians.
+   * @param cos The cosine of the angle.
+   * @param sin The sine of the angle.
+   */
+  Rotation2d(double value, double cos, double sin) {
+    m_value = value;
+    m_cos = cos;
+    m_sin = sin;
+  }
+
   /**
    * Constructs a Rotation2d with the given angle.
    *
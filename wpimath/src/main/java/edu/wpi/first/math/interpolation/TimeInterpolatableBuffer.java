@@ -6,6 +6,7 @@ package edu.wpi.first.math.interpolation;
 
 import edu.wpi.first.math.MathUtil;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
 
@@ -20,7 +21,13 @@ import java.util.TreeMap;
 public final class TimeInterpolatableBuffer<T> {
   private final double m_historySize;
   private final Interpolator<T> m_interpolatingFunc;
-  private final NavigableMap<Double, T> m_pastSnapshots = new TreeMap<>();
+
+  // Samples are stored in a ring buffer sorted by timestamp, oldest first. The capacity is always a
+  // power of two so logical indices can be mapped to physical indices with a mask.
+  private double[] m_times = new double[16];
+  private Object[] m_values = new Object[16];
+  private int m_head;
+  private int m_size;
 
   private TimeInterpolatableBuffer(Interpolator<T> interpolateFunction, double historySizeSeconds) {
     this.m_historySize = historySizeSeconds;
@@ -63,14 +70,46 @@ public final class TimeInterpolatableBuffer<T> {
   }
 
   /**
-   * Add a sample to the buffer.
+   * Add a sample to the buffer. Adding samples in increasing time order is O(1); out-of-order
+   * samples are inserted in O(n).
    *
    * @param timeSeconds The timestamp of the sample.
    * @param sample The sample object.
    */
   public void addSample(double timeSeconds, T sample) {
     cleanUp(timeSeconds);
-    m_pastSnapshots.put(timeSeconds, sample);
+
+    // Fast path for the common case of a sample newer than all the others
+    if (m_size == 0 || timeSeconds > m_times[physicalIndex(m_size - 1)]) {
+      if (m_size == m_times.length) {
+        grow();
+      }
+      int index = physicalIndex(m_size);
+      m_times[index] = timeSeconds;
+      m_values[index] = sample;
+      m_size++;
+      return;
+    }
+
+    int index = ceilingIndex(timeSeconds);
+    if (m_times[physicalIndex(index)] == timeSeconds) {
+      m_values[physicalIndex(index)] = sample;
+      return;
+    }
+
+    // Shift the newer samples back by one to make room
+    if (m_size == m_times.length) {
+      grow();
+    }
+    for (int i = m_size; i > index; i--) {
+      int to = physicalIndex(i);
+      int from = physicalIndex(i - 1);
+      m_times[to] = m_times[from];
+      m_values[to] = m_values[from];
+    }
+    m_times[physicalIndex(index)] = timeSeconds;
+    m_values[physicalIndex(index)] = sample;
+    m_size++;
   }
 
   /**
@@ -79,19 +118,37 @@ public final class TimeInterpolatableBuffer<T> {
    * @param time The current timestamp.
    */
   private void cleanUp(double time) {
-    while (!m_pastSnapshots.isEmpty()) {
-      var entry = m_pastSnapshots.firstEntry();
-      if (time - entry.getKey() >= m_historySize) {
-        m_pastSnapshots.remove(entry.getKey());
-      } else {
-        return;
-      }
+    while (m_size > 0 && time - m_times[m_head] >= m_historySize) {
+      m_values[m_head] = null;
+      m_head = (m_head + 1) & (m_times.length - 1);
+      m_size--;
     }
   }
 
+  /** Doubles the capacity of the ring buffer, moving the oldest sample to the start. */
+  private void grow() {
+    double[] times = new double[m_times.length * 2];
+    Object[] values = new Object[m_values.length * 2];
+    for (int i = 0; i < m_size; i++) {
+      times[i] = m_times[physicalIndex(i)];
+      values[i] = m_values[physicalIndex(i)];
+    }
+    m_times = times;
+    m_values = values;
+    m_head = 0;
+  }
+
+  private int physicalIndex(int index) {
+    return (m_head + index) & (m_times.length - 1);
+  }
+
   /** Clear all old samples. */
   public void clear() {
-    m_pastSnapshots.clear();
+    for (int i = 0; i < m_size; i++) {
+      m_values[physicalIndex(i)] = null;
+    }
+    m_head = 0;
+    m_size = 0;
   }
 
   /**
@@ -101,45 +158,99 @@ public final class TimeInterpolatableBuffer<T> {
    * @return The interpolated value at that timestamp or an empty Optional.
    */
   public Optional<T> getSample(double timeSeconds) {
-    if (m_pastSnapshots.isEmpty()) {
+    if (m_size == 0) {
       return Optional.empty();
     }
 
+    int top = ceilingIndex(timeSeconds);
+
+    // Return the opposite bound if the time is outside the range of the samples
+    if (top == m_size) {
+      return Optional.of(getValue(m_size - 1));
+    }
     // Special case for when the requested time is the same as a sample
-    var nowEntry = m_pastSnapshots.get(timeSeconds);
-    if (nowEntry != null) {
-      return Optional.of(nowEntry);
+    if (top == 0 || getTimestamp(top) == timeSeconds) {
+      return Optional.of(getValue(top));
     }
 
-    var topBound = m_pastSnapshots.ceilingEntry(timeSeconds);
-    var bottomBound = m_pastSnapshots.floorEntry(timeSeconds);
+    // Otherwise, interpolate. Because T is between [0, 1], we want the ratio of (the difference
+    // between the current time and bottom bound) and (the difference between top and bottom
+    // bounds).
+    int bottom = top - 1;
+    double bottomTime = getTimestamp(bottom);
+    return Optional.of(
+        m_interpolatingFunc.interpolate(
+            getValue(bottom),
+            getValue(top),
+            (timeSeconds - bottomTime) / (getTimestamp(top) - bottomTime)));
+  }
 
-    // Return null if neither sample exists, and the opposite bound if the other is null
-    if (topBound == null && bottomBound == null) {
-      return Optional.empty();
-    } else if (topBound == null) {
-      return Optional.of(bottomBound.getValue());
-    } else if (bottomBound == null) {
-      return Optional.of(topBound.getValue());
-    } else {
-      // Otherwise, interpolate. Because T is between [0, 1], we want the ratio of (the difference
-      // between the current time and bottom bound) and (the difference between top and bottom
-      // bounds).
-      return Optional.of(
-          m_interpolatingFunc.interpolate(
-              bottomBound.getValue(),
-              topBound.getValue(),
-              (timeSeconds - bottomBound.getKey()) / (topBound.getKey() - bottomBound.getKey())));
+  /**
+   * Returns the number of samples in the buffer.
+   *
+   * @return The number of samples.
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * Returns the timestamp of a sample. Samples are indexed in increasing time order.
+   *
+   * @param index The index of the sample, from 0 (oldest) to size() - 1 (newest).
+   * @return The timestamp of the sample in seconds.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public double getTimestamp(int index) {
+    Objects.checkIndex(index, m_size);
+    return m_times[physicalIndex(index)];
+  }
+
+  /**
+   * Returns the value of a sample. Samples are indexed in increasing time order.
+   *
+   * @param index The index of the sample, from 0 (oldest) to size() - 1 (newest).
+   * @return The sample object.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  @SuppressWarnings("unchecked")
+  public T getValue(int index) {
+    Objects.checkIndex(index, m_size);
+    return (T) m_values[physicalIndex(index)];
+  }
+
+  /**
+   * Returns the index of the oldest sample at or after the given time.
+   *
+   * @param timeSeconds The time in seconds.
+   * @return The index of the sample, or size() if all samples are older than the given time.
+   */
+  public int ceilingIndex(double timeSeconds) {
+    int low = 0;
+    int high = m_size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (m_times[physicalIndex(mid)] < timeSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
+    return low;
   }
 
   /**
-   * Grant access to the internal sample buffer. Used in Pose Estimation to replay odometry inputs
-   * stored within this buffer.
+   * Returns a copy of the samples in the buffer as a map from timestamp to sample. Changes to the
+   * returned map do not affect the buffer. Prefer {@link #size()}, {@link #getTimestamp(int)} and
+   * {@link #getValue(int)}, which don't allocate.
    *
-   * @return The internal sample buffer.
+   * @return The samples in the buffer.
    */
   public NavigableMap<Double, T> getInternalBuffer() {
-    return m_pastSnapshots;
+    NavigableMap<Double, T> snapshots = new TreeMap<>();
+    for (int i = 0; i < m_size; i++) {
+      snapshots.put(getTimestamp(i), getValue(i));
+    }
+    return snapshots;
   }
 }
@@ -90,6 +90,18 @@ public class DifferentialDriveKinematics
     return toTwist2d(end.leftMeters - start.leftMeters, end.rightMeters - start.rightMeters);
   }
 
+  @Override
+  public void toTwist2dInto(
+      DifferentialDriveWheelPositions start,
+      DifferentialDriveWheelPositions end,
+      Twist2d output) {
+    double leftDistanceMeters = end.leftMeters - start.leftMeters;
+    double rightDistanceMeters = end.rightMeters - start.rightMeters;
+    output.dx = (leftDistanceMeters + rightDistanceMeters) / 2;
+    output.dy = 0;
+    output.dtheta = (rightDistanceMeters - leftDistanceMeters) / trackWidthMeters;
+  }
+
   /**
    * Performs forward kinematics to return the resulting Twist2d from the given left and right side
    * distance deltas. This method is often used for odometry -- determining the robot's position on
@@ -66,6 +66,13 @@ public class DifferentialDriveWheelPositions
     return new DifferentialDriveWheelPositions(leftMeters, rightMeters);
   }
 
+  @Override
+  public DifferentialDriveWheelPositions copyInto(DifferentialDriveWheelPositions output) {
+    output.leftMeters = leftMeters;
+    output.rightMeters = rightMeters;
+    return output;
+  }
+
   @Override
   public DifferentialDriveWheelPositions interpolate(
       DifferentialDriveWheelPositions endValue, double t) {
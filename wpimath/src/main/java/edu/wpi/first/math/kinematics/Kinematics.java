@@ -44,4 +44,19 @@ public interface Kinematics<S, P> {
    * @return The resulting Twist2d in the robot's movement.
    */
   Twist2d toTwist2d(P start, P end);
+
+  /**
+   * Performs forward kinematics like {@link #toTwist2d(Object, Object)}, writing the result into an
+   * existing Twist2d. Implementations override this to avoid allocating in odometry loops.
+   *
+   * @param start The starting distances driven by the wheels.
+   * @param end The ending distances driven by the wheels.
+   * @param output The Twist2d to write the robot's movement into.
+   */
+  default void toTwist2dInto(P start, P end, Twist2d output) {
+    Twist2d twist = toTwist2d(start, end);
+    output.dx = twist.dx;
+    output.dy = twist.dy;
+    output.dtheta = twist.dtheta;
+  }
 }
@@ -99,6 +99,15 @@ public class MecanumDriveWheelPositions implements WheelPositions<MecanumDriveWh
         frontLeftMeters, frontRightMeters, rearLeftMeters, rearRightMeters);
   }
 
+  @Override
+  public MecanumDriveWheelPositions copyInto(MecanumDriveWheelPositions output) {
+    output.frontLeftMeters = frontLeftMeters;
+    output.frontRightMeters = frontRightMeters;
+    output.rearLeftMeters = rearLeftMeters;
+    output.rearRightMeters = rearRightMeters;
+    return output;
+  }
+
   @Override
   public MecanumDriveWheelPositions interpolate(MecanumDriveWheelPositions endValue, double t) {
     return new MecanumDriveWheelPositions(
@@ -4,8 +4,11 @@
 
 package edu.wpi.first.math.kinematics;
 
+import edu.wpi.first.math.geometry.MutablePose2d;
+import edu.wpi.first.math.geometry.MutableRotation2d;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 
 /**
  * Class for odometry. Robot code should not use this directly- Instead, use the particular type for
@@ -18,12 +21,18 @@ import edu.wpi.first.math.geometry.Rotation2d;
  */
 public class Odometry<T extends WheelPositions<T>> {
   private final Kinematics<?, T> m_kinematics;
+  private final MutablePose2d m_pose = new MutablePose2d();
   private Pose2d m_poseMeters;
 
   private Rotation2d m_gyroOffset;
-  private Rotation2d m_previousAngle;
+  private final MutableRotation2d m_previousAngle = new MutableRotation2d();
   private T m_previousWheelPositions;
 
+  // Scratch objects reused by update() so that it only allocates the returned pose
+  private final MutableRotation2d m_angle = new MutableRotation2d();
+  private final MutableRotation2d m_deltaAngle = new MutableRotation2d();
+  private final Twist2d m_twist = new Twist2d();
+
   /**
    * Constructs an Odometry object.
    *
@@ -39,8 +48,9 @@ public class Odometry<T extends WheelPositions<T>> {
       Pose2d initialPoseMeters) {
     m_kinematics = kinematics;
     m_poseMeters = initialPoseMeters;
+    m_pose.set(initialPoseMeters);
     m_gyroOffset = m_poseMeters.getRotation().minus(gyroAngle);
-    m_previousAngle = m_poseMeters.getRotation();
+    m_previousAngle.set(m_poseMeters.getRotation());
     m_previousWheelPositions = wheelPositions.copy();
   }
 
@@ -56,9 +66,10 @@ public class Odometry<T extends WheelPositions<T>> {
    */
   public void resetPosition(Rotation2d gyroAngle, T wheelPositions, Pose2d poseMeters) {
     m_poseMeters = poseMeters;
-    m_previousAngle = m_poseMeters.getRotation();
+    m_pose.set(poseMeters);
+    m_previousAngle.set(m_poseMeters.getRotation());
     m_gyroOffset = m_poseMeters.getRotation().minus(gyroAngle);
-    m_previousWheelPositions = wheelPositions.copy();
+    m_previousWheelPositions = wheelPositions.copyInto(m_previousWheelPositions);
   }
 
   /**
@@ -81,16 +92,17 @@ public class Odometry<T extends WheelPositions<T>> {
    * @return The new pose of the robot.
    */
   public Pose2d update(Rotation2d gyroAngle, T wheelPositions) {
-    var angle = gyroAngle.plus(m_gyroOffset);
+    m_angle.set(gyroAngle).rotateBy(m_gyroOffset);
 
-    var twist = m_kinematics.toTwist2d(m_previousWheelPositions, wheelPositions);
-    twist.dtheta = angle.minus(m_previousAngle).getRadians();
+    m_kinematics.toTwist2dInto(m_previousWheelPositions, wheelPositions, m_twist);
+    m_twist.dtheta = m_deltaAngle.set(m_angle).minus(m_previousAngle).getRadians();
 
-    var newPose = m_poseMeters.exp(twist);
+    m_pose.exp(m_twist);
 
-    m_previousWheelPositions = wheelPositions.copy();
-    m_previousAngle = angle;
-    m_poseMeters = new Pose2d(newPose.getTranslation(), angle);
+    m_previousWheelPositions = wheelPositions.copyInto(m_previousWheelPositions);
+    m_previousAngle.set(m_angle);
+    m_pose.getRotation().set(m_angle);
+    m_poseMeters = m_pose.toPose2d();
 
     return m_poseMeters;
   }
@@ -59,6 +59,8 @@ public class SwerveDriveKinematics
 
   private final SimpleMatrix m_inverseKinematics;
   private final SimpleMatrix m_forwardKinematics;
+  // Row-major copy of the forward kinematics matrix for allocation-free odometry
+  private final double[] m_forwardKinematicsData;
 
   private final int m_numModules;
   private final Translation2d[] m_modules;
@@ -90,6 +92,12 @@ public class SwerveDriveKinematics
       m_inverseKinematics.setRow(i * 2 + 1, 0, /* Start Data */ 0, 1, +m_modules[i].getX());
     }
     m_forwardKinematics = m_inverseKinematics.pseudoInverse();
+    m_forwardKinematicsData = new double[3 * m_numModules * 2];
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < m_numModules * 2; col++) {
+        m_forwardKinematicsData[row * m_numModules * 2 + col] = m_forwardKinematics.get(row, col);
+      }
+    }
 
     MathSharedStore.reportUsage(MathUsageId.kKinematics_SwerveDrive, 1);
   }
@@ -283,6 +291,39 @@ public class SwerveDriveKinematics
     return toTwist2d(newPositions);
   }
 
+  @Override
+  public void toTwist2dInto(
+      SwerveDriveWheelPositions start, SwerveDriveWheelPositions end, Twist2d output) {
+    if (start.positions.length != end.positions.length) {
+      throw new IllegalArgumentException("Inconsistent number of modules!");
+    }
+    if (end.positions.length != m_numModules) {
+      throw new IllegalArgumentException(
+          "Number of modules is not consistent with number of module locations provided in "
+              + "constructor");
+    }
+    // Accumulate in the same order as the matrix-vector product in toTwist2d()
+    int cols = m_numModules * 2;
+    double dx = 0.0;
+    double dy = 0.0;
+    double dtheta = 0.0;
+    for (int i = 0; i < m_numModules; i++) {
+      var endModule = end.positions[i];
+      double distance = endModule.distanceMeters - start.positions[i].distanceMeters;
+      double moduleDx = distance * endModule.angle.getCos();
+      double moduleDy = distance * endModule.angle.getSin();
+      dx += m_forwardKinematicsData[i * 2] * moduleDx;
+      dx += m_forwardKinematicsData[i * 2 + 1] * moduleDy;
+      dy += m_forwardKinematicsData[cols + i * 2] * moduleDx;
+      dy += m_forwardKinematicsData[cols + i * 2 + 1] * moduleDy;
+      dtheta += m_forwardKinematicsData[2 * cols + i * 2] * moduleDx;
+      dtheta += m_forwardKinematicsData[2 * cols + i * 2 + 1] * moduleDy;
+    }
+    output.dx = dx;
+    output.dy = dy;
+    output.dtheta = dtheta;
+  }
+
   /**
    * Renormalizes the wheel speeds if any individual speed is above the specified maximum.
    *
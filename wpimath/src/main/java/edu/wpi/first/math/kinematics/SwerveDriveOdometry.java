@@ -20,6 +20,10 @@ import edu.wpi.first.math.geometry.Rotation2d;
 public class SwerveDriveOdometry extends Odometry<SwerveDriveWheelPositions> {
   private final int m_numModules;
 
+  // Reused to wrap the module positions passed to the array overloads without copying them
+  private final SwerveDriveWheelPositions m_wheelPositions =
+      new SwerveDriveWheelPositions(new SwerveModulePosition[0]);
+
   /**
    * Constructs a SwerveDriveOdometry object.
    *
@@ -68,7 +72,8 @@ public class SwerveDriveOdometry extends Odometry<SwerveDriveWheelPositions> {
    */
   public void resetPosition(
       Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d pose) {
-    resetPosition(gyroAngle, new SwerveDriveWheelPositions(modulePositions), pose);
+    m_wheelPositions.positions = modulePositions;
+    resetPosition(gyroAngle, m_wheelPositions, pose);
   }
 
   @Override
@@ -95,7 +100,8 @@ public class SwerveDriveOdometry extends Odometry<SwerveDriveWheelPositions> {
    * @return The new pose of the robot.
    */
   public Pose2d update(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
-    return update(gyroAngle, new SwerveDriveWheelPositions(modulePositions));
+    m_wheelPositions.positions = modulePositions;
+    return update(gyroAngle, m_wheelPositions);
   }
 
   @Override
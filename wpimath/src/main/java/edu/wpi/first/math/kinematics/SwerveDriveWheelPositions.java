@@ -47,6 +47,18 @@ public class SwerveDriveWheelPositions implements WheelPositions<SwerveDriveWhee
     return new SwerveDriveWheelPositions(positions);
   }
 
+  @Override
+  public SwerveDriveWheelPositions copyInto(SwerveDriveWheelPositions output) {
+    if (output.positions.length != positions.length || output.positions == positions) {
+      return copy();
+    }
+    for (int i = 0; i < positions.length; i++) {
+      output.positions[i].distanceMeters = positions[i].distanceMeters;
+      output.positions[i].angle = positions[i].angle;
+    }
+    return output;
+  }
+
   @Override
   public SwerveDriveWheelPositions interpolate(SwerveDriveWheelPositions endValue, double t) {
     if (endValue.positions.length != positions.length) {
@@ -13,4 +13,15 @@ public interface WheelPositions<T extends WheelPositions<T>> extends Interpolata
    * @return A copy.
    */
   T copy();
+
+  /**
+   * Copies this instance into an existing instance if possible. Implementations override this to
+   * avoid allocating in odometry loops; the default returns a new copy.
+   *
+   * @param output The instance to copy into.
+   * @return The instance holding the copy, either output or a new copy.
+   */
+  default T copyInto(T output) {
+    return copy();
+  }
 }
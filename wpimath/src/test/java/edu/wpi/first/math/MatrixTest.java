@@ -4,6 +4,7 @@
 
 package edu.wpi.first.math;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -12,7 +13,9 @@ import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N2;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.numbers.N4;
+import java.util.Random;
 import org.ejml.data.SingularMatrixException;
+import org.ejml.simple.SimpleMatrix;
 import org.junit.jupiter.api.Test;
 
 class MatrixTest {
@@ -115,6 +118,57 @@ class MatrixTest {
     assertEquals(MatBuilder.fill(Nat.N2(), Nat.N2(), 6.0, 8.0, 10.0, 12.0), mat1.plus(mat2));
   }
 
+  private static Matrix<Num, Num> randomMatrix(Random rand, int rows, int cols) {
+    return new Matrix<>(SimpleMatrix.random_DDRM(rows, cols, -1.0, 1.0, rand));
+  }
+
+  @Test
+  void testTimesIntoMatchesTimes() {
+    var rand = new Random(42);
+
+    // Cover both the small matrix kernels and the general EJML path
+    for (int rows = 1; rows <= 8; rows++) {
+      for (int inner = 1; inner <= 8; inner++) {
+        for (int cols = 1; cols <= 8; cols++) {
+          var mat1 = randomMatrix(rand, rows, inner);
+          var mat2 = randomMatrix(rand, inner, cols);
+          var output = randomMatrix(rand, rows, cols);
+
+          assertEquals(output, mat1.timesInto(mat2, output));
+          assertArrayEquals(mat1.times(mat2).getData(), output.getData());
+        }
+      }
+    }
+  }
+
+  @Test
+  void testArithmeticInto() {
+    var mat1 = MatBuilder.fill(Nat.N2(), Nat.N3(), 1.0, 2.0, 3.0, 4.0, 5.0, 6.0);
+    var mat2 = MatBuilder.fill(Nat.N2(), Nat.N3(), 6.0, 5.0, 4.0, 3.0, 2.0, 1.0);
+    var output = new Matrix<>(Nat.N2(), Nat.N3());
+
+    assertEquals(mat1.plus(mat2), mat1.plusInto(mat2, output));
+    assertEquals(mat1.minus(mat2), mat1.minusInto(mat2, output));
+
+    // The output may alias an operand
+    var expected = mat1.plus(mat2);
+    mat1.plusInto(mat2, mat1);
+    assertEquals(expected, mat1);
+
+    var transpose = new Matrix<>(Nat.N3(), Nat.N2());
+    assertEquals(mat2.transpose(), mat2.transposeInto(transpose));
+  }
+
+  @Test
+  void testIntoRejectsAliasedOutput() {
+    var mat = MatBuilder.fill(Nat.N2(), Nat.N2(), 1.0, 2.0, 3.0, 4.0);
+    var other = MatBuilder.fill(Nat.N2(), Nat.N2(), 5.0, 6.0, 7.0, 8.0);
+
+    assertThrows(IllegalArgumentException.class, () -> mat.timesInto(other, mat));
+    assertThrows(IllegalArgumentException.class, () -> mat.timesInto(other, other));
+    assertThrows(IllegalArgumentException.class, () -> mat.transposeInto(mat));
+  }
+
   @Test
   void testMatrixExponential() {
     var matrix = Matrix.eye(Nat.N2());
@@ -5,6 +5,7 @@
 package edu.wpi.first.math.estimator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.math.VecBuilder;
@@ -12,8 +13,10 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
@@ -304,4 +307,153 @@ class DifferentialDrivePoseEstimatorTest {
         estimator.getEstimatedPosition().getRotation().getRadians(),
         "Incorrect Final Theta");
   }
+
+  @Test
+  void testBatchedVisionMeasurements() {
+    var kinematics = new DifferentialDriveKinematics(1);
+    var sequential =
+        new DifferentialDrivePoseEstimator(
+            kinematics,
+            new Rotation2d(),
+            0,
+            0,
+            new Pose2d(),
+            VecBuilder.fill(0.1, 0.1, 0.1),
+            VecBuilder.fill(0.5, 0.5, 0.5));
+    var batched =
+        new DifferentialDrivePoseEstimator(
+            kinematics,
+            new Rotation2d(),
+            0,
+            0,
+            new Pose2d(),
+            VecBuilder.fill(0.1, 0.1, 0.1),
+            VecBuilder.fill(0.5, 0.5, 0.5));
+
+    // Drive along an arc
+    for (double time = 0; time < 1.5; time += 0.02) {
+      var heading = new Rotation2d(time * 0.5);
+      sequential.updateWithTime(time, heading, time * 1.0, time * 1.5);
+      batched.updateWithTime(time, heading, time * 1.0, time * 1.5);
+    }
+
+    var poses =
+        new Pose2d[] {
+          new Pose2d(1.2, 0.4, new Rotation2d(0.5)),
+          new Pose2d(0.5, 0.1, new Rotation2d(0.2)),
+          new Pose2d(0.9, 0.3, new Rotation2d(0.4))
+        };
+    var timestamps = new double[] {1.2, 0.5, 0.9};
+
+    // Adding measurements one at a time in timestamp order is the same as adding them as a batch
+    sequential.addVisionMeasurement(poses[1], timestamps[1]);
+    sequential.addVisionMeasurement(poses[2], timestamps[2]);
+    sequential.addVisionMeasurement(poses[0], timestamps[0]);
+    batched.addVisionMeasurements(poses, timestamps);
+
+    assertEquals(sequential.getEstimatedPosition(), batched.getEstimatedPosition());
+    assertEquals(sequential.sampleAt(1.0).get(), batched.sampleAt(1.0).get());
+
+    // Later odometry updates keep the correction
+    sequential.updateWithTime(1.5, new Rotation2d(0.75), 1.5, 2.25);
+    batched.updateWithTime(1.5, new Rotation2d(0.75), 1.5, 2.25);
+    assertEquals(sequential.getEstimatedPosition(), batched.getEstimatedPosition());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> batched.addVisionMeasurements(poses, new double[] {1.0}));
+  }
+
+  @Test
+  void testOutOfOrderVisionMatchesOdometryReplay() {
+    // The reference resets odometry to the corrected pose at the measurement time and replays the
+    // later odometry inputs, which is how vision corrections were originally applied.
+    var initialPose = new Pose2d(1, 2, new Rotation2d(0.3));
+    var estimator =
+        new DifferentialDrivePoseEstimator(
+            new DifferentialDriveKinematics(0.6),
+            new Rotation2d(),
+            0,
+            0,
+            initialPose,
+            VecBuilder.fill(0.1, 0.1, 0.1),
+            VecBuilder.fill(0.5, 0.5, 0.5));
+
+    // Varying wheel speeds, and a gyro that disagrees with the wheels
+    int count = 70;
+    var times = new double[count];
+    var gyro = new Rotation2d[count];
+    var left = new double[count];
+    var right = new double[count];
+    for (int i = 0; i < count; i++) {
+      double t = i * 0.02;
+      times[i] = t;
+      gyro[i] = new Rotation2d(0.4 * t + 0.3 * Math.sin(5 * t));
+      left[i] = t + 0.5 * (1 - Math.cos(3 * t));
+      right[i] = 1.5 * t + 0.2 * Math.sin(2 * t);
+    }
+    var reference = new Pose2d[count];
+    replayOdometry(reference, gyro, left, right, 0, initialPose);
+
+    for (int i = 0; i < 60; i++) {
+      estimator.updateWithTime(times[i], gyro[i], left[i], right[i]);
+    }
+
+    // Measurements at 1.0 s, then 0.4 s (out of order, discarding the first), then 0.7 s
+    var offset = new Transform2d(0.3, -0.2, new Rotation2d(0.1));
+    for (int index : new int[] {50, 20, 35}) {
+      var visionPose = reference[index].plus(offset);
+      estimator.addVisionMeasurement(visionPose, times[index]);
+      replayOdometry(
+          reference,
+          gyro,
+          left,
+          right,
+          index,
+          applyVisionCorrection(reference[index], visionPose, 0.1, 0.5));
+    }
+    assertPoseEquals(reference[59], estimator.getEstimatedPosition());
+    for (int i = 0; i < 60; i++) {
+      assertPoseEquals(reference[i], estimator.sampleAt(times[i]).get());
+    }
+
+    // Later odometry updates keep the correction
+    for (int i = 60; i < count; i++) {
+      estimator.updateWithTime(times[i], gyro[i], left[i], right[i]);
+    }
+    assertPoseEquals(reference[count - 1], estimator.getEstimatedPosition());
+    for (int i = 0; i < count; i++) {
+      assertPoseEquals(reference[i], estimator.sampleAt(times[i]).get());
+    }
+  }
+
+  /** Resets odometry to the given pose at the start index and replays the later inputs. */
+  private static void replayOdometry(
+      Pose2d[] poses, Rotation2d[] gyro, double[] left, double[] right, int start, Pose2d pose) {
+    var odometry = new DifferentialDriveOdometry(gyro[start], left[start], right[start], pose);
+    poses[start] = pose;
+    for (int i = start + 1; i < poses.length; i++) {
+      poses[i] = odometry.update(gyro[i], left[i], right[i]);
+    }
+  }
+
+  /** Applies a vision measurement with the same standard deviations on every axis. */
+  private static Pose2d applyVisionCorrection(
+      Pose2d estimate, Pose2d visionPose, double stateStdDev, double visionStdDev) {
+    double q = stateStdDev * stateStdDev;
+    double r = visionStdDev * visionStdDev;
+    double k = q / (q + Math.sqrt(q * r));
+    var twist = estimate.log(visionPose);
+    return estimate.exp(new Twist2d(k * twist.dx, k * twist.dy, k * twist.dtheta));
+  }
+
+  private static void assertPoseEquals(Pose2d expected, Pose2d actual) {
+    assertEquals(expected.getX(), actual.getX(), 1e-9, "Incorrect X");
+    assertEquals(expected.getY(), actual.getY(), 1e-9, "Incorrect Y");
+    assertEquals(
+        expected.getRotation().getRadians(),
+        actual.getRotation().getRadians(),
+        1e-9,
+        "Incorrect Theta");
+  }
 }
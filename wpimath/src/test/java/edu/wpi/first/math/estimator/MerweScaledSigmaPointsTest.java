@@ -4,11 +4,15 @@
 
 package edu.wpi.first.math.estimator;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.math.MatBuilder;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
 import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.numbers.N5;
 import org.junit.jupiter.api.Test;
 
 class MerweScaledSigmaPointsTest {
@@ -61,4 +65,17 @@ class MerweScaledSigmaPointsTest {
                 1.99452277),
             1E-6));
   }
+
+  @Test
+  void testPointsIntoMatchesPoints() {
+    var merweScaledSigmaPoints = new MerweScaledSigmaPoints<>(Nat.N2());
+    var x = VecBuilder.fill(1, 2);
+    var s = MatBuilder.fill(Nat.N2(), Nat.N2(), 1, 0.5, 0, Math.sqrt(10));
+    var sigmas = new Matrix<N2, N5>(Nat.N2(), Nat.N5());
+
+    var expected = merweScaledSigmaPoints.squareRootSigmaPoints(x, s);
+    merweScaledSigmaPoints.squareRootSigmaPointsInto(x, s, sigmas);
+
+    assertArrayEquals(expected.getData(), sigmas.getData());
+  }
 }
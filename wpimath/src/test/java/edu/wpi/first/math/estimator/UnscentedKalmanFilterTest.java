@@ -4,6 +4,7 @@
 
 package edu.wpi.first.math.estimator;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -11,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import edu.wpi.first.math.MatBuilder;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.Num;
+import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.StateSpaceUtil;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
@@ -27,6 +30,9 @@ import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import java.util.List;
+import java.util.function.BiFunction;
+import org.ejml.dense.row.decomposition.qr.QRDecompositionHouseholder_DDRM;
+import org.ejml.simple.SimpleMatrix;
 import org.junit.jupiter.api.Test;
 
 class UnscentedKalmanFilterTest {
@@ -269,4 +275,283 @@ class UnscentedKalmanFilterTest {
 
     assertTrue(observer.getP().isEqual(P, 1e-9));
   }
+
+  @Test
+  void testCorrectWithDifferentMeasurementSizes() {
+    double dtSeconds = 0.005;
+    var u = VecBuilder.fill(12.0, 11.0);
+    var globalY = VecBuilder.fill(0.1, 0.2, 0.3, 1.0, 1.1);
+    var globalR =
+        StateSpaceUtil.makeCovarianceMatrix(Nat.N5(), VecBuilder.fill(0.1, 0.1, 0.1, 0.5, 0.5));
+
+    UnscentedKalmanFilter<N5, N2, N3> observer =
+        new UnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+
+    // Alternate between measurement sizes so each one's cached workspace gets reused
+    for (int i = 0; i < 3; i++) {
+      observer.predict(u, dtSeconds);
+      observer.correct(u, VecBuilder.fill(0.0, 1.0, 1.0));
+      observer.correct(
+          Nat.N5(), u, globalY, UnscentedKalmanFilterTest::getGlobalMeasurementModel, globalR);
+    }
+    observer.predict(u, dtSeconds);
+
+    // A fresh filter in the same state must produce the same correction
+    UnscentedKalmanFilter<N5, N2, N3> fresh =
+        new UnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+    fresh.setXhat(observer.getXhat().copy());
+    fresh.setS(observer.getS());
+
+    observer.correct(
+        Nat.N5(), u, globalY, UnscentedKalmanFilterTest::getGlobalMeasurementModel, globalR);
+    fresh.correct(
+        Nat.N5(), u, globalY, UnscentedKalmanFilterTest::getGlobalMeasurementModel, globalR);
+
+    assertArrayEquals(fresh.getXhat().getData(), observer.getXhat().getData());
+    assertArrayEquals(fresh.getS().getData(), observer.getS().getData());
+  }
+
+  /**
+   * Square-root UKF that allocates new matrices for every intermediate result, as
+   * UnscentedKalmanFilter did before it reused workspaces. Used as a reference to check that the
+   * workspace-based filter gives bit-identical results.
+   */
+  private static final class AllocatingUnscentedKalmanFilter<
+      States extends Num, Inputs extends Num, Outputs extends Num> {
+    private final Nat<States> m_states;
+    private final Nat<Outputs> m_outputs;
+    private final BiFunction<Matrix<States, N1>, Matrix<Inputs, N1>, Matrix<States, N1>> m_f;
+    private final BiFunction<Matrix<States, N1>, Matrix<Inputs, N1>, Matrix<Outputs, N1>> m_h;
+    private final Matrix<States, States> m_contQ;
+    private final Matrix<Outputs, Outputs> m_contR;
+    private final MerweScaledSigmaPoints<States> m_pts;
+
+    private Matrix<States, N1> m_xHat;
+    private Matrix<States, States> m_S;
+    private Matrix<States, ?> m_sigmasF;
+    private double m_dtSeconds;
+
+    AllocatingUnscentedKalmanFilter(
+        Nat<States> states,
+        Nat<Outputs> outputs,
+        BiFunction<Matrix<States, N1>, Matrix<Inputs, N1>, Matrix<States, N1>> f,
+        BiFunction<Matrix<States, N1>, Matrix<Inputs, N1>, Matrix<Outputs, N1>> h,
+        Matrix<States, N1> stateStdDevs,
+        Matrix<Outputs, N1> measurementStdDevs,
+        double nominalDtSeconds) {
+      m_states = states;
+      m_outputs = outputs;
+      m_f = f;
+      m_h = h;
+      m_contQ = StateSpaceUtil.makeCovarianceMatrix(states, stateStdDevs);
+      m_contR = StateSpaceUtil.makeCovarianceMatrix(outputs, measurementStdDevs);
+      m_pts = new MerweScaledSigmaPoints<>(states);
+      m_xHat = new Matrix<>(states, Nat.N1());
+      m_S = new Matrix<>(states, states);
+      m_sigmasF = new Matrix<>(new SimpleMatrix(states.getNum(), 2 * states.getNum() + 1));
+      m_dtSeconds = nominalDtSeconds;
+    }
+
+    <C extends Num> Pair<Matrix<C, N1>, Matrix<C, C>> transform(
+        Nat<C> dim, Matrix<C, ?> sigmas, Matrix<C, C> squareRootR) {
+      int states = m_states.getNum();
+      var Wm = m_pts.getWm();
+      var Wc = m_pts.getWc();
+
+      Matrix<C, N1> x = sigmas.times(Matrix.changeBoundsUnchecked(Wm));
+
+      Matrix<C, ?> Sbar = new Matrix<>(new SimpleMatrix(dim.getNum(), 2 * states + dim.getNum()));
+      for (int i = 0; i < 2 * states; i++) {
+        Sbar.setColumn(
+            i, sigmas.extractColumnVector(1 + i).minus(x).times(Math.sqrt(Wc.get(1, 0))));
+      }
+      Sbar.assignBlock(0, 2 * states, squareRootR);
+
+      QRDecompositionHouseholder_DDRM qr = new QRDecompositionHouseholder_DDRM();
+      var qrStorage = Sbar.transpose().getStorage();
+      assertTrue(qr.decompose(qrStorage.getDDRM()));
+
+      Matrix<C, C> newS = new Matrix<>(new SimpleMatrix(qr.getR(null, true)));
+      newS.rankUpdate(sigmas.extractColumnVector(0).minus(x), Wc.get(0, 0), false);
+      return new Pair<>(x, newS);
+    }
+
+    void predict(Matrix<Inputs, N1> u, double dtSeconds) {
+      Matrix<States, States> contA =
+          NumericalJacobian.numericalJacobianX(m_states, m_states, m_f, m_xHat, u);
+      var discQ = Discretization.discretizeAQ(contA, m_contQ, dtSeconds).getSecond();
+      var squareRootDiscQ = discQ.lltDecompose(true);
+
+      var sigmas = m_pts.squareRootSigmaPoints(m_xHat, m_S);
+      for (int i = 0; i < m_pts.getNumSigmas(); ++i) {
+        Matrix<States, N1> x = sigmas.extractColumnVector(i);
+        m_sigmasF.setColumn(i, NumericalIntegration.rk4(m_f, x, u, dtSeconds));
+      }
+
+      var ret = transform(m_states, m_sigmasF, squareRootDiscQ);
+      m_xHat = ret.getFirst();
+      m_S = ret.getSecond();
+      m_dtSeconds = dtSeconds;
+    }
+
+    void correct(Matrix<Inputs, N1> u, Matrix<Outputs, N1> y) {
+      correct(m_outputs, u, y, m_h, m_contR);
+    }
+
+    <R extends Num> void correct(
+        Nat<R> rows,
+        Matrix<Inputs, N1> u,
+        Matrix<R, N1> y,
+        BiFunction<Matrix<States, N1>, Matrix<Inputs, N1>, Matrix<R, N1>> h,
+        Matrix<R, R> R) {
+      final var discR = Discretization.discretizeR(R, m_dtSeconds);
+      final var squareRootDiscR = discR.lltDecompose(true);
+
+      Matrix<R, ?> sigmasH =
+          new Matrix<>(new SimpleMatrix(rows.getNum(), 2 * m_states.getNum() + 1));
+      var sigmas = m_pts.squareRootSigmaPoints(m_xHat, m_S);
+      for (int i = 0; i < m_pts.getNumSigmas(); i++) {
+        sigmasH.setColumn(i, h.apply(sigmas.extractColumnVector(i), u));
+      }
+
+      var transRet = transform(rows, sigmasH, squareRootDiscR);
+      var yHat = transRet.getFirst();
+      var Sy = transRet.getSecond();
+
+      Matrix<States, R> Pxy = new Matrix<>(m_states, rows);
+      for (int i = 0; i < m_pts.getNumSigmas(); i++) {
+        var dx = m_sigmasF.extractColumnVector(i).minus(m_xHat);
+        var dy = sigmasH.extractColumnVector(i).minus(yHat).transpose();
+        Pxy = Pxy.plus(dx.times(dy).times(m_pts.getWc(i)));
+      }
+
+      Matrix<States, R> K =
+          Sy.transpose()
+              .solveFullPivHouseholderQr(Sy.solveFullPivHouseholderQr(Pxy.transpose()))
+              .transpose();
+
+      m_xHat = m_xHat.plus(K.times(y.minus(yHat)));
+
+      Matrix<States, R> U = K.times(Sy);
+      for (int i = 0; i < rows.getNum(); i++) {
+        m_S.rankUpdate(U.extractColumnVector(i), -1, false);
+      }
+    }
+  }
+
+  @Test
+  void testMatchesAllocatingImplementation() {
+    double dtSeconds = 0.005;
+    var u = VecBuilder.fill(12.0, 11.0);
+    var globalR =
+        StateSpaceUtil.makeCovarianceMatrix(Nat.N5(), VecBuilder.fill(0.1, 0.1, 0.1, 0.5, 0.5));
+
+    UnscentedKalmanFilter<N5, N2, N3> observer =
+        new UnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+    AllocatingUnscentedKalmanFilter<N5, N2, N3> reference =
+        new AllocatingUnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+
+    var initialXhat = VecBuilder.fill(1.0, 2.0, 0.5, 0.1, 0.2);
+    observer.setXhat(initialXhat.copy());
+    reference.m_xHat = initialXhat.copy();
+
+    for (int i = 0; i < 10; i++) {
+      observer.predict(u, dtSeconds);
+      reference.predict(u, dtSeconds);
+
+      assertArrayEquals(reference.m_xHat.getData(), observer.getXhat().getData(), 0.0);
+      assertArrayEquals(reference.m_S.getData(), observer.getS().getData(), 0.0);
+
+      var localY = VecBuilder.fill(0.5 + 0.01 * i, 1.0, 1.1);
+      observer.correct(u, localY);
+      reference.correct(u, localY);
+
+      assertArrayEquals(reference.m_xHat.getData(), observer.getXhat().getData(), 0.0);
+      assertArrayEquals(reference.m_S.getData(), observer.getS().getData(), 0.0);
+
+      var globalY = VecBuilder.fill(1.0 + 0.01 * i, 2.0, 0.5 + 0.01 * i, 1.0, 1.1);
+      observer.correct(
+          Nat.N5(), u, globalY, UnscentedKalmanFilterTest::getGlobalMeasurementModel, globalR);
+      reference.correct(
+          Nat.N5(), u, globalY, UnscentedKalmanFilterTest::getGlobalMeasurementModel, globalR);
+
+      assertArrayEquals(reference.m_xHat.getData(), observer.getXhat().getData(), 0.0);
+      assertArrayEquals(reference.m_S.getData(), observer.getS().getData(), 0.0);
+    }
+  }
+
+  @Test
+  void testPredictAfterSetLowerTriangularS() {
+    double dtSeconds = 0.005;
+    var u = VecBuilder.fill(12.0, 11.0);
+
+    UnscentedKalmanFilter<N5, N2, N3> observer =
+        new UnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+    AllocatingUnscentedKalmanFilter<N5, N2, N3> reference =
+        new AllocatingUnscentedKalmanFilter<>(
+            Nat.N5(),
+            Nat.N3(),
+            UnscentedKalmanFilterTest::getDynamics,
+            UnscentedKalmanFilterTest::getLocalMeasurementModel,
+            VecBuilder.fill(0.5, 0.5, 10.0, 1.0, 1.0),
+            VecBuilder.fill(0.0001, 0.5, 0.5),
+            dtSeconds);
+
+    // A lower-triangular square root of P, e.g. from lltDecompose(true)
+    var lower = new Matrix<>(Nat.N5(), Nat.N5());
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        lower.set(row, col, row == col ? 1.0 : 0.1 * (row + col));
+      }
+    }
+    observer.setS(lower);
+    reference.m_S = lower.copy();
+
+    observer.predict(u, dtSeconds);
+    reference.predict(u, dtSeconds);
+
+    // S is upper triangular again, with no entries left over from the lower-triangular input
+    for (int row = 1; row < 5; row++) {
+      for (int col = 0; col < row; col++) {
+        assertEquals(0.0, observer.getS(row, col), 0.0);
+      }
+    }
+    assertArrayEquals(reference.m_xHat.getData(), observer.getXhat().getData(), 0.0);
+    assertArrayEquals(reference.m_S.getData(), observer.getS().getData(), 0.0);
+  }
 }
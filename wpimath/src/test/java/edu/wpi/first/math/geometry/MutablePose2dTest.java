@@ -0,0 +1,101 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.math.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class MutablePose2dTest {
+  private static final Pose2d kInitial =
+      new Pose2d(new Translation2d(1.0, 2.0), Rotation2d.fromDegrees(45.0));
+  private static final Pose2d kLast =
+      new Pose2d(new Translation2d(-3.0, 0.5), Rotation2d.fromDegrees(-110.0));
+
+  // The mutable types must produce exactly the same values as the immutable ones
+  private static void assertPoseEquals(Pose2d expected, Pose2d actual) {
+    assertAll(
+        () -> assertEquals(expected.getX(), actual.getX()),
+        () -> assertEquals(expected.getY(), actual.getY()),
+        () -> assertEquals(expected.getRotation().getRadians(), actual.getRotation().getRadians()),
+        () -> assertEquals(expected.getRotation().getCos(), actual.getRotation().getCos()),
+        () -> assertEquals(expected.getRotation().getSin(), actual.getRotation().getSin()));
+  }
+
+  @Test
+  void testTransformBy() {
+    var transform = new Transform2d(new Translation2d(5.0, 0.0), Rotation2d.fromDegrees(5.0));
+
+    var pose = new MutablePose2d(kInitial);
+    assertSame(pose, pose.plus(transform));
+    assertPoseEquals(kInitial.plus(transform), pose.toPose2d());
+
+    pose.set(kInitial).plus(new MutableTransform2d(transform));
+    assertPoseEquals(kInitial.plus(transform), pose.toPose2d());
+  }
+
+  @Test
+  void testRelativeTo() {
+    var pose = new MutablePose2d(kLast).relativeTo(kInitial);
+    assertPoseEquals(kLast.relativeTo(kInitial), pose.toPose2d());
+
+    pose.set(kLast).relativeTo(new MutablePose2d(kInitial));
+    assertPoseEquals(kLast.relativeTo(kInitial), pose.toPose2d());
+  }
+
+  @Test
+  void testMinus() {
+    var expected = kLast.minus(kInitial);
+    var transform = new MutableTransform2d().set(kInitial, kLast);
+
+    assertAll(
+        () -> assertEquals(expected.getX(), transform.getX()),
+        () -> assertEquals(expected.getY(), transform.getY()),
+        () ->
+            assertEquals(
+                expected.getRotation().getRadians(), transform.getRotation().getRadians()));
+  }
+
+  @Test
+  void testExpAndLog() {
+    var twist = new Twist2d(1.0, 0.2, Math.toRadians(30.0));
+
+    var pose = new MutablePose2d(kInitial).exp(twist);
+    assertPoseEquals(kInitial.exp(twist), pose.toPose2d());
+
+    var expected = kInitial.log(kLast);
+    var output = new Twist2d();
+    assertSame(output, new MutablePose2d(kInitial).log(kLast, output));
+    assertAll(
+        () -> assertEquals(expected.dx, output.dx),
+        () -> assertEquals(expected.dy, output.dy),
+        () -> assertEquals(expected.dtheta, output.dtheta));
+  }
+
+  @Test
+  void testExpStraightLine() {
+    var twist = new Twist2d(2.0, 0.0, 0.0);
+
+    var pose = new MutablePose2d(kInitial).exp(twist);
+    assertPoseEquals(kInitial.exp(twist), pose.toPose2d());
+  }
+
+  @Test
+  void testRotationOps() {
+    var a = Rotation2d.fromDegrees(170.0);
+    var b = Rotation2d.fromDegrees(-35.0);
+
+    var rotation = new MutableRotation2d(a).rotateBy(b);
+    assertEquals(a.plus(b).getRadians(), rotation.getRadians());
+
+    rotation.set(a).minus(b);
+    assertEquals(a.minus(b).getRadians(), rotation.getRadians());
+
+    rotation.set(a).unaryMinus();
+    assertEquals(a.unaryMinus().getRadians(), rotation.getRadians());
+  }
+}
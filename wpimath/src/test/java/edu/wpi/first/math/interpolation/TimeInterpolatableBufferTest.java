@@ -5,6 +5,8 @@
 package edu.wpi.first.math.interpolation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -61,4 +63,36 @@ class TimeInterpolatableBufferTest {
     assertEquals(1.0 / Math.sqrt(2.0), sample.getTranslation().getY(), 0.01);
     assertEquals(45.0, sample.getRotation().getDegrees(), 0.01);
   }
+
+  @Test
+  void testOutOfOrderAndEviction() {
+    TimeInterpolatableBuffer<Double> buffer = TimeInterpolatableBuffer.createDoubleBuffer(1.0);
+
+    // Add enough samples to wrap around and grow the ring buffer, with some out of order
+    for (int i = 0; i < 100; i++) {
+      double time = i * 0.02;
+      buffer.addSample(time, time);
+      if (i % 10 == 5) {
+        buffer.addSample(time - 0.03, time - 0.03);
+      }
+    }
+
+    // Samples older than 1 second before the newest sample are evicted
+    assertEquals(1.0, buffer.getTimestamp(0), 1e-9);
+    for (int i = 1; i < buffer.size(); i++) {
+      assertTrue(buffer.getTimestamp(i) > buffer.getTimestamp(i - 1));
+      assertEquals(buffer.getTimestamp(i), buffer.getValue(i), 1e-9);
+    }
+    assertEquals(1.98, buffer.getTimestamp(buffer.size() - 1), 1e-9);
+    assertEquals(1.51, buffer.getSample(1.51).get(), 1e-9);
+    assertEquals(buffer.size(), buffer.getInternalBuffer().size());
+
+    assertEquals(0, buffer.ceilingIndex(0.0));
+    assertEquals(buffer.size(), buffer.ceilingIndex(2.0));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.getValue(buffer.size()));
+
+    buffer.clear();
+    assertEquals(0, buffer.size());
+    assertTrue(buffer.getSample(1.0).isEmpty());
+  }
 }
@@ -0,0 +1,148 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the allocating StructBuffer array APIs with the batch APIs that reuse caller-owned
+ * objects and buffers. Run with -prof gc to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StructBufferBenchmark {
+  /** Mutable struct type, similar to a swerve module state. */
+  public static final class ModuleState {
+    double m_speed;
+    double m_angle;
+  }
+
+  /** Struct implementation for ModuleState. */
+  public static final class ModuleStateStruct implements Struct<ModuleState> {
+    @Override
+    public Class<ModuleState> getTypeClass() {
+      return ModuleState.class;
+    }
+
+    @Override
+    public String getTypeString() {
+      return "struct:ModuleState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 2;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double speed;double angle";
+    }
+
+    @Override
+    public ModuleState unpack(ByteBuffer bb) {
+      ModuleState state = new ModuleState();
+      unpackInto(state, bb);
+      return state;
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, ModuleState value) {
+      bb.putDouble(value.m_speed);
+      bb.putDouble(value.m_angle);
+    }
+
+    @Override
+    public void unpackInto(ModuleState out, ByteBuffer bb) {
+      out.m_speed = bb.getDouble();
+      out.m_angle = bb.getDouble();
+    }
+  }
+
+  @Param({"4", "32"})
+  public int m_count;
+
+  private StructBuffer<ModuleState> m_buf;
+  private ModuleState[] m_values;
+  private ByteBuffer m_serialized;
+  private ByteBuffer m_out;
+
+  /** Creates the values and their serialized form. */
+  @Setup
+  public void setup() {
+    m_buf = StructBuffer.create(new ModuleStateStruct());
+    m_values = new ModuleState[m_count];
+    for (int i = 0; i < m_count; i++) {
+      m_values[i] = new ModuleState();
+      m_values[i].m_speed = i;
+      m_values[i].m_angle = -i;
+    }
+    ByteBuffer bb = m_buf.writeArray(m_values);
+    m_serialized = ByteBuffer.allocateDirect(bb.position()).order(ByteOrder.LITTLE_ENDIAN);
+    m_serialized.put(bb.flip()).flip();
+    m_out = ByteBuffer.allocateDirect(bb.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Deserializes into a new array of new objects.
+   *
+   * @return deserialized array
+   */
+  @Benchmark
+  public ModuleState[] readArray() {
+    return m_buf.readArray(m_serialized.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+  }
+
+  /**
+   * Deserializes into the existing objects.
+   *
+   * @return deserialized array
+   */
+  @Benchmark
+  public ModuleState[] readArrayInto() {
+    m_serialized.position(0);
+    m_buf.readArrayInto(m_values, m_serialized);
+    return m_values;
+  }
+
+  /**
+   * Serializes the whole array into the internal buffer.
+   *
+   * @return serialized data
+   */
+  @Benchmark
+  public ByteBuffer writeArray() {
+    return m_buf.writeArray(m_values);
+  }
+
+  /**
+   * Serializes the array into a caller-owned buffer.
+   *
+   * @return serialized data
+   */
+  @Benchmark
+  public ByteBuffer writeArrayInto() {
+    m_out.clear();
+    m_buf.writeArrayInto(m_out, m_values, 0, m_count);
+    return m_out;
+  }
+}
@@ -0,0 +1,748 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import edu.wpi.first.util.struct.BadSchemaException;
+import edu.wpi.first.util.struct.CompiledStruct;
+import edu.wpi.first.util.struct.StructDescriptorDatabase;
+import edu.wpi.first.util.struct.StructFieldType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar export of the numeric entries of a data log. Every numeric entry becomes a column
+ * consisting of two primitive arrays: a timestamp array and a value array, both sorted by
+ * timestamp. Columns are stored in a single file and memory-mapped, so range queries return
+ * zero-copy DoubleBuffer/LongBuffer views that can be handed directly to plotting or analysis code.
+ *
+ * <p>The following entry types are exported:
+ *
+ * <ul>
+ *   <li>"double" and "float" entries, as double columns
+ *   <li>"int64" and "boolean" entries, as long columns (booleans are stored as 0 or 1)
+ *   <li>"struct:Name" entries, expanded into one column per numeric struct field using the struct
+ *       schemas stored in the log. Columns are named "entry/field", "entry/field[i]" for array
+ *       fields, and "entry/field/subfield" for nested structs.
+ * </ul>
+ *
+ * <p>The export makes two passes over the log with a DataLogCursor: the first counts records and
+ * collects struct schemas, the second writes values directly into the mapped output file. Memory
+ * use is therefore independent of the log size. Entries that are finished and restarted with the
+ * same name and type are merged into the same column.
+ */
+public final class DataLogColumnStore {
+  private static final byte[] kMagic = {'W', 'P', 'I', 'L', 'O', 'G', 'C', 'L'};
+  private static final int kVersion = 1;
+  private static final int kHeaderSize = 24;
+  private static final String kSchemaPrefix = "/.schema/struct:";
+  private static final String kStructPrefix = "struct:";
+  private static final int kSortBlockSize = 20;
+
+  private final Map<String, Column> m_columns;
+
+  private DataLogColumnStore(Map<String, Column> columns) {
+    m_columns = Collections.unmodifiableMap(columns);
+  }
+
+  /** A single exported column. */
+  public static final class Column {
+    private final String m_name;
+    private final boolean m_isDouble;
+    private final LongBuffer m_timestamps;
+    private final ByteBuffer m_values;
+
+    private Column(String name, boolean isDouble, LongBuffer timestamps, ByteBuffer values) {
+      m_name = name;
+      m_isDouble = isDouble;
+      m_timestamps = timestamps;
+      m_values = values;
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return column name
+     */
+    public String getName() {
+      return m_name;
+    }
+
+    /**
+     * Returns true if values are stored as doubles (double and float entries and struct fields),
+     * false if values are stored as longs (integer and boolean entries and struct fields).
+     *
+     * @return True if double column, false if long column
+     */
+    public boolean isDouble() {
+      return m_isDouble;
+    }
+
+    /**
+     * Gets the number of values in the column.
+     *
+     * @return number of values
+     */
+    public int size() {
+      return m_timestamps.limit();
+    }
+
+    /**
+     * Finds the index of the first value with a timestamp greater than or equal to the given
+     * timestamp.
+     *
+     * @param timestamp timestamp, in integer microseconds
+     * @return index, or size() if all values are earlier
+     */
+    public int find(long timestamp) {
+      int lo = 0;
+      int hi = m_timestamps.limit();
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (m_timestamps.get(mid) < timestamp) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    /**
+     * Gets all timestamps in the column.
+     *
+     * @return read-only view of the timestamps, in integer microseconds
+     */
+    public LongBuffer getTimestamps() {
+      return m_timestamps.duplicate();
+    }
+
+    /**
+     * Gets the timestamps in the range [fromTimestamp, toTimestamp). The returned buffer is index
+     * aligned with the buffer returned by getDoubleValues() or getLongValues() for the same range.
+     *
+     * @param fromTimestamp start timestamp (inclusive), in integer microseconds
+     * @param toTimestamp end timestamp (exclusive), in integer microseconds
+     * @return read-only view of the timestamps
+     */
+    public LongBuffer getTimestamps(long fromTimestamp, long toTimestamp) {
+      int from = find(fromTimestamp);
+      int to = Math.max(from, find(toTimestamp));
+      return m_timestamps.duplicate().position(from).limit(to).slice();
+    }
+
+    /**
+     * Gets all values of a double column.
+     *
+     * @return read-only view of the values
+     * @throws UnsupportedOperationException if the column is not a double column
+     */
+    public DoubleBuffer getDoubleValues() {
+      if (!m_isDouble) {
+        throw new UnsupportedOperationException("column '" + m_name + "' is not a double column");
+      }
+      return m_values.asDoubleBuffer();
+    }
+
+    /**
+     * Gets the values of a double column in the range [fromTimestamp, toTimestamp).
+     *
+     * @param fromTimestamp start timestamp (inclusive), in integer microseconds
+     * @param toTimestamp end timestamp (exclusive), in integer microseconds
+     * @return read-only view of the values
+     * @throws UnsupportedOperationException if the column is not a double column
+     */
+    public DoubleBuffer getDoubleValues(long fromTimestamp, long toTimestamp) {
+      int from = find(fromTimestamp);
+      int to = Math.max(from, find(toTimestamp));
+      return getDoubleValues().position(from).limit(to).slice();
+    }
+
+    /**
+     * Gets all values of a long column.
+     *
+     * @return read-only view of the values
+     * @throws UnsupportedOperationException if the column is not a long column
+     */
+    public LongBuffer getLongValues() {
+      if (m_isDouble) {
+        throw new UnsupportedOperationException("column '" + m_name + "' is not a long column");
+      }
+      return m_values.asLongBuffer();
+    }
+
+    /**
+     * Gets the values of a long column in the range [fromTimestamp, toTimestamp).
+     *
+     * @param fromTimestamp start timestamp (inclusive), in integer microseconds
+     * @param toTimestamp end timestamp (exclusive), in integer microseconds
+     * @return read-only view of the values
+     * @throws UnsupportedOperationException if the column is not a long column
+     */
+    public LongBuffer getLongValues(long fromTimestamp, long toTimestamp) {
+      int from = find(fromTimestamp);
+      int to = Math.max(from, find(toTimestamp));
+      return getLongValues().position(from).limit(to).slice();
+    }
+  }
+
+  /**
+   * Exports the numeric entries of a data log to a column file and memory-maps the result.
+   *
+   * @param reader data log reader
+   * @param filename column filename
+   * @return column store
+   * @throws IllegalArgumentException if the data log is not valid
+   * @throws IOException if unable to write the column file
+   */
+  public static DataLogColumnStore export(DataLogReader reader, String filename)
+      throws IOException {
+    if (!reader.isValid()) {
+      throw new IllegalArgumentException("not a valid data log");
+    }
+
+    // first pass: assign entries to groups, count records, and collect struct schemas
+    StructDescriptorDatabase structs = new StructDescriptorDatabase();
+    Map<String, Group> groups = new LinkedHashMap<>();
+    Group[] byEntry = new Group[16];
+    DataLogCursor cursor = reader.cursor();
+    while (cursor.next()) {
+      if (cursor.isControl()) {
+        byEntry = handleControl(cursor, groups, byEntry, true);
+        continue;
+      }
+      Group group = lookup(byEntry, cursor.getEntry());
+      if (group == null) {
+        continue;
+      }
+      ++group.m_count;
+      if (group.m_schemaName != null) {
+        try {
+          structs.add(group.m_schemaName, cursor.getString());
+        } catch (BadSchemaException ex) {
+          // leave the struct unresolved; entries of that type are not exported
+        }
+      }
+    }
+
+    // resolve columns
+    List<Group> resolved = new ArrayList<>();
+    for (Group group : groups.values()) {
+      if (group.resolve(structs)) {
+        resolved.add(group);
+      }
+    }
+
+    // lay out the file: header, column table, then timestamp and value arrays per column
+    List<byte[]> names = new ArrayList<>();
+    long pos = kHeaderSize;
+    for (Group group : resolved) {
+      for (Leaf leaf : group.m_leaves) {
+        byte[] name = leaf.m_name.getBytes(StandardCharsets.UTF_8);
+        names.add(name);
+        pos += 4 + name.length + 1 + 4 + 8 + 8;
+      }
+    }
+    long tableSize = pos - kHeaderSize;
+    pos = align8(pos);
+    for (Group group : resolved) {
+      for (Leaf leaf : group.m_leaves) {
+        leaf.m_offset = pos;
+        pos += 16L * group.m_count;
+      }
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(
+            Path.of(filename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      // second pass: write values
+      for (Group group : resolved) {
+        for (Leaf leaf : group.m_leaves) {
+          leaf.m_timestamps =
+              mapLongs(channel, FileChannel.MapMode.READ_WRITE, leaf.m_offset, group.m_count);
+          leaf.m_values =
+              mapLongs(
+                  channel,
+                  FileChannel.MapMode.READ_WRITE,
+                  leaf.m_offset + 8L * group.m_count,
+                  group.m_count);
+        }
+        group.m_count = 0;
+      }
+      Arrays.fill(byEntry, null);
+      groups.clear();
+      for (Group group : resolved) {
+        groups.put(group.m_key, group);
+      }
+      cursor = reader.cursor();
+      while (cursor.next()) {
+        if (cursor.isControl()) {
+          byEntry = handleControl(cursor, groups, byEntry, false);
+          continue;
+        }
+        Group group = lookup(byEntry, cursor.getEntry());
+        if (group != null) {
+          group.append(cursor);
+        }
+      }
+
+      // sort out-of-order columns and write the column table
+      ByteBuffer table =
+          channel
+              .map(FileChannel.MapMode.READ_WRITE, 0, kHeaderSize + tableSize)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      table.put(kMagic);
+      table.putInt(kVersion);
+      int numColumns = 0;
+      for (Group group : resolved) {
+        numColumns += group.m_leaves.size();
+      }
+      table.putInt(numColumns);
+      table.putLong(tableSize);
+      int nameIndex = 0;
+      for (Group group : resolved) {
+        for (Leaf leaf : group.m_leaves) {
+          sort(leaf.m_timestamps, leaf.m_values, group.m_count);
+          byte[] name = names.get(nameIndex++);
+          table.putInt(name.length);
+          table.put(name);
+          table.put((byte) (leaf.m_isDouble ? 1 : 0));
+          table.putInt(group.m_count);
+          table.putLong(leaf.m_offset);
+          table.putLong(leaf.m_offset + 8L * leaf.m_timestamps.limit());
+        }
+      }
+    }
+    return load(filename);
+  }
+
+  /**
+   * Loads a previously exported column file by memory-mapping it.
+   *
+   * @param filename column filename
+   * @return column store
+   * @throws IOException if unable to open/read file, or if it is not a valid column file
+   */
+  public static DataLogColumnStore load(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < kHeaderSize) {
+        throw new IOException("column file too short");
+      }
+      ByteBuffer header =
+          channel
+              .map(FileChannel.MapMode.READ_ONLY, 0, kHeaderSize)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < kMagic.length; i++) {
+        if (header.get(i) != kMagic[i]) {
+          throw new IOException("not a data log column file");
+        }
+      }
+      if (header.getInt(8) != kVersion) {
+        throw new IOException("unsupported data log column file version");
+      }
+      int numColumns = header.getInt(12);
+      long tableSize = header.getLong(16);
+      if (numColumns < 0 || tableSize < 0 || kHeaderSize + tableSize > fileSize) {
+        throw new IOException("column file size mismatch");
+      }
+
+      ByteBuffer table =
+          channel
+              .map(FileChannel.MapMode.READ_ONLY, kHeaderSize, tableSize)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      Map<String, Column> columns = new LinkedHashMap<>();
+      try {
+        for (int i = 0; i < numColumns; i++) {
+          byte[] name = new byte[table.getInt()];
+          table.get(name);
+          boolean isDouble = table.get() != 0;
+          int count = table.getInt();
+          long offset = table.getLong();
+          long valuesOffset = table.getLong();
+          if (count < 0
+              || offset < 0
+              || offset + 8L * count > fileSize
+              || valuesOffset < 0
+              || valuesOffset + 8L * count > fileSize) {
+            throw new IOException("column file size mismatch");
+          }
+          LongBuffer timestamps = mapLongs(channel, FileChannel.MapMode.READ_ONLY, offset, count);
+          ByteBuffer values =
+              channel
+                  .map(FileChannel.MapMode.READ_ONLY, valuesOffset, 8L * count)
+                  .order(ByteOrder.LITTLE_ENDIAN)
+                  .asReadOnlyBuffer()
+                  .order(ByteOrder.LITTLE_ENDIAN);
+          String nameStr = new String(name, StandardCharsets.UTF_8);
+          if (columns.containsKey(nameStr)) {
+            throw new IOException("duplicate column name '" + nameStr + "'");
+          }
+          columns.put(
+              nameStr, new Column(nameStr, isDouble, timestamps.asReadOnlyBuffer(), values));
+        }
+      } catch (RuntimeException ex) {
+        throw new IOException("column file table is corrupt", ex);
+      }
+      return new DataLogColumnStore(columns);
+    }
+  }
+
+  /**
+   * Gets the names of all columns, in the order the entries were started in the log.
+   *
+   * @return column names
+   */
+  public List<String> getColumnNames() {
+    return new ArrayList<>(m_columns.keySet());
+  }
+
+  /**
+   * Gets a column by name.
+   *
+   * @param name column name
+   * @return column, or null if no column with that name exists
+   */
+  public Column getColumn(String name) {
+    return m_columns.get(name);
+  }
+
+  private static Group[] handleControl(
+      DataLogCursor cursor, Map<String, Group> groups, Group[] byEntry, boolean create) {
+    if (cursor.isStart()) {
+      DataLogRecord.StartRecordData start;
+      try {
+        start = cursor.toRecord().getStartData();
+      } catch (RuntimeException ex) {
+        return byEntry;
+      }
+      if (start.entry < 0) {
+        return byEntry;
+      }
+      Group group = groups.get(start.name + '\0' + start.type);
+      if (group == null && create && Group.isExportable(start.name, start.type)) {
+        group = new Group(start.name, start.type);
+        groups.put(group.m_key, group);
+      }
+      if (start.entry >= byEntry.length) {
+        byEntry = Arrays.copyOf(byEntry, Math.max(start.entry + 1, byEntry.length * 2));
+      }
+      byEntry[start.entry] = group;
+    } else if (cursor.isFinish()) {
+      int entry = cursor.getControlEntry();
+      if (entry >= 0 && entry < byEntry.length) {
+        byEntry[entry] = null;
+      }
+    }
+    return byEntry;
+  }
+
+  private static Group lookup(Group[] byEntry, int entry) {
+    return entry >= 0 && entry < byEntry.length ? byEntry[entry] : null;
+  }
+
+  /**
+   * Stable sort of the first count elements by timestamp; values are permuted alongside. The sort
+   * works in place on the mapped buffers (insertion sorted blocks merged by rotation), so it needs
+   * no heap storage proportional to the column size. Values are moved as raw bits, so this works
+   * for both column kinds.
+   */
+  private static void sort(LongBuffer timestamps, LongBuffer values, int count) {
+    boolean sorted = true;
+    for (int i = 1; i < count; i++) {
+      if (timestamps.get(i) < timestamps.get(i - 1)) {
+        sorted = false;
+        break;
+      }
+    }
+    if (sorted) {
+      return;
+    }
+
+    int lo = 0;
+    for (; lo + kSortBlockSize <= count; lo += kSortBlockSize) {
+      insertionSort(timestamps, values, lo, lo + kSortBlockSize);
+    }
+    insertionSort(timestamps, values, lo, count);
+    for (int width = kSortBlockSize; width < count; width *= 2) {
+      for (lo = 0; lo + width < count; lo += 2 * width) {
+        int mid = lo + width;
+        // runs that are already in order (the common case for logs) need no merge
+        if (timestamps.get(mid) < timestamps.get(mid - 1)) {
+          merge(timestamps, values, lo, mid, Math.min(lo + 2 * width, count));
+        }
+      }
+    }
+  }
+
+  private static void insertionSort(LongBuffer timestamps, LongBuffer values, int lo, int hi) {
+    for (int i = lo + 1; i < hi; i++) {
+      for (int j = i; j > lo && timestamps.get(j) < timestamps.get(j - 1); j--) {
+        swap(timestamps, values, j, j - 1);
+      }
+    }
+  }
+
+  /** Stable in-place merge of the sorted ranges [lo, mid) and [mid, hi). */
+  private static void merge(LongBuffer timestamps, LongBuffer values, int lo, int mid, int hi) {
+    if (lo >= mid || mid >= hi) {
+      return;
+    }
+    if (mid - lo == 1) {
+      // insert the single left element after all smaller right elements
+      long ts = timestamps.get(lo);
+      int i = lowerBound(timestamps, mid, hi, ts);
+      rotate(timestamps, values, lo, mid, i);
+      return;
+    }
+    if (hi - mid == 1) {
+      // insert the single right element after all left elements that are not larger
+      long ts = timestamps.get(mid);
+      int i = upperBound(timestamps, lo, mid, ts);
+      rotate(timestamps, values, i, mid, hi);
+      return;
+    }
+    int leftCut;
+    int rightCut;
+    if (mid - lo > hi - mid) {
+      leftCut = lo + (mid - lo) / 2;
+      rightCut = lowerBound(timestamps, mid, hi, timestamps.get(leftCut));
+    } else {
+      rightCut = mid + (hi - mid) / 2;
+      leftCut = upperBound(timestamps, lo, mid, timestamps.get(rightCut));
+    }
+    rotate(timestamps, values, leftCut, mid, rightCut);
+    int newMid = leftCut + (rightCut - mid);
+    merge(timestamps, values, lo, leftCut, newMid);
+    merge(timestamps, values, newMid, rightCut, hi);
+  }
+
+  /** Returns the first index in [lo, hi) whose timestamp is not less than ts. */
+  private static int lowerBound(LongBuffer timestamps, int lo, int hi, long ts) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (timestamps.get(mid) < ts) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Returns the first index in [lo, hi) whose timestamp is greater than ts. */
+  private static int upperBound(LongBuffer timestamps, int lo, int hi, long ts) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (timestamps.get(mid) <= ts) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Swaps the ranges [lo, mid) and [mid, hi) by reversing them. */
+  private static void rotate(LongBuffer timestamps, LongBuffer values, int lo, int mid, int hi) {
+    if (lo >= mid || mid >= hi) {
+      return;
+    }
+    reverse(timestamps, values, lo, mid);
+    reverse(timestamps, values, mid, hi);
+    reverse(timestamps, values, lo, hi);
+  }
+
+  private static void reverse(LongBuffer timestamps, LongBuffer values, int lo, int hi) {
+    for (int i = lo, j = hi - 1; i < j; i++, j--) {
+      swap(timestamps, values, i, j);
+    }
+  }
+
+  private static void swap(LongBuffer timestamps, LongBuffer values, int i, int j) {
+    long ts = timestamps.get(i);
+    timestamps.put(i, timestamps.get(j));
+    timestamps.put(j, ts);
+    long value = values.get(i);
+    values.put(i, values.get(j));
+    values.put(j, value);
+  }
+
+  private static long align8(long pos) {
+    return (pos + 7) & ~7L;
+  }
+
+  private static LongBuffer mapLongs(
+      FileChannel channel, FileChannel.MapMode mode, long pos, int count) throws IOException {
+    return channel.map(mode, pos, 8L * count).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+  }
+
+  /** All uses of an entry name and type; written to one or more columns. */
+  private static final class Group {
+    final String m_key;
+    final String m_name;
+    final String m_type;
+    // non-null for struct schema entries
+    final String m_schemaName;
+    final List<Leaf> m_leaves = new ArrayList<>();
+    int m_count;
+    // struct entries
+    byte[] m_structData;
+    ByteBuffer m_structBuf;
+
+    Group(String name, String type) {
+      m_key = name + '\0' + type;
+      m_name = name;
+      m_type = type;
+      if ("structschema".equals(type) && name.startsWith(kSchemaPrefix)) {
+        m_schemaName = name.substring(kSchemaPrefix.length());
+      } else {
+        m_schemaName = null;
+      }
+    }
+
+    static boolean isExportable(String name, String type) {
+      switch (type) {
+        case "double":
+        case "float":
+        case "int64":
+        case "boolean":
+          return true;
+        case "structschema":
+          return name.startsWith(kSchemaPrefix);
+        default:
+          return type.startsWith(kStructPrefix) && !type.endsWith("[]");
+      }
+    }
+
+    /** Builds the leaf columns. Returns false if the group has no columns. */
+    boolean resolve(StructDescriptorDatabase structs) {
+      switch (m_type) {
+        case "double":
+        case "float":
+          m_leaves.add(new Leaf(m_name, true, null));
+          return true;
+        case "int64":
+        case "boolean":
+          m_leaves.add(new Leaf(m_name, false, null));
+          return true;
+        case "structschema":
+          return false;
+        default:
+          break;
+      }
+      CompiledStruct compiled = structs.getCompiled(m_type.substring(kStructPrefix.length()));
+      if (compiled == null) {
+        return false;
+      }
+      // decoding a record is a single copy into m_structData, then one read per leaf
+      m_structData = new byte[compiled.getSize()];
+      m_structBuf = ByteBuffer.wrap(m_structData).order(ByteOrder.LITTLE_ENDIAN);
+      for (CompiledStruct.Accessor accessor : compiled.getAccessors()) {
+        if (accessor.getField().getType() != StructFieldType.kChar) {
+          m_leaves.add(
+              new Leaf(m_name + '/' + accessor.getPath(), accessor.isFloatingPoint(), accessor));
+        }
+      }
+      return !m_leaves.isEmpty();
+    }
+
+    void append(DataLogCursor cursor) {
+      int size = cursor.getSize();
+      long timestamp = cursor.getTimestamp();
+      int index = m_count;
+      if (m_structData != null) {
+        if (size != m_structData.length || index >= m_leaves.get(0).m_timestamps.limit()) {
+          return;
+        }
+        cursor.getRaw(m_structData);
+        for (int i = 0; i < m_leaves.size(); i++) {
+          Leaf leaf = m_leaves.get(i);
+          leaf.m_timestamps.put(index, timestamp);
+          leaf.m_values.put(index, leaf.decodeField(m_structBuf));
+        }
+        ++m_count;
+        return;
+      }
+
+      Leaf leaf = m_leaves.get(0);
+      if (index >= leaf.m_timestamps.limit()) {
+        return;
+      }
+      long value;
+      switch (m_type) {
+        case "double":
+          if (size != 8) {
+            return;
+          }
+          value = Double.doubleToRawLongBits(cursor.getDouble());
+          break;
+        case "float":
+          if (size != 4) {
+            return;
+          }
+          value = Double.doubleToRawLongBits(cursor.getFloat());
+          break;
+        case "int64":
+          if (size != 8) {
+            return;
+          }
+          value = cursor.getInteger();
+          break;
+        default: // boolean
+          if (size != 1) {
+            return;
+          }
+          value = cursor.getBoolean() ? 1 : 0;
+          break;
+      }
+      leaf.m_timestamps.put(index, timestamp);
+      leaf.m_values.put(index, value);
+      ++m_count;
+    }
+  }
+
+  /** A single output column. */
+  private static final class Leaf {
+    final String m_name;
+    final boolean m_isDouble;
+    // struct field source; null for scalar entries
+    final CompiledStruct.Accessor m_accessor;
+    long m_offset;
+    LongBuffer m_timestamps;
+    // values are written as raw bits regardless of column kind
+    LongBuffer m_values;
+
+    Leaf(String name, boolean isDouble, CompiledStruct.Accessor accessor) {
+      m_name = name;
+      m_isDouble = isDouble;
+      m_accessor = accessor;
+    }
+
+    long decodeField(ByteBuffer data) {
+      if (m_isDouble) {
+        return Double.doubleToRawLongBits(m_accessor.getDouble(data, 0));
+      } else {
+        return m_accessor.getLong(data, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,340 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.Map;
+
+/**
+ * Streaming data log rewriter that shrinks logs by dropping redundant data records. The input is
+ * read with a DataLogCursor and the output is written with a DataLogWriter, so memory use is
+ * bounded by the number of entries (the last kept value of each entry) rather than the log size.
+ *
+ * <p>Data records are dropped according to these rules, in order:
+ *
+ * <ul>
+ *   <li>Decimation: only every Nth record of an entry is considered.
+ *   <li>Minimum period: a record is dropped if it is less than the period after the last kept
+ *       record of the entry.
+ *   <li>Duplicates: a record is dropped if its data is identical to the last kept record.
+ *   <li>Deadband: for double, float, and int64 entries, a record is dropped if its value differs
+ *       from the last kept value by no more than the deadband.
+ * </ul>
+ *
+ * <p>Decimation, minimum period, and deadband rules are configured per entry name prefix; when
+ * multiple prefixes match an entry, the longest one applies. Control records (start, finish, and
+ * set metadata) and struct/protobuf schema records are always kept, and all timestamps are
+ * preserved. Entry IDs in the output may differ from the input.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>{@code
+ * DataLogCompactor compactor = new DataLogCompactor()
+ *     .setDeadband("NT:/SmartDashboard/", 1e-3)
+ *     .setMinPeriod("NT:/Vision/", 20000);
+ * compactor.compact("input.wpilog", "output.wpilog");
+ * }</pre>
+ */
+public final class DataLogCompactor {
+  private static final String kSchemaPrefix = "/.schema/";
+
+  private boolean m_dropDuplicates = true;
+  private final Map<String, Double> m_deadbands = new HashMap<>();
+  private final Map<String, Integer> m_decimations = new HashMap<>();
+  private final Map<String, Long> m_minPeriods = new HashMap<>();
+
+  private long m_recordsRead;
+  private long m_recordsWritten;
+
+  /** Per-entry rewrite state. */
+  private static final class EntryState {
+    int m_outputId;
+    boolean m_passThrough;
+    // 0 = raw compare only, 1 = double, 2 = float, 3 = int64
+    int m_numericType;
+    double m_deadband;
+    int m_decimation;
+    long m_minPeriod;
+
+    long m_seen;
+    boolean m_hasLast;
+    long m_lastTimestamp;
+    byte[] m_last = new byte[16];
+    int m_lastLen;
+    byte[] m_scratch = new byte[16];
+  }
+
+  /** Constructs a compactor that only drops duplicate consecutive values. */
+  public DataLogCompactor() {}
+
+  /**
+   * Sets whether data records identical to the previous kept record of the same entry are
+   * dropped. Defaults to true.
+   *
+   * @param drop true to drop duplicate records
+   * @return this
+   */
+  public DataLogCompactor setDropDuplicates(boolean drop) {
+    m_dropDuplicates = drop;
+    return this;
+  }
+
+  /**
+   * Sets a deadband for double, float, and int64 entries whose names start with the given prefix.
+   * A record is dropped if its value is within the deadband of the last kept value.
+   *
+   * @param prefix entry name prefix ("" matches all entries)
+   * @param deadband deadband (absolute value)
+   * @return this
+   */
+  public DataLogCompactor setDeadband(String prefix, double deadband) {
+    m_deadbands.put(prefix, Math.abs(deadband));
+    return this;
+  }
+
+  /**
+   * Sets a decimation factor for entries whose names start with the given prefix. Only every Nth
+   * data record of each matching entry is kept.
+   *
+   * @param prefix entry name prefix ("" matches all entries)
+   * @param factor decimation factor; 1 keeps every record
+   * @return this
+   * @throws IllegalArgumentException if factor is less than 1
+   */
+  public DataLogCompactor setDecimation(String prefix, int factor) {
+    if (factor < 1) {
+      throw new IllegalArgumentException("decimation factor must be at least 1");
+    }
+    m_decimations.put(prefix, factor);
+    return this;
+  }
+
+  /**
+   * Sets a minimum period between kept records for entries whose names start with the given
+   * prefix.
+   *
+   * @param prefix entry name prefix ("" matches all entries)
+   * @param period minimum period, in integer microseconds
+   * @return this
+   */
+  public DataLogCompactor setMinPeriod(String prefix, long period) {
+    m_minPeriods.put(prefix, period);
+    return this;
+  }
+
+  /**
+   * Gets the number of data records read by the last compact() call.
+   *
+   * @return number of data records read
+   */
+  public long getRecordsRead() {
+    return m_recordsRead;
+  }
+
+  /**
+   * Gets the number of data records written by the last compact() call.
+   *
+   * @return number of data records written
+   */
+  public long getRecordsWritten() {
+    return m_recordsWritten;
+  }
+
+  /**
+   * Compacts a log file into a new log file.
+   *
+   * @param inputFilename input log filename
+   * @param outputFilename output log filename; the file is created or truncated
+   * @throws IOException if unable to read the input or write the output
+   */
+  public void compact(String inputFilename, String outputFilename) throws IOException {
+    compact(new DataLogReader(inputFilename), new DataLogFileSink(outputFilename));
+  }
+
+  /**
+   * Compacts a log. The sink is closed when compaction is complete.
+   *
+   * @param reader input log
+   * @param sink output sink
+   * @throws IllegalArgumentException if the input log is not valid
+   */
+  public void compact(DataLogReader reader, DataLogSink sink) {
+    if (!reader.isValid()) {
+      throw new IllegalArgumentException("not a valid data log");
+    }
+    m_recordsRead = 0;
+    m_recordsWritten = 0;
+
+    // timestamps of 0 are preserved rather than replaced with the current time
+    try (DataLogWriter writer = new DataLogWriter(sink, 0.25, reader.getExtraHeader(), () -> 0)) {
+      writer.setBlocking(true);
+      EntryState[] entries = new EntryState[16];
+      DataLogCursor cursor = reader.cursor();
+      while (cursor.next()) {
+        if (cursor.isControl()) {
+          entries = handleControl(writer, cursor, entries);
+          continue;
+        }
+        int entry = cursor.getEntry();
+        EntryState state = entry >= 0 && entry < entries.length ? entries[entry] : null;
+        if (state == null) {
+          continue;
+        }
+        ++m_recordsRead;
+        if (keep(state, cursor)) {
+          writer.appendRaw(
+              state.m_outputId, state.m_last, 0, state.m_lastLen, cursor.getTimestamp());
+          ++m_recordsWritten;
+        }
+      }
+    }
+  }
+
+  private EntryState[] handleControl(
+      DataLogWriter writer, DataLogCursor cursor, EntryState[] entries) {
+    if (cursor.isStart()) {
+      DataLogRecord.StartRecordData start;
+      try {
+        start = cursor.toRecord().getStartData();
+      } catch (RuntimeException ex) {
+        return entries;
+      }
+      if (start.entry <= 0) {
+        return entries;
+      }
+      if (start.entry >= entries.length) {
+        entries = Arrays.copyOf(entries, Math.max(start.entry + 1, entries.length * 2));
+      }
+      EntryState state = new EntryState();
+      state.m_outputId =
+          writer.start(start.name, start.type, start.metadata, cursor.getTimestamp());
+      configure(state, start.name, start.type);
+      entries[start.entry] = state;
+    } else if (cursor.isFinish()) {
+      int entry = cursor.getControlEntry();
+      if (entry > 0 && entry < entries.length && entries[entry] != null) {
+        writer.finish(entries[entry].m_outputId, cursor.getTimestamp());
+        entries[entry] = null;
+      }
+    } else if (cursor.isSetMetadata()) {
+      int entry = cursor.getControlEntry();
+      if (entry > 0 && entry < entries.length && entries[entry] != null) {
+        try {
+          writer.setMetadata(
+              entries[entry].m_outputId,
+              cursor.toRecord().getSetMetadataData().metadata,
+              cursor.getTimestamp());
+        } catch (RuntimeException ex) {
+          // malformed; drop it
+        }
+      }
+    }
+    return entries;
+  }
+
+  private void configure(EntryState state, String name, String type) {
+    state.m_passThrough = name.startsWith(kSchemaPrefix);
+    switch (type) {
+      case "double":
+        state.m_numericType = 1;
+        break;
+      case "float":
+        state.m_numericType = 2;
+        break;
+      case "int64":
+        state.m_numericType = 3;
+        break;
+      default:
+        state.m_numericType = 0;
+        break;
+    }
+    Double deadband = longestMatch(m_deadbands, name);
+    state.m_deadband = deadband != null ? deadband : -1;
+    Integer decimation = longestMatch(m_decimations, name);
+    state.m_decimation = decimation != null ? decimation : 1;
+    Long minPeriod = longestMatch(m_minPeriods, name);
+    state.m_minPeriod = minPeriod != null ? minPeriod : 0;
+  }
+
+  private static <T> T longestMatch(Map<String, T> rules, String name) {
+    T value = null;
+    int len = -1;
+    for (Map.Entry<String, T> rule : rules.entrySet()) {
+      String prefix = rule.getKey();
+      if (prefix.length() > len && name.startsWith(prefix)) {
+        value = rule.getValue();
+        len = prefix.length();
+      }
+    }
+    return value;
+  }
+
+  /** Decides whether to keep the current record. If kept, the record data is left in m_last. */
+  private boolean keep(EntryState state, DataLogCursor cursor) {
+    int size = cursor.getSize();
+    if (state.m_scratch.length < size) {
+      state.m_scratch = new byte[Math.max(size, state.m_scratch.length * 2)];
+    }
+    cursor.getRaw(state.m_scratch);
+
+    if (!state.m_passThrough && state.m_hasLast) {
+      if ((state.m_seen++ % state.m_decimation) != 0) {
+        return false;
+      }
+      if (cursor.getTimestamp() - state.m_lastTimestamp < state.m_minPeriod) {
+        return false;
+      }
+      if (m_dropDuplicates
+          && Arrays.equals(state.m_scratch, 0, size, state.m_last, 0, state.m_lastLen)) {
+        return false;
+      }
+      if (state.m_deadband >= 0 && size == state.m_lastLen && withinDeadband(state, cursor)) {
+        return false;
+      }
+    } else {
+      ++state.m_seen;
+    }
+
+    // swap so the kept record becomes the comparison value
+    byte[] tmp = state.m_last;
+    state.m_last = state.m_scratch;
+    state.m_scratch = tmp;
+    state.m_lastLen = size;
+    state.m_lastTimestamp = cursor.getTimestamp();
+    state.m_hasLast = true;
+    return true;
+  }
+
+  private static boolean withinDeadband(EntryState state, DataLogCursor cursor) {
+    byte[] last = state.m_last;
+    try {
+      switch (state.m_numericType) {
+        case 1:
+          return Math.abs(cursor.getDouble() - Double.longBitsToDouble(readLong(last, 8)))
+              <= state.m_deadband;
+        case 2:
+          return Math.abs(cursor.getFloat() - Float.intBitsToFloat((int) readLong(last, 4)))
+              <= state.m_deadband;
+        case 3:
+          return Math.abs((double) cursor.getInteger() - readLong(last, 8)) <= state.m_deadband;
+        default:
+          return false;
+      }
+    } catch (InputMismatchException ex) {
+      return false;
+    }
+  }
+
+  private static long readLong(byte[] data, int len) {
+    long val = 0;
+    for (int i = 0; i < len; i++) {
+      val |= ((long) (data[i] & 0xff)) << (i * 8);
+    }
+    return val;
+  }
+}
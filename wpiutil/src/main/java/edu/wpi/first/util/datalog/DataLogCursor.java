@@ -0,0 +1,359 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+
+/**
+ * Reusable, allocation-free cursor over the records of a data log. Unlike iterating a
+ * DataLogReader, which creates a DataLogRecord per record, the cursor is a single mutable object
+ * that is moved from record to record with next(); values are decoded directly from the log buffer
+ * into primitives or caller-provided arrays.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>{@code
+ * DataLogCursor cursor = reader.cursor();
+ * double[] values = new double[16];
+ * while (cursor.next()) {
+ *   if (cursor.getEntry() == entry) {
+ *     int len = cursor.getDoubleArray(values);
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ */
+public class DataLogCursor {
+  private static final int kControlStart = 0;
+  private static final int kControlFinish = 1;
+  private static final int kControlSetMetadata = 2;
+
+  DataLogCursor(DataLogReader reader, ByteBuffer buf, int pos) {
+    m_reader = reader;
+    m_buf = buf;
+    m_view = buf.duplicate();
+    m_end = buf.remaining();
+    m_next = pos;
+    m_pos = -1;
+  }
+
+  /**
+   * Advances the cursor to the next record in the log.
+   *
+   * @return True if the cursor is on a record, false if the end of the log (or a truncated record)
+   *     was reached
+   */
+  public boolean next() {
+    int pos = m_next;
+    if (pos >= m_end) {
+      m_pos = -1;
+      return false;
+    }
+    int lenbyte = m_buf.get(pos) & 0xff;
+    int entryLen = (lenbyte & 0x3) + 1;
+    int sizeLen = ((lenbyte >> 2) & 0x3) + 1;
+    int timestampLen = ((lenbyte >> 4) & 0x7) + 1;
+    int headerLen = 1 + entryLen + sizeLen + timestampLen;
+    if (headerLen > m_end - pos) {
+      m_pos = -1;
+      m_next = m_end;
+      return false;
+    }
+    long size = readVarInt(pos + 1 + entryLen, sizeLen);
+    if (size > m_end - pos - headerLen) {
+      m_pos = -1;
+      m_next = m_end;
+      return false;
+    }
+    m_pos = pos;
+    m_entry = (int) readVarInt(pos + 1, entryLen);
+    m_timestamp = readVarInt(pos + 1 + entryLen + sizeLen, timestampLen);
+    m_dataPos = pos + headerLen;
+    m_size = (int) size;
+    m_next = m_dataPos + m_size;
+    return true;
+  }
+
+  /**
+   * Gets the entry ID of the current record.
+   *
+   * @return entry ID
+   */
+  public int getEntry() {
+    return m_entry;
+  }
+
+  /**
+   * Gets the timestamp of the current record.
+   *
+   * @return Timestamp, in integer microseconds
+   */
+  public long getTimestamp() {
+    return m_timestamp;
+  }
+
+  /**
+   * Gets the offset of the current record's data in the log.
+   *
+   * @return offset, in bytes from the start of the log
+   */
+  public int getPayloadOffset() {
+    return m_dataPos;
+  }
+
+  /**
+   * Gets the size of the current record's data.
+   *
+   * @return size, in bytes
+   */
+  public int getSize() {
+    return m_size;
+  }
+
+  /**
+   * Creates a DataLogRecord for the current record. This allocates; it is intended for
+   * infrequently used decodes such as getStartData().
+   *
+   * @return record
+   */
+  public DataLogRecord toRecord() {
+    if (m_pos < 0) {
+      throw new IllegalStateException("cursor is not on a record");
+    }
+    return m_reader.getRecord(m_pos);
+  }
+
+  /**
+   * Returns true if the current record is a control record.
+   *
+   * @return True if control record, false if normal data record.
+   */
+  public boolean isControl() {
+    return m_entry == 0;
+  }
+
+  /**
+   * Returns true if the current record is a start control record.
+   *
+   * @return True if start control record, false otherwise.
+   */
+  public boolean isStart() {
+    return m_entry == 0 && m_size >= 17 && m_buf.get(m_dataPos) == kControlStart;
+  }
+
+  /**
+   * Returns true if the current record is a finish control record.
+   *
+   * @return True if finish control record, false otherwise.
+   */
+  public boolean isFinish() {
+    return m_entry == 0 && m_size == 5 && m_buf.get(m_dataPos) == kControlFinish;
+  }
+
+  /**
+   * Returns true if the current record is a set metadata control record.
+   *
+   * @return True if set metadata control record, false otherwise.
+   */
+  public boolean isSetMetadata() {
+    return m_entry == 0 && m_size >= 9 && m_buf.get(m_dataPos) == kControlSetMetadata;
+  }
+
+  /**
+   * Gets the entry ID a control record applies to (the entry being started, finished, or having
+   * its metadata set).
+   *
+   * @return entry ID
+   * @throws InputMismatchException if not a start, finish, or set metadata record
+   */
+  public int getControlEntry() {
+    if (!isStart() && !isFinish() && !isSetMetadata()) {
+      throw new InputMismatchException("not a control record");
+    }
+    return m_buf.getInt(m_dataPos + 1);
+  }
+
+  /**
+   * Decodes the current record as a boolean.
+   *
+   * @return boolean value
+   * @throws InputMismatchException on error
+   */
+  public boolean getBoolean() {
+    checkSize(1);
+    return m_buf.get(m_dataPos) != 0;
+  }
+
+  /**
+   * Decodes the current record as an integer.
+   *
+   * @return integer value
+   * @throws InputMismatchException on error
+   */
+  public long getInteger() {
+    checkSize(8);
+    return m_buf.getLong(m_dataPos);
+  }
+
+  /**
+   * Decodes the current record as a float.
+   *
+   * @return float value
+   * @throws InputMismatchException on error
+   */
+  public float getFloat() {
+    checkSize(4);
+    return m_buf.getFloat(m_dataPos);
+  }
+
+  /**
+   * Decodes the current record as a double.
+   *
+   * @return double value
+   * @throws InputMismatchException on error
+   */
+  public double getDouble() {
+    checkSize(8);
+    return m_buf.getDouble(m_dataPos);
+  }
+
+  /**
+   * Decodes the current record as a string. Note this allocates a new String.
+   *
+   * @return string value
+   * @throws InputMismatchException if there is no current record
+   */
+  public String getString() {
+    checkSize(0);
+    byte[] arr = new byte[m_size];
+    m_view.position(m_dataPos);
+    m_view.get(arr);
+    return new String(arr, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Copies the raw data of the current record into an array. If the array is too small, only the
+   * first out.length bytes are copied.
+   *
+   * @param out output array
+   * @return size of the raw data, in bytes
+   * @throws InputMismatchException if there is no current record
+   */
+  public int getRaw(byte[] out) {
+    checkSize(0);
+    m_view.position(m_dataPos);
+    m_view.get(out, 0, Math.min(m_size, out.length));
+    return m_size;
+  }
+
+  /**
+   * Decodes the current record as a boolean array into an array. If the array is too small, only
+   * the first out.length elements are decoded.
+   *
+   * @param out output array
+   * @return number of elements in the record
+   * @throws InputMismatchException if there is no current record
+   */
+  public int getBooleanArray(boolean[] out) {
+    checkSize(0);
+    int len = Math.min(m_size, out.length);
+    for (int i = 0; i < len; i++) {
+      out[i] = m_buf.get(m_dataPos + i) != 0;
+    }
+    return m_size;
+  }
+
+  /**
+   * Decodes the current record as an integer array into an array. If the array is too small, only
+   * the first out.length elements are decoded.
+   *
+   * @param out output array
+   * @return number of elements in the record
+   * @throws InputMismatchException if there is no current record or the data size is not a
+   *     multiple of 8
+   */
+  public int getIntegerArray(long[] out) {
+    int size = elementCount(8);
+    int len = Math.min(size, out.length);
+    for (int i = 0; i < len; i++) {
+      out[i] = m_buf.getLong(m_dataPos + i * 8);
+    }
+    return size;
+  }
+
+  /**
+   * Decodes the current record as a float array into an array. If the array is too small, only the
+   * first out.length elements are decoded.
+   *
+   * @param out output array
+   * @return number of elements in the record
+   * @throws InputMismatchException if there is no current record or the data size is not a
+   *     multiple of 4
+   */
+  public int getFloatArray(float[] out) {
+    int size = elementCount(4);
+    int len = Math.min(size, out.length);
+    for (int i = 0; i < len; i++) {
+      out[i] = m_buf.getFloat(m_dataPos + i * 4);
+    }
+    return size;
+  }
+
+  /**
+   * Decodes the current record as a double array into an array. If the array is too small, only
+   * the first out.length elements are decoded.
+   *
+   * @param out output array
+   * @return number of elements in the record
+   * @throws InputMismatchException if there is no current record or the data size is not a
+   *     multiple of 8
+   */
+  public int getDoubleArray(double[] out) {
+    int size = elementCount(8);
+    int len = Math.min(size, out.length);
+    for (int i = 0; i < len; i++) {
+      out[i] = m_buf.getDouble(m_dataPos + i * 8);
+    }
+    return size;
+  }
+
+  private void checkSize(int size) {
+    if (m_pos < 0 || m_size < size) {
+      throw new InputMismatchException();
+    }
+  }
+
+  private int elementCount(int elementSize) {
+    checkSize(0);
+    if ((m_size % elementSize) != 0) {
+      throw new InputMismatchException("data size is not a multiple of " + elementSize);
+    }
+    return m_size / elementSize;
+  }
+
+  private long readVarInt(int pos, int len) {
+    long val = 0;
+    for (int i = 0; i < len; i++) {
+      val |= ((long) (m_buf.get(pos + i) & 0xff)) << (i * 8);
+    }
+    return val;
+  }
+
+  private final DataLogReader m_reader;
+  private final ByteBuffer m_buf;
+  // for relative bulk gets, so m_buf's position is never changed
+  private final ByteBuffer m_view;
+  private final int m_end;
+  private int m_next;
+
+  // current record
+  private int m_pos;
+  private int m_entry;
+  private long m_timestamp;
+  private int m_dataPos;
+  private int m_size;
+}
@@ -0,0 +1,174 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Fork/join task that decodes a range of a data log. Ranges larger than the leaf size are split at
+ * record boundaries and decoded in parallel; the decoded values of each range are returned sorted
+ * by record timestamp (ties are kept in file order).
+ */
+final class DataLogDecodeTask<T> extends RecursiveTask<DataLogDecodeTask.Chunk> {
+  private static final long serialVersionUID = 1L;
+
+  /** Decoded values with their record timestamps. */
+  @SuppressWarnings("MemberName")
+  static final class Chunk {
+    Chunk(long[] timestamps, Object[] values, int count) {
+      this.timestamps = timestamps;
+      this.values = values;
+      this.count = count;
+    }
+
+    final long[] timestamps;
+    final Object[] values;
+    final int count;
+  }
+
+  DataLogDecodeTask(
+      DataLogSpliterator spliterator,
+      Function<? super DataLogRecord, ? extends T> decoder,
+      long leafSize) {
+    m_spliterator = spliterator;
+    m_decoder = decoder;
+    m_leafSize = leafSize;
+  }
+
+  @Override
+  protected Chunk compute() {
+    if (m_spliterator.estimateSize() > m_leafSize) {
+      DataLogSpliterator prefix = m_spliterator.trySplit();
+      if (prefix != null) {
+        var left = new DataLogDecodeTask<T>(prefix, m_decoder, m_leafSize);
+        left.fork();
+        Chunk right = compute();
+        return merge(left.join(), right);
+      }
+    }
+    return decodeLeaf();
+  }
+
+  private Chunk decodeLeaf() {
+    m_timestamps = new long[256];
+    m_values = new Object[256];
+    m_spliterator.forEachRemaining(this::add);
+    return sort(m_timestamps, m_values, m_count);
+  }
+
+  private void add(DataLogRecord record) {
+    T value = m_decoder.apply(record);
+    if (value == null) {
+      return;
+    }
+    if (m_count == m_values.length) {
+      m_timestamps = Arrays.copyOf(m_timestamps, m_count * 2);
+      m_values = Arrays.copyOf(m_values, m_count * 2);
+    }
+    m_timestamps[m_count] = record.getTimestamp();
+    m_values[m_count] = value;
+    ++m_count;
+  }
+
+  /** Stable bottom-up merge sort by timestamp. */
+  private static Chunk sort(long[] timestamps, Object[] values, int count) {
+    boolean sorted = true;
+    for (int i = 1; i < count; i++) {
+      if (timestamps[i] < timestamps[i - 1]) {
+        sorted = false;
+        break;
+      }
+    }
+    if (sorted) {
+      return new Chunk(timestamps, values, count);
+    }
+
+    long[] srcTs = timestamps;
+    Object[] srcValues = values;
+    long[] dstTs = new long[count];
+    Object[] dstValues = new Object[count];
+    for (int width = 1; width < count; width *= 2) {
+      for (int lo = 0; lo < count; lo += 2 * width) {
+        int mid = Math.min(lo + width, count);
+        int hi = Math.min(lo + 2 * width, count);
+        mergeRuns(srcTs, srcValues, lo, mid, srcTs, srcValues, mid, hi, dstTs, dstValues, lo);
+      }
+      long[] tmpTs = srcTs;
+      srcTs = dstTs;
+      dstTs = tmpTs;
+      Object[] tmpValues = srcValues;
+      srcValues = dstValues;
+      dstValues = tmpValues;
+    }
+    return new Chunk(srcTs, srcValues, count);
+  }
+
+  private static Chunk merge(Chunk left, Chunk right) {
+    if (left.count == 0) {
+      return right;
+    }
+    if (right.count == 0) {
+      return left;
+    }
+    int count = left.count + right.count;
+    long[] timestamps = new long[count];
+    Object[] values = new Object[count];
+    mergeRuns(
+        left.timestamps,
+        left.values,
+        0,
+        left.count,
+        right.timestamps,
+        right.values,
+        0,
+        right.count,
+        timestamps,
+        values,
+        0);
+    return new Chunk(timestamps, values, count);
+  }
+
+  /** Merges two sorted runs; on equal timestamps, elements of the first run come first. */
+  private static void mergeRuns(
+      long[] ts1,
+      Object[] values1,
+      int i,
+      int end1,
+      long[] ts2,
+      Object[] values2,
+      int j,
+      int end2,
+      long[] dstTs,
+      Object[] dstValues,
+      int k) {
+    while (i < end1 && j < end2) {
+      if (ts2[j] < ts1[i]) {
+        dstTs[k] = ts2[j];
+        dstValues[k++] = values2[j++];
+      } else {
+        dstTs[k] = ts1[i];
+        dstValues[k++] = values1[i++];
+      }
+    }
+    int n1 = end1 - i;
+    System.arraycopy(ts1, i, dstTs, k, n1);
+    System.arraycopy(values1, i, dstValues, k, n1);
+    k += n1;
+    int n2 = end2 - j;
+    System.arraycopy(ts2, j, dstTs, k, n2);
+    System.arraycopy(values2, j, dstValues, k, n2);
+  }
+
+  private final transient DataLogSpliterator m_spliterator;
+  private final transient Function<? super DataLogRecord, ? extends T> m_decoder;
+  private final long m_leafSize;
+
+  // leaf decode state
+  private long[] m_timestamps;
+  private Object[] m_values;
+  private int m_count;
+}
@@ -0,0 +1,58 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** DataLogWriter sink that writes to a file channel. */
+public class DataLogFileSink implements DataLogSink {
+  /**
+   * Constructs a sink that creates (or truncates) a file.
+   *
+   * @param filename filename
+   * @throws IOException if unable to open file
+   */
+  public DataLogFileSink(String filename) throws IOException {
+    this(
+        FileChannel.open(
+            Path.of(filename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE));
+  }
+
+  /**
+   * Constructs a sink that writes to an already open file channel. The channel is closed when the
+   * sink is closed.
+   *
+   * @param channel file channel
+   */
+  public DataLogFileSink(FileChannel channel) {
+    m_channel = channel;
+  }
+
+  @Override
+  public void write(ByteBuffer data) throws IOException {
+    while (data.hasRemaining()) {
+      m_channel.write(data);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    m_channel.force(false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    m_channel.close();
+  }
+
+  private final FileChannel m_channel;
+}
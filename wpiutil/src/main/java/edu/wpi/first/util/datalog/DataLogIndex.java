@@ -0,0 +1,561 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Timestamp index for a data log. The index is built with a single pass over a DataLogReader and
+ * stores, for every record, its timestamp and its offset in the log. Records are ordered by
+ * timestamp both globally and per entry, so seeking to a point in time or retrieving a range of
+ * records for a single entry takes O(log n) time instead of a scan of the whole log.
+ *
+ * <p>An index can be saved to a sidecar file with save() and reloaded with load(); loaded indices
+ * are memory-mapped, so opening a previously indexed log is effectively free.
+ *
+ * <p>Note entry IDs may be reused in a log after the entry is finished; records for all uses of an
+ * entry ID are indexed under that ID. Control records are indexed under entry ID 0.
+ */
+public final class DataLogIndex {
+  private static final byte[] kMagic = {'W', 'P', 'I', 'L', 'O', 'G', 'I', 'X'};
+  private static final int kVersion = 1;
+  private static final int kHeaderSize = 32;
+
+  private final DataLogReader m_reader;
+  private final long m_logSize;
+  private final int m_numEntries;
+  private final int m_numRecords;
+
+  // sorted entry IDs
+  private final IntBuffer m_ids;
+  // per-entry start index into m_entryTimestamps/m_entryOffsets; m_numEntries + 1 elements
+  private final IntBuffer m_starts;
+  // records grouped by entry, sorted by timestamp within each entry
+  private final LongBuffer m_entryTimestamps;
+  private final IntBuffer m_entryOffsets;
+  // all records sorted by timestamp
+  private final LongBuffer m_timestamps;
+  private final IntBuffer m_offsets;
+
+  private DataLogIndex(
+      DataLogReader reader,
+      long logSize,
+      IntBuffer ids,
+      IntBuffer starts,
+      LongBuffer entryTimestamps,
+      IntBuffer entryOffsets,
+      LongBuffer timestamps,
+      IntBuffer offsets) {
+    m_reader = reader;
+    m_logSize = logSize;
+    m_numEntries = ids.limit();
+    m_numRecords = timestamps.limit();
+    m_ids = ids;
+    m_starts = starts;
+    m_entryTimestamps = entryTimestamps;
+    m_entryOffsets = entryOffsets;
+    m_timestamps = timestamps;
+    m_offsets = offsets;
+  }
+
+  /**
+   * Builds an index by reading every record header in the log. Record data is not decoded.
+   *
+   * @param reader data log reader
+   * @return index
+   * @throws IllegalArgumentException if the data log is not valid
+   */
+  public static DataLogIndex build(DataLogReader reader) {
+    if (!reader.isValid()) {
+      throw new IllegalArgumentException("not a valid data log");
+    }
+
+    // collect record headers in file order
+    int size = reader.size();
+    int capacity = 1024;
+    long[] timestamps = new long[capacity];
+    int[] offsets = new int[capacity];
+    int[] entries = new int[capacity];
+    int count = 0;
+    for (int pos = reader.getFirstRecord(); pos < size; ) {
+      int next;
+      try {
+        next = reader.getNextRecord(pos);
+      } catch (IndexOutOfBoundsException ex) {
+        break;
+      }
+      if (next > size || next <= pos) {
+        break; // truncated record
+      }
+      if (count == capacity) {
+        capacity = capacity < (Integer.MAX_VALUE >> 1) ? capacity * 2 : Integer.MAX_VALUE - 8;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        entries = Arrays.copyOf(entries, capacity);
+      }
+      timestamps[count] = reader.getRecordTimestamp(pos);
+      offsets[count] = pos;
+      entries[count] = reader.getRecordEntry(pos);
+      ++count;
+      pos = next;
+    }
+
+    // build sorted list of unique entry IDs
+    int[] ids = Arrays.copyOf(entries, count);
+    Arrays.sort(ids);
+    int numEntries = 0;
+    for (int i = 0; i < count; i++) {
+      if (i == 0 || ids[i] != ids[i - 1]) {
+        ids[numEntries++] = ids[i];
+      }
+    }
+    ids = Arrays.copyOf(ids, numEntries);
+
+    // group records by entry (counting sort, which preserves file order within each entry)
+    int[] starts = new int[numEntries + 1];
+    for (int i = 0; i < count; i++) {
+      entries[i] = Arrays.binarySearch(ids, entries[i]);
+      ++starts[entries[i] + 1];
+    }
+    for (int i = 0; i < numEntries; i++) {
+      starts[i + 1] += starts[i];
+    }
+    long[] entryTimestamps = new long[count];
+    int[] entryOffsets = new int[count];
+    int[] fill = Arrays.copyOf(starts, numEntries);
+    for (int i = 0; i < count; i++) {
+      int j = fill[entries[i]]++;
+      entryTimestamps[j] = timestamps[i];
+      entryOffsets[j] = offsets[i];
+    }
+    entries = null;
+
+    // records are not guaranteed to be written in timestamp order
+    for (int i = 0; i < numEntries; i++) {
+      sort(entryTimestamps, entryOffsets, starts[i], starts[i + 1]);
+    }
+    sort(timestamps, offsets, 0, count);
+
+    return new DataLogIndex(
+        reader,
+        size,
+        IntBuffer.wrap(ids),
+        IntBuffer.wrap(starts),
+        LongBuffer.wrap(entryTimestamps),
+        IntBuffer.wrap(entryOffsets),
+        LongBuffer.wrap(timestamps, 0, count).slice(),
+        IntBuffer.wrap(offsets, 0, count).slice());
+  }
+
+  /**
+   * Loads a previously saved index by memory-mapping it.
+   *
+   * @param reader data log reader for the log the index was built from
+   * @param filename index filename
+   * @return index
+   * @throws IOException if unable to open/read file, or if the index does not match the log
+   */
+  public static DataLogIndex load(DataLogReader reader, String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < kHeaderSize) {
+        throw new IOException("index file too short");
+      }
+      ByteBuffer header = ByteBuffer.allocate(kHeaderSize).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException("index file too short");
+        }
+      }
+      for (int i = 0; i < kMagic.length; i++) {
+        if (header.get(i) != kMagic[i]) {
+          throw new IOException("not a data log index");
+        }
+      }
+      if (header.getInt(8) != kVersion) {
+        throw new IOException("unsupported data log index version");
+      }
+      int numEntries = header.getInt(12);
+      long logSize = header.getLong(16);
+      int numRecords = header.getInt(24);
+      if (logSize != reader.size()) {
+        throw new IOException("index does not match data log");
+      }
+      if (numEntries < 0 || numRecords < 0 || fileSize != fileSize(numEntries, numRecords)) {
+        throw new IOException("index file size mismatch");
+      }
+
+      long pos = kHeaderSize;
+      IntBuffer ids = mapInts(channel, pos, numEntries);
+      pos += 4L * numEntries;
+      IntBuffer starts = mapInts(channel, pos, numEntries + 1);
+      pos = align8(pos + 4L * (numEntries + 1));
+      LongBuffer entryTimestamps = mapLongs(channel, pos, numRecords);
+      pos += 8L * numRecords;
+      LongBuffer timestamps = mapLongs(channel, pos, numRecords);
+      pos += 8L * numRecords;
+      IntBuffer entryOffsets = mapInts(channel, pos, numRecords);
+      pos += 4L * numRecords;
+      IntBuffer offsets = mapInts(channel, pos, numRecords);
+      return new DataLogIndex(
+          reader, logSize, ids, starts, entryTimestamps, entryOffsets, timestamps, offsets);
+    }
+  }
+
+  /**
+   * Loads a previously saved index if it exists and matches the log; otherwise builds the index
+   * and saves it to the given filename.
+   *
+   * @param reader data log reader
+   * @param filename index filename
+   * @return index
+   * @throws IOException if unable to write the index file
+   */
+  public static DataLogIndex open(DataLogReader reader, String filename) throws IOException {
+    try {
+      return load(reader, filename);
+    } catch (IOException ex) {
+      DataLogIndex index = build(reader);
+      index.save(filename);
+      return index;
+    }
+  }
+
+  /**
+   * Saves the index to a file. The file can be reloaded with load().
+   *
+   * @param filename index filename
+   * @throws IOException if unable to write file
+   */
+  public void save(String filename) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            Path.of(filename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer buf = ByteBuffer.allocateDirect(65536).order(ByteOrder.LITTLE_ENDIAN);
+      buf.put(kMagic);
+      buf.putInt(kVersion);
+      buf.putInt(m_numEntries);
+      buf.putLong(m_logSize);
+      buf.putInt(m_numRecords);
+      buf.putInt(0);
+      writeInts(channel, buf, m_ids, m_numEntries);
+      writeInts(channel, buf, m_starts, m_numEntries + 1);
+      if ((buf.position() % 8) != 0) {
+        buf.putInt(0);
+      }
+      writeLongs(channel, buf, m_entryTimestamps, m_numRecords);
+      writeLongs(channel, buf, m_timestamps, m_numRecords);
+      writeInts(channel, buf, m_entryOffsets, m_numRecords);
+      writeInts(channel, buf, m_offsets, m_numRecords);
+      flush(channel, buf);
+    }
+  }
+
+  /**
+   * Gets the total number of indexed records (including control records).
+   *
+   * @return number of records
+   */
+  public int getRecordCount() {
+    return m_numRecords;
+  }
+
+  /**
+   * Gets the number of indexed records for an entry.
+   *
+   * @param entry entry ID
+   * @return number of records; 0 if the entry does not appear in the log
+   */
+  public int getRecordCount(int entry) {
+    int idx = findEntry(entry);
+    if (idx < 0) {
+      return 0;
+    }
+    return m_starts.get(idx + 1) - m_starts.get(idx);
+  }
+
+  /**
+   * Gets the IDs of all entries that have records in the log, in ascending order.
+   *
+   * @return entry IDs
+   */
+  public int[] getEntries() {
+    int[] ids = new int[m_numEntries];
+    m_ids.duplicate().get(ids);
+    return ids;
+  }
+
+  /**
+   * Gets the earliest record timestamp in the log.
+   *
+   * @return Timestamp, in integer microseconds; 0 if the log has no records
+   */
+  public long getFirstTimestamp() {
+    return m_numRecords == 0 ? 0 : m_timestamps.get(0);
+  }
+
+  /**
+   * Gets the latest record timestamp in the log.
+   *
+   * @return Timestamp, in integer microseconds; 0 if the log has no records
+   */
+  public long getLastTimestamp() {
+    return m_numRecords == 0 ? 0 : m_timestamps.get(m_numRecords - 1);
+  }
+
+  /**
+   * Finds the position in timestamp order of the first record with a timestamp at or after the
+   * given timestamp.
+   *
+   * @param timestamp Timestamp, in integer microseconds
+   * @return Position in [0, getRecordCount()]
+   */
+  public int find(long timestamp) {
+    return lowerBound(m_timestamps, 0, m_numRecords, timestamp);
+  }
+
+  /**
+   * Returns an iterator over all records in timestamp order, starting at the first record with a
+   * timestamp at or after the given timestamp.
+   *
+   * @param timestamp Timestamp, in integer microseconds
+   * @return Iterator
+   */
+  public Iterator<DataLogRecord> seek(long timestamp) {
+    return new RecordIterator(m_offsets, find(timestamp), m_numRecords);
+  }
+
+  /**
+   * Returns the records for a single entry with timestamps in the range [fromTimestamp,
+   * toTimestamp), in timestamp order.
+   *
+   * @param entry entry ID
+   * @param fromTimestamp start timestamp (inclusive), in integer microseconds
+   * @param toTimestamp end timestamp (exclusive), in integer microseconds
+   * @return Iterable over the records
+   */
+  public Iterable<DataLogRecord> recordsFor(int entry, long fromTimestamp, long toTimestamp) {
+    int idx = findEntry(entry);
+    if (idx < 0) {
+      return () -> new RecordIterator(m_entryOffsets, 0, 0);
+    }
+    int start = m_starts.get(idx);
+    int end = m_starts.get(idx + 1);
+    int from = lowerBound(m_entryTimestamps, start, end, fromTimestamp);
+    int to = Math.max(from, lowerBound(m_entryTimestamps, from, end, toTimestamp));
+    return () -> new RecordIterator(m_entryOffsets, from, to);
+  }
+
+  /**
+   * Gets the last record for an entry with a timestamp at or before the given timestamp. This is
+   * the value of the entry as of that time.
+   *
+   * @param entry entry ID
+   * @param timestamp Timestamp, in integer microseconds
+   * @return Record, or null if the entry has no records at or before the timestamp
+   */
+  public DataLogRecord getRecordAt(int entry, long timestamp) {
+    int idx = findEntry(entry);
+    if (idx < 0) {
+      return null;
+    }
+    int start = m_starts.get(idx);
+    int end = m_starts.get(idx + 1);
+    int pos = upperBound(m_entryTimestamps, start, end, timestamp);
+    if (pos == start) {
+      return null;
+    }
+    return m_reader.getRecord(m_entryOffsets.get(pos - 1));
+  }
+
+  private int findEntry(int entry) {
+    int lo = 0;
+    int hi = m_numEntries - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int id = m_ids.get(mid);
+      if (id < entry) {
+        lo = mid + 1;
+      } else if (id > entry) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private static int lowerBound(LongBuffer timestamps, int from, int to, long timestamp) {
+    int lo = from;
+    int hi = to;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (timestamps.get(mid) < timestamp) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static int upperBound(LongBuffer timestamps, int from, int to, long timestamp) {
+    int lo = from;
+    int hi = to;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (timestamps.get(mid) <= timestamp) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Stable sort of [from, to) by timestamp; offsets are permuted alongside. */
+  private static void sort(long[] timestamps, int[] offsets, int from, int to) {
+    boolean sorted = true;
+    for (int i = from + 1; i < to; i++) {
+      if (timestamps[i] < timestamps[i - 1]) {
+        sorted = false;
+        break;
+      }
+    }
+    if (sorted) {
+      return;
+    }
+
+    // bottom-up merge sort
+    int n = to - from;
+    long[] srcTs = Arrays.copyOfRange(timestamps, from, to);
+    int[] srcOff = Arrays.copyOfRange(offsets, from, to);
+    long[] dstTs = new long[n];
+    int[] dstOff = new int[n];
+    for (int width = 1; width < n; width *= 2) {
+      for (int lo = 0; lo < n; lo += 2 * width) {
+        int mid = Math.min(lo + width, n);
+        int hi = Math.min(lo + 2 * width, n);
+        int i = lo;
+        int j = mid;
+        int k = lo;
+        while (i < mid && j < hi) {
+          if (srcTs[j] < srcTs[i]) {
+            dstTs[k] = srcTs[j];
+            dstOff[k++] = srcOff[j++];
+          } else {
+            dstTs[k] = srcTs[i];
+            dstOff[k++] = srcOff[i++];
+          }
+        }
+        while (i < mid) {
+          dstTs[k] = srcTs[i];
+          dstOff[k++] = srcOff[i++];
+        }
+        while (j < hi) {
+          dstTs[k] = srcTs[j];
+          dstOff[k++] = srcOff[j++];
+        }
+      }
+      long[] tmpTs = srcTs;
+      srcTs = dstTs;
+      dstTs = tmpTs;
+      int[] tmpOff = srcOff;
+      srcOff = dstOff;
+      dstOff = tmpOff;
+    }
+    System.arraycopy(srcTs, 0, timestamps, from, n);
+    System.arraycopy(srcOff, 0, offsets, from, n);
+  }
+
+  private static long align8(long pos) {
+    return (pos + 7) & ~7L;
+  }
+
+  private static long fileSize(int numEntries, int numRecords) {
+    return align8(kHeaderSize + 4L * numEntries + 4L * (numEntries + 1)) + 24L * numRecords;
+  }
+
+  private static IntBuffer mapInts(FileChannel channel, long pos, int count) throws IOException {
+    return channel
+        .map(FileChannel.MapMode.READ_ONLY, pos, 4L * count)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .asIntBuffer();
+  }
+
+  private static LongBuffer mapLongs(FileChannel channel, long pos, int count)
+      throws IOException {
+    return channel
+        .map(FileChannel.MapMode.READ_ONLY, pos, 8L * count)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .asLongBuffer();
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+    buf.clear();
+  }
+
+  private static void writeInts(FileChannel channel, ByteBuffer buf, IntBuffer src, int count)
+      throws IOException {
+    for (int i = 0; i < count; i++) {
+      if (buf.remaining() < 4) {
+        flush(channel, buf);
+      }
+      buf.putInt(src.get(i));
+    }
+  }
+
+  private static void writeLongs(FileChannel channel, ByteBuffer buf, LongBuffer src, int count)
+      throws IOException {
+    for (int i = 0; i < count; i++) {
+      if (buf.remaining() < 8) {
+        flush(channel, buf);
+      }
+      buf.putLong(src.get(i));
+    }
+  }
+
+  private final class RecordIterator implements Iterator<DataLogRecord> {
+    RecordIterator(IntBuffer offsets, int pos, int end) {
+      m_iterOffsets = offsets;
+      m_pos = pos;
+      m_end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return m_pos < m_end;
+    }
+
+    @Override
+    public DataLogRecord next() {
+      if (m_pos >= m_end) {
+        throw new NoSuchElementException();
+      }
+      return m_reader.getRecord(m_iterOffsets.get(m_pos++));
+    }
+
+    private final IntBuffer m_iterOffsets;
+    private int m_pos;
+    private final int m_end;
+  }
+}
@@ -31,7 +31,16 @@ public class DataLogIterator implements Iterator<DataLogRecord> {
 
   @Override
   public boolean hasNext() {
-    return (m_pos + 16) <= m_reader.size();
+    // the minimum record size is 4 bytes; also check the whole record is present
+    if ((m_pos + 4) > m_reader.size()) {
+      return false;
+    }
+    try {
+      int next = m_reader.getNextRecord(m_pos);
+      return next > m_pos && next <= m_reader.size();
+    } catch (IndexOutOfBoundsException ex) {
+      return false;
+    }
   }
 
   @Override
@@ -0,0 +1,50 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.nio.ByteBuffer;
+
+/** DataLogWriter sink that accumulates the log in memory. */
+public class DataLogMemorySink implements DataLogSink {
+  /** Constructs an empty sink. */
+  public DataLogMemorySink() {
+    this(64 * 1024);
+  }
+
+  /**
+   * Constructs an empty sink.
+   *
+   * @param capacity initial capacity, in bytes
+   */
+  public DataLogMemorySink(int capacity) {
+    m_buf = ByteBuffer.allocate(capacity);
+  }
+
+  @Override
+  public synchronized void write(ByteBuffer data) {
+    if (data.remaining() > m_buf.remaining()) {
+      int capacity = Math.max(m_buf.capacity() * 2, m_buf.position() + data.remaining());
+      ByteBuffer buf = ByteBuffer.allocate(capacity);
+      buf.put(m_buf.flip());
+      m_buf = buf;
+    }
+    m_buf.put(data);
+  }
+
+  @Override
+  public void close() {}
+
+  /**
+   * Gets the data written so far. The returned buffer shares content with the sink but is not
+   * affected by later writes; it can be passed to the DataLogReader constructor.
+   *
+   * @return read-only buffer
+   */
+  public synchronized ByteBuffer getBuffer() {
+    return m_buf.asReadOnlyBuffer().flip();
+  }
+
+  private ByteBuffer m_buf;
+}
@@ -0,0 +1,230 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Merges multiple data logs into a single log, ordered by timestamp. This is useful for
+ * correlating logs captured on different devices (e.g. robot, coprocessor, and driver station).
+ *
+ * <p>The merge is a streaming k-way merge: each input is read with a DataLogCursor and a heap
+ * selects the input with the earliest next record, so memory use is bounded by the number of
+ * inputs rather than the size of the logs. Records within each input keep their relative order, so
+ * the output is fully sorted only if each input is sorted (as logs written in real time generally
+ * are).
+ *
+ * <p>Each input can be given a clock offset, which is added to all of its timestamps to align it
+ * with the other inputs, and an entry name prefix, which is prepended to its entry names so that
+ * names from different inputs don't collide. Entry IDs are remapped as needed. Schema entries
+ * (names starting with "/.schema/") are never prefixed, as struct and protobuf type strings refer
+ * to them by name; identical schema entries from multiple inputs are merged, and only the first
+ * schema data record for each schema entry is copied to the output.
+ *
+ * <pre>{@code
+ * new DataLogMerger()
+ *     .addInput(new DataLogReader("robot.wpilog"), 0, "")
+ *     .addInput(new DataLogReader("coprocessor.wpilog"), -1500, "coproc/")
+ *     .merge("merged.wpilog");
+ * }</pre>
+ */
+public final class DataLogMerger {
+  private static final String kSchemaPrefix = "/.schema/";
+
+  private final List<Input> m_inputs = new ArrayList<>();
+  private String m_extraHeader = "";
+
+  private static final class Input {
+    final int m_index;
+    final DataLogReader m_reader;
+    final long m_offset;
+    final String m_prefix;
+
+    DataLogCursor m_cursor;
+    long m_timestamp;
+    // input entry ID to output entry ID; 0 if not started
+    int[] m_entryMap = new int[16];
+
+    Input(int index, DataLogReader reader, long offset, String prefix) {
+      m_index = index;
+      m_reader = reader;
+      m_offset = offset;
+      m_prefix = prefix;
+    }
+
+    /** Advances to the next record; returns false at end of input. */
+    boolean next() {
+      if (!m_cursor.next()) {
+        return false;
+      }
+      long timestamp = m_cursor.getTimestamp();
+      if (m_offset < 0 && timestamp < -m_offset) {
+        m_timestamp = 0;
+      } else {
+        m_timestamp = timestamp + m_offset;
+      }
+      return true;
+    }
+
+    int lookup(int entry) {
+      return entry > 0 && entry < m_entryMap.length ? m_entryMap[entry] : 0;
+    }
+  }
+
+  /** Constructs an empty merger. */
+  public DataLogMerger() {}
+
+  /**
+   * Adds an input log.
+   *
+   * @param reader input log
+   * @param offset clock offset added to the input's timestamps, in integer microseconds; adjusted
+   *     timestamps less than 0 are clamped to 0
+   * @param prefix prefix prepended to the input's entry names
+   * @return this
+   * @throws IllegalArgumentException if the input log is not valid
+   */
+  public DataLogMerger addInput(DataLogReader reader, long offset, String prefix) {
+    if (!reader.isValid()) {
+      throw new IllegalArgumentException("not a valid data log");
+    }
+    m_inputs.add(new Input(m_inputs.size(), reader, offset, prefix));
+    return this;
+  }
+
+  /**
+   * Adds an input log with no clock offset or name prefix.
+   *
+   * @param reader input log
+   * @return this
+   * @throws IllegalArgumentException if the input log is not valid
+   */
+  public DataLogMerger addInput(DataLogReader reader) {
+    return addInput(reader, 0, "");
+  }
+
+  /**
+   * Sets the extra header of the merged log. Defaults to empty.
+   *
+   * @param extraHeader extra header
+   * @return this
+   */
+  public DataLogMerger setExtraHeader(String extraHeader) {
+    m_extraHeader = extraHeader;
+    return this;
+  }
+
+  /**
+   * Merges the inputs into a log file.
+   *
+   * @param filename output filename; the file is created or truncated
+   * @throws IOException if unable to open the output file
+   */
+  public void merge(String filename) throws IOException {
+    merge(new DataLogFileSink(filename));
+  }
+
+  /**
+   * Merges the inputs into a sink. The sink is closed when the merge is complete.
+   *
+   * @param sink output sink
+   */
+  public void merge(DataLogSink sink) {
+    // order by adjusted timestamp; ties go to the input added first
+    PriorityQueue<Input> heap =
+        new PriorityQueue<>(
+            Math.max(1, m_inputs.size()),
+            (a, b) -> {
+              int cmp = Long.compare(a.m_timestamp, b.m_timestamp);
+              return cmp != 0 ? cmp : Integer.compare(a.m_index, b.m_index);
+            });
+    for (Input input : m_inputs) {
+      input.m_cursor = input.m_reader.cursor();
+      Arrays.fill(input.m_entryMap, 0);
+      if (input.next()) {
+        heap.add(input);
+      }
+    }
+
+    // output entry IDs of schema entries, and of those whose data has already been written
+    Set<Integer> schemaEntries = new HashSet<>();
+    Set<Integer> writtenSchemas = new HashSet<>();
+    byte[] scratch = new byte[256];
+    // timestamps of 0 are preserved rather than replaced with the current time
+    try (DataLogWriter writer = new DataLogWriter(sink, 0.25, m_extraHeader, () -> 0)) {
+      writer.setBlocking(true);
+      while (!heap.isEmpty()) {
+        Input input = heap.poll();
+        DataLogCursor cursor = input.m_cursor;
+        if (cursor.isControl()) {
+          handleControl(writer, input, schemaEntries);
+        } else {
+          int entry = input.lookup(cursor.getEntry());
+          if (entry != 0 && (!schemaEntries.contains(entry) || writtenSchemas.add(entry))) {
+            int size = cursor.getSize();
+            if (scratch.length < size) {
+              scratch = new byte[Math.max(size, scratch.length * 2)];
+            }
+            cursor.getRaw(scratch);
+            writer.appendRaw(entry, scratch, 0, size, input.m_timestamp);
+          }
+        }
+        if (input.next()) {
+          heap.add(input);
+        }
+      }
+    }
+  }
+
+  private static void handleControl(
+      DataLogWriter writer, Input input, Set<Integer> schemaEntries) {
+    DataLogCursor cursor = input.m_cursor;
+    if (cursor.isStart()) {
+      DataLogRecord.StartRecordData start;
+      try {
+        start = cursor.toRecord().getStartData();
+      } catch (RuntimeException ex) {
+        return;
+      }
+      if (start.entry <= 0) {
+        return;
+      }
+      if (start.entry >= input.m_entryMap.length) {
+        input.m_entryMap =
+            Arrays.copyOf(input.m_entryMap, Math.max(start.entry + 1, input.m_entryMap.length * 2));
+      }
+      boolean isSchema = start.name.startsWith(kSchemaPrefix);
+      String name = isSchema ? start.name : input.m_prefix + start.name;
+      int outputEntry = writer.start(name, start.type, start.metadata, input.m_timestamp);
+      input.m_entryMap[start.entry] = outputEntry;
+      if (isSchema && outputEntry != 0) {
+        schemaEntries.add(outputEntry);
+      }
+    } else if (cursor.isFinish()) {
+      int entry = cursor.getControlEntry();
+      int outputEntry = input.lookup(entry);
+      if (outputEntry != 0) {
+        writer.finish(outputEntry, input.m_timestamp);
+        input.m_entryMap[entry] = 0;
+      }
+    } else if (cursor.isSetMetadata()) {
+      int outputEntry = input.lookup(cursor.getControlEntry());
+      if (outputEntry != 0) {
+        try {
+          writer.setMetadata(
+              outputEntry, cursor.toRecord().getSetMetadataData().metadata, input.m_timestamp);
+        } catch (RuntimeException ex) {
+          // malformed; drop it
+        }
+      }
+    }
+  }
+}
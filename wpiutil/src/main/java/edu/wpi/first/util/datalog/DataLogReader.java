@@ -11,8 +11,13 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /** Data log reader (reads logs written by the DataLog class). */
 public class DataLogReader implements Iterable<DataLogRecord> {
@@ -104,6 +109,58 @@ public class DataLogReader implements Iterable<DataLogRecord> {
     return new DataLogIterator(this, 12 + m_buf.getInt(8));
   }
 
+  /**
+   * Creates a reusable cursor positioned before the first record. Call next() on the cursor to
+   * move it to each record in turn; iterating with a cursor does not allocate.
+   *
+   * @return Cursor
+   */
+  public DataLogCursor cursor() {
+    return new DataLogCursor(this, m_buf, 12 + m_buf.getInt(8));
+  }
+
+  @Override
+  public DataLogSpliterator spliterator() {
+    return new DataLogSpliterator(this, 12 + m_buf.getInt(8), m_buf.remaining());
+  }
+
+  /**
+   * Decodes all records in the log in parallel. The log is split into chunks at record boundaries
+   * and the chunks are decoded concurrently on the common fork/join pool.
+   *
+   * @param <T> decoded value type
+   * @param decoder function that decodes a record; may return null to skip a record. Must be
+   *     thread safe.
+   * @return decoded values, sorted by record timestamp (records with equal timestamps are kept in
+   *     file order)
+   */
+  public <T> List<T> decodeParallel(Function<? super DataLogRecord, ? extends T> decoder) {
+    return decodeParallel(ForkJoinPool.commonPool(), decoder);
+  }
+
+  /**
+   * Decodes all records in the log in parallel. The log is split into chunks at record boundaries
+   * and the chunks are decoded concurrently on the given fork/join pool.
+   *
+   * @param <T> decoded value type
+   * @param pool fork/join pool to run the decode on
+   * @param decoder function that decodes a record; may return null to skip a record. Must be
+   *     thread safe.
+   * @return decoded values, sorted by record timestamp (records with equal timestamps are kept in
+   *     file order)
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> decodeParallel(
+      ForkJoinPool pool, Function<? super DataLogRecord, ? extends T> decoder) {
+    DataLogSpliterator spliterator = spliterator();
+    // aim for several chunks per worker so uneven chunks still balance out
+    long leafSize = Math.max(spliterator.estimateSize() / (pool.getParallelism() * 8L), 65536);
+    DataLogDecodeTask.Chunk chunk =
+        pool.invoke(new DataLogDecodeTask<T>(spliterator, decoder, leafSize));
+    return (List<T>)
+        Collections.unmodifiableList(Arrays.asList(chunk.values).subList(0, chunk.count));
+  }
+
   private long readVarInt(int pos, int len) {
     long val = 0;
     for (int i = 0; i < len; i++) {
@@ -146,6 +203,24 @@ public class DataLogReader implements Iterable<DataLogRecord> {
     return pos + headerLen + size;
   }
 
+  int getRecordEntry(int pos) {
+    int lenbyte = m_buf.get(pos) & 0xff;
+    int entryLen = (lenbyte & 0x3) + 1;
+    return (int) readVarInt(pos + 1, entryLen);
+  }
+
+  long getRecordTimestamp(int pos) {
+    int lenbyte = m_buf.get(pos) & 0xff;
+    int entryLen = (lenbyte & 0x3) + 1;
+    int sizeLen = ((lenbyte >> 2) & 0x3) + 1;
+    int timestampLen = ((lenbyte >> 4) & 0x7) + 1;
+    return readVarInt(pos + 1 + entryLen + sizeLen, timestampLen);
+  }
+
+  int getFirstRecord() {
+    return 12 + m_buf.getInt(8);
+  }
+
   int size() {
     return m_buf.remaining();
   }
@@ -0,0 +1,97 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DataLogWriter sink that writes to a set of files, starting a new file when the current one
+ * exceeds a maximum size. Files are named the same way as the native DataLog does when it starts a
+ * new file: "name.wpilog", "name.2.wpilog", "name.3.wpilog", etc. Each file is a complete log.
+ */
+public class DataLogRotatingFileSink implements DataLogSink {
+  /**
+   * Constructs a rotating file sink and opens the first file.
+   *
+   * @param dir directory to store the files
+   * @param filename base filename, e.g. "name.wpilog"
+   * @param maxSize size at which to start a new file, in bytes
+   * @throws IOException if unable to open file
+   */
+  public DataLogRotatingFileSink(String dir, String filename, long maxSize) throws IOException {
+    m_dir = Path.of(dir);
+    int dot = filename.lastIndexOf('.');
+    m_stem = dot < 0 ? filename : filename.substring(0, dot);
+    m_extension = dot < 0 ? "" : filename.substring(dot);
+    m_maxSize = maxSize;
+    m_channel = open(filename);
+  }
+
+  @Override
+  public void write(ByteBuffer data) throws IOException {
+    m_written += data.remaining();
+    while (data.hasRemaining()) {
+      m_channel.write(data);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    m_channel.force(false);
+  }
+
+  @Override
+  public boolean isSegmentFull() {
+    return m_written >= m_maxSize;
+  }
+
+  @Override
+  public void startSegment() throws IOException {
+    m_channel.close();
+    m_channel = open(m_stem + "." + ++m_segmentCount + m_extension);
+    m_written = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    m_channel.close();
+  }
+
+  /**
+   * Gets the path of the file currently being written.
+   *
+   * @return path
+   */
+  public synchronized Path getPath() {
+    return m_path;
+  }
+
+  private FileChannel open(String filename) throws IOException {
+    Path path = m_dir.resolve(filename);
+    FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    synchronized (this) {
+      m_path = path;
+    }
+    return channel;
+  }
+
+  private final Path m_dir;
+  private final String m_stem;
+  private final String m_extension;
+  private final long m_maxSize;
+  private FileChannel m_channel;
+  private Path m_path;
+  private long m_written;
+  private int m_segmentCount = 1;
+}
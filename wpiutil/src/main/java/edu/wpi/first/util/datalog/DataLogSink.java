@@ -0,0 +1,51 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination for the bytes produced by a DataLogWriter. All methods are called from the writer's
+ * background thread.
+ */
+public interface DataLogSink extends AutoCloseable {
+  /**
+   * Writes data to the sink. All of the remaining bytes in the buffer must be consumed.
+   *
+   * @param data data to write; from data.position() to data.limit()
+   * @throws IOException on write error
+   */
+  void write(ByteBuffer data) throws IOException;
+
+  /**
+   * Flushes any buffered data to storage. Called after each batch of writes.
+   *
+   * @throws IOException on flush error
+   */
+  default void flush() throws IOException {}
+
+  /**
+   * Returns true if the sink wants to start a new segment (e.g. because the current file is too
+   * large). If so, the writer finishes the current segment with the data already pending, then
+   * calls startSegment() and writes a new log header and the start records for all active entries
+   * before any further data.
+   *
+   * @return True if a new segment should be started
+   */
+  default boolean isSegmentFull() {
+    return false;
+  }
+
+  /**
+   * Starts a new segment.
+   *
+   * @throws IOException on error
+   */
+  default void startSegment() throws IOException {}
+
+  @Override
+  void close() throws IOException;
+}
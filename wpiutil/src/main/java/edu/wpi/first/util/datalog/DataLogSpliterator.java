@@ -0,0 +1,162 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * DataLogReader spliterator. Splits the log at record boundaries so records can be decoded in
+ * parallel, e.g. with StreamSupport.stream(reader.spliterator(), true). Records are reported in
+ * file order, which is not necessarily timestamp order.
+ *
+ * <p>The first split walks the record headers of the range once to build a table of record
+ * offsets; that table is shared with every spliterator split from it, so further splits just halve
+ * an index range.
+ */
+public class DataLogSpliterator implements Spliterator<DataLogRecord> {
+  // don't split ranges smaller than this many bytes
+  private static final int kMinSplitSize = 4096;
+
+  DataLogSpliterator(DataLogReader reader, int pos, int end) {
+    m_reader = reader;
+    m_pos = pos;
+    m_end = end;
+  }
+
+  private DataLogSpliterator(DataLogReader reader, int[] offsets, int index, int fence) {
+    m_reader = reader;
+    m_offsets = offsets;
+    m_index = index;
+    m_fence = fence;
+    m_pos = offsets[index];
+    m_end = offsets[fence];
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super DataLogRecord> action) {
+    if (m_offsets != null) {
+      if (m_index >= m_fence) {
+        return false;
+      }
+      DataLogRecord record = m_reader.getRecord(m_offsets[m_index]);
+      ++m_index;
+      m_pos = m_offsets[m_index];
+      action.accept(record);
+      return true;
+    }
+    if (m_pos >= m_end) {
+      return false;
+    }
+    int next = nextRecord(m_pos);
+    DataLogRecord record;
+    try {
+      record = next < 0 ? null : m_reader.getRecord(m_pos);
+    } catch (NoSuchElementException ex) {
+      record = null;
+    }
+    if (record == null) {
+      m_pos = m_end;
+      return false;
+    }
+    m_pos = next;
+    action.accept(record);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super DataLogRecord> action) {
+    boolean more;
+    do {
+      more = tryAdvance(action);
+    } while (more);
+  }
+
+  @Override
+  public DataLogSpliterator trySplit() {
+    if ((m_end - m_pos) < kMinSplitSize) {
+      return null;
+    }
+    if (m_offsets == null) {
+      buildOffsets();
+    }
+    int mid = (m_index + m_fence) >>> 1;
+    if (mid <= m_index) {
+      return null;
+    }
+    DataLogSpliterator prefix = new DataLogSpliterator(m_reader, m_offsets, m_index, mid);
+    m_index = mid;
+    m_pos = m_offsets[mid];
+    return prefix;
+  }
+
+  /**
+   * Returns the number of bytes remaining in this spliterator's range, as the number of records is
+   * not known without walking the log.
+   *
+   * @return remaining bytes
+   */
+  @Override
+  public long estimateSize() {
+    return m_end - m_pos;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL | IMMUTABLE;
+  }
+
+  /**
+   * Walks the record headers from m_pos to m_end and records each complete record's offset. The
+   * table ends with the offset just past the last complete record, so a truncated trailing record
+   * is dropped the same way tryAdvance() drops it.
+   */
+  private void buildOffsets() {
+    int[] offsets = new int[64];
+    int count = 0;
+    int pos = m_pos;
+    while (pos < m_end) {
+      int next = nextRecord(pos);
+      if (next < 0 || next > m_end) {
+        break;
+      }
+      if (count + 2 > offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      offsets[count++] = pos;
+      pos = next;
+    }
+    offsets[count] = pos;
+    m_offsets = offsets;
+    m_index = 0;
+    m_fence = count;
+    m_end = pos;
+  }
+
+  /** Returns the position of the following record, or -1 if the record at pos is truncated. */
+  private int nextRecord(int pos) {
+    int next;
+    try {
+      next = m_reader.getNextRecord(pos);
+    } catch (IndexOutOfBoundsException ex) {
+      return -1;
+    }
+    if (next > m_reader.size() || next <= pos) {
+      return -1;
+    }
+    return next;
+  }
+
+  private final DataLogReader m_reader;
+  private int m_pos;
+  private int m_end;
+
+  // record offsets shared between split spliterators; null until the first split
+  private int[] m_offsets;
+  private int m_index;
+  private int m_fence;
+}
@@ -0,0 +1,1146 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import edu.wpi.first.util.protobuf.Protobuf;
+import edu.wpi.first.util.struct.Struct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A pure-Java data log writer. This produces the same format as DataLog, but does not require the
+ * native library, so it can be used by desktop tools and log processing pipelines.
+ *
+ * <p>Records are encoded on the calling thread into pooled direct buffers, without allocating per
+ * record. A background thread periodically hands the filled buffers to a DataLogSink (e.g. a
+ * file, memory, or a rotating set of files) and returns them to the pool.
+ *
+ * <p>DataLogWriter calls are thread safe. As with DataLog, records are written in the order the
+ * calls are made, so they are not guaranteed to be sorted by timestamp.
+ *
+ * <p>Errors (e.g. sink write failures) are reported to a message log callback, as DataLog reports
+ * them to its wpi::Logger. The default prints them to stderr with a "DataLog: " prefix.
+ */
+public final class DataLogWriter implements AutoCloseable {
+  private static final int kBlockSize = 16 * 1024;
+  private static final int kMaxBufferCount = 1024 * 1024 / kBlockSize;
+  private static final int kMaxFreeCount = 256 * 1024 / kBlockSize;
+  private static final int kRecordMaxHeaderSize = 17;
+
+  private static final byte kControlStart = 0;
+  private static final byte kControlFinish = 1;
+  private static final byte kControlSetMetadata = 2;
+
+  private enum State {
+    kActive,
+    kPaused,
+    kShutdown
+  }
+
+  private static class EntryInfo {
+    String m_type;
+    int m_id;
+    byte[] m_schemaData;
+  }
+
+  private static class EntryInfo2 {
+    String m_metadata;
+    int m_count;
+  }
+
+  /**
+   * Constructs a new writer.
+   *
+   * @param sink destination for the log data; closed when the writer is closed
+   * @param period time between automatic flushes to the sink, in seconds
+   * @param extraHeader extra header data
+   * @param timeSource time source used for timestamps of 0, in integer microseconds
+   * @param msglog message log callback for errors; called with m_mutex held or from the
+   *     background thread, so it must not call back into the writer
+   */
+  public DataLogWriter(
+      DataLogSink sink,
+      double period,
+      String extraHeader,
+      LongSupplier timeSource,
+      Consumer<String> msglog) {
+    m_sink = sink;
+    m_periodNanos = (long) (period * 1e9);
+    m_extraHeader = extraHeader;
+    m_timeSource = timeSource;
+    m_msglog = msglog;
+    writeFileHeader(reserve(12));
+    m_thread = new Thread(this::writerThreadMain, "DataLogWriter");
+    m_thread.setDaemon(true);
+    m_thread.start();
+  }
+
+  /**
+   * Constructs a new writer that reports errors to stderr.
+   *
+   * @param sink destination for the log data; closed when the writer is closed
+   * @param period time between automatic flushes to the sink, in seconds
+   * @param extraHeader extra header data
+   * @param timeSource time source used for timestamps of 0, in integer microseconds
+   */
+  public DataLogWriter(
+      DataLogSink sink, double period, String extraHeader, LongSupplier timeSource) {
+    this(sink, period, extraHeader, timeSource, DataLogWriter::defaultLog);
+  }
+
+  /**
+   * Constructs a new writer. Timestamps of 0 use System.nanoTime(), in microseconds.
+   *
+   * @param sink destination for the log data; closed when the writer is closed
+   * @param period time between automatic flushes to the sink, in seconds
+   * @param extraHeader extra header data
+   */
+  public DataLogWriter(DataLogSink sink, double period, String extraHeader) {
+    this(sink, period, extraHeader, () -> System.nanoTime() / 1000);
+  }
+
+  /**
+   * Constructs a new writer that flushes to the sink every 0.25 seconds. Timestamps of 0 use
+   * System.nanoTime(), in microseconds.
+   *
+   * @param sink destination for the log data; closed when the writer is closed
+   */
+  public DataLogWriter(DataLogSink sink) {
+    this(sink, 0.25, "");
+  }
+
+  /**
+   * Constructs a new writer that writes to a file. Timestamps of 0 use System.nanoTime(), in
+   * microseconds.
+   *
+   * @param filename filename; the file is created or truncated
+   * @throws IOException if unable to open the file
+   */
+  public DataLogWriter(String filename) throws IOException {
+    this(new DataLogFileSink(filename));
+  }
+
+  /**
+   * Explicitly flushes the log data to the sink. The flush is performed asynchronously by the
+   * background thread.
+   */
+  public void flush() {
+    m_mutex.lock();
+    try {
+      m_doFlush = true;
+      m_cond.signalAll();
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Pauses appending of data records to the log. While paused, no data records are saved (e.g.
+   * AppendX is a no-op). Has no effect on entry starts / finishes / metadata changes.
+   */
+  public void pause() {
+    m_mutex.lock();
+    try {
+      if (m_state == State.kActive) {
+        m_state = State.kPaused;
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Sets whether appends block when the background thread falls behind. By default, as with
+   * DataLog, the log is paused (and data records are dropped) if too much data is waiting to be
+   * written to the sink. When blocking is enabled, record appends instead wait for the background
+   * thread to catch up, so no data is lost; this is intended for offline log processing where the
+   * producer can run much faster than the sink.
+   *
+   * @param blocking true to block when buffers are full, false to pause logging
+   */
+  public void setBlocking(boolean blocking) {
+    m_mutex.lock();
+    try {
+      m_blocking = blocking;
+      m_cond.signalAll();
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /** Resumes appending of data records to the log. */
+  public void resume() {
+    m_mutex.lock();
+    try {
+      if (m_state == State.kPaused) {
+        m_state = State.kActive;
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Flushes all remaining data to the sink, stops the background thread, and closes the sink.
+   * Further calls are ignored.
+   */
+  @Override
+  public void close() {
+    m_mutex.lock();
+    try {
+      if (m_state == State.kShutdown) {
+        return;
+      }
+      m_state = State.kShutdown;
+      m_cond.signalAll();
+    } finally {
+      m_mutex.unlock();
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        m_thread.join();
+        break;
+      } catch (InterruptedException ex) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      m_sink.close();
+    } catch (IOException ex) {
+      m_msglog.accept("error closing sink: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Returns whether there is a data schema already registered with the given name.
+   *
+   * @param name Name (the string passed as the data type for records using this schema)
+   * @return True if schema already registered
+   */
+  public boolean hasSchema(String name) {
+    m_mutex.lock();
+    try {
+      return m_entries.containsKey("/.schema/" + name);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Registers a data schema. Data schemas provide information for how a certain data type string
+   * can be decoded. The type string of a data schema indicates the type of the schema itself (e.g.
+   * "protobuf" for protobuf schemas, "struct" for struct schemas, etc). In the data log, schemas
+   * are saved just like normal records, with the name being generated from the provided name:
+   * "/.schema/name". Duplicate calls to this function with the same name are silently ignored.
+   *
+   * @param name Name (the string passed as the data type for records using this schema)
+   * @param type Type of schema (e.g. "protobuf", "struct", etc)
+   * @param schema Schema data
+   * @param timestamp Time stamp (may be 0 to indicate now)
+   */
+  public void addSchema(String name, String type, byte[] schema, long timestamp) {
+    String fullName = "/.schema/" + name;
+    m_mutex.lock();
+    try {
+      if (m_entries.containsKey(fullName)) {
+        return; // don't add duplicates
+      }
+      int entry = startImpl(fullName, type, "", timestamp);
+      m_entries.get(fullName).m_schemaData = schema.clone();
+      if (entry <= 0 || m_state == State.kShutdown) {
+        return;
+      }
+      startRecord(entry, timestamp, schema.length, 0);
+      appendImpl(schema, 0, schema.length);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Registers a data schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param name Name (the string passed as the data type for records using this schema)
+   * @param type Type of schema (e.g. "protobuf", "struct", etc)
+   * @param schema Schema data
+   */
+  public void addSchema(String name, String type, byte[] schema) {
+    addSchema(name, type, schema, 0);
+  }
+
+  /**
+   * Registers a data schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param name Name (the string passed as the data type for records using this schema)
+   * @param type Type of schema (e.g. "protobuf", "struct", etc)
+   * @param schema Schema data
+   * @param timestamp Time stamp (may be 0 to indicate now)
+   */
+  public void addSchema(String name, String type, String schema, long timestamp) {
+    addSchema(name, type, schema.getBytes(StandardCharsets.UTF_8), timestamp);
+  }
+
+  /**
+   * Registers a data schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param name Name (the string passed as the data type for records using this schema)
+   * @param type Type of schema (e.g. "protobuf", "struct", etc)
+   * @param schema Schema data
+   */
+  public void addSchema(String name, String type, String schema) {
+    addSchema(name, type, schema, 0);
+  }
+
+  /**
+   * Registers a protobuf schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param proto protobuf serialization object
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void addSchema(Protobuf<?, ?> proto, long timestamp) {
+    final long actualTimestamp = timestamp == 0 ? m_timeSource.getAsLong() : timestamp;
+    proto.forEachDescriptor(
+        this::hasSchema,
+        (typeString, schema) ->
+            addSchema(typeString, "proto:FileDescriptorProto", schema, actualTimestamp));
+  }
+
+  /**
+   * Registers a protobuf schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param proto protobuf serialization object
+   */
+  public void addSchema(Protobuf<?, ?> proto) {
+    addSchema(proto, 0);
+  }
+
+  /**
+   * Registers a struct schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param struct struct serialization object
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void addSchema(Struct<?> struct, long timestamp) {
+    addSchemaImpl(
+        struct, timestamp == 0 ? m_timeSource.getAsLong() : timestamp, new HashSet<>());
+  }
+
+  /**
+   * Registers a struct schema. Duplicate calls to this function with the same name are silently
+   * ignored.
+   *
+   * @param struct struct serialization object
+   */
+  public void addSchema(Struct<?> struct) {
+    addSchema(struct, 0);
+  }
+
+  /**
+   * Start an entry. Duplicate names are allowed (with the same type), and result in the same index
+   * being returned (start/finish are reference counted). A duplicate name with a different type
+   * will result in an error message being printed to the console and 0 being returned (which will
+   * be ignored by the append functions).
+   *
+   * @param name Name
+   * @param type Data type
+   * @param metadata Initial metadata (e.g. data properties)
+   * @param timestamp Time stamp (0 to indicate now)
+   * @return Entry index
+   */
+  public int start(String name, String type, String metadata, long timestamp) {
+    m_mutex.lock();
+    try {
+      return startImpl(name, type, metadata, timestamp);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Start an entry. Duplicate names are allowed (with the same type), and result in the same index
+   * being returned (start/finish are reference counted). A duplicate name with a different type
+   * will result in an error message being printed to the console and 0 being returned (which will
+   * be ignored by the append functions).
+   *
+   * @param name Name
+   * @param type Data type
+   * @param metadata Initial metadata (e.g. data properties)
+   * @return Entry index
+   */
+  public int start(String name, String type, String metadata) {
+    return start(name, type, metadata, 0);
+  }
+
+  /**
+   * Start an entry. Duplicate names are allowed (with the same type), and result in the same index
+   * being returned (start/finish are reference counted). A duplicate name with a different type
+   * will result in an error message being printed to the console and 0 being returned (which will
+   * be ignored by the append functions).
+   *
+   * @param name Name
+   * @param type Data type
+   * @return Entry index
+   */
+  public int start(String name, String type) {
+    return start(name, type, "");
+  }
+
+  /**
+   * Finish an entry.
+   *
+   * @param entry Entry index
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void finish(int entry, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      EntryInfo2 entryInfo2 = m_entryIds.get(entry);
+      if (entryInfo2 == null || entryInfo2.m_count == 0) {
+        return;
+      }
+      --entryInfo2.m_count;
+      if (entryInfo2.m_count != 0) {
+        return;
+      }
+      m_entryIds.remove(entry);
+      if (m_state == State.kShutdown) {
+        return;
+      }
+      ByteBuffer buf = startRecord(0, timestamp, 5, 5);
+      buf.put(kControlFinish);
+      buf.putInt(entry);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Finish an entry.
+   *
+   * @param entry Entry index
+   */
+  public void finish(int entry) {
+    finish(entry, 0);
+  }
+
+  /**
+   * Updates the metadata for an entry.
+   *
+   * @param entry Entry index
+   * @param metadata New metadata for the entry
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void setMetadata(int entry, String metadata, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      EntryInfo2 entryInfo2 = m_entryIds.get(entry);
+      if (entryInfo2 != null) {
+        entryInfo2.m_metadata = metadata;
+      }
+      if (m_state == State.kShutdown) {
+        return;
+      }
+      ByteBuffer buf = startRecord(0, timestamp, 5 + 4 + utf8Length(metadata), 5);
+      buf.put(kControlSetMetadata);
+      buf.putInt(entry);
+      appendStringImpl(metadata);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Updates the metadata for an entry.
+   *
+   * @param entry Entry index
+   * @param metadata New metadata for the entry
+   */
+  public void setMetadata(int entry, String metadata) {
+    setMetadata(entry, metadata, 0);
+  }
+
+  /**
+   * Appends a raw record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param data Byte array to record; will send entire array contents
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendRaw(int entry, byte[] data, long timestamp) {
+    appendRaw(entry, data, 0, data.length, timestamp);
+  }
+
+  /**
+   * Appends a record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param data Byte array to record
+   * @param start Start position of data (in byte array)
+   * @param len Length of data (must be less than or equal to data.length - start)
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendRaw(int entry, byte[] data, int start, int len, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, len, 0);
+      appendImpl(data, start, len);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param data Buffer to record; will send from data.position() to data.limit()
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendRaw(int entry, ByteBuffer data, long timestamp) {
+    int pos = data.position();
+    appendRaw(entry, data, pos, data.limit() - pos, timestamp);
+  }
+
+  /**
+   * Appends a record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param data Buffer to record
+   * @param start Start position of data (in buffer)
+   * @param len Length of data (must be less than or equal to data.capacity() - start)
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendRaw(int entry, ByteBuffer data, int start, int len, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, len, 0);
+      while (len > 0) {
+        ByteBuffer buf = reserve(1);
+        int n = Math.min(len, buf.remaining());
+        for (int i = 0; i < n; i++) {
+          buf.put(data.get(start + i));
+        }
+        start += n;
+        len -= n;
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a boolean record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param value Boolean value to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendBoolean(int entry, boolean value, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, 1, 1).put((byte) (value ? 1 : 0));
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends an integer record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param value Integer value to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendInteger(int entry, long value, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, 8, 8).putLong(value);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a float record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param value Float value to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendFloat(int entry, float value, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, 4, 4).putFloat(value);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a double record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param value Double value to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendDouble(int entry, double value, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, 8, 8).putDouble(value);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a string record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param value String value to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendString(int entry, String value, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, utf8Length(value), 0);
+      appendUtf8(value);
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a boolean array record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param arr Boolean array to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendBooleanArray(int entry, boolean[] arr, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, arr.length, 0);
+      for (boolean value : arr) {
+        reserve(1).put((byte) (value ? 1 : 0));
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends an integer array record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param arr Integer array to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendIntegerArray(int entry, long[] arr, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, arr.length * 8, 0);
+      for (long value : arr) {
+        reserve(8).putLong(value);
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a float array record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param arr Float array to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendFloatArray(int entry, float[] arr, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, arr.length * 4, 0);
+      for (float value : arr) {
+        reserve(4).putFloat(value);
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a double array record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param arr Double array to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendDoubleArray(int entry, double[] arr, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      startRecord(entry, timestamp, arr.length * 8, 0);
+      for (double value : arr) {
+        reserve(8).putDouble(value);
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  /**
+   * Appends a string array record to the log.
+   *
+   * @param entry Entry index, as returned by start()
+   * @param arr String array to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void appendStringArray(int entry, String[] arr, long timestamp) {
+    if (entry <= 0) {
+      return;
+    }
+    m_mutex.lock();
+    try {
+      if (m_state != State.kActive) {
+        return;
+      }
+      int size = 4;
+      for (String str : arr) {
+        size += 4 + utf8Length(str);
+      }
+      startRecord(entry, timestamp, size, 4).putInt(arr.length);
+      for (String str : arr) {
+        appendStringImpl(str);
+      }
+    } finally {
+      m_mutex.unlock();
+    }
+  }
+
+  private void addSchemaImpl(Struct<?> struct, long timestamp, Set<String> seen) {
+    String typeString = struct.getTypeString();
+    if (hasSchema(typeString)) {
+      return;
+    }
+    if (!seen.add(typeString)) {
+      throw new UnsupportedOperationException(typeString + ": circular reference with " + seen);
+    }
+    addSchema(typeString, "structschema", struct.getSchema(), timestamp);
+    for (Struct<?> inner : struct.getNested()) {
+      addSchemaImpl(inner, timestamp, seen);
+    }
+    seen.remove(typeString);
+  }
+
+  // must be called with m_mutex held
+  private int startImpl(String name, String type, String metadata, long timestamp) {
+    EntryInfo entryInfo = m_entries.computeIfAbsent(name, k -> new EntryInfo());
+    if (entryInfo.m_id == 0) {
+      entryInfo.m_id = ++m_lastId;
+    }
+    EntryInfo2 entryInfo2 = m_entryIds.computeIfAbsent(entryInfo.m_id, k -> new EntryInfo2());
+    ++entryInfo2.m_count;
+    if (entryInfo2.m_count > 1) {
+      if (!entryInfo.m_type.equals(type)) {
+        m_msglog.accept(
+            "type mismatch for '"
+                + name
+                + "': was '"
+                + entryInfo.m_type
+                + "', requested '"
+                + type
+                + "'; ignoring");
+        return 0;
+      }
+      return entryInfo.m_id;
+    }
+    entryInfo.m_type = type;
+    entryInfo2.m_metadata = metadata;
+
+    if (m_state == State.kShutdown) {
+      return entryInfo.m_id;
+    }
+
+    appendStartRecord(entryInfo.m_id, name, type, metadata, timestamp);
+    return entryInfo.m_id;
+  }
+
+  // must be called with m_mutex held
+  private void appendStartRecord(
+      int id, String name, String type, String metadata, long timestamp) {
+    int strsize = utf8Length(name) + utf8Length(type) + utf8Length(metadata);
+    ByteBuffer buf = startRecord(0, timestamp, 5 + 12 + strsize, 5);
+    buf.put(kControlStart);
+    buf.putInt(id);
+    appendStringImpl(name);
+    appendStringImpl(type);
+    appendStringImpl(metadata);
+  }
+
+  private void writeFileHeader(ByteBuffer buf) {
+    // version 1.0
+    buf.put((byte) 'W').put((byte) 'P').put((byte) 'I').put((byte) 'L').put((byte) 'O');
+    buf.put((byte) 'G').put((byte) 0).put((byte) 1);
+    buf.putInt(utf8Length(m_extraHeader));
+    appendUtf8(m_extraHeader);
+  }
+
+  /**
+   * Returns the current block with at least size bytes remaining, starting a new block if
+   * necessary. Must be called with m_mutex held.
+   */
+  private ByteBuffer reserve(int size) {
+    if (m_current == null || size > m_current.remaining()) {
+      if (m_current != null) {
+        m_outgoing.add(m_current);
+      }
+      if (m_outgoing.size() >= kMaxBufferCount && m_state == State.kActive && !m_blocking) {
+        m_msglog.accept(
+            "outgoing buffers exceeded threshold, pausing logging--"
+                + "consider flushing more frequently (smaller period)");
+        m_state = State.kPaused;
+      }
+      m_current = m_free.poll();
+      if (m_current == null) {
+        m_current = ByteBuffer.allocateDirect(kBlockSize).order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    return m_current;
+  }
+
+  /**
+   * Writes a record header and returns the block to write the payload to, with at least
+   * reserveSize bytes remaining. Must be called with m_mutex held.
+   */
+  private ByteBuffer startRecord(int entry, long timestamp, int payloadSize, int reserveSize) {
+    // only wait between records, so other threads can't interleave with a partial record
+    while (m_blocking && m_state != State.kShutdown && m_outgoing.size() >= kMaxBufferCount) {
+      m_doFlush = true;
+      m_cond.signalAll();
+      m_cond.awaitUninterruptibly();
+    }
+    ByteBuffer buf = reserve(kRecordMaxHeaderSize + reserveSize);
+    int pos = buf.position();
+    buf.position(pos + 1);
+    int entryLen = writeVarInt(buf, entry & 0xffffffffL);
+    int payloadLen = writeVarInt(buf, payloadSize & 0xffffffffL);
+    int timestampLen = writeVarInt(buf, timestamp == 0 ? m_timeSource.getAsLong() : timestamp);
+    buf.put(pos, (byte) (((timestampLen - 1) << 4) | ((payloadLen - 1) << 2) | (entryLen - 1)));
+    return buf;
+  }
+
+  private static int writeVarInt(ByteBuffer buf, long val) {
+    int len = 0;
+    do {
+      buf.put((byte) val);
+      ++len;
+      val >>>= 8;
+    } while (val != 0);
+    return len;
+  }
+
+  // must be called with m_mutex held
+  private void appendImpl(byte[] data, int start, int len) {
+    while (len > 0) {
+      ByteBuffer buf = reserve(1);
+      int n = Math.min(len, buf.remaining());
+      buf.put(data, start, n);
+      start += n;
+      len -= n;
+    }
+  }
+
+  // must be called with m_mutex held
+  private void appendStringImpl(String str) {
+    reserve(4).putInt(utf8Length(str));
+    appendUtf8(str);
+  }
+
+  /** Encodes a string as UTF-8 without allocating. Must be called with m_mutex held. */
+  private void appendUtf8(String str) {
+    int len = str.length();
+    for (int i = 0; i < len; i++) {
+      char ch = str.charAt(i);
+      if (ch < 0x80) {
+        reserve(1).put((byte) ch);
+      } else if (ch < 0x800) {
+        reserve(2).put((byte) (0xc0 | (ch >> 6))).put((byte) (0x80 | (ch & 0x3f)));
+      } else if (Character.isHighSurrogate(ch)
+          && i + 1 < len
+          && Character.isLowSurrogate(str.charAt(i + 1))) {
+        int cp = Character.toCodePoint(ch, str.charAt(++i));
+        reserve(4)
+            .put((byte) (0xf0 | (cp >> 18)))
+            .put((byte) (0x80 | ((cp >> 12) & 0x3f)))
+            .put((byte) (0x80 | ((cp >> 6) & 0x3f)))
+            .put((byte) (0x80 | (cp & 0x3f)));
+      } else if (Character.isSurrogate(ch)) {
+        // unpaired surrogate; encoded as '?' (same as String.getBytes())
+        reserve(1).put((byte) '?');
+      } else {
+        reserve(3)
+            .put((byte) (0xe0 | (ch >> 12)))
+            .put((byte) (0x80 | ((ch >> 6) & 0x3f)))
+            .put((byte) (0x80 | (ch & 0x3f)));
+      }
+    }
+  }
+
+  private static int utf8Length(String str) {
+    int len = str.length();
+    int size = len;
+    for (int i = 0; i < len; i++) {
+      char ch = str.charAt(i);
+      if (ch >= 0x80) {
+        if (ch < 0x800) {
+          size += 1;
+        } else if (Character.isHighSurrogate(ch)
+            && i + 1 < len
+            && Character.isLowSurrogate(str.charAt(i + 1))) {
+          size += 2; // 4 bytes for 2 chars
+          ++i;
+        } else if (!Character.isSurrogate(ch)) {
+          size += 2;
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Encodes the header and start records for a new segment from the current entry table. The
+   * table matches the log up to the end of the pending data, so the segment must be written after
+   * all of it. Must be called with m_mutex held.
+   */
+  private List<ByteBuffer> startSegment() {
+    // encode into fresh blocks so they can be written after the pending data
+    ByteBuffer saveCurrent = m_current;
+    List<ByteBuffer> saveOutgoing = m_outgoing;
+    State saveState = m_state;
+    m_current = null;
+    m_outgoing = new ArrayList<>();
+    m_state = State.kActive;
+    writeFileHeader(reserve(12));
+    for (Map.Entry<String, EntryInfo> entry : m_entries.entrySet()) {
+      EntryInfo entryInfo = entry.getValue();
+      EntryInfo2 entryInfo2 = m_entryIds.get(entryInfo.m_id);
+      if (entryInfo2 == null) {
+        continue; // finished
+      }
+      appendStartRecord(
+          entryInfo.m_id, entry.getKey(), entryInfo.m_type, entryInfo2.m_metadata, 0);
+      if (entryInfo.m_schemaData != null) {
+        startRecord(entryInfo.m_id, 0, entryInfo.m_schemaData.length, 0);
+        appendImpl(entryInfo.m_schemaData, 0, entryInfo.m_schemaData.length);
+      }
+    }
+    m_outgoing.add(m_current);
+    List<ByteBuffer> segment = m_outgoing;
+    m_current = saveCurrent;
+    m_outgoing = saveOutgoing;
+    m_state = saveState;
+    return segment;
+  }
+
+  private void writerThreadMain() {
+    List<ByteBuffer> toWrite = new ArrayList<>();
+    while (true) {
+      boolean shutdown;
+      List<ByteBuffer> segment = null;
+      m_mutex.lock();
+      try {
+        long timeout = m_periodNanos;
+        while (!m_doFlush && m_state != State.kShutdown && timeout > 0) {
+          try {
+            timeout = m_cond.awaitNanos(timeout);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+        m_doFlush = false;
+        shutdown = m_state == State.kShutdown;
+        if (m_current != null && m_current.position() > 0) {
+          m_outgoing.add(m_current);
+          m_current = null;
+        }
+        // rotate at the record boundary at the end of the pending data: that data finishes the
+        // old segment, and the new one starts from the entry table as it stands right now
+        if (m_sink.isSegmentFull() && !m_outgoing.isEmpty()) {
+          segment = startSegment();
+        }
+        List<ByteBuffer> tmp = toWrite;
+        toWrite = m_outgoing;
+        m_outgoing = tmp;
+        if (m_blocking) {
+          m_cond.signalAll();
+        }
+      } finally {
+        m_mutex.unlock();
+      }
+
+      try {
+        for (ByteBuffer buf : toWrite) {
+          m_sink.write(buf.flip());
+        }
+        if (!toWrite.isEmpty()) {
+          m_sink.flush();
+        }
+        if (segment != null) {
+          m_sink.startSegment();
+          for (ByteBuffer buf : segment) {
+            m_sink.write(buf.flip());
+          }
+          m_sink.flush();
+        }
+      } catch (IOException ex) {
+        m_msglog.accept("error writing to sink: " + ex.getMessage());
+      }
+
+      // release buffers back to free list
+      m_mutex.lock();
+      try {
+        releaseBuffers(toWrite);
+        if (segment != null) {
+          releaseBuffers(segment);
+        }
+      } finally {
+        m_mutex.unlock();
+      }
+      toWrite.clear();
+
+      if (shutdown || Thread.currentThread().isInterrupted()) {
+        break;
+      }
+    }
+  }
+
+  // must be called with m_mutex held
+  private void releaseBuffers(List<ByteBuffer> bufs) {
+    for (ByteBuffer buf : bufs) {
+      if (m_free.size() < kMaxFreeCount) {
+        m_free.add(buf.clear());
+      }
+    }
+  }
+
+  private static void defaultLog(String msg) {
+    System.err.println("DataLog: " + msg);
+  }
+
+  private final DataLogSink m_sink;
+  private final long m_periodNanos;
+  private final String m_extraHeader;
+  private final LongSupplier m_timeSource;
+  private final Consumer<String> m_msglog;
+  private final Thread m_thread;
+
+  private final ReentrantLock m_mutex = new ReentrantLock();
+  private final Condition m_cond = m_mutex.newCondition();
+  private State m_state = State.kActive;
+  private boolean m_doFlush;
+  private boolean m_blocking;
+
+  private final Map<String, EntryInfo> m_entries = new LinkedHashMap<>();
+  private final Map<Integer, EntryInfo2> m_entryIds = new HashMap<>();
+  private int m_lastId;
+
+  private ByteBuffer m_current;
+  private List<ByteBuffer> m_outgoing = new ArrayList<>();
+  private final ArrayDeque<ByteBuffer> m_free = new ArrayDeque<>();
+}
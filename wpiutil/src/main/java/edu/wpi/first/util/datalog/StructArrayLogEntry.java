@@ -114,6 +114,22 @@ public final class StructArrayLogEntry<T> extends DataLogEntry {
     append(value, 0);
   }
 
+  /**
+   * Appends a record containing a range of an array to the log. Unlike append(T[]), a caller can
+   * reuse one array with a varying number of valid elements without allocating.
+   *
+   * @param value Values to record
+   * @param start Index of first value to record
+   * @param len Number of values to record
+   * @param timestamp Time stamp (0 to indicate now)
+   */
+  public void append(T[] value, int start, int len, long timestamp) {
+    synchronized (m_buf) {
+      ByteBuffer bb = m_buf.writeArray(value, start, len);
+      m_log.appendRaw(m_entry, bb, 0, bb.position(), timestamp);
+    }
+  }
+
   /**
    * Appends a record to the log.
    *
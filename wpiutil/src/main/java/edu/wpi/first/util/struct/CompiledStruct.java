@@ -0,0 +1,481 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flattened accessor plan for a struct descriptor. Every leaf value of the struct (nested struct
+ * fields and array elements included) is compiled into an Accessor with a precomputed byte offset,
+ * bit shift, and mask, so reading a value does no type, membership, or bounds checks. This makes
+ * bulk decoding of dynamically typed structs (e.g. from data logs) cheap.
+ *
+ * <p>Compiled structs are obtained from StructDescriptorDatabase.getCompiled(), which caches them.
+ * A compiled struct is a snapshot of the descriptor at the time it was compiled.
+ *
+ * <p>All accessor methods take the buffer containing the serialized data and the base offset of
+ * the struct within that buffer. The buffer must be in little-endian byte order. Reads use
+ * absolute indexing and do not change the buffer position.
+ */
+public final class CompiledStruct {
+  /** Typed getter for a single leaf value of a struct. */
+  public abstract static class Accessor {
+    Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      m_path = path;
+      m_field = field;
+      m_arrIndex = arrIndex;
+      m_offset = offset;
+    }
+
+    /**
+     * Gets the path of the value relative to the top-level struct, e.g. "x", "arr[2]", or
+     * "pose/translation/x". Char array fields are a single value.
+     *
+     * @return path
+     */
+    public String getPath() {
+      return m_path;
+    }
+
+    /**
+     * Gets the descriptor of the field containing this value.
+     *
+     * @return field descriptor
+     */
+    public StructFieldDescriptor getField() {
+      return m_field;
+    }
+
+    /**
+     * Gets the array index of this value within its field. Returns 0 for non-array fields.
+     *
+     * @return array index
+     */
+    public int getArrayIndex() {
+      return m_arrIndex;
+    }
+
+    /**
+     * Gets the byte offset of this value from the start of the top-level struct.
+     *
+     * @return number of bytes
+     */
+    public int getOffset() {
+      return m_offset;
+    }
+
+    /**
+     * Returns whether the value is a float or double.
+     *
+     * @return true if floating point
+     */
+    public boolean isFloatingPoint() {
+      return false;
+    }
+
+    /**
+     * Gets the value as a long. Booleans are 0 or 1.
+     *
+     * @param bb buffer containing the struct data
+     * @param base offset of the struct within the buffer
+     * @return value
+     * @throws UnsupportedOperationException if the value is not an integer or boolean
+     */
+    public long getLong(ByteBuffer bb, int base) {
+      throw new UnsupportedOperationException(m_path + " is not an integer value");
+    }
+
+    /**
+     * Gets the value as a double. Integers and booleans are converted.
+     *
+     * @param bb buffer containing the struct data
+     * @param base offset of the struct within the buffer
+     * @return value
+     * @throws UnsupportedOperationException if the value is not numeric
+     */
+    public double getDouble(ByteBuffer bb, int base) {
+      return getLong(bb, base);
+    }
+
+    /**
+     * Gets the value as a boolean (true if non-zero).
+     *
+     * @param bb buffer containing the struct data
+     * @param base offset of the struct within the buffer
+     * @return value
+     * @throws UnsupportedOperationException if the value is not an integer or boolean
+     */
+    public boolean getBoolean(ByteBuffer bb, int base) {
+      return getLong(bb, base) != 0;
+    }
+
+    /**
+     * Gets the value of a char array field as a string.
+     *
+     * @param bb buffer containing the struct data
+     * @param base offset of the struct within the buffer
+     * @return value
+     * @throws UnsupportedOperationException if the value is not a char field
+     */
+    public String getString(ByteBuffer bb, int base) {
+      throw new UnsupportedOperationException(m_path + " is not a char value");
+    }
+
+    final String m_path;
+    final StructFieldDescriptor m_field;
+    final int m_arrIndex;
+    final int m_offset;
+  }
+
+  private static final class Int8Accessor extends Accessor {
+    Int8Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.get(base + m_offset);
+    }
+  }
+
+  private static final class Int16Accessor extends Accessor {
+    Int16Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.getShort(base + m_offset);
+    }
+  }
+
+  private static final class Int32Accessor extends Accessor {
+    Int32Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.getInt(base + m_offset);
+    }
+  }
+
+  private static final class Int64Accessor extends Accessor {
+    Int64Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.getLong(base + m_offset);
+    }
+  }
+
+  private static final class Uint8Accessor extends Accessor {
+    Uint8Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.get(base + m_offset) & 0xffL;
+    }
+  }
+
+  private static final class Uint16Accessor extends Accessor {
+    Uint16Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.getShort(base + m_offset) & 0xffffL;
+    }
+  }
+
+  private static final class Uint32Accessor extends Accessor {
+    Uint32Accessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.getInt(base + m_offset) & 0xffffffffL;
+    }
+  }
+
+  private static final class BoolAccessor extends Accessor {
+    BoolAccessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      return bb.get(base + m_offset) != 0 ? 1 : 0;
+    }
+  }
+
+  private static final class FloatAccessor extends Accessor {
+    FloatAccessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public boolean isFloatingPoint() {
+      return true;
+    }
+
+    @Override
+    public double getDouble(ByteBuffer bb, int base) {
+      return bb.getFloat(base + m_offset);
+    }
+  }
+
+  private static final class DoubleAccessor extends Accessor {
+    DoubleAccessor(String path, StructFieldDescriptor field, int arrIndex, int offset) {
+      super(path, field, arrIndex, offset);
+    }
+
+    @Override
+    public boolean isFloatingPoint() {
+      return true;
+    }
+
+    @Override
+    public double getDouble(ByteBuffer bb, int base) {
+      return bb.getDouble(base + m_offset);
+    }
+  }
+
+  private static final class CharAccessor extends Accessor {
+    CharAccessor(String path, StructFieldDescriptor field, int offset) {
+      super(path, field, 0, offset);
+      m_len = field.getArraySize();
+    }
+
+    @Override
+    public double getDouble(ByteBuffer bb, int base) {
+      throw new UnsupportedOperationException(m_path + " is not a numeric value");
+    }
+
+    @Override
+    public String getString(ByteBuffer bb, int base) {
+      byte[] bytes = new byte[m_len];
+      bb.duplicate().position(base + m_offset).get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final int m_len;
+  }
+
+  /** Bitfield member; the storage word is read whole and then shifted and masked. */
+  private static final class BitFieldAccessor extends Accessor {
+    BitFieldAccessor(String path, StructFieldDescriptor field, int offset) {
+      super(path, field, 0, offset);
+      m_size = field.getSize();
+      m_signed = field.isInt();
+      m_shift = field.getBitShift();
+      m_mask = field.getBitMask();
+      // to get sign extension, shift so the sign bit within the bitfield goes to the long's sign
+      // bit, then shift back down
+      m_signedLeft = 64 - m_shift - field.getBitWidth();
+      m_signedRight = 64 - field.getBitWidth();
+    }
+
+    @Override
+    public long getLong(ByteBuffer bb, int base) {
+      int pos = base + m_offset;
+      long val;
+      switch (m_size) {
+        case 1:
+          val = bb.get(pos);
+          break;
+        case 2:
+          val = bb.getShort(pos);
+          break;
+        case 4:
+          val = bb.getInt(pos);
+          break;
+        default:
+          val = bb.getLong(pos);
+          break;
+      }
+      if (m_signed) {
+        return (val << m_signedLeft) >> m_signedRight;
+      } else {
+        return (val >>> m_shift) & m_mask;
+      }
+    }
+
+    private final int m_size;
+    private final boolean m_signed;
+    private final int m_shift;
+    private final long m_mask;
+    private final int m_signedLeft;
+    private final int m_signedRight;
+  }
+
+  CompiledStruct(StructDescriptor desc) {
+    if (!desc.isValid()) {
+      throw new IllegalStateException("struct descriptor is not valid");
+    }
+    m_desc = desc;
+    m_size = desc.getSize();
+    List<Accessor> accessors = new ArrayList<>();
+    addAccessors(accessors, desc, "", 0);
+    m_accessors = accessors.toArray(new Accessor[0]);
+    m_accessorList = Collections.unmodifiableList(accessors);
+    for (Accessor accessor : m_accessors) {
+      m_byPath.put(accessor.m_path, accessor);
+    }
+  }
+
+  private static void addAccessors(
+      List<Accessor> out, StructDescriptor desc, String prefix, int offset) {
+    for (StructFieldDescriptor field : desc.getFields()) {
+      String name = prefix + field.getName();
+      int fieldOffset = offset + field.getOffset();
+      StructFieldType type = field.getType();
+      if (type == StructFieldType.kChar) {
+        out.add(new CharAccessor(name, field, fieldOffset));
+        continue;
+      }
+      if (field.isBitField()) {
+        // bitfields cannot be arrays
+        out.add(new BitFieldAccessor(name, field, fieldOffset));
+        continue;
+      }
+      int arraySize = field.getArraySize();
+      int elemSize = field.getSize();
+      for (int i = 0; i < arraySize; i++) {
+        String path = field.isArray() ? name + "[" + i + "]" : name;
+        int elemOffset = fieldOffset + i * elemSize;
+        if (type == StructFieldType.kStruct) {
+          addAccessors(out, field.getStruct(), path + "/", elemOffset);
+        } else {
+          out.add(makeAccessor(path, field, i, elemOffset));
+        }
+      }
+    }
+  }
+
+  private static Accessor makeAccessor(
+      String path, StructFieldDescriptor field, int arrIndex, int offset) {
+    switch (field.getType()) {
+      case kBool:
+        return new BoolAccessor(path, field, arrIndex, offset);
+      case kInt8:
+        return new Int8Accessor(path, field, arrIndex, offset);
+      case kInt16:
+        return new Int16Accessor(path, field, arrIndex, offset);
+      case kInt32:
+        return new Int32Accessor(path, field, arrIndex, offset);
+      case kInt64:
+      case kUint64:
+        return new Int64Accessor(path, field, arrIndex, offset);
+      case kUint8:
+        return new Uint8Accessor(path, field, arrIndex, offset);
+      case kUint16:
+        return new Uint16Accessor(path, field, arrIndex, offset);
+      case kUint32:
+        return new Uint32Accessor(path, field, arrIndex, offset);
+      case kFloat:
+        return new FloatAccessor(path, field, arrIndex, offset);
+      case kDouble:
+        return new DoubleAccessor(path, field, arrIndex, offset);
+      default:
+        throw new IllegalStateException("unexpected field type " + field.getType());
+    }
+  }
+
+  /**
+   * Gets the struct descriptor this was compiled from.
+   *
+   * @return struct descriptor
+   */
+  public StructDescriptor getDescriptor() {
+    return m_desc;
+  }
+
+  /**
+   * Gets the struct size, in bytes.
+   *
+   * @return size in bytes
+   */
+  public int getSize() {
+    return m_size;
+  }
+
+  /**
+   * Gets all leaf value accessors, in struct layout order.
+   *
+   * @return accessors (unmodifiable)
+   */
+  public List<Accessor> getAccessors() {
+    return m_accessorList;
+  }
+
+  /**
+   * Gets the number of leaf value accessors.
+   *
+   * @return number of accessors
+   */
+  public int getAccessorCount() {
+    return m_accessors.length;
+  }
+
+  /**
+   * Gets a leaf value accessor by index.
+   *
+   * @param index accessor index
+   * @return accessor
+   * @throws ArrayIndexOutOfBoundsException if index is out of range
+   */
+  public Accessor getAccessor(int index) {
+    return m_accessors[index];
+  }
+
+  /**
+   * Finds a leaf value accessor by path, e.g. "x", "arr[2]", or "pose/translation/x".
+   *
+   * @param path value path
+   * @return accessor, or null if not found
+   */
+  public Accessor find(String path) {
+    return m_byPath.get(path);
+  }
+
+  /**
+   * Decodes all numeric leaf values of a struct as doubles, in accessor order. Char fields are
+   * written as NaN.
+   *
+   * @param bb buffer containing the struct data (little-endian)
+   * @param base offset of the struct within the buffer
+   * @param out output array; must have at least getAccessorCount() elements
+   * @throws ArrayIndexOutOfBoundsException if out is too small
+   */
+  public void getDoubles(ByteBuffer bb, int base, double[] out) {
+    for (int i = 0; i < m_accessors.length; i++) {
+      Accessor accessor = m_accessors[i];
+      if (accessor instanceof CharAccessor) {
+        out[i] = Double.NaN;
+      } else {
+        out[i] = accessor.getDouble(bb, base);
+      }
+    }
+  }
+
+  private final StructDescriptor m_desc;
+  private final int m_size;
+  private final Accessor[] m_accessors;
+  private final List<Accessor> m_accessorList;
+  private final Map<String, Accessor> m_byPath = new HashMap<>();
+}
@@ -0,0 +1,38 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requests a compile-time generated Struct implementation for a record or final class. The struct
+ * processor (structProcessor) generates a class named after the annotated type with a "Struct"
+ * suffix (e.g. FooStruct for Foo) in the same package.
+ *
+ * <p>Struct fields are the instance fields of the type, in declaration order. Supported field
+ * types are boolean, byte, short, char, int, long, float, double, and types with a public static
+ * "struct" field (e.g. Translation2d) or that are themselves annotated with GenerateStruct.
+ *
+ * <p>Records are constructed with their canonical constructor and read through their accessors.
+ * Final classes must have non-private fields and either a constructor that takes all fields in
+ * declaration order, or a no-argument constructor and non-final fields; in the latter case the
+ * generated struct also implements unpackInto().
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateStruct {
+  /**
+   * The struct type name, used for the type string and schema. Defaults to the simple name of the
+   * annotated type.
+   *
+   * @return struct type name
+   */
+  String name() default "";
+}
@@ -5,9 +5,11 @@
 package edu.wpi.first.util.struct;
 
 import java.lang.reflect.Array;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Collection;
+import java.util.Objects;
 
 /**
  * Reusable buffer for serialization/deserialization to/from a raw struct.
@@ -175,6 +177,54 @@ public final class StructBuffer<T> {
     return m_buf;
   }
 
+  /**
+   * Serializes a range of an array of values to a ByteBuffer. The internal buffer is only
+   * reallocated if it is too small. The returned ByteBuffer is a direct byte buffer with the
+   * position set to the end of the serialized data.
+   *
+   * @param values values
+   * @param start index of first value to serialize
+   * @param len number of values to serialize
+   * @return byte buffer
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public ByteBuffer writeArray(T[] values, int start, int len) {
+    Objects.checkFromIndexSize(start, len, values.length);
+    m_buf.position(0);
+    if ((len * m_structSize) > m_buf.capacity()) {
+      m_buf = ByteBuffer.allocateDirect(len * m_structSize * 2).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    for (int i = start; i < start + len; i++) {
+      m_struct.pack(m_buf, values[i]);
+    }
+    return m_buf;
+  }
+
+  /**
+   * Serializes a range of an array of values into a caller-provided ByteBuffer, starting at its
+   * current position. The position is advanced to the end of the serialized data. No allocation is
+   * performed.
+   *
+   * @param out output byte buffer
+   * @param values values
+   * @param start index of first value to serialize
+   * @param len number of values to serialize
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   * @throws BufferOverflowException if out has insufficient remaining space
+   */
+  public void writeArrayInto(ByteBuffer out, T[] values, int start, int len) {
+    Objects.checkFromIndexSize(start, len, values.length);
+    if ((len * m_structSize) > out.remaining()) {
+      throw new BufferOverflowException();
+    }
+    ByteOrder order = out.order();
+    out.order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = start; i < start + len; i++) {
+      m_struct.pack(out, values[i]);
+    }
+    out.order(order);
+  }
+
   /**
    * Deserializes an array of values from a byte array, creating an array of new objects.
    *
@@ -218,7 +268,70 @@ public final class StructBuffer<T> {
     return arr;
   }
 
+  /**
+   * Deserializes an array of values from a ByteBuffer into an array of existing mutable objects,
+   * using Struct.unpackInto(). If the array is too small, only the first out.length elements are
+   * deserialized; the return value can be used to detect this case. No allocation is performed.
+   *
+   * @param out array of objects (will be updated with deserialized contents)
+   * @param buf byte buffer; deserialization starts at the current position
+   * @return number of elements in the buffer
+   * @throws UnsupportedOperationException if T is immutable
+   * @throws NullPointerException if an array element to be updated is null
+   */
+  public int readArrayInto(T[] out, ByteBuffer buf) {
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    int len = buf.limit() - buf.position();
+    if ((len % m_structSize) != 0) {
+      throw new RuntimeException("buffer size not a multiple of struct size");
+    }
+    int nelem = len / m_structSize;
+    int n = Math.min(nelem, out.length);
+    for (int i = 0; i < n; i++) {
+      m_struct.unpackInto(out[i], buf);
+    }
+    return nelem;
+  }
+
+  /**
+   * Deserializes an array of values from a byte array into an array of existing mutable objects,
+   * using Struct.unpackInto(). If the array is too small, only the first out.length elements are
+   * deserialized; the return value can be used to detect this case.
+   *
+   * @param out array of objects (will be updated with deserialized contents)
+   * @param buf byte array
+   * @param start starting location within byte array
+   * @param len length of serialized data
+   * @return number of elements in the buffer
+   * @throws UnsupportedOperationException if T is immutable
+   * @throws NullPointerException if an array element to be updated is null
+   */
+  public int readArrayInto(T[] out, byte[] buf, int start, int len) {
+    if (m_readBuf == null || m_readBuf.array() != buf) {
+      m_readBuf = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    m_readBuf.limit(start + len).position(start);
+    return readArrayInto(out, m_readBuf);
+  }
+
+  /**
+   * Deserializes an array of values from a byte array into an array of existing mutable objects,
+   * using Struct.unpackInto(). If the array is too small, only the first out.length elements are
+   * deserialized; the return value can be used to detect this case.
+   *
+   * @param out array of objects (will be updated with deserialized contents)
+   * @param buf byte array
+   * @return number of elements in the buffer
+   * @throws UnsupportedOperationException if T is immutable
+   * @throws NullPointerException if an array element to be updated is null
+   */
+  public int readArrayInto(T[] out, byte[] buf) {
+    return readArrayInto(out, buf, 0, buf.length);
+  }
+
   private ByteBuffer m_buf;
+  // wrapper for the most recent byte array passed to readArrayInto
+  private ByteBuffer m_readBuf;
   private final Struct<T> m_struct;
   private final int m_structSize;
 }
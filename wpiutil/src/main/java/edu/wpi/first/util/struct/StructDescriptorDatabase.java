@@ -32,6 +32,9 @@ public class StructDescriptorDatabase {
       throw new BadSchemaException("parse error", e);
     }
 
+    // redefining a struct can change the layout of it and anything that references it
+    m_compiled.clear();
+
     // turn parsed schema into descriptors
     StructDescriptor theStruct = m_structs.computeIfAbsent(name, StructDescriptor::new);
     theStruct.m_schema = schema;
@@ -144,5 +147,38 @@ public class StructDescriptorDatabase {
     return m_structs.get(name);
   }
 
+  /**
+   * Gets the compiled accessor plan for a struct. Compiled structs are cached until the next call
+   * to add().
+   *
+   * @param desc struct descriptor (must be from this database)
+   * @return compiled struct
+   * @throws IllegalStateException if struct descriptor is invalid
+   */
+  public CompiledStruct getCompiled(StructDescriptor desc) {
+    CompiledStruct compiled = m_compiled.get(desc);
+    if (compiled == null) {
+      compiled = new CompiledStruct(desc);
+      m_compiled.put(desc, compiled);
+    }
+    return compiled;
+  }
+
+  /**
+   * Gets the compiled accessor plan for a struct by name. Compiled structs are cached until the
+   * next call to add().
+   *
+   * @param name structure name
+   * @return compiled struct, or null if the struct is not found or is not valid
+   */
+  public CompiledStruct getCompiled(String name) {
+    StructDescriptor desc = m_structs.get(name);
+    if (desc == null || !desc.isValid()) {
+      return null;
+    }
+    return getCompiled(desc);
+  }
+
   private final Map<String, StructDescriptor> m_structs = new HashMap<>();
+  private final Map<StructDescriptor, CompiledStruct> m_compiled = new HashMap<>();
 }
@@ -0,0 +1,176 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataLogColumnStoreTest {
+  @TempDir Path m_tempDir;
+
+  private static DataLogReader createLog() {
+    var sink = new DataLogMemorySink();
+    var log = new DataLogWriter(sink);
+    log.addSchema("struct:Inner", "structschema", "int16 a;bool b", 1);
+    log.addSchema("struct:Outer", "structschema", "double x;Inner in[2];float f;char s[4]", 1);
+    int doubleEntry = log.start("d", "double", "", 2);
+    int floatEntry = log.start("f", "float", "", 2);
+    int intEntry = log.start("i", "int64", "", 2);
+    int boolEntry = log.start("b", "boolean", "", 2);
+    int stringEntry = log.start("s", "string", "", 2);
+    int structEntry = log.start("o", "struct:Outer", "", 2);
+    for (int i = 0; i < 10; i++) {
+      long ts = 1000 + i * 100;
+      log.appendDouble(doubleEntry, i * 0.5, ts);
+      log.appendFloat(floatEntry, i * 0.25f, ts);
+      log.appendInteger(intEntry, -i, ts);
+      log.appendBoolean(boolEntry, (i % 2) == 0, ts);
+      log.appendString(stringEntry, "x", ts);
+      ByteBuffer data = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+      data.putDouble(i);
+      data.putShort((short) -i).put((byte) 1);
+      data.putShort((short) (i * 2)).put((byte) 0);
+      data.putFloat(i * 1.5f);
+      data.put(new byte[] {'a', 'b', 'c', 'd'});
+      log.appendRaw(structEntry, data.array(), ts);
+    }
+    // out of order and wrong-size records
+    log.appendDouble(doubleEntry, -1, 500);
+    log.appendRaw(structEntry, new byte[3], 600);
+    // restarting the entry appends to the same column
+    log.finish(doubleEntry, 3000);
+    doubleEntry = log.start("d", "double", "", 3000);
+    log.appendDouble(doubleEntry, 100, 4000);
+    log.close();
+    return new DataLogReader(sink.getBuffer());
+  }
+
+  @Test
+  void scalarTest() throws IOException {
+    var store =
+        DataLogColumnStore.export(createLog(), m_tempDir.resolve("log.cols").toString());
+
+    DataLogColumnStore.Column d = store.getColumn("d");
+    assertTrue(d.isDouble());
+    assertEquals(12, d.size());
+    assertEquals(500, d.getTimestamps().get(0));
+    assertEquals(-1.0, d.getDoubleValues().get(0));
+    assertEquals(100.0, d.getDoubleValues().get(11));
+
+    assertEquals(0.75, store.getColumn("f").getDoubleValues().get(3));
+    assertEquals(-4, store.getColumn("i").getLongValues().get(4));
+    assertFalse(store.getColumn("b").isDouble());
+    assertEquals(1, store.getColumn("b").getLongValues().get(0));
+    assertEquals(0, store.getColumn("b").getLongValues().get(1));
+    assertNull(store.getColumn("s"));
+    assertThrows(UnsupportedOperationException.class, () -> d.getLongValues());
+  }
+
+  @Test
+  void structTest() throws IOException {
+    var store =
+        DataLogColumnStore.export(createLog(), m_tempDir.resolve("log.cols").toString());
+
+    assertEquals(
+        List.of(
+            "d", "f", "i", "b", "o/x", "o/in[0]/a", "o/in[0]/b", "o/in[1]/a", "o/in[1]/b", "o/f"),
+        store.getColumnNames());
+    assertEquals(10, store.getColumn("o/x").size());
+    assertEquals(7.0, store.getColumn("o/x").getDoubleValues().get(7));
+    assertEquals(-7, store.getColumn("o/in[0]/a").getLongValues().get(7));
+    assertEquals(1, store.getColumn("o/in[0]/b").getLongValues().get(7));
+    assertEquals(14, store.getColumn("o/in[1]/a").getLongValues().get(7));
+    assertEquals(0, store.getColumn("o/in[1]/b").getLongValues().get(7));
+    assertEquals(10.5, store.getColumn("o/f").getDoubleValues().get(7));
+  }
+
+  @Test
+  void rangeTest() throws IOException {
+    String filename = m_tempDir.resolve("log.cols").toString();
+    DataLogColumnStore.export(createLog(), filename);
+    DataLogColumnStore.Column column = DataLogColumnStore.load(filename).getColumn("o/x");
+
+    LongBuffer timestamps = column.getTimestamps(1200, 1500);
+    DoubleBuffer values = column.getDoubleValues(1200, 1500);
+    assertEquals(3, timestamps.remaining());
+    assertEquals(3, values.remaining());
+    assertEquals(1200, timestamps.get(0));
+    assertEquals(2.0, values.get(0));
+    assertEquals(4.0, values.get(2));
+    assertTrue(values.isReadOnly());
+    assertEquals(0, column.getDoubleValues(1500, 1200).remaining());
+    assertEquals(10, column.getTimestamps(0, Long.MAX_VALUE).remaining());
+  }
+
+  @Test
+  void sortTest() throws IOException {
+    var sink = new DataLogMemorySink();
+    var log = new DataLogWriter(sink);
+    int entry = log.start("i", "int64", "", 1);
+    long seed = 1;
+    for (int i = 0; i < 1000; i++) {
+      seed = seed * 6364136223846793005L + 1442695040888963407L;
+      // few distinct timestamps so that stability is exercised
+      log.appendInteger(entry, i, 1 + ((seed >>> 33) % 50));
+    }
+    log.close();
+    var store =
+        DataLogColumnStore.export(
+            new DataLogReader(sink.getBuffer()), m_tempDir.resolve("log.cols").toString());
+
+    DataLogColumnStore.Column column = store.getColumn("i");
+    LongBuffer timestamps = column.getTimestamps();
+    LongBuffer values = column.getLongValues();
+    assertEquals(1000, column.size());
+    boolean[] seen = new boolean[1000];
+    for (int i = 0; i < 1000; i++) {
+      seen[(int) values.get(i)] = true;
+      if (i > 0) {
+        assertTrue(timestamps.get(i - 1) <= timestamps.get(i));
+        if (timestamps.get(i - 1) == timestamps.get(i)) {
+          assertTrue(values.get(i - 1) < values.get(i));
+        }
+      }
+    }
+    for (boolean s : seen) {
+      assertTrue(s);
+    }
+  }
+
+  @Test
+  void loadDuplicateNameTest() throws IOException {
+    Path path = m_tempDir.resolve("log.cols");
+    DataLogColumnStore.export(createLog(), path.toString());
+    // the first two table entries are "d" and "f"; rename "f" to "d"
+    byte[] data = Files.readAllBytes(path);
+    int second = 24 + 4 + 1 + 1 + 4 + 8 + 8;
+    assertEquals(1, data[second]);
+    assertEquals('f', data[second + 4]);
+    data[second + 4] = 'd';
+    Files.write(path, data);
+    assertThrows(IOException.class, () -> DataLogColumnStore.load(path.toString()));
+  }
+
+  @Test
+  void loadInvalidTest() throws IOException {
+    Path path = m_tempDir.resolve("bad.cols");
+    Files.write(path, new byte[32]);
+    assertThrows(IOException.class, () -> DataLogColumnStore.load(path.toString()));
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DataLogCompactorTest {
+  private static DataLogReader compact(DataLogCompactor compactor, DataLogMemorySink input) {
+    var output = new DataLogMemorySink();
+    compactor.compact(new DataLogReader(input.getBuffer()), output);
+    return new DataLogReader(output.getBuffer());
+  }
+
+  /** Returns the timestamps of the data records of each entry, by entry name. */
+  private static Map<String, List<Long>> timestamps(DataLogReader reader) {
+    Map<Integer, String> names = new HashMap<>();
+    Map<String, List<Long>> timestamps = new HashMap<>();
+    for (DataLogRecord record : reader) {
+      if (record.isStart()) {
+        names.put(record.getStartData().entry, record.getStartData().name);
+      } else if (!record.isControl()) {
+        timestamps
+            .computeIfAbsent(names.get(record.getEntry()), k -> new ArrayList<>())
+            .add(record.getTimestamp());
+      }
+    }
+    return timestamps;
+  }
+
+  @Test
+  void duplicatesTest() {
+    var input = new DataLogMemorySink();
+    try (var log = new DataLogWriter(input, 0.25, "hdr")) {
+      int entry = log.start("a", "double", "meta", 5);
+      int str = log.start("s", "string", "", 5);
+      double[] values = {1, 1, 1, 2, 2, 1};
+      for (int i = 0; i < values.length; i++) {
+        log.appendDouble(entry, values[i], 100 + i);
+        log.appendString(str, "x", 100 + i);
+      }
+      log.setMetadata(entry, "meta2", 200);
+      log.finish(entry, 300);
+    }
+
+    var compactor = new DataLogCompactor();
+    DataLogReader output = compact(compactor, input);
+    assertEquals("hdr", output.getExtraHeader());
+    assertEquals(List.of(100L, 103L, 105L), timestamps(output).get("a"));
+    assertEquals(List.of(100L), timestamps(output).get("s"));
+    assertEquals(12, compactor.getRecordsRead());
+    assertEquals(4, compactor.getRecordsWritten());
+
+    List<String> control = new ArrayList<>();
+    for (DataLogRecord record : output) {
+      if (record.isStart()) {
+        assertEquals(5, record.getTimestamp());
+        control.add("start " + record.getStartData().name + " " + record.getStartData().metadata);
+      } else if (record.isSetMetadata()) {
+        assertEquals(200, record.getTimestamp());
+        control.add("metadata " + record.getSetMetadataData().metadata);
+      } else if (record.isFinish()) {
+        assertEquals(300, record.getTimestamp());
+        control.add("finish");
+      }
+    }
+    assertEquals(List.of("start a meta", "start s ", "metadata meta2", "finish"), control);
+  }
+
+  @Test
+  void rulesTest() {
+    var input = new DataLogMemorySink();
+    try (var log = new DataLogWriter(input)) {
+      int deadband = log.start("/dead/x", "double", "", 1);
+      int decimate = log.start("/dec/y", "int64", "", 1);
+      int period = log.start("/per/z", "float", "", 1);
+      int schema = log.start("/.schema/struct:Foo", "structschema", "", 1);
+      double[] values = {0, 0.05, 0.2, 0.25, 0.05};
+      for (int i = 0; i < values.length; i++) {
+        log.appendDouble(deadband, values[i], 100 + i);
+        log.appendInteger(decimate, i, 100 + i);
+        log.appendFloat(period, i, 100 + i * 10);
+        log.appendString(schema, "int8 a", 100 + i);
+      }
+    }
+
+    var compactor =
+        new DataLogCompactor()
+            .setDeadband("/dead/", 0.1)
+            .setDecimation("/dec/", 2)
+            .setMinPeriod("/per/", 20);
+    Map<String, List<Long>> timestamps = timestamps(compact(compactor, input));
+    assertEquals(List.of(100L, 102L, 104L), timestamps.get("/dead/x"));
+    assertEquals(List.of(100L, 102L, 104L), timestamps.get("/dec/y"));
+    assertEquals(List.of(100L, 120L, 140L), timestamps.get("/per/z"));
+    // schema records are never dropped
+    assertEquals(5, timestamps.get("/.schema/struct:Foo").size());
+  }
+
+  @Test
+  void largeLogTest() {
+    // larger than the writer's outgoing buffer limit, so compaction must not drop data
+    var input = new DataLogMemorySink();
+    int count = 200000;
+    try (var log = new DataLogWriter(input)) {
+      log.setBlocking(true);
+      int entry = log.start("a", "int64", "", 1);
+      for (int i = 0; i < count; i++) {
+        log.appendInteger(entry, i / 2, i + 1);
+      }
+    }
+
+    var compactor = new DataLogCompactor();
+    List<Long> timestamps = timestamps(compact(compactor, input)).get("a");
+    assertEquals(count, compactor.getRecordsRead());
+    assertEquals(count / 2, timestamps.size());
+    assertEquals(count - 1, timestamps.get(timestamps.size() - 1).longValue());
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.InputMismatchException;
+import org.junit.jupiter.api.Test;
+
+class DataLogCursorTest {
+  private static ByteBuffer doubles(double... values) {
+    ByteBuffer data = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+    for (double value : values) {
+      data.putDouble(value);
+    }
+    return data.flip();
+  }
+
+  @Test
+  void iterateTest() {
+    DataLogReader reader =
+        new TestLogBuilder(1024)
+            .start(1, "a", "double")
+            .start(2, "b", "double[]")
+            .appendDouble(1, 100, 1.5)
+            .record(2, 200, doubles(1.0, 2.0, 3.0))
+            .build();
+    DataLogCursor cursor = reader.cursor();
+
+    assertTrue(cursor.next());
+    assertTrue(cursor.isStart());
+    assertEquals(1, cursor.getControlEntry());
+    assertEquals("a", cursor.toRecord().getStartData().name);
+
+    assertTrue(cursor.next());
+    assertTrue(cursor.isStart());
+    assertEquals(2, cursor.getControlEntry());
+
+    assertTrue(cursor.next());
+    assertFalse(cursor.isControl());
+    assertEquals(1, cursor.getEntry());
+    assertEquals(100, cursor.getTimestamp());
+    assertEquals(8, cursor.getSize());
+    assertEquals(1.5, cursor.getDouble());
+
+    assertTrue(cursor.next());
+    assertEquals(2, cursor.getEntry());
+    assertEquals(200, cursor.getTimestamp());
+    double[] values = new double[2];
+    assertEquals(3, cursor.getDoubleArray(values));
+    assertArrayEquals(new double[] {1.0, 2.0}, values);
+
+    assertFalse(cursor.next());
+    assertFalse(cursor.next());
+    assertThrows(InputMismatchException.class, cursor::getDouble);
+  }
+
+  @Test
+  void readAfterEndTest() {
+    DataLogReader reader =
+        new TestLogBuilder(1024)
+            .start(1, "a", "string")
+            .record(1, 100, doubles(1.0, 2.0))
+            .build();
+    DataLogCursor cursor = reader.cursor();
+
+    // Before the first record
+    assertThrows(InputMismatchException.class, cursor::getString);
+
+    assertTrue(cursor.next());
+    assertTrue(cursor.next());
+    assertEquals(16, cursor.getRaw(new byte[16]));
+    assertFalse(cursor.next());
+
+    // The previous record's payload must not be decoded
+    assertThrows(InputMismatchException.class, cursor::getString);
+    assertThrows(InputMismatchException.class, () -> cursor.getRaw(new byte[16]));
+    assertThrows(InputMismatchException.class, () -> cursor.getBooleanArray(new boolean[16]));
+    assertThrows(InputMismatchException.class, () -> cursor.getIntegerArray(new long[2]));
+    assertThrows(InputMismatchException.class, () -> cursor.getFloatArray(new float[4]));
+    assertThrows(InputMismatchException.class, () -> cursor.getDoubleArray(new double[2]));
+  }
+
+  @Test
+  void truncatedTest() {
+    ByteBuffer buf =
+        new TestLogBuilder(1024).appendDouble(1, 100, 1.5).appendDouble(1, 200, 2.5).buffer();
+    buf.limit(buf.limit() - 1);
+    DataLogCursor cursor = new DataLogReader(buf).cursor();
+
+    assertTrue(cursor.next());
+    assertEquals(100, cursor.getTimestamp());
+    assertFalse(cursor.next());
+    assertThrows(IllegalStateException.class, cursor::toRecord);
+  }
+}
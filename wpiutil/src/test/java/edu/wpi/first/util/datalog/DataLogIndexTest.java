@@ -0,0 +1,124 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataLogIndexTest {
+  @TempDir Path m_tempDir;
+
+  private static DataLogReader createLog() {
+    TestLogBuilder builder = new TestLogBuilder(4096).start(1, "a", "double");
+    builder.start(2, "b", "double");
+    for (int i = 0; i < 10; i++) {
+      builder.appendDouble(1, 1000 + i * 100, i);
+      builder.appendDouble(2, 1050 + i * 100, 10 + i);
+    }
+    // out of order record
+    builder.appendDouble(1, 500, -1);
+    return builder.build();
+  }
+
+  private static List<Double> values(Iterable<DataLogRecord> records) {
+    List<Double> values = new ArrayList<>();
+    for (DataLogRecord record : records) {
+      values.add(record.getDouble());
+    }
+    return values;
+  }
+
+  @Test
+  void buildTest() {
+    DataLogIndex index = DataLogIndex.build(createLog());
+
+    assertEquals(23, index.getRecordCount());
+    assertArrayEquals(new int[] {0, 1, 2}, index.getEntries());
+    assertEquals(2, index.getRecordCount(0));
+    assertEquals(11, index.getRecordCount(1));
+    assertEquals(10, index.getRecordCount(2));
+    assertEquals(0, index.getRecordCount(3));
+    assertEquals(0, index.getFirstTimestamp());
+    assertEquals(1950, index.getLastTimestamp());
+  }
+
+  @Test
+  void seekTest() {
+    DataLogIndex index = DataLogIndex.build(createLog());
+
+    Iterator<DataLogRecord> it = index.seek(1100);
+    DataLogRecord record = it.next();
+    assertEquals(1, record.getEntry());
+    assertEquals(1100, record.getTimestamp());
+    record = it.next();
+    assertEquals(2, record.getEntry());
+    assertEquals(1150, record.getTimestamp());
+
+    it = index.seek(400);
+    assertEquals(500, it.next().getTimestamp());
+
+    assertFalse(index.seek(2000).hasNext());
+    assertEquals(index.getRecordCount(), index.find(2000));
+  }
+
+  @Test
+  void recordsForTest() {
+    DataLogIndex index = DataLogIndex.build(createLog());
+
+    assertEquals(List.of(-1.0, 0.0, 1.0), values(index.recordsFor(1, 0, 1200)));
+    assertEquals(List.of(12.0, 13.0), values(index.recordsFor(2, 1200, 1400)));
+    assertTrue(values(index.recordsFor(2, 1400, 1200)).isEmpty());
+    assertTrue(values(index.recordsFor(5, 0, Long.MAX_VALUE)).isEmpty());
+  }
+
+  @Test
+  void getRecordAtTest() {
+    DataLogIndex index = DataLogIndex.build(createLog());
+
+    assertNull(index.getRecordAt(1, 499));
+    assertEquals(-1.0, index.getRecordAt(1, 500).getDouble());
+    assertEquals(3.0, index.getRecordAt(1, 1399).getDouble());
+    assertEquals(9.0, index.getRecordAt(1, Long.MAX_VALUE).getDouble());
+    assertNull(index.getRecordAt(5, 1000));
+  }
+
+  @Test
+  void saveLoadTest() throws IOException {
+    DataLogReader reader = createLog();
+    String filename = m_tempDir.resolve("test.wpilog.idx").toString();
+    DataLogIndex.build(reader).save(filename);
+
+    DataLogIndex index = DataLogIndex.load(reader, filename);
+    assertEquals(23, index.getRecordCount());
+    assertArrayEquals(new int[] {0, 1, 2}, index.getEntries());
+    assertEquals(List.of(12.0, 13.0), values(index.recordsFor(2, 1200, 1400)));
+    assertEquals(1100, index.seek(1100).next().getTimestamp());
+  }
+
+  @Test
+  void loadMismatchTest() throws IOException {
+    String filename = m_tempDir.resolve("test.wpilog.idx").toString();
+    DataLogIndex.build(createLog()).save(filename);
+
+    DataLogReader other = new TestLogBuilder(12).build();
+    assertThrows(IOException.class, () -> DataLogIndex.load(other, filename));
+
+    // open() rebuilds the index for the new log
+    assertEquals(0, DataLogIndex.open(other, filename).getRecordCount());
+    assertEquals(0, DataLogIndex.load(other, filename).getRecordCount());
+  }
+}
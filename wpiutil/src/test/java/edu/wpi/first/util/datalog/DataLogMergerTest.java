@@ -0,0 +1,132 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DataLogMergerTest {
+  private static DataLogReader createLog(String name, long start, long step, int count) {
+    var sink = new DataLogMemorySink();
+    try (var log = new DataLogWriter(sink)) {
+      log.setBlocking(true);
+      log.start("/.schema/struct:Foo", "structschema", "", 1);
+      int entry = log.start(name, "double", "", start);
+      for (int i = 0; i < count; i++) {
+        log.appendDouble(entry, i, start + i * step);
+      }
+      log.finish(entry, start + count * step);
+    }
+    return new DataLogReader(sink.getBuffer());
+  }
+
+  @Test
+  void mergeTest() {
+    var output = new DataLogMemorySink();
+    new DataLogMerger()
+        .addInput(createLog("a", 1000, 100, 5), 0, "robot/")
+        .addInput(createLog("a", 2000, 100, 5), -950, "coproc/")
+        .setExtraHeader("merged")
+        .merge(output);
+
+    var reader = new DataLogReader(output.getBuffer());
+    assertEquals("merged", reader.getExtraHeader());
+    Map<Integer, String> names = new HashMap<>();
+    List<String> data = new ArrayList<>();
+    long last = 0;
+    int schemaStarts = 0;
+    int finishes = 0;
+    for (DataLogRecord record : reader) {
+      assertTrue(record.getTimestamp() >= last);
+      last = record.getTimestamp();
+      if (record.isStart()) {
+        names.put(record.getStartData().entry, record.getStartData().name);
+        if (record.getStartData().name.startsWith("/.schema/")) {
+          ++schemaStarts;
+        }
+      } else if (record.isFinish()) {
+        ++finishes;
+      } else if (!record.isControl()) {
+        data.add(names.get(record.getEntry()) + "@" + record.getTimestamp());
+      }
+    }
+    assertEquals(1, schemaStarts);
+    assertEquals(2, finishes);
+    assertEquals(
+        List.of(
+            "robot/a@1000",
+            "coproc/a@1050",
+            "robot/a@1100",
+            "coproc/a@1150",
+            "robot/a@1200",
+            "coproc/a@1250",
+            "robot/a@1300",
+            "coproc/a@1350",
+            "robot/a@1400",
+            "coproc/a@1450"),
+        data);
+  }
+
+  @Test
+  void mergeSchemaTest() {
+    DataLogReader[] inputs = new DataLogReader[3];
+    for (int i = 0; i < inputs.length; i++) {
+      var sink = new DataLogMemorySink();
+      try (var log = new DataLogWriter(sink)) {
+        log.setBlocking(true);
+        log.addSchema("struct:Foo", "structschema", "double x", 1);
+        log.addSchema("struct:Bar" + i, "structschema", "int32 y", 1);
+      }
+      inputs[i] = new DataLogReader(sink.getBuffer());
+    }
+    var output = new DataLogMemorySink();
+    new DataLogMerger().addInput(inputs[0]).addInput(inputs[1]).addInput(inputs[2]).merge(output);
+
+    Map<Integer, String> names = new HashMap<>();
+    List<String> data = new ArrayList<>();
+    for (DataLogRecord record : new DataLogReader(output.getBuffer())) {
+      if (record.isStart()) {
+        names.put(record.getStartData().entry, record.getStartData().name);
+      } else if (!record.isControl()) {
+        data.add(names.get(record.getEntry()) + "=" + record.getString());
+      }
+    }
+    assertEquals(
+        List.of(
+            "/.schema/struct:Foo=double x",
+            "/.schema/struct:Bar0=int32 y",
+            "/.schema/struct:Bar1=int32 y",
+            "/.schema/struct:Bar2=int32 y"),
+        data);
+  }
+
+  @Test
+  void largeMergeTest() {
+    var output = new DataLogMemorySink();
+    int count = 100000;
+    new DataLogMerger()
+        .addInput(createLog("a", 1, 2, count))
+        .addInput(createLog("b", 2, 2, count))
+        .addInput(createLog("c", 1, 3, count))
+        .merge(output);
+
+    long last = 0;
+    int records = 0;
+    for (DataLogRecord record : new DataLogReader(output.getBuffer())) {
+      assertTrue(record.getTimestamp() >= last);
+      last = record.getTimestamp();
+      if (!record.isControl()) {
+        ++records;
+      }
+    }
+    assertEquals(3 * count, records);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+
+class DataLogReaderTest {
+  private static final int kCount = 50000;
+
+  private static DataLogReader createLog() {
+    TestLogBuilder builder = new TestLogBuilder(32 * (kCount + 1) + 64).start(1, "a", "double");
+    for (int i = 0; i < kCount; i++) {
+      // every 100th record is written late
+      long timestamp = (i % 100) == 99 ? (i - 50) * 10L : i * 10L;
+      builder.appendDouble(1, timestamp, i);
+    }
+    return builder.build();
+  }
+
+  @Test
+  void spliteratorTest() {
+    DataLogReader reader = createLog();
+
+    assertEquals(
+        kCount + 1,
+        StreamSupport.stream(reader.spliterator(), true).filter(r -> r.getSize() > 0).count());
+    assertEquals(
+        (long) kCount * (kCount - 1) / 2,
+        StreamSupport.stream(reader.spliterator(), true)
+            .filter(r -> !r.isControl())
+            .mapToLong(r -> (long) r.getDouble())
+            .sum());
+  }
+
+  @Test
+  void spliteratorSplitTest() {
+    DataLogReader reader = createLog();
+
+    List<Double> expected = new ArrayList<>();
+    for (DataLogRecord record : reader) {
+      if (!record.isControl()) {
+        expected.add(record.getDouble());
+      }
+    }
+
+    // split every range down to the minimum size; the leaves must cover the log in file order
+    List<Double> actual = new ArrayList<>();
+    int leaves = collectLeaves(reader.spliterator(), actual);
+    assertTrue(leaves > 1);
+    assertEquals(expected, actual);
+  }
+
+  private static int collectLeaves(DataLogSpliterator spliterator, List<Double> values) {
+    DataLogSpliterator prefix = spliterator.trySplit();
+    if (prefix == null) {
+      spliterator.forEachRemaining(
+          r -> {
+            if (!r.isControl()) {
+              values.add(r.getDouble());
+            }
+          });
+      return 1;
+    }
+    return collectLeaves(prefix, values) + collectLeaves(spliterator, values);
+  }
+
+  @Test
+  void decodeParallelTest() {
+    DataLogReader reader = createLog();
+
+    List<DataLogRecord> expected = new ArrayList<>();
+    for (DataLogRecord record : reader) {
+      if (!record.isControl()) {
+        expected.add(record);
+      }
+    }
+    expected.sort(Comparator.comparingLong(DataLogRecord::getTimestamp));
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<Double> values =
+          reader.decodeParallel(pool, r -> r.isControl() ? null : r.getDouble());
+      assertEquals(expected.size(), values.size());
+      for (int i = 0; i < values.size(); i++) {
+        assertEquals(expected.get(i).getDouble(), values.get(i).doubleValue());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
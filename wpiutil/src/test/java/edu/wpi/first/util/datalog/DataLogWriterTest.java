@@ -0,0 +1,254 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataLogWriterTest {
+  private static final String kUnicodeString = "h\u00e9llo \u2603 \ud83d\ude00"; // 2-4 byte UTF-8
+
+  @TempDir Path m_tempDir;
+
+  @Test
+  void headerTest() {
+    var sink = new DataLogMemorySink();
+    new DataLogWriter(sink, 0.25, "extra").close();
+
+    var reader = new DataLogReader(sink.getBuffer());
+    assertTrue(reader.isValid());
+    assertEquals(0x0100, reader.getVersion());
+    assertEquals("extra", reader.getExtraHeader());
+    assertFalse(reader.iterator().hasNext());
+  }
+
+  @Test
+  void roundTripTest() {
+    var sink = new DataLogMemorySink();
+    var log = new DataLogWriter(sink);
+    int boolEntry = log.start("bool", "boolean", "meta", 1);
+    int intEntry = log.start("int", "int64");
+    int floatEntry = log.start("float", "float");
+    int doubleEntry = log.start("double", "double");
+    int stringEntry = log.start("string", "string");
+    int doubleArrEntry = log.start("doubleArr", "double[]");
+    int stringArrEntry = log.start("stringArr", "string[]");
+    assertEquals(intEntry, log.start("int", "int64"));
+    assertEquals(0, log.start("int", "double"));
+
+    log.appendBoolean(boolEntry, true, 100);
+    log.appendInteger(intEntry, 1L << 40, 200);
+    log.appendFloat(floatEntry, 1.5f, 300);
+    log.appendDouble(doubleEntry, 2.5, 1L << 50);
+    log.appendString(stringEntry, kUnicodeString, 500);
+    double[] bigArr = new double[5000];
+    for (int i = 0; i < bigArr.length; i++) {
+      bigArr[i] = i * 0.5;
+    }
+    log.appendDoubleArray(doubleArrEntry, bigArr, 600);
+    log.appendStringArray(stringArrEntry, new String[] {"a", "bc", ""}, 700);
+    log.setMetadata(doubleEntry, "newmeta", 800);
+    log.finish(boolEntry, 900);
+    log.close();
+
+    Iterator<DataLogRecord> it = new DataLogReader(sink.getBuffer()).iterator();
+    DataLogRecord.StartRecordData start = it.next().getStartData();
+    assertEquals(boolEntry, start.entry);
+    assertEquals("bool", start.name);
+    assertEquals("boolean", start.type);
+    assertEquals("meta", start.metadata);
+    for (int i = 0; i < 6; i++) {
+      assertTrue(it.next().isStart());
+    }
+
+    DataLogRecord record = it.next();
+    assertEquals(boolEntry, record.getEntry());
+    assertEquals(100, record.getTimestamp());
+    assertTrue(record.getBoolean());
+    assertEquals(1L << 40, it.next().getInteger());
+    assertEquals(1.5f, it.next().getFloat());
+    record = it.next();
+    assertEquals(1L << 50, record.getTimestamp());
+    assertEquals(2.5, record.getDouble());
+    assertEquals(kUnicodeString, it.next().getString());
+    assertArrayEquals(bigArr, it.next().getDoubleArray());
+    assertArrayEquals(new String[] {"a", "bc", ""}, it.next().getStringArray());
+    DataLogRecord.MetadataRecordData metadata = it.next().getSetMetadataData();
+    assertEquals(doubleEntry, metadata.entry);
+    assertEquals("newmeta", metadata.metadata);
+    assertEquals(boolEntry, it.next().getFinishEntry());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  void pauseTest() {
+    var sink = new DataLogMemorySink();
+    var log = new DataLogWriter(sink);
+    int entry = log.start("double", "double");
+    log.pause();
+    log.appendDouble(entry, 1.0, 100);
+    log.resume();
+    log.appendDouble(entry, 2.0, 200);
+    log.close();
+
+    int count = 0;
+    for (DataLogRecord record : new DataLogReader(sink.getBuffer())) {
+      if (!record.isControl()) {
+        assertEquals(2.0, record.getDouble());
+        ++count;
+      }
+    }
+    assertEquals(1, count);
+  }
+
+  @Test
+  void schemaTest() {
+    var sink = new DataLogMemorySink();
+    var log = new DataLogWriter(sink);
+    log.addSchema("test", "structschema", "double x");
+    log.addSchema("test", "structschema", "double y");
+    assertTrue(log.hasSchema("test"));
+    log.close();
+
+    Iterator<DataLogRecord> it = new DataLogReader(sink.getBuffer()).iterator();
+    DataLogRecord.StartRecordData start = it.next().getStartData();
+    assertEquals("/.schema/test", start.name);
+    assertEquals("structschema", start.type);
+    assertEquals("double x", it.next().getString());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  void typeMismatchTest() {
+    var sink = new DataLogMemorySink();
+    List<String> messages = new ArrayList<>();
+    var log = new DataLogWriter(sink, 0.25, "", () -> 0, messages::add);
+    assertTrue(log.start("value", "double") > 0);
+    assertEquals(0, log.start("value", "int64"));
+    log.close();
+
+    assertEquals(1, messages.size());
+    assertTrue(messages.get(0).startsWith("type mismatch for 'value'"));
+  }
+
+  @Test
+  void fileSinkTest() throws IOException {
+    String filename = m_tempDir.resolve("test.wpilog").toString();
+    var log = new DataLogWriter(filename);
+    int entry = log.start("double", "double");
+    log.appendDouble(entry, 1.0, 100);
+    log.close();
+
+    int count = 0;
+    for (DataLogRecord record : new DataLogReader(filename)) {
+      if (!record.isControl()) {
+        assertEquals(1.0, record.getDouble());
+        ++count;
+      }
+    }
+    assertEquals(1, count);
+  }
+
+  @Test
+  void rotatingSinkTest() throws IOException, InterruptedException {
+    var sink = new DataLogRotatingFileSink(m_tempDir.toString(), "test.wpilog", 64);
+    var log = new DataLogWriter(sink);
+    log.addSchema("test", "structschema", "double x");
+    int entry = log.start("double", "double");
+    log.appendDouble(entry, 1.0, 100);
+    log.flush();
+    while (!sink.isSegmentFull()) {
+      Thread.sleep(10);
+    }
+    // pending data finishes the full segment, then the next one is started
+    log.appendDouble(entry, 2.0, 200);
+    log.flush();
+    Path second = m_tempDir.resolve("test.2.wpilog");
+    while (!second.equals(sink.getPath())) {
+      Thread.sleep(10);
+    }
+    log.appendDouble(entry, 3.0, 300);
+    log.close();
+
+    Path first = m_tempDir.resolve("test.wpilog");
+    assertEquals(List.of(1.0, 2.0), readDoubles(first, entry));
+
+    // the second file is a complete log: schema, start record, then data
+    Iterator<DataLogRecord> it = new DataLogReader(second.toString()).iterator();
+    assertEquals("/.schema/test", it.next().getStartData().name);
+    assertEquals("double x", it.next().getString());
+    DataLogRecord.StartRecordData start = it.next().getStartData();
+    assertEquals("double", start.name);
+    assertEquals(entry, start.entry);
+    assertEquals(3.0, it.next().getDouble());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  void rotatingSinkConsistencyTest() throws IOException, InterruptedException {
+    var sink = new DataLogRotatingFileSink(m_tempDir.toString(), "test.wpilog", 256);
+    var log = new DataLogWriter(sink, 0.001, "");
+    int longLived = log.start("long", "double");
+    List<Double> expected = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      // entries started and finished between flushes must not straddle a rotation
+      int entry = log.start("short" + (i % 7), "double");
+      log.appendDouble(entry, i, i + 1);
+      log.appendDouble(longLived, -i, i + 1);
+      log.finish(entry, i + 1);
+      expected.add((double) i);
+      expected.add((double) -i);
+      if (i % 10 == 0) {
+        Thread.sleep(1);
+      }
+    }
+    log.close();
+
+    List<Double> actual = new ArrayList<>();
+    int files = 0;
+    for (Path path = m_tempDir.resolve("test.wpilog");
+        Files.exists(path);
+        path = m_tempDir.resolve("test." + (files + 1) + ".wpilog")) {
+      ++files;
+      // every file stands alone: each record refers to an entry started earlier in that file
+      Set<Integer> active = new HashSet<>();
+      for (DataLogRecord record : new DataLogReader(path.toString())) {
+        if (record.isStart()) {
+          assertTrue(active.add(record.getStartData().entry), path + ": duplicate start");
+        } else if (record.isFinish()) {
+          assertTrue(active.remove(record.getFinishEntry()), path + ": finish without start");
+        } else if (!record.isControl()) {
+          assertTrue(active.contains(record.getEntry()), path + ": data without start");
+          actual.add(record.getDouble());
+        }
+      }
+    }
+    assertTrue(files > 1);
+    assertEquals(expected, actual);
+  }
+
+  private static List<Double> readDoubles(Path path, int entry) throws IOException {
+    List<Double> values = new ArrayList<>();
+    for (DataLogRecord record : new DataLogReader(path.toString())) {
+      if (record.getEntry() == entry) {
+        values.add(record.getDouble());
+      }
+    }
+    return values;
+  }
+}
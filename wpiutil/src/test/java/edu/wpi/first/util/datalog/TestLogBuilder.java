@@ -0,0 +1,65 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.datalog;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/** Builds raw data log buffers for reader tests. */
+final class TestLogBuilder {
+  private ByteBuffer m_buf;
+
+  TestLogBuilder(int capacity) {
+    m_buf = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    m_buf.put("WPILOG".getBytes(StandardCharsets.US_ASCII));
+    m_buf.putShort((short) 0x0100);
+    m_buf.putInt(0);
+  }
+
+  TestLogBuilder record(int entry, long timestamp, ByteBuffer data) {
+    // 4-byte entry, 4-byte size, 8-byte timestamp
+    m_buf.put((byte) (0x3 | (0x3 << 2) | (0x7 << 4)));
+    m_buf.putInt(entry);
+    m_buf.putInt(data.remaining());
+    m_buf.putLong(timestamp);
+    m_buf.put(data);
+    return this;
+  }
+
+  TestLogBuilder start(int entry, String name, String type) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer data =
+        ByteBuffer.allocate(17 + nameBytes.length + typeBytes.length)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    data.put((byte) 0);
+    data.putInt(entry);
+    data.putInt(nameBytes.length);
+    data.put(nameBytes);
+    data.putInt(typeBytes.length);
+    data.put(typeBytes);
+    data.putInt(0);
+    data.flip();
+    return record(0, 0, data);
+  }
+
+  TestLogBuilder appendDouble(int entry, long timestamp, double value) {
+    ByteBuffer data = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    data.putDouble(value);
+    data.flip();
+    return record(entry, timestamp, data);
+  }
+
+  ByteBuffer buffer() {
+    ByteBuffer buf = m_buf.flip();
+    m_buf = null;
+    return buf;
+  }
+
+  DataLogReader build() {
+    return new DataLogReader(buffer());
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledStructTest {
+  @SuppressWarnings("MemberName")
+  private StructDescriptorDatabase db;
+
+  @BeforeEach
+  public void init() {
+    db = new StructDescriptorDatabase();
+  }
+
+  @Test
+  void testPaths() {
+    assertDoesNotThrow(() -> db.add("inner", "double x; int8 y[2]"));
+    var desc = assertDoesNotThrow(() -> db.add("test", "char s[4]; inner a[2]; bool b"));
+    CompiledStruct compiled = db.getCompiled(desc);
+    assertEquals(desc.getSize(), compiled.getSize());
+    assertEquals(8, compiled.getAccessorCount());
+    assertEquals("s", compiled.getAccessor(0).getPath());
+    assertEquals("a[0]/x", compiled.getAccessor(1).getPath());
+    assertEquals("a[0]/y[1]", compiled.getAccessor(3).getPath());
+    assertEquals("a[1]/x", compiled.getAccessor(4).getPath());
+    assertEquals(4 + 10, compiled.find("a[1]/x").getOffset());
+    assertEquals(1, compiled.find("a[1]/y[1]").getArrayIndex());
+    assertNull(compiled.find("a"));
+  }
+
+  @Test
+  void testMatchesDynamicStruct() {
+    var desc =
+        assertDoesNotThrow(
+            () ->
+                db.add(
+                    "test",
+                    "int8 a; uint8 b; int16 c; uint16 d; int32 e; uint32 f; int64 g; float h; "
+                        + "double i; int16 j:3; bool k:1; uint16 l:5; int8 m[2]; bool n"));
+    DynamicStruct dynamic = DynamicStruct.allocate(desc);
+    dynamic.setIntField(desc.findFieldByName("a"), -5);
+    dynamic.setIntField(desc.findFieldByName("b"), 250);
+    dynamic.setIntField(desc.findFieldByName("c"), -1000);
+    dynamic.setIntField(desc.findFieldByName("d"), 60000);
+    dynamic.setIntField(desc.findFieldByName("e"), -100000);
+    dynamic.setIntField(desc.findFieldByName("f"), 4000000000L);
+    dynamic.setIntField(desc.findFieldByName("g"), -(1L << 40));
+    dynamic.setFloatField(desc.findFieldByName("h"), 1.5f);
+    dynamic.setDoubleField(desc.findFieldByName("i"), -2.25);
+    dynamic.setIntField(desc.findFieldByName("j"), -3);
+    dynamic.setBoolField(desc.findFieldByName("k"), true);
+    dynamic.setIntField(desc.findFieldByName("l"), 17);
+    dynamic.setIntField(desc.findFieldByName("m"), 7, 0);
+    dynamic.setIntField(desc.findFieldByName("m"), -7, 1);
+    dynamic.setBoolField(desc.findFieldByName("n"), true);
+
+    // place the struct at a non-zero offset in a larger buffer
+    ByteBuffer bb = ByteBuffer.allocate(desc.getSize() + 3).order(ByteOrder.LITTLE_ENDIAN);
+    bb.position(3);
+    bb.put(dynamic.getBuffer());
+
+    CompiledStruct compiled = db.getCompiled("test");
+    for (CompiledStruct.Accessor accessor : compiled.getAccessors()) {
+      StructFieldDescriptor field = accessor.getField();
+      int arrIndex = accessor.getArrayIndex();
+      switch (field.getType()) {
+        case kFloat:
+          assertEquals(
+              dynamic.getFloatField(field, arrIndex),
+              accessor.getDouble(bb, 3),
+              accessor.getPath());
+          break;
+        case kDouble:
+          assertEquals(
+              dynamic.getDoubleField(field, arrIndex),
+              accessor.getDouble(bb, 3),
+              accessor.getPath());
+          break;
+        case kBool:
+          assertEquals(
+              dynamic.getBoolField(field, arrIndex),
+              accessor.getBoolean(bb, 3),
+              accessor.getPath());
+          break;
+        default:
+          assertEquals(
+              dynamic.getIntField(field, arrIndex), accessor.getLong(bb, 3), accessor.getPath());
+          break;
+      }
+    }
+    assertEquals(-3, compiled.find("j").getLong(bb, 3));
+    assertEquals(4000000000L, compiled.find("f").getLong(bb, 3));
+
+    double[] values = new double[compiled.getAccessorCount()];
+    compiled.getDoubles(bb, 3, values);
+    assertEquals(250.0, values[1]);
+    assertEquals(1.5, values[7]);
+    assertThrows(UnsupportedOperationException.class, () -> compiled.find("i").getLong(bb, 3));
+  }
+
+  @Test
+  void testString() {
+    var desc = assertDoesNotThrow(() -> db.add("test", "char s[3]"));
+    DynamicStruct dynamic = DynamicStruct.allocate(desc);
+    dynamic.setStringField(desc.findFieldByName("s"), "abc");
+    CompiledStruct.Accessor accessor = db.getCompiled(desc).find("s");
+    ByteBuffer bb = dynamic.getBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals("abc", accessor.getString(bb, 0));
+    assertThrows(UnsupportedOperationException.class, () -> accessor.getDouble(bb, 0));
+  }
+
+  @Test
+  void testCache() {
+    var desc = assertDoesNotThrow(() -> db.add("test", "int32 a"));
+    CompiledStruct compiled = db.getCompiled(desc);
+    assertSame(compiled, db.getCompiled("test"));
+    // adding schemas invalidates the cache
+    assertDoesNotThrow(() -> db.add("other", "int32 b"));
+    CompiledStruct recompiled = db.getCompiled("test");
+    assertNotSame(compiled, recompiled);
+    assertEquals(1, recompiled.getAccessorCount());
+
+    assertDoesNotThrow(() -> db.add("pending", "foo a"));
+    assertNull(db.getCompiled("pending"));
+    assertNull(db.getCompiled("missing"));
+  }
+}
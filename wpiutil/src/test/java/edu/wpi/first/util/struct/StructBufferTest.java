@@ -0,0 +1,122 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package edu.wpi.first.util.struct;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.Test;
+
+class StructBufferTest {
+  static final class Point {
+    double m_x;
+    double m_y;
+
+    Point(double x, double y) {
+      m_x = x;
+      m_y = y;
+    }
+  }
+
+  static final class PointStruct implements Struct<Point> {
+    @Override
+    public Class<Point> getTypeClass() {
+      return Point.class;
+    }
+
+    @Override
+    public String getTypeString() {
+      return "struct:Point";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 2;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double x;double y";
+    }
+
+    @Override
+    public Point unpack(ByteBuffer bb) {
+      return new Point(bb.getDouble(), bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, Point value) {
+      bb.putDouble(value.m_x);
+      bb.putDouble(value.m_y);
+    }
+
+    @Override
+    public void unpackInto(Point out, ByteBuffer bb) {
+      out.m_x = bb.getDouble();
+      out.m_y = bb.getDouble();
+    }
+  }
+
+  private static Point[] points(int count, double offset) {
+    Point[] arr = new Point[count];
+    for (int i = 0; i < count; i++) {
+      arr[i] = new Point(i + offset, -i - offset);
+    }
+    return arr;
+  }
+
+  @Test
+  void writeArrayRangeTest() {
+    StructBuffer<Point> buf = StructBuffer.create(new PointStruct());
+    buf.reserve(8);
+    Point[] values = points(5, 0.5);
+    ByteBuffer bb = buf.writeArray(values, 1, 3);
+    assertEquals(48, bb.position());
+    assertEquals(1.5, bb.getDouble(0));
+    assertEquals(-3.5, bb.getDouble(40));
+    // no reallocation when capacity is sufficient
+    assertSame(bb, buf.writeArray(values, 0, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> buf.writeArray(values, 3, 3));
+  }
+
+  @Test
+  void writeArrayIntoTest() {
+    StructBuffer<Point> buf = StructBuffer.create(new PointStruct());
+    ByteBuffer out = ByteBuffer.allocate(40);
+    out.position(8);
+    buf.writeArrayInto(out, points(3, 0), 1, 2);
+    assertEquals(40, out.position());
+    // byte order is restored
+    assertEquals(ByteOrder.BIG_ENDIAN, out.order());
+    assertEquals(1.0, out.order(ByteOrder.LITTLE_ENDIAN).getDouble(8));
+    out.position(8);
+    assertThrows(BufferOverflowException.class, () -> buf.writeArrayInto(out, points(3, 0), 0, 3));
+  }
+
+  @Test
+  void readArrayIntoTest() {
+    StructBuffer<Point> buf = StructBuffer.create(new PointStruct());
+    ByteBuffer bb = buf.writeArray(points(4, 0.25));
+    byte[] data = new byte[bb.position()];
+    bb.flip().get(data);
+
+    Point[] out = points(3, 100);
+    Point first = out[0];
+    assertEquals(4, buf.readArrayInto(out, data));
+    assertSame(first, out[0]);
+    assertEquals(0.25, out[0].m_x);
+    assertEquals(-2.25, out[2].m_y);
+
+    Point[] big = points(6, 100);
+    assertEquals(2, buf.readArrayInto(big, data, 32, 32));
+    assertEquals(2.25, big[0].m_x);
+    assertEquals(3.25, big[1].m_x);
+    assertEquals(102.0, big[2].m_x);
+  }
+}